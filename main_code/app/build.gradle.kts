@@ -14,6 +14,12 @@ android {
         }
     }
 
+    // Benchmarks print timings instead of asserting, so they stay out of the unit tests.
+    // Run them with: ./gradlew testDebugUnitTest -Pbenchmark --tests '*Benchmark'
+    if (project.hasProperty("benchmark")) {
+        sourceSets.getByName("test").java.srcDir("src/benchmark/java")
+    }
+
     defaultConfig {
         applicationId = "com.example.sprite"
         minSdk = 24
@@ -89,6 +95,7 @@ dependencies {
     implementation("com.google.zxing:core:3.5.2")
     implementation("com.google.firebase:firebase-messaging:24.0.0")
     implementation("com.squareup.okhttp3:okhttp:4.12.0")
+    testImplementation("com.squareup.okhttp3:mockwebserver:4.12.0")
     // JUnit4 (your tests can keep using Rules etc.)
     testImplementation("junit:junit:4.13.2")
     testImplementation("androidx.arch.core:core-testing:2.2.0") // InstantTaskExecutorRule
@@ -85,5 +85,27 @@ public class NotificationServiceTest {
         callback.onFailure("Test error");
         callback.onSuccess(new java.util.ArrayList<>());
     }
-}
 
+    /**
+     * Tests the notification page callback interface and that a short page reports no more pages.
+     */
+    @Test
+    public void testNotificationPageCallbackInterface() {
+        NotificationService.NotificationPageCallback callback = new NotificationService.NotificationPageCallback() {
+            @Override
+            public void onSuccess(NotificationService.NotificationPage page) {
+                assertNotNull(page.getNotifications());
+                assertFalse(page.hasMore());
+                assertNull(page.getCursor());
+            }
+
+            @Override
+            public void onFailure(String error) {
+                assertNotNull(error);
+            }
+        };
+
+        callback.onFailure("Test error");
+        callback.onSuccess(new NotificationService.NotificationPage(new java.util.ArrayList<>(), null, false));
+    }
+}
@@ -0,0 +1,61 @@
+package com.example.sprite.Controllers;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import com.example.sprite.Models.Event;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Times decoding event documents with {@link EventCodec} against a reflective
+ * setter-based mapper, the approach Firestore's CustomClassMapper takes.
+ * {@link DocumentCodecTest} checks that both agree.
+ */
+public class DocumentCodecBenchmark {
+
+    private static final int EVENT_COUNT = 10_000;
+    private static final int WARMUP_ROUNDS = 5;
+    private static final int ROUNDS = 10;
+
+    /**
+     * Decodes 10,000 synthetic event documents with each approach and reports the best
+     * time of several rounds, after warming both up.
+     */
+    @Test
+    void benchmarkDecode() throws Exception {
+        List<Map<String, Object>> documents = new ArrayList<>(EVENT_COUNT);
+        for (int i = 0; i < EVENT_COUNT; i++) {
+            documents.add(DocumentCodecTest.eventDocument(i));
+        }
+        DocumentCodecTest.ReflectiveMapper<Event> reflective = new DocumentCodecTest.ReflectiveMapper<>(Event.class);
+        EventCodec codec = EventCodec.getInstance();
+
+        long codecNanos = Long.MAX_VALUE;
+        long reflectiveNanos = Long.MAX_VALUE;
+        for (int round = 0; round < WARMUP_ROUNDS + ROUNDS; round++) {
+            long start = System.nanoTime();
+            List<Event> fromCodec = new ArrayList<>(EVENT_COUNT);
+            for (Map<String, Object> document : documents) fromCodec.add(codec.decode(document));
+            long codecRound = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            List<Event> fromReflection = new ArrayList<>(EVENT_COUNT);
+            for (Map<String, Object> document : documents) fromReflection.add(reflective.decode(document));
+            long reflectiveRound = System.nanoTime() - start;
+
+            // Keeps the decoded events live so the loops are not optimized away
+            assertEquals(fromCodec.size(), fromReflection.size());
+            if (round >= WARMUP_ROUNDS) {
+                codecNanos = Math.min(codecNanos, codecRound);
+                reflectiveNanos = Math.min(reflectiveNanos, reflectiveRound);
+            }
+        }
+
+        System.out.printf("Decoded %d events: codec %.1f ns/op, reflection %.1f ns/op%n", EVENT_COUNT,
+                (double) codecNanos / EVENT_COUNT, (double) reflectiveNanos / EVENT_COUNT);
+    }
+}
@@ -0,0 +1,66 @@
+package com.example.sprite.Controllers;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import com.example.sprite.Models.Event;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ObjectInputStream;
+
+/**
+ * Times an {@link EventBinaryCodec} round trip against Java serialization.
+ * {@link EventBinaryCodecTest} checks the sizes.
+ */
+public class EventBinaryCodecBenchmark {
+
+    private static final int ROUND_TRIPS = 200;
+    private static final int WARMUP_PASSES = 3;
+    private static final int PASSES = 5;
+
+    /**
+     * Encodes and decodes an event with 2,000 waitlisted users both ways and reports the
+     * best time per round trip of several passes, after warming both up.
+     */
+    @Test
+    void benchmarkRoundTrip() throws Exception {
+        Event event = EventBinaryCodecTest.largeEvent(2_000);
+        byte[] compact = EventBinaryCodec.encode(event);
+        byte[] serialized = EventBinaryCodecTest.serialize(event);
+
+        long compactNanos = Long.MAX_VALUE;
+        long serializedNanos = Long.MAX_VALUE;
+        int decodedSize = 0;
+        for (int pass = 0; pass < WARMUP_PASSES + PASSES; pass++) {
+            long start = System.nanoTime();
+            for (int i = 0; i < ROUND_TRIPS; i++) {
+                decodedSize += EventBinaryCodec.decode(EventBinaryCodec.encode(event)).getWaitingList().size();
+            }
+            long compactPass = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            for (int i = 0; i < ROUND_TRIPS; i++) {
+                decodedSize += deserialize(EventBinaryCodecTest.serialize(event)).getWaitingList().size();
+            }
+            long serializedPass = System.nanoTime() - start;
+
+            if (pass >= WARMUP_PASSES) {
+                compactNanos = Math.min(compactNanos, compactPass);
+                serializedNanos = Math.min(serializedNanos, serializedPass);
+            }
+        }
+
+        // Keeps the decoded events live so the loops are not optimized away
+        assertEquals(2 * (WARMUP_PASSES + PASSES) * ROUND_TRIPS * 2_000, decodedSize);
+        System.out.printf("Event with 2000 IDs: compact %d B, %.1f us/round trip; serialized %d B, %.1f us/round trip%n",
+                compact.length, compactNanos / 1000.0 / ROUND_TRIPS,
+                serialized.length, serializedNanos / 1000.0 / ROUND_TRIPS);
+    }
+
+    private static Event deserialize(byte[] bytes) throws Exception {
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes))) {
+            return (Event) in.readObject();
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package com.example.sprite.Controllers;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import com.example.sprite.Models.Notification;
+import com.example.sprite.fakes.LatencyDataStore;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Times {@link NotificationFanout} against notifying entrants one at a time, over a store
+ * with 2 ms of latency per call. {@link NotificationFanoutTest} checks the round trips.
+ */
+public class NotificationFanoutBenchmark {
+
+    private static final long LATENCY_MICROS = 2_000;
+
+    /**
+     * Fans out to 20,000 entrants through the pipeline and to 2,000 entrants one at a
+     * time at the same parallelism, and reports entrants per second for each.
+     */
+    @Test
+    void benchmarkThroughputAgainstPerEntrantSends() throws Exception {
+        int maxInFlight = NotificationFanout.DEFAULT_MAX_IN_FLIGHT;
+
+        InMemoryDataStore backend = new InMemoryDataStore();
+        List<String> ids = NotificationFanoutTest.addUsers(backend, 20_000);
+        LatencyDataStore pipelined = new LatencyDataStore(backend, LATENCY_MICROS);
+        long start = System.nanoTime();
+        FanoutProgress result = new NotificationFanout(pipelined,
+                new OptOutIndex(pipelined, System::currentTimeMillis), new RecentSends(100_000), maxInFlight)
+                .send(ids, NotificationFanoutTest.NOT_SELECTED, null).get(60, TimeUnit.SECONDS);
+        double pipelineSeconds = (System.nanoTime() - start) / 1e9;
+        assertEquals(18_000, result.getSent());
+
+        // One user read then one notification write per entrant, maxInFlight entrants at a time
+        InMemoryDataStore baselineBackend = new InMemoryDataStore();
+        List<String> baselineIds = NotificationFanoutTest.addUsers(baselineBackend, 2_000);
+        LatencyDataStore individual = new LatencyDataStore(baselineBackend, LATENCY_MICROS);
+        Semaphore permits = new Semaphore(maxInFlight);
+        List<CompletableFuture<Void>> sends = new ArrayList<>();
+        start = System.nanoTime();
+        for (String id : baselineIds) {
+            permits.acquire();
+            sends.add(individual.get("users", id).thenCompose(user -> {
+                if (Boolean.FALSE.equals(user.getBoolean("notificationsEnabled"))) {
+                    return CompletableFuture.<Void>completedFuture(null);
+                }
+                Notification notification = NotificationFanoutTest.NOT_SELECTED.apply(id);
+                return individual.set("notifications", notification.getNotificationId(),
+                        NotificationCodec.getInstance().encode(notification));
+            }).whenComplete((ignored, error) -> permits.release()));
+        }
+        CompletableFuture.allOf(sends.toArray(new CompletableFuture[0])).get(60, TimeUnit.SECONDS);
+        double individualSeconds = (System.nanoTime() - start) / 1e9;
+
+        System.out.printf("Fan-out: %d entrants in %.2f s (%.0f/s, %d round trips); "
+                        + "one at a time: %d entrants in %.2f s (%.0f/s, %d round trips)%n",
+                ids.size(), pipelineSeconds, ids.size() / pipelineSeconds, pipelined.getCalls(),
+                baselineIds.size(), individualSeconds, baselineIds.size() / individualSeconds,
+                individual.getCalls());
+    }
+}
@@ -78,7 +78,7 @@ public class EventAdapter extends RecyclerView.Adapter<EventAdapter.EventViewHol
         holder.location.setText(event.getLocation());
         holder.image.setImageDrawable(null);
         ImageService imageService = new ImageService();
-        imageService.loadImage(event.getPosterImageUrl(), holder.image);
+        imageService.loadPoster(event, holder.image);
 
         SimpleDateFormat sdf = new SimpleDateFormat("MMM dd, yyyy", Locale.getDefault());
         if (event.getEventStartDate() != null) {
@@ -111,6 +111,16 @@ public class EventAdapter extends RecyclerView.Adapter<EventAdapter.EventViewHol
         }
     }
 
+    /**
+     * Gets the event shown at a position.
+     *
+     * @param position The adapter position
+     * @return The event
+     */
+    public Event getEvent(int position) {
+        return eventList.get(position);
+    }
+
     /**
      * Updates the list of events and notifies the adapter of the change.
      *
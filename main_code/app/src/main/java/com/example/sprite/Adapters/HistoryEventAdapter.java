@@ -102,7 +102,7 @@ public class HistoryEventAdapter extends RecyclerView.Adapter<HistoryEventAdapte
             // Load event image
             holder.image.setImageDrawable(null);
             ImageService imageService = new ImageService();
-            imageService.loadImage(event.getPosterImageUrl(), holder.image);
+            imageService.loadPoster(event, holder.image);
 
             // Set click listener
             holder.itemView.setOnClickListener(v -> {
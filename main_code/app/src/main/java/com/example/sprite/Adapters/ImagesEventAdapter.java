@@ -59,7 +59,7 @@ public class ImagesEventAdapter extends RecyclerView.Adapter<ImagesEventAdapter.
 
         if (holder.image != null) {
             holder.image.setImageDrawable(null); // clear previous image
-            new ImageService().loadImage(event.getPosterImageUrl(), holder.image);
+            new ImageService().loadPoster(event, holder.image);
         }
 
         holder.itemView.setOnClickListener(v -> {
@@ -8,6 +8,8 @@ import com.google.android.gms.tasks.Task;
 import com.google.firebase.auth.FirebaseAuth;
 import com.google.firebase.auth.FirebaseUser;
 
+import java.util.concurrent.CompletableFuture;
+
 /**
  * {@code Authentication_Service} manages all authentication-related operations,
  * including signing in, creating users, signing out, and user profile management.
@@ -160,7 +162,7 @@ public class Authentication_Service {
     public void getUserProfile(String userId, AuthCallback callback) {
         databaseService.getUser(userId, task -> {
             if (task.isSuccessful() && task.getResult().exists()) {
-                User user = task.getResult().toObject(User.class);
+                User user = UserCodec.getInstance().decode(task.getResult());
                 if (user != null) {
                     callback.onSuccess(user);
                 } else {
@@ -186,6 +188,28 @@ public class Authentication_Service {
         });
     }
 
+    /**
+     * Fetches (or creates) a user's profile and exposes the result as a future.
+     *
+     * @param userId The Firebase user ID.
+     * @return A future completed with the user's profile.
+     */
+    public CompletableFuture<User> getUserProfileAsync(String userId) {
+        CompletableFuture<User> future = new CompletableFuture<>();
+        getUserProfile(userId, new AuthCallback() {
+            @Override
+            public void onSuccess(User user) {
+                future.complete(user);
+            }
+
+            @Override
+            public void onFailure(String error) {
+                future.completeExceptionally(new IllegalStateException(error));
+            }
+        });
+        return future;
+    }
+
     /**
      * Updates a user's Firestore profile.
      *
@@ -0,0 +1,155 @@
+package com.example.sprite.Controllers;
+
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Decodes images at roughly the size they will be shown, instead of at full resolution.
+ *
+ * <p>The image's bounds are read first, without allocating pixels, to pick the largest
+ * power-of-two {@code inSampleSize} that still leaves the image at least as large as
+ * the target. JPEGs, which have no alpha channel, are decoded to {@code RGB_565},
+ * halving the remaining memory again. Given a {@link BitmapPool}, the pixels are
+ * written into a pooled bitmap when one is large enough. Decoding is slow; call these
+ * methods off the main thread.</p>
+ */
+public final class BitmapDecoder {
+
+    private static final AtomicLong decodes = new AtomicLong();
+    private static final AtomicLong decodedBytes = new AtomicLong();
+    private static final AtomicLong fullSizeBytes = new AtomicLong();
+    private static final AtomicLong decodeNanos = new AtomicLong();
+
+    private BitmapDecoder() {
+    }
+
+    /**
+     * Decodes an image no smaller than the target size where possible.
+     *
+     * @param bytes     The encoded image
+     * @param reqWidth  The width it will be shown at, or 0 for no limit
+     * @param reqHeight The height it will be shown at, or 0 for no limit
+     * @return The bitmap, or null if the bytes are not an image
+     */
+    public static Bitmap decode(byte[] bytes, int reqWidth, int reqHeight) {
+        return decode(bytes, reqWidth, reqHeight, null);
+    }
+
+    /**
+     * Decodes an image no smaller than the target size where possible, into a pooled
+     * bitmap if one is large enough. The result is mutable, so it can be pooled in turn
+     * once nothing draws it.
+     *
+     * @param bytes     The encoded image
+     * @param reqWidth  The width it will be shown at, or 0 for no limit
+     * @param reqHeight The height it will be shown at, or 0 for no limit
+     * @param pool      Bitmaps to decode into, or null to always allocate
+     * @return The bitmap, or null if the bytes are not an image
+     */
+    public static Bitmap decode(byte[] bytes, int reqWidth, int reqHeight, BitmapPool pool) {
+        long start = System.nanoTime();
+        BitmapFactory.Options options = new BitmapFactory.Options();
+        options.inJustDecodeBounds = true;
+        BitmapFactory.decodeByteArray(bytes, 0, bytes.length, options);
+        if (options.outWidth <= 0 || options.outHeight <= 0) {
+            return null;
+        }
+
+        options.inSampleSize = calculateInSampleSize(options.outWidth, options.outHeight, reqWidth, reqHeight);
+        if ("image/jpeg".equals(options.outMimeType)) {
+            options.inPreferredConfig = Bitmap.Config.RGB_565;
+        }
+        options.inJustDecodeBounds = false;
+        options.inMutable = true;
+        if (pool != null) {
+            int width = (options.outWidth + options.inSampleSize - 1) / options.inSampleSize;
+            int height = (options.outHeight + options.inSampleSize - 1) / options.inSampleSize;
+            int bytesPerPixel = options.inPreferredConfig == Bitmap.Config.RGB_565 ? 2 : 4;
+            options.inBitmap = pool.get(width * height * bytesPerPixel);
+        }
+        Bitmap bitmap;
+        try {
+            bitmap = BitmapFactory.decodeByteArray(bytes, 0, bytes.length, options);
+        } catch (IllegalArgumentException e) {
+            if (options.inBitmap == null) {
+                throw e;
+            }
+            // The decoder could not fit the image into the pooled bitmap; give it back and allocate
+            pool.put(options.inBitmap);
+            options.inBitmap = null;
+            bitmap = BitmapFactory.decodeByteArray(bytes, 0, bytes.length, options);
+        }
+        if (pool != null && bitmap != null) {
+            pool.recordDecode(options.inBitmap != null);
+        }
+        if (bitmap != null) {
+            decodes.incrementAndGet();
+            decodedBytes.addAndGet(bitmap.getAllocationByteCount());
+            fullSizeBytes.addAndGet((long) options.outWidth * options.outHeight * 4);
+            decodeNanos.addAndGet(System.nanoTime() - start);
+        }
+        return bitmap;
+    }
+
+    /**
+     * Checks whether bytes are a decodable image, reading only its header.
+     *
+     * @param bytes The encoded image
+     * @return true if the image's bounds can be read
+     */
+    public static boolean isImage(byte[] bytes) {
+        BitmapFactory.Options options = new BitmapFactory.Options();
+        options.inJustDecodeBounds = true;
+        BitmapFactory.decodeByteArray(bytes, 0, bytes.length, options);
+        return options.outWidth > 0 && options.outHeight > 0;
+    }
+
+    /**
+     * Gets an image's width, reading only its header.
+     *
+     * @param bytes The encoded image
+     * @return The width in pixels, or 0 if the bytes are not an image
+     */
+    public static int widthOf(byte[] bytes) {
+        BitmapFactory.Options options = new BitmapFactory.Options();
+        options.inJustDecodeBounds = true;
+        BitmapFactory.decodeByteArray(bytes, 0, bytes.length, options);
+        return Math.max(0, options.outWidth);
+    }
+
+    /**
+     * Gets the largest power-of-two sample size that keeps both dimensions at or above
+     * the requested size.
+     *
+     * @param width     The image width
+     * @param height    The image height
+     * @param reqWidth  The requested width, or 0 for no limit
+     * @param reqHeight The requested height, or 0 for no limit
+     * @return The sample size, at least 1
+     */
+    static int calculateInSampleSize(int width, int height, int reqWidth, int reqHeight) {
+        if (reqWidth <= 0 && reqHeight <= 0) {
+            return 1;
+        }
+        int sampleSize = 1;
+        while ((reqWidth <= 0 || width / (sampleSize * 2) >= reqWidth)
+                && (reqHeight <= 0 || height / (sampleSize * 2) >= reqHeight)) {
+            sampleSize *= 2;
+        }
+        return sampleSize;
+    }
+
+    /**
+     * Describes the decodes so far: how many, the memory they allocated compared with
+     * full-resolution ARGB_8888 decodes, and the average time each took.
+     *
+     * @return A one-line summary
+     */
+    public static String getReport() {
+        long count = decodes.get();
+        return count + " decodes, " + decodedBytes.get() + " of " + fullSizeBytes.get()
+                + " full-size bytes, " + (count == 0 ? 0 : decodeNanos.get() / count / 1000) + " us each";
+    }
+}
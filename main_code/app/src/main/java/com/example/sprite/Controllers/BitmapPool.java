@@ -0,0 +1,191 @@
+package com.example.sprite.Controllers;
+
+import android.content.ComponentCallbacks2;
+import android.graphics.Bitmap;
+
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.TreeMap;
+
+/**
+ * Bitmaps no longer shown or cached, kept so the next decode can write its pixels into
+ * one through {@code BitmapFactory.Options.inBitmap} instead of allocating a new buffer.
+ *
+ * <p>Bitmaps are bucketed by allocation size. A request takes the most recently pooled
+ * bitmap from the smallest bucket that is large enough, but never one more than twice
+ * the size needed, so a thumbnail does not pin a full-screen buffer. The pool is capped
+ * in bytes and drops its oldest bitmaps first. Only mutable bitmaps can be reused, so
+ * decodes that may be pooled later must set {@code inMutable}.</p>
+ *
+ * <p>Callers must only put bitmaps that nothing will draw again. All methods are safe
+ * to call from background threads.</p>
+ */
+public class BitmapPool {
+
+    /** A pooled bitmap may be at most this many times the size requested. */
+    static final int MAX_SIZE_MULTIPLE = 2;
+
+    private final long maxBytes;
+    private final TreeMap<Integer, ArrayDeque<Bitmap>> buckets = new TreeMap<>();
+    /** Every pooled bitmap, oldest first, for trimming. */
+    private final ArrayDeque<Bitmap> order = new ArrayDeque<>();
+
+    private long sizeBytes;
+    private long reused;
+    private long allocated;
+    private long pooled;
+    private long dropped;
+
+    /**
+     * Creates an empty pool.
+     *
+     * @param maxBytes The most bytes the pooled bitmaps may take up
+     */
+    public BitmapPool(long maxBytes) {
+        if (maxBytes <= 0) {
+            throw new IllegalArgumentException("maxBytes must be positive");
+        }
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * Takes a bitmap whose buffer can hold an image of the given size.
+     *
+     * @param bytes The bytes the decoded image needs
+     * @return A pooled bitmap, or null if the caller must allocate a new one
+     */
+    public synchronized Bitmap get(int bytes) {
+        Integer size = buckets.ceilingKey(bytes);
+        if (size == null || size > (long) bytes * MAX_SIZE_MULTIPLE) {
+            return null;
+        }
+        ArrayDeque<Bitmap> bucket = buckets.get(size);
+        Bitmap bitmap = bucket.pollLast();
+        if (bucket.isEmpty()) {
+            buckets.remove(size);
+        }
+        removeFromOrder(bitmap);
+        sizeBytes -= size;
+        return bitmap;
+    }
+
+    /**
+     * Offers a bitmap for reuse. Immutable or recycled bitmaps, and bitmaps larger than
+     * the whole pool, are not kept.
+     *
+     * @param bitmap A bitmap nothing will draw again
+     * @return true if the bitmap was pooled
+     */
+    public synchronized boolean put(Bitmap bitmap) {
+        if (bitmap == null || bitmap.isRecycled() || !bitmap.isMutable()
+                || bitmap.getAllocationByteCount() > maxBytes) {
+            dropped++;
+            return false;
+        }
+        int size = bitmap.getAllocationByteCount();
+        ArrayDeque<Bitmap> bucket = buckets.get(size);
+        if (bucket == null) {
+            bucket = new ArrayDeque<>();
+            buckets.put(size, bucket);
+        }
+        bucket.addLast(bitmap);
+        order.addLast(bitmap);
+        sizeBytes += size;
+        pooled++;
+        trimToSize(maxBytes);
+        return true;
+    }
+
+    /**
+     * Counts a decode, for checking that steady-state scrolling reuses pixel buffers
+     * rather than allocating them.
+     *
+     * @param reusedBuffer Whether the decode wrote into a pooled bitmap
+     */
+    public synchronized void recordDecode(boolean reusedBuffer) {
+        if (reusedBuffer) {
+            reused++;
+        } else {
+            allocated++;
+        }
+    }
+
+    /**
+     * Drops the oldest bitmaps until the pool takes up at most the given size.
+     *
+     * @param bytes The size to trim to
+     */
+    public synchronized void trimToSize(long bytes) {
+        while (sizeBytes > bytes && !order.isEmpty()) {
+            Bitmap eldest = order.pollFirst();
+            int size = eldest.getAllocationByteCount();
+            ArrayDeque<Bitmap> bucket = buckets.get(size);
+            if (bucket != null) {
+                bucket.removeFirstOccurrence(eldest);
+                if (bucket.isEmpty()) {
+                    buckets.remove(size);
+                }
+            }
+            sizeBytes -= size;
+            dropped++;
+        }
+    }
+
+    /**
+     * Releases memory in response to {@link ComponentCallbacks2#onTrimMemory}, like
+     * {@link MemoryCache#trimMemory(int)}.
+     *
+     * @param level The trim level passed to {@code onTrimMemory}
+     */
+    public void trimMemory(int level) {
+        if (level >= ComponentCallbacks2.TRIM_MEMORY_MODERATE) {
+            trimToSize(0);
+        } else if (level >= ComponentCallbacks2.TRIM_MEMORY_RUNNING_LOW) {
+            trimToSize(maxBytes / 2);
+        }
+    }
+
+    /**
+     * Gets the total size of the pooled bitmaps.
+     *
+     * @return The size in bytes
+     */
+    public synchronized long getSizeBytes() {
+        return sizeBytes;
+    }
+
+    /**
+     * Gets the number of decodes that wrote into a pooled bitmap.
+     *
+     * @return The reuse count
+     */
+    public synchronized long getReused() {
+        return reused;
+    }
+
+    /**
+     * Gets the number of decodes that needed a new pixel buffer.
+     *
+     * @return The allocation count
+     */
+    public synchronized long getAllocated() {
+        return allocated;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return "BitmapPool{" + sizeBytes + "/" + maxBytes + " bytes, " + order.size() + " bitmaps, "
+                + reused + " reused, " + allocated + " allocated, " + pooled + " pooled, " + dropped + " dropped}";
+    }
+
+    /** Removes a bitmap from the trim order by identity; pooled bitmaps are usually near the end. */
+    private void removeFromOrder(Bitmap bitmap) {
+        Iterator<Bitmap> it = order.descendingIterator();
+        while (it.hasNext()) {
+            if (it.next() == bitmap) {
+                it.remove();
+                return;
+            }
+        }
+    }
+}
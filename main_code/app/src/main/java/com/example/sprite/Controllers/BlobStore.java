@@ -0,0 +1,75 @@
+package com.example.sprite.Controllers;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * The file storage operations {@link PosterGarbageCollector} needs, so it can run against
+ * Firebase Storage or its emulator through {@link FirebaseBlobStore}, or against a fake in
+ * tests. Paths are relative to the bucket root, without a leading slash.
+ */
+public interface BlobStore {
+
+    /**
+     * One page of a listing.
+     */
+    final class Page {
+        private final List<String> paths;
+        private final String nextPageToken;
+
+        /**
+         * Creates a page.
+         *
+         * @param paths         The paths on this page
+         * @param nextPageToken The token for the next page, or null if this is the last
+         */
+        public Page(List<String> paths, String nextPageToken) {
+            this.paths = paths;
+            this.nextPageToken = nextPageToken;
+        }
+
+        /**
+         * Gets the paths on this page.
+         *
+         * @return The paths
+         */
+        public List<String> getPaths() {
+            return paths;
+        }
+
+        /**
+         * Gets the token for the next page.
+         *
+         * @return The token, or null if this is the last page
+         */
+        public String getNextPageToken() {
+            return nextPageToken;
+        }
+    }
+
+    /**
+     * Lists the files directly under a folder, one page at a time.
+     *
+     * @param folder     The folder path
+     * @param maxResults The most paths to return
+     * @param pageToken  The token from the previous page, or null for the first page
+     * @return A future with the page
+     */
+    CompletableFuture<Page> list(String folder, int maxResults, String pageToken);
+
+    /**
+     * Gets when a file was created.
+     *
+     * @param path The file path
+     * @return A future with the creation time in milliseconds since the epoch
+     */
+    CompletableFuture<Long> createdAt(String path);
+
+    /**
+     * Deletes a file.
+     *
+     * @param path The file path
+     * @return A future completed once the file is deleted
+     */
+    CompletableFuture<Void> delete(String path);
+}
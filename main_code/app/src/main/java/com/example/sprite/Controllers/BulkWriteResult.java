@@ -0,0 +1,89 @@
+package com.example.sprite.Controllers;
+
+import java.util.Locale;
+
+/**
+ * The outcome of a bulk write committed by {@link ChunkedBatchWriter}.
+ */
+public final class BulkWriteResult {
+
+    private final int documents;
+    private final int failedDocuments;
+    private final int writes;
+    private final int commits;
+
+    /**
+     * Creates a result.
+     *
+     * @param documents       Documents whose chunk was committed
+     * @param failedDocuments Documents whose chunk failed to commit
+     * @param writes          Write operations sent, including counter updates
+     * @param commits         Batch commits issued
+     */
+    public BulkWriteResult(int documents, int failedDocuments, int writes, int commits) {
+        this.documents = documents;
+        this.failedDocuments = failedDocuments;
+        this.writes = writes;
+        this.commits = commits;
+    }
+
+    /**
+     * Gets the number of documents that were written.
+     *
+     * @return The documents in committed chunks
+     */
+    public int getDocuments() {
+        return documents;
+    }
+
+    /**
+     * Gets the number of documents that were not written because their chunk failed.
+     *
+     * @return The documents in failed chunks
+     */
+    public int getFailedDocuments() {
+        return failedDocuments;
+    }
+
+    /**
+     * Gets the number of write operations sent.
+     *
+     * @return The writes across all batches
+     */
+    public int getWrites() {
+        return writes;
+    }
+
+    /**
+     * Gets the number of batch commits, and so round trips, used.
+     *
+     * @return The commits issued
+     */
+    public int getCommits() {
+        return commits;
+    }
+
+    /**
+     * Gets how many round trips batching saved compared with sending each write on its own.
+     *
+     * @return Writes minus commits
+     */
+    public int getRoundTripsSaved() {
+        return writes - commits;
+    }
+
+    /**
+     * Gets whether every chunk was committed.
+     *
+     * @return true if no document failed
+     */
+    public boolean isComplete() {
+        return failedDocuments == 0;
+    }
+
+    @Override
+    public String toString() {
+        return String.format(Locale.US, "%d documents (%d failed) in %d commits, %d round trips saved",
+                documents, failedDocuments, commits, getRoundTripsSaved());
+    }
+}
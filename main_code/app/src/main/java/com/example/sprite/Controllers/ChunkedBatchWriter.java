@@ -0,0 +1,151 @@
+package com.example.sprite.Controllers;
+
+import com.google.android.gms.tasks.Task;
+import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.WriteBatch;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Writes many documents as a few {@link WriteBatch} commits instead of one
+ * request per document.
+ *
+ * <p>Items are split into chunks whose writes fit Firestore's limit of
+ * {@value #MAX_BATCH_WRITES} operations per batch. Each chunk is committed
+ * atomically, so any per-chunk bookkeeping (such as an unread counter) written
+ * alongside it stays consistent with the documents even if another chunk fails.
+ * The returned future completes once every commit has finished.</p>
+ */
+public class ChunkedBatchWriter {
+
+    /** Firestore's limit on operations in one batch. */
+    public static final int MAX_BATCH_WRITES = 500;
+
+    /**
+     * Adds the writes for one item to a batch.
+     *
+     * @param <T> The item type
+     */
+    public interface ItemWriter<T> {
+        /**
+         * Adds this item's writes.
+         *
+         * @param batch The batch being built
+         * @param item  The item
+         */
+        void write(WriteBatch batch, T item);
+    }
+
+    /**
+     * Adds writes that cover a whole chunk, such as counter updates.
+     *
+     * @param <T> The item type
+     */
+    public interface ChunkWriter<T> {
+        /**
+         * Adds the chunk's extra writes.
+         *
+         * @param batch The batch being built
+         * @param chunk The items in the batch
+         * @return The number of writes added
+         */
+        int write(WriteBatch batch, List<T> chunk);
+    }
+
+    private final FirebaseFirestore db;
+
+    /**
+     * Creates a writer.
+     *
+     * @param db The Firestore instance to batch against
+     */
+    public ChunkedBatchWriter(FirebaseFirestore db) {
+        this.db = db;
+    }
+
+    /**
+     * Splits items into chunks that each fit in one batch.
+     *
+     * @param items          The items to write
+     * @param writesPerItem  Writes each item needs
+     * @param writesPerChunk Extra writes each chunk needs at most
+     * @param <T>            The item type
+     * @return The chunks, in order
+     * @throws IllegalArgumentException If not even one item fits in a batch
+     */
+    static <T> List<List<T>> partition(List<T> items, int writesPerItem, int writesPerChunk) {
+        int itemsPerChunk = writesPerItem > 0 ? (MAX_BATCH_WRITES - writesPerChunk) / writesPerItem : 0;
+        if (itemsPerChunk < 1) {
+            throw new IllegalArgumentException("A batch cannot hold " + writesPerItem
+                    + " writes per item plus " + writesPerChunk + " per chunk");
+        }
+        List<List<T>> chunks = new ArrayList<>();
+        for (int start = 0; start < items.size(); start += itemsPerChunk) {
+            chunks.add(items.subList(start, Math.min(items.size(), start + itemsPerChunk)));
+        }
+        return chunks;
+    }
+
+    /**
+     * Gets the most extra writes a chunk needs when it adds one per distinct key among
+     * its items, such as one counter per entrant. With many keys the chunk size bounds
+     * them rather than the key count.
+     *
+     * @param writesPerItem Writes each item needs
+     * @param keys          Distinct keys across all the items
+     * @return The {@code writesPerChunk} to write the items with
+     */
+    static int writesPerChunkForKeys(int writesPerItem, int keys) {
+        // Rounded up, so partition() never puts more items than this in a chunk
+        int perItem = writesPerItem + 1;
+        return Math.min(keys, (MAX_BATCH_WRITES + perItem - 1) / perItem);
+    }
+
+    /**
+     * Writes the items in as few batches as fit, committing all batches at once.
+     *
+     * @param operation      The name commits are recorded under in {@link StoreMetrics}
+     * @param items          The items to write
+     * @param writesPerItem  Writes {@code itemWriter} adds per item
+     * @param writesPerChunk Most writes {@code chunkWriter} adds per chunk
+     * @param itemWriter     Adds each item's writes
+     * @param chunkWriter    Adds each chunk's extra writes, or null
+     * @param <T>            The item type
+     * @return A future completed with the result once every commit has finished; never exceptional
+     */
+    public <T> CompletableFuture<BulkWriteResult> commit(String operation, List<T> items, int writesPerItem,
+                                                         int writesPerChunk, ItemWriter<T> itemWriter,
+                                                         ChunkWriter<T> chunkWriter) {
+        List<List<T>> chunks = partition(items, writesPerItem, writesPerChunk);
+        List<CompletableFuture<Void>> commits = new ArrayList<>(chunks.size());
+        int writes = 0;
+        for (List<T> chunk : chunks) {
+            WriteBatch batch = db.batch();
+            for (T item : chunk) {
+                itemWriter.write(batch, item);
+            }
+            writes += chunk.size() * writesPerItem;
+            if (chunkWriter != null) {
+                writes += chunkWriter.write(batch, chunk);
+            }
+            Task<Void> task = StoreMetrics.getInstance().track(operation, batch.commit());
+            commits.add(TaskFutures.from(task));
+        }
+
+        int totalWrites = writes;
+        return TaskFutures.successfulAsList(commits).thenApply(ignored -> {
+            int written = 0;
+            int failed = 0;
+            for (int i = 0; i < chunks.size(); i++) {
+                if (commits.get(i).isCompletedExceptionally()) {
+                    failed += chunks.get(i).size();
+                } else {
+                    written += chunks.get(i).size();
+                }
+            }
+            return new BulkWriteResult(written, failed, totalWrites, chunks.size());
+        });
+    }
+}
@@ -0,0 +1,136 @@
+package com.example.sprite.Controllers;
+
+import java.util.function.LongSupplier;
+
+/**
+ * A consecutive-failure circuit breaker.
+ *
+ * <p>While {@link State#CLOSED} every request is allowed. After
+ * {@code failureThreshold} failures in a row the breaker opens and rejects
+ * requests for {@code openMillis}. It then lets a single trial request through
+ * ({@link State#HALF_OPEN}); success closes the breaker, failure opens it again.</p>
+ */
+public class CircuitBreaker {
+
+    /**
+     * The breaker's state.
+     */
+    public enum State {
+        CLOSED,
+        OPEN,
+        HALF_OPEN
+    }
+
+    /**
+     * Thrown (as the failure of a write) when the breaker rejects a request.
+     */
+    public static class OpenException extends RuntimeException {
+        /**
+         * Creates the exception.
+         *
+         * @param name The name of the breaker that rejected the request
+         */
+        public OpenException(String name) {
+            super("Circuit breaker open for " + name);
+        }
+    }
+
+    private final String name;
+    private final int failureThreshold;
+    private final long openMillis;
+    private final LongSupplier clock;
+
+    private State state = State.CLOSED;
+    private int consecutiveFailures;
+    private long openedAt;
+    private boolean trialInFlight;
+
+    /**
+     * Creates a breaker that uses the system clock.
+     *
+     * @param name             Name used in errors and logs, e.g. the collection
+     * @param failureThreshold Consecutive failures that open the breaker
+     * @param openMillis       How long to reject requests once open
+     */
+    public CircuitBreaker(String name, int failureThreshold, long openMillis) {
+        this(name, failureThreshold, openMillis, System::currentTimeMillis);
+    }
+
+    /**
+     * Creates a breaker with a custom clock, for tests.
+     *
+     * @param name             Name used in errors and logs
+     * @param failureThreshold Consecutive failures that open the breaker
+     * @param openMillis       How long to reject requests once open
+     * @param clock            Supplies the current time in milliseconds
+     */
+    public CircuitBreaker(String name, int failureThreshold, long openMillis, LongSupplier clock) {
+        this.name = name;
+        this.failureThreshold = Math.max(1, failureThreshold);
+        this.openMillis = openMillis;
+        this.clock = clock;
+    }
+
+    /**
+     * Gets the breaker's name.
+     *
+     * @return The name
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Gets the current state, moving from open to half-open if the open period has passed.
+     *
+     * @return The state
+     */
+    public synchronized State getState() {
+        if (state == State.OPEN && clock.getAsLong() - openedAt >= openMillis) {
+            state = State.HALF_OPEN;
+            trialInFlight = false;
+        }
+        return state;
+    }
+
+    /**
+     * Asks to send a request. Every allowed request must be followed by
+     * {@link #recordSuccess()} or {@link #recordFailure()}.
+     *
+     * @return True if the request may be sent
+     */
+    public synchronized boolean tryAcquire() {
+        switch (getState()) {
+            case CLOSED:
+                return true;
+            case HALF_OPEN:
+                if (trialInFlight) return false;
+                trialInFlight = true;
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * Records a successful request, closing the breaker.
+     */
+    public synchronized void recordSuccess() {
+        consecutiveFailures = 0;
+        trialInFlight = false;
+        state = State.CLOSED;
+    }
+
+    /**
+     * Records a failed request, opening the breaker if the threshold is reached
+     * or the half-open trial failed.
+     */
+    public synchronized void recordFailure() {
+        consecutiveFailures++;
+        trialInFlight = false;
+        if (state == State.HALF_OPEN || consecutiveFailures >= failureThreshold) {
+            state = State.OPEN;
+            openedAt = clock.getAsLong();
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package com.example.sprite.Controllers;
+
+import com.google.firebase.Timestamp;
+import com.google.firebase.firestore.GeoPoint;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Conversions from raw Firestore values to model field types, shared by the
+ * {@link DocumentCodec} implementations.
+ *
+ * <p>Firestore returns whole numbers as {@code Long}, decimals as {@code Double}
+ * and dates as {@link Timestamp}; these helpers accept any of the equivalent
+ * types and return null (or the given fallback) for a value of the wrong type
+ * instead of throwing.</p>
+ */
+final class CodecValues {
+
+    private CodecValues() {
+    }
+
+    static String toString(Object value) {
+        return value instanceof String ? (String) value : null;
+    }
+
+    static int toInt(Object value, int fallback) {
+        return value instanceof Number ? ((Number) value).intValue() : fallback;
+    }
+
+    static double toDouble(Object value, double fallback) {
+        return value instanceof Number ? ((Number) value).doubleValue() : fallback;
+    }
+
+    static boolean toBoolean(Object value, boolean fallback) {
+        return value instanceof Boolean ? (Boolean) value : fallback;
+    }
+
+    static Boolean toBoxedBoolean(Object value) {
+        return value instanceof Boolean ? (Boolean) value : null;
+    }
+
+    static Date toDate(Object value) {
+        if (value instanceof Timestamp) return ((Timestamp) value).toDate();
+        if (value instanceof Date) return (Date) value;
+        return null;
+    }
+
+    static <E extends Enum<E>> E toEnum(Object value, Class<E> type) {
+        if (!(value instanceof String)) return null;
+        try {
+            return Enum.valueOf(type, (String) value);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    static String fromEnum(Enum<?> value) {
+        return value != null ? value.name() : null;
+    }
+
+    static List<String> toStringList(Object value) {
+        if (!(value instanceof List)) return null;
+        List<?> raw = (List<?>) value;
+        List<String> strings = new ArrayList<>(raw.size());
+        for (Object element : raw) {
+            if (element instanceof String) strings.add((String) element);
+        }
+        return strings;
+    }
+
+    static Map<String, String> toStringMap(Object value) {
+        if (!(value instanceof Map)) return null;
+        Map<?, ?> raw = (Map<?, ?>) value;
+        Map<String, String> strings = new HashMap<>();
+        for (Map.Entry<?, ?> entry : raw.entrySet()) {
+            if (entry.getKey() instanceof String && entry.getValue() instanceof String) {
+                strings.put((String) entry.getKey(), (String) entry.getValue());
+            }
+        }
+        return strings;
+    }
+
+    static Map<String, GeoPoint> toGeoPointMap(Object value) {
+        if (!(value instanceof Map)) return null;
+        Map<?, ?> raw = (Map<?, ?>) value;
+        Map<String, GeoPoint> points = new HashMap<>();
+        for (Map.Entry<?, ?> entry : raw.entrySet()) {
+            if (entry.getKey() instanceof String && entry.getValue() instanceof GeoPoint) {
+                points.put((String) entry.getKey(), (GeoPoint) entry.getValue());
+            }
+        }
+        return points;
+    }
+
+    @SuppressWarnings("unchecked")
+    static Map<String, Object> toMap(Object value) {
+        return value instanceof Map ? (Map<String, Object>) value : null;
+    }
+}
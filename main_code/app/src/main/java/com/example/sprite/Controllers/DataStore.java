@@ -0,0 +1,91 @@
+package com.example.sprite.Controllers;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Pluggable document storage backend.
+ *
+ * <p>{@code DataStore} covers the document operations the app performs against
+ * Firestore (get, set, update, delete, query, batched writes and transactions)
+ * using plain {@code Map} documents, so controllers can run against either
+ * {@link FirestoreDataStore} in the app or {@link InMemoryDataStore} on a plain JVM
+ * for tests and load benchmarks.</p>
+ *
+ * <p>Write maps may contain {@link StoreValues} sentinels (increments, array
+ * union/remove, field deletes and server timestamps).</p>
+ */
+public interface DataStore {
+
+    /**
+     * Generates a new unique document ID for a collection without writing anything.
+     *
+     * @param collection The collection name
+     * @return A new document ID
+     */
+    String newDocumentId(String collection);
+
+    /**
+     * Reads a single document.
+     *
+     * @param collection The collection name
+     * @param documentId The document ID
+     * @return A future with the snapshot; {@link StoreDocument#exists()} is false if it is missing
+     */
+    CompletableFuture<StoreDocument> get(String collection, String documentId);
+
+    /**
+     * Creates or overwrites a document.
+     *
+     * @param collection The collection name
+     * @param documentId The document ID
+     * @param data       The full document contents
+     * @return A future completed when the write is durable in the backend
+     */
+    CompletableFuture<Void> set(String collection, String documentId, Map<String, Object> data);
+
+    /**
+     * Updates fields of an existing document. Fails if the document does not exist.
+     *
+     * @param collection The collection name
+     * @param documentId The document ID
+     * @param updates    The fields to change
+     * @return A future completed when the write is durable in the backend
+     */
+    CompletableFuture<Void> update(String collection, String documentId, Map<String, Object> updates);
+
+    /**
+     * Deletes a document. Deleting a missing document succeeds.
+     *
+     * @param collection The collection name
+     * @param documentId The document ID
+     * @return A future completed when the delete is durable in the backend
+     */
+    CompletableFuture<Void> delete(String collection, String documentId);
+
+    /**
+     * Runs a query.
+     *
+     * @param query The query to run
+     * @return A future with the matching documents
+     */
+    CompletableFuture<List<StoreDocument>> query(StoreQuery query);
+
+    /**
+     * Starts a batch of writes that are committed atomically.
+     *
+     * @return A new, empty batch
+     */
+    StoreBatch batch();
+
+    /**
+     * Runs a read-modify-write function atomically. The function may be invoked
+     * more than once if another writer changes a document it read.
+     *
+     * @param function The transaction body
+     * @param <T>      The result type
+     * @return A future with the function's result from the attempt that committed
+     */
+    <T> CompletableFuture<T> runTransaction(StoreTransaction.Function<T> function);
+}
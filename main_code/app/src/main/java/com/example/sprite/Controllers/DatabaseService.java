@@ -4,12 +4,18 @@ import com.example.sprite.Models.Event;
 import com.example.sprite.Models.Notification;
 import com.example.sprite.Models.User;
 import com.google.android.gms.tasks.OnCompleteListener;
+import com.google.android.gms.tasks.Task;
 import com.google.firebase.firestore.DocumentReference;
 import com.google.firebase.firestore.DocumentSnapshot;
 import com.google.firebase.firestore.FirebaseFirestore;
 import com.google.firebase.firestore.QuerySnapshot;
+import com.google.firebase.firestore.WriteBatch;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * {@code DatabaseService} provides an abstraction layer for all Firestore database operations.
@@ -18,7 +24,9 @@ import java.util.Map;
  * and notifications, as well as optional push notifications via Firebase Cloud Messaging (FCM).</p>
  *
  * <p>Each operation returns results asynchronously using Firestore's
- * {@link OnCompleteListener} interface.</p>
+ * {@link OnCompleteListener} interface. The {@code ...Async} variants return a
+ * {@link CompletableFuture} built on top of the listener methods (see
+ * {@link TaskFutures}) so independent reads can be issued concurrently and composed.</p>
  *
  * @author Angelo
  * @version 1.0
@@ -28,10 +36,50 @@ public class DatabaseService {
     private static final String TAG = "DatabaseService";
     /** Reference to the Firestore database instance. */
     public FirebaseFirestore db;
+    /** The data store over {@link #db}, built on first use. */
+    private DataStore dataStore;
 
     /** Initializes a new instance of {@code DatabaseService} with a Firestore reference. */
     public DatabaseService() {
-        db = FirebaseFirestore.getInstance();
+        this(FirebaseFirestore.getInstance());
+    }
+
+    /**
+     * Initializes a new instance of {@code DatabaseService} over a specific Firestore instance,
+     * e.g. one pointed at the emulator.
+     *
+     * @param db The Firestore instance to use.
+     */
+    public DatabaseService(FirebaseFirestore db) {
+        this.db = db;
+    }
+
+    /**
+     * Returns a backend-neutral {@link DataStore} over the same Firestore instance.
+     * Code written against {@link DataStore} can also run on an {@link InMemoryDataStore}.
+     *
+     * The store is built once and shared by every caller of this service.
+     *
+     * @return A Firestore-backed data store whose calls are recorded in {@link StoreMetrics}
+     *         and whose writes are retried through {@link ResilientWriter}.
+     */
+    public synchronized DataStore getDataStore() {
+        if (dataStore == null) {
+            dataStore = new ResilientDataStore(new InstrumentedDataStore(new FirestoreDataStore(db)));
+        }
+        return dataStore;
+    }
+
+    /**
+     * Records a Firestore call's latency and payload in {@link StoreMetrics}
+     * under {@code "DatabaseService.<operation>"}.
+     */
+    private static <T> Task<T> track(String operation, Task<T> task) {
+        return StoreMetrics.getInstance().track("DatabaseService." + operation, task);
+    }
+
+    private static <T> Task<T> track(String operation, Task<T> task, Object payload) {
+        return StoreMetrics.getInstance().track("DatabaseService." + operation, task, payload);
     }
 
     // ----------------------------
@@ -45,10 +93,7 @@ public class DatabaseService {
      * @param listener Callback triggered upon task completion.
      */
     public void createUser(User user, OnCompleteListener<Void> listener) {
-        db.collection("users")
-                .document(user.getUserId())
-                .set(user)
-                .addOnCompleteListener(listener);
+        saveUser("createUser", user, listener);
     }
 
     /**
@@ -58,9 +103,9 @@ public class DatabaseService {
      * @param listener Callback triggered with the query result.
      */
     public void getUser(String userId, OnCompleteListener<DocumentSnapshot> listener) {
-        db.collection("users")
+        track("getUser", db.collection("users")
                 .document(userId)
-                .get()
+                .get())
                 .addOnCompleteListener(listener);
     }
 
@@ -71,12 +116,33 @@ public class DatabaseService {
      * @param listener Callback triggered when the operation completes.
      */
     public void updateUser(User user, OnCompleteListener<Void> listener) {
-        db.collection("users")
-                .document(user.getUserId())
-                .set(user)
+        saveUser("updateUser", user, listener);
+    }
+
+    /**
+     * Writes a user document together with the user's entry in the {@link OptOutIndex},
+     * in one batch so the index never disagrees with {@code notificationsEnabled}.
+     */
+    private void saveUser(String operation, User user, OnCompleteListener<Void> listener) {
+        Object data = userData(user);
+        String userId = user.getUserId();
+        boolean enabled = user.isNotificationsEnabled();
+        WriteBatch batch = db.batch();
+        batch.set(db.collection("users").document(userId), data);
+        OptOutIndex.write(new FirestoreDataStore(db).wrap(batch), userId, enabled);
+        track(operation, batch.commit(), data)
+                .addOnSuccessListener(ignored -> OptOutIndex.getInstance().record(userId, enabled))
                 .addOnCompleteListener(listener);
     }
 
+    /**
+     * Gets the data to store for a user. Subclasses such as {@code Organizer} carry
+     * extra properties the codec does not know about, so they are still mapped by Firestore.
+     */
+    private static Object userData(User user) {
+        return user.getClass() == User.class ? UserCodec.getInstance().encode(user) : user;
+    }
+
     // ----------------------------
     // 🔹 Event Operations
     // ----------------------------
@@ -90,7 +156,8 @@ public class DatabaseService {
     public void createEvent(Event event, OnCompleteListener<Void> listener) {
         DocumentReference docRef = db.collection("events").document();
         event.setEventId(docRef.getId());
-        docRef.set(event).addOnCompleteListener(listener);
+        Map<String, Object> data = EventCodec.getInstance().encode(event);
+        track("createEvent", docRef.set(data), data).addOnCompleteListener(listener);
     }
 
     /**
@@ -100,9 +167,9 @@ public class DatabaseService {
      * @param listener Callback triggered with the query result.
      */
     public void getEvent(String eventId, OnCompleteListener<DocumentSnapshot> listener) {
-        db.collection("events")
+        track("getEvent", db.collection("events")
                 .document(eventId)
-                .get()
+                .get())
                 .addOnCompleteListener(listener);
     }
 
@@ -113,9 +180,10 @@ public class DatabaseService {
      * @param listener Callback triggered when update completes.
      */
     public void updateEvent(Event event, OnCompleteListener<Void> listener) {
-        db.collection("events")
+        Map<String, Object> data = EventCodec.getInstance().encode(event);
+        track("updateEvent", db.collection("events")
                 .document(event.getEventId())
-                .set(event)
+                .set(data), data)
                 .addOnCompleteListener(listener);
     }
 
@@ -125,8 +193,8 @@ public class DatabaseService {
      * @param listener Callback triggered with a {@link QuerySnapshot} of events.
      */
     public void getAllEvents(OnCompleteListener<QuerySnapshot> listener) {
-        db.collection("events")
-                .get()
+        track("getAllEvents", db.collection("events")
+                .get())
                 .addOnCompleteListener(listener);
     }
 
@@ -137,9 +205,24 @@ public class DatabaseService {
      * @param listener    Callback triggered with the query result.
      */
     public void getEventsByOrganizer(String organizerId, OnCompleteListener<QuerySnapshot> listener) {
-        db.collection("events")
+        track("getEventsByOrganizer", db.collection("events")
                 .whereEqualTo("organizerId", organizerId)
-                .get()
+                .get())
+                .addOnCompleteListener(listener);
+    }
+
+    /**
+     * Retrieves all events whose array field contains the given value,
+     * e.g. every event with a user on its waiting list.
+     *
+     * @param fieldName The array field to search (such as {@code "waitingList"}).
+     * @param value     The value that must be present in the array.
+     * @param listener  Callback triggered with the query result.
+     */
+    public void getEventsWhereArrayContains(String fieldName, String value, OnCompleteListener<QuerySnapshot> listener) {
+        track("getEventsWhereArrayContains", db.collection("events")
+                .whereArrayContains(fieldName, value)
+                .get())
                 .addOnCompleteListener(listener);
     }
 
@@ -154,17 +237,17 @@ public class DatabaseService {
      * @param listener Callback triggered when deletion completes.
      */
     public void removeFromWaitingList(String entryId, OnCompleteListener<Void> listener) {
-        db.collection("waitingList")
+        track("removeFromWaitingList", db.collection("waitingList")
                 .document(entryId)
-                .delete()
+                .delete())
                 .addOnCompleteListener(listener);
     }
 
     public void updateEventFields(String eventId, Map<String, Object> updates, OnCompleteListener<Void> listener) {
-        FirebaseFirestore.getInstance()
+        track("updateEventFields", FirebaseFirestore.getInstance()
                 .collection("events")
                 .document(eventId)
-                .update(updates)
+                .update(updates), updates)
                 .addOnCompleteListener(listener);
     }
 
@@ -176,9 +259,9 @@ public class DatabaseService {
      * @param listener Callback triggered with the query result.
      */
     public void getWaitingListForEvent(String eventId, OnCompleteListener<QuerySnapshot> listener) {
-        db.collection("waitingList")
+        track("getWaitingListForEvent", db.collection("waitingList")
                 .whereEqualTo("eventId", eventId)
-                .get()
+                .get())
                 .addOnCompleteListener(listener);
     }
 
@@ -189,9 +272,9 @@ public class DatabaseService {
      * @param listener Callback triggered with the query result.
      */
     public void getWaitingListEntry(String entryId, OnCompleteListener<DocumentSnapshot> listener) {
-        db.collection("waitingList")
+        track("getWaitingListEntry", db.collection("waitingList")
                 .document(entryId)
-                .get()
+                .get())
                 .addOnCompleteListener(listener);
     }
 
@@ -206,9 +289,10 @@ public class DatabaseService {
      * @param listener     Callback triggered when operation completes.
      */
     public void createNotification(Notification notification, OnCompleteListener<Void> listener) {
-        db.collection("notifications")
+        Map<String, Object> data = NotificationCodec.getInstance().encode(notification);
+        track("createNotification", db.collection("notifications")
                 .document(notification.getNotificationId())
-                .set(notification)
+                .set(data), data)
                 .addOnCompleteListener(listener);
     }
 
@@ -224,9 +308,9 @@ public class DatabaseService {
             return;
         }
 
-        db.collection("notifications")
+        track("getNotificationsForUser", db.collection("notifications")
                 .whereEqualTo("entrantId", userId)
-                .get()
+                .get())
                 .addOnCompleteListener(task -> {
                     if (listener != null) listener.onComplete(task);
                 });
@@ -239,9 +323,10 @@ public class DatabaseService {
      * @param listener     Callback triggered when operation completes.
      */
     public void updateNotification(Notification notification, OnCompleteListener<Void> listener) {
-        db.collection("notifications")
+        Map<String, Object> data = NotificationCodec.getInstance().encode(notification);
+        track("updateNotification", db.collection("notifications")
                 .document(notification.getNotificationId())
-                .set(notification)
+                .set(data), data)
                 .addOnCompleteListener(listener);
     }
 
@@ -252,9 +337,9 @@ public class DatabaseService {
      * @param listener       Callback triggered with the query result.
      */
     public void getNotificationById(String notificationId, OnCompleteListener<DocumentSnapshot> listener) {
-        db.collection("notifications")
+        track("getNotificationById", db.collection("notifications")
                 .document(notificationId)
-                .get()
+                .get())
                 .addOnCompleteListener(listener);
     }
 
@@ -264,8 +349,8 @@ public class DatabaseService {
      * @param listener Callback triggered with a {@link QuerySnapshot} of users.
      */
     public void getAllUsers(OnCompleteListener<QuerySnapshot> listener) {
-        db.collection("users")
-                .get()
+        track("getAllUsers", db.collection("users")
+                .get())
                 .addOnCompleteListener(listener);
     }
 
@@ -277,13 +362,94 @@ public class DatabaseService {
      *                  providing success or failure information.
      */
     public void deleteUser(String id, OnCompleteListener<Void> listener) {
-        FirebaseFirestore.getInstance()
+        track("deleteUser", FirebaseFirestore.getInstance()
                 .collection("users")
                 .document(id)
-                .delete()
+                .delete())
                 .addOnCompleteListener(listener);
     }
 
+    // ----------------------------
+    // 🔹 Async (CompletableFuture) Operations
+    // ----------------------------
+
+    /**
+     * Retrieves an event by ID as a future.
+     *
+     * @param eventId The event's Firestore document ID.
+     * @return A future with the parsed {@link Event}, or {@code null} if it does not exist.
+     */
+    public CompletableFuture<Event> getEventAsync(String eventId) {
+        return TaskFutures.<DocumentSnapshot>call(listener -> getEvent(eventId, listener))
+                .thenApply(snapshot -> snapshot != null && snapshot.exists()
+                        ? EventCodec.getInstance().decode(snapshot)
+                        : null);
+    }
+
+    /**
+     * Updates an existing event document as a future.
+     *
+     * @param event The updated {@link Event} data.
+     * @return A future completed when the write is acknowledged.
+     */
+    public CompletableFuture<Void> updateEventAsync(Event event) {
+        return TaskFutures.call(listener -> updateEvent(event, listener));
+    }
+
+    /**
+     * Retrieves a user by ID as a future.
+     *
+     * @param userId The ID of the user to fetch.
+     * @return A future with the parsed {@link User}, or {@code null} if it does not exist.
+     */
+    public CompletableFuture<User> getUserAsync(String userId) {
+        return TaskFutures.<DocumentSnapshot>call(listener -> getUser(userId, listener))
+                .thenApply(snapshot -> snapshot != null && snapshot.exists()
+                        ? UserCodec.getInstance().decode(snapshot)
+                        : null);
+    }
+
+    /**
+     * Fetches several users concurrently. Users that are missing or fail to load
+     * are left out of the result rather than failing the whole read.
+     *
+     * @param userIds The IDs of the users to fetch.
+     * @return A future with the users that could be loaded, in request order.
+     */
+    public CompletableFuture<List<User>> getUsersAsync(Collection<String> userIds) {
+        List<CompletableFuture<User>> reads = new ArrayList<>();
+        for (String userId : userIds) {
+            reads.add(getUserAsync(userId));
+        }
+        return TaskFutures.successfulAsList(reads).thenApply(users -> {
+            List<User> loaded = new ArrayList<>();
+            for (User user : users) {
+                if (user != null) loaded.add(user);
+            }
+            return loaded;
+        });
+    }
+
+    /**
+     * Retrieves all events whose array field contains the given value as a future.
+     *
+     * @param fieldName The array field to search.
+     * @param value     The value that must be present in the array.
+     * @return A future with the parsed events.
+     */
+    public CompletableFuture<List<Event>> getEventsWhereArrayContainsAsync(String fieldName, String value) {
+        return TaskFutures.<QuerySnapshot>call(listener -> getEventsWhereArrayContains(fieldName, value, listener))
+                .thenApply(snapshot -> {
+                    List<Event> events = new ArrayList<>();
+                    if (snapshot == null) return events;
+                    for (DocumentSnapshot doc : snapshot.getDocuments()) {
+                        Event event = EventCodec.getInstance().decode(doc);
+                        if (event != null) events.add(event);
+                    }
+                    return events;
+                });
+    }
+
 }
 
 
@@ -0,0 +1,218 @@
+package com.example.sprite.Controllers;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * Counts the views that show, or are about to show, each bitmap, so a bitmap evicted
+ * from the memory cache is only recycled once nothing draws it.
+ *
+ * <p>A load {@link #retain retains} a bitmap before caching it, then either
+ * {@link #show shows} it in a view, which takes over that count, or
+ * {@link #release releases} it. Each view counts once, for the bitmap it was last
+ * shown. Views are held weakly: a view that is dropped without being given another
+ * image, such as one in a destroyed fragment or RecyclerView, releases its bitmap
+ * once it is garbage collected, which is noticed on the next call.</p>
+ *
+ * <p>Bitmaps and views are compared by identity. Methods may be called from any thread;
+ * the recycler is called without the lock held.</p>
+ *
+ * @param <V> The view type
+ * @param <B> The bitmap type
+ */
+public class DisplayedBitmaps<V, B> {
+
+    private final Consumer<B> recycler;
+    private final Map<B, Integer> counts = new IdentityHashMap<>();
+    /** Bitmaps evicted from the cache while still counted. */
+    private final Set<B> evictedWhileShown = Collections.newSetFromMap(new IdentityHashMap<>());
+    /** The bitmap each live view was last shown. */
+    private final Map<ViewReference<V>, B> shown = new HashMap<>();
+    private final ReferenceQueue<V> collected = new ReferenceQueue<>();
+
+    /**
+     * Creates an empty tracker.
+     *
+     * @param recycler Receives evicted bitmaps once no view shows them
+     */
+    public DisplayedBitmaps(Consumer<B> recycler) {
+        this.recycler = recycler;
+    }
+
+    /**
+     * Counts a view that is about to show a bitmap.
+     *
+     * @param bitmap The bitmap
+     */
+    public void retain(B bitmap) {
+        List<B> unused = new ArrayList<>();
+        synchronized (this) {
+            expungeCollectedViews(unused);
+            Integer count = counts.get(bitmap);
+            counts.put(bitmap, count == null ? 1 : count + 1);
+        }
+        recycle(unused);
+    }
+
+    /**
+     * Uncounts a view that will not show a retained bitmap after all.
+     *
+     * @param bitmap The bitmap
+     */
+    public void release(B bitmap) {
+        List<B> unused = new ArrayList<>();
+        synchronized (this) {
+            expungeCollectedViews(unused);
+            decrement(bitmap, unused);
+        }
+        recycle(unused);
+    }
+
+    /**
+     * Records that a view now shows a retained bitmap, releasing the one it showed before.
+     *
+     * @param view   The view
+     * @param bitmap The bitmap, already retained for this view
+     */
+    public void show(V view, B bitmap) {
+        List<B> unused = new ArrayList<>();
+        synchronized (this) {
+            expungeCollectedViews(unused);
+            B previous = shown.put(new ViewReference<>(view, collected), bitmap);
+            if (previous != null) {
+                decrement(previous, unused);
+            }
+        }
+        recycle(unused);
+    }
+
+    /**
+     * Releases the bitmap a view was last shown if it no longer draws it, such as when an
+     * adapter cleared the view before rebinding it.
+     *
+     * @param view    The view
+     * @param drawing The bitmap the view draws now, or null if it draws none
+     */
+    public void forgetIfReplaced(V view, B drawing) {
+        List<B> unused = new ArrayList<>();
+        synchronized (this) {
+            expungeCollectedViews(unused);
+            ViewReference<V> key = new ViewReference<>(view, null);
+            B previous = shown.get(key);
+            if (previous != null && previous != drawing) {
+                shown.remove(key);
+                decrement(previous, unused);
+            }
+        }
+        recycle(unused);
+    }
+
+    /**
+     * Notes that the cache evicted a bitmap.
+     *
+     * @param bitmap The bitmap
+     * @return true if no view shows it, so the caller may recycle it now; otherwise it
+     *         goes to the recycler when the last view releases it
+     */
+    public boolean evicted(B bitmap) {
+        List<B> unused = new ArrayList<>();
+        boolean free;
+        synchronized (this) {
+            expungeCollectedViews(unused);
+            free = !counts.containsKey(bitmap);
+            if (!free) {
+                evictedWhileShown.add(bitmap);
+            }
+        }
+        recycle(unused);
+        return free;
+    }
+
+    /**
+     * Gets how many views show, or are about to show, a bitmap.
+     *
+     * @param bitmap The bitmap
+     * @return The count
+     */
+    public int getCount(B bitmap) {
+        List<B> unused = new ArrayList<>();
+        int count;
+        synchronized (this) {
+            expungeCollectedViews(unused);
+            Integer current = counts.get(bitmap);
+            count = current != null ? current : 0;
+        }
+        recycle(unused);
+        return count;
+    }
+
+    /** Releases the bitmaps of views that have been garbage collected. */
+    private void expungeCollectedViews(List<B> unused) {
+        Object reference;
+        while ((reference = collected.poll()) != null) {
+            B bitmap = shown.remove(reference);
+            if (bitmap != null) {
+                decrement(bitmap, unused);
+            }
+        }
+    }
+
+    private void decrement(B bitmap, List<B> unused) {
+        Integer count = counts.get(bitmap);
+        if (count == null) {
+            return;
+        }
+        if (count > 1) {
+            counts.put(bitmap, count - 1);
+            return;
+        }
+        counts.remove(bitmap);
+        if (evictedWhileShown.remove(bitmap)) {
+            unused.add(bitmap);
+        }
+    }
+
+    private void recycle(List<B> unused) {
+        for (B bitmap : unused) {
+            recycler.accept(bitmap);
+        }
+    }
+
+    /**
+     * A weak reference to a view that compares by the view's identity while it is alive,
+     * and by its own identity once cleared, so it can still be removed.
+     */
+    private static final class ViewReference<V> extends WeakReference<V> {
+        private final int hash;
+
+        ViewReference(V view, ReferenceQueue<? super V> queue) {
+            super(view, queue);
+            this.hash = System.identityHashCode(view);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (other == this) {
+                return true;
+            }
+            if (!(other instanceof ViewReference)) {
+                return false;
+            }
+            Object view = get();
+            return view != null && view == ((ViewReference<?>) other).get();
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package com.example.sprite.Controllers;
+
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.QuerySnapshot;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Converts a model to and from the field map stored in Firestore, without reflection.
+ *
+ * <p>Implementations produce and accept the same field names as
+ * {@code DocumentSnapshot.toObject()} and {@code DocumentReference.set(Object)},
+ * so documents written either way stay readable. As with {@code toObject()},
+ * fields missing from a document keep the model's constructor defaults and
+ * unknown fields are ignored.</p>
+ *
+ * @param <T> The model type
+ */
+public interface DocumentCodec<T> {
+
+    /**
+     * Builds a model from a document's fields.
+     *
+     * @param data The document's fields
+     * @return The model
+     */
+    T decode(Map<String, Object> data);
+
+    /**
+     * Gets the fields to store for a model.
+     *
+     * @param value The model
+     * @return A new mutable map of field names to Firestore values
+     */
+    Map<String, Object> encode(T value);
+
+    /**
+     * Builds a model from a snapshot.
+     *
+     * @param snapshot The snapshot, possibly null
+     * @return The model, or null if the snapshot is null or the document does not exist
+     */
+    default T decode(DocumentSnapshot snapshot) {
+        if (snapshot == null || !snapshot.exists()) {
+            return null;
+        }
+        Map<String, Object> data = snapshot.getData();
+        return data != null ? decode(data) : null;
+    }
+
+    /**
+     * Builds a model from a {@link DataStore} document.
+     *
+     * @param document The document, possibly null
+     * @return The model, or null if the document is null or does not exist
+     */
+    default T decode(StoreDocument document) {
+        if (document == null || !document.exists()) {
+            return null;
+        }
+        return decode(document.getData());
+    }
+
+    /**
+     * Builds models from every document in a query result.
+     *
+     * @param snapshot The query result, possibly null
+     * @return The models, in result order
+     */
+    default List<T> decodeAll(QuerySnapshot snapshot) {
+        List<T> values = new ArrayList<>();
+        if (snapshot == null) {
+            return values;
+        }
+        for (DocumentSnapshot document : snapshot.getDocuments()) {
+            T value = decode(document);
+            if (value != null) values.add(value);
+        }
+        return values;
+    }
+}
@@ -0,0 +1,72 @@
+package com.example.sprite.Controllers;
+
+import com.example.sprite.Models.Entrant;
+import com.example.sprite.Models.Notification;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Maps {@link Entrant} documents (user documents read as entrants) without reflection.
+ *
+ * <p>Entrants have the user fields plus embedded notifications and
+ * registered events. {@code registeredEvents} has no setter, so like
+ * {@code toObject()} it is written but not read back.</p>
+ */
+public final class EntrantCodec implements DocumentCodec<Entrant> {
+
+    private static final EntrantCodec INSTANCE = new EntrantCodec();
+
+    private EntrantCodec() {
+    }
+
+    /**
+     * Gets the codec.
+     *
+     * @return The shared codec
+     */
+    public static EntrantCodec getInstance() {
+        return INSTANCE;
+    }
+
+    @Override
+    public Entrant decode(Map<String, Object> data) {
+        Entrant entrant = new Entrant();
+        for (Map.Entry<String, Object> field : data.entrySet()) {
+            if (UserCodec.readField(entrant, field.getKey(), field.getValue())) {
+                continue;
+            }
+            if ("notifications".equals(field.getKey()) && field.getValue() instanceof List) {
+                ArrayList<Notification> notifications = new ArrayList<>();
+                for (Object element : (List<?>) field.getValue()) {
+                    Map<String, Object> notification = CodecValues.toMap(element);
+                    if (notification != null) {
+                        notifications.add(NotificationCodec.getInstance().decode(notification));
+                    }
+                }
+                entrant.setNotifications(notifications);
+            }
+        }
+        return entrant;
+    }
+
+    @Override
+    public Map<String, Object> encode(Entrant entrant) {
+        Map<String, Object> data = new HashMap<>();
+        UserCodec.writeFields(entrant, data);
+        data.put("notifications", encodeAll(entrant.getNotifications(), NotificationCodec.getInstance()));
+        data.put("registeredEvents", encodeAll(entrant.getRegisteredEvents(), EventCodec.getInstance()));
+        return data;
+    }
+
+    private static <T> List<Map<String, Object>> encodeAll(List<T> values, DocumentCodec<T> codec) {
+        if (values == null) return null;
+        List<Map<String, Object>> encoded = new ArrayList<>(values.size());
+        for (T value : values) {
+            encoded.add(value != null ? codec.encode(value) : null);
+        }
+        return encoded;
+    }
+}
@@ -0,0 +1,426 @@
+package com.example.sprite.Controllers;
+
+import com.example.sprite.Models.Event;
+import com.google.firebase.firestore.GeoPoint;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A compact binary form of {@link Event}, used for parcels and the on-disk
+ * {@link EventCache}.
+ *
+ * <p>Every string is stored once in a table at the start of the record and
+ * fields refer to it by index, so a user ID that appears in the waiting list,
+ * the selected list and the location map costs one copy plus a byte or two per
+ * reference. Strings made only of letters, digits, '-' and '_' (Firestore and
+ * Firebase Auth IDs) are packed at six bits per character instead of eight.
+ * Lengths, indexes, numbers and dates are varints. A null value is written as 0
+ * and anything else is shifted up by one.</p>
+ *
+ * <p>Unlike Java serialization this stores no class descriptors, and it can
+ * carry {@code waitingListLocations}, whose {@link GeoPoint}s are not
+ * {@code Serializable}.</p>
+ */
+public final class EventBinaryCodec {
+
+    private static final int VERSION = 3;
+
+    private static final int FLAG_LOTTERY_HAS_RUN = 1;
+    private static final int FLAG_GEOLOCATION_REQUIRED = 1 << 1;
+    private static final int FLAG_GEOLOCATION_SET = 1 << 2;
+    private static final int FLAG_GEOLOCATION = 1 << 3;
+
+    private static final Event.EventStatus[] STATUSES = Event.EventStatus.values();
+
+    private static final char[] ID_ALPHABET =
+            "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789-_".toCharArray();
+    private static final byte[] ID_CODES = new byte[128];
+
+    static {
+        Arrays.fill(ID_CODES, (byte) -1);
+        for (int i = 0; i < ID_ALPHABET.length; i++) {
+            ID_CODES[ID_ALPHABET[i]] = (byte) i;
+        }
+    }
+
+    private EventBinaryCodec() {
+    }
+
+    /**
+     * Encodes an event.
+     *
+     * @param event The event
+     * @return The encoded bytes
+     */
+    public static byte[] encode(Event event) {
+        StringTable strings = new StringTable();
+        Writer body = new Writer(256);
+
+        body.writeString(strings, event.getEventId());
+        body.writeString(strings, event.getOrganizerId());
+        body.writeString(strings, event.getTitle());
+        body.writeString(strings, event.getDescription());
+        body.writeString(strings, event.getLocation());
+        body.writeString(strings, event.getPosterImageUrl());
+        Map<String, String> variants = event.getPosterVariants();
+        if (variants == null) {
+            body.writeVarint(0);
+        } else {
+            body.writeVarint(variants.size() + 1L);
+            for (Map.Entry<String, String> variant : variants.entrySet()) {
+                body.writeString(strings, variant.getKey());
+                body.writeString(strings, variant.getValue());
+            }
+        }
+        body.writeString(strings, event.getQrCodeUrl());
+        body.writeDate(event.getDate());
+        body.writeDate(event.getTime());
+        body.writeDate(event.getEventStartDate());
+        body.writeDate(event.getEventEndDate());
+        body.writeDate(event.getRegistrationStartDate());
+        body.writeDate(event.getRegistrationEndDate());
+        body.writeDate(event.getCreatedAt());
+        body.writeDate(event.getUpdatedAt());
+        body.writeSignedVarint(event.getMaxAttendees());
+        body.writeSignedVarint(event.getMaxWaitingListSize());
+        body.writeSignedVarint(event.getEntrantLimit());
+        body.writeVarint(event.getDrawRound());
+        body.writeDouble(event.getPrice());
+        body.writeVarint(event.getStatus() == null ? 0 : event.getStatus().ordinal() + 1);
+
+        int flags = 0;
+        if (event.isLotteryHasRun()) flags |= FLAG_LOTTERY_HAS_RUN;
+        if (event.isGeolocationRequired()) flags |= FLAG_GEOLOCATION_REQUIRED;
+        if (event.getGeolocation() != null) {
+            flags |= FLAG_GEOLOCATION_SET;
+            if (event.getGeolocation()) flags |= FLAG_GEOLOCATION;
+        }
+        body.writeVarint(flags);
+
+        body.writeStringList(strings, event.getWaitingList());
+        body.writeStringList(strings, event.getSelectedAttendees());
+        body.writeStringList(strings, event.getConfirmedAttendees());
+        body.writeStringList(strings, event.getCancelledAttendees());
+
+        Map<String, GeoPoint> locations = event.getWaitingListLocations();
+        if (locations == null) {
+            body.writeVarint(0);
+        } else {
+            body.writeVarint(locations.size() + 1L);
+            for (Map.Entry<String, GeoPoint> entry : locations.entrySet()) {
+                body.writeString(strings, entry.getKey());
+                GeoPoint point = entry.getValue();
+                body.writeVarint(point == null ? 0 : 1);
+                if (point != null) {
+                    body.writeDouble(point.getLatitude());
+                    body.writeDouble(point.getLongitude());
+                }
+            }
+        }
+
+        Writer out = new Writer(body.size() + strings.byteEstimate + 8);
+        out.writeVarint(VERSION);
+        out.writeVarint(strings.values.size());
+        for (String value : strings.values) {
+            out.writeTableString(value);
+        }
+        out.writeBytes(body.buffer, body.size());
+        return out.toByteArray();
+    }
+
+    /**
+     * Decodes an event written by {@link #encode}.
+     *
+     * @param bytes The encoded bytes
+     * @return The event
+     * @throws IllegalArgumentException If the bytes are truncated or not an encoded event
+     */
+    public static Event decode(byte[] bytes) {
+        try {
+            Reader in = new Reader(bytes);
+            if (in.readVarint() != VERSION) {
+                throw new IllegalArgumentException("Unsupported event encoding");
+            }
+            String[] strings = new String[in.readLength()];
+            for (int i = 0; i < strings.length; i++) {
+                strings[i] = in.readTableString();
+            }
+
+            Event event = new Event();
+            event.setEventId(in.readString(strings));
+            event.setOrganizerId(in.readString(strings));
+            event.setTitle(in.readString(strings));
+            event.setDescription(in.readString(strings));
+            event.setLocation(in.readString(strings));
+            event.setPosterImageUrl(in.readString(strings));
+            int variantCount = in.readLength();
+            if (variantCount > 0) {
+                Map<String, String> variants = new HashMap<>(variantCount * 4 / 3 + 1);
+                for (int i = 0; i < variantCount - 1; i++) {
+                    variants.put(in.readString(strings), in.readString(strings));
+                }
+                event.setPosterVariants(variants);
+            }
+            event.setQrCodeUrl(in.readString(strings));
+            event.setDate(in.readDate());
+            event.setTime(in.readDate());
+            event.setEventStartDate(in.readDate());
+            event.setEventEndDate(in.readDate());
+            event.setRegistrationStartDate(in.readDate());
+            event.setRegistrationEndDate(in.readDate());
+            event.setCreatedAt(in.readDate());
+            event.setUpdatedAt(in.readDate());
+            event.setMaxAttendees((int) in.readSignedVarint());
+            event.setMaxWaitingListSize((int) in.readSignedVarint());
+            event.setEntrantLimit((int) in.readSignedVarint());
+            event.setDrawRound((int) in.readVarint());
+            event.setPrice(in.readDouble());
+            int status = in.readLength();
+            event.setStatus(status == 0 ? null : STATUSES[status - 1]);
+
+            int flags = in.readLength();
+            event.setLotteryHasRun((flags & FLAG_LOTTERY_HAS_RUN) != 0);
+            event.setGeolocationRequired((flags & FLAG_GEOLOCATION_REQUIRED) != 0);
+            event.setGeolocation((flags & FLAG_GEOLOCATION_SET) != 0 ? (flags & FLAG_GEOLOCATION) != 0 : null);
+
+            event.setWaitingList(in.readStringList(strings));
+            event.setSelectedAttendees(in.readStringList(strings));
+            event.setConfirmedAttendees(in.readStringList(strings));
+            event.setCancelledAttendees(in.readStringList(strings));
+
+            int locationCount = in.readLength();
+            if (locationCount == 0) {
+                event.setWaitingListLocations(null);
+            } else {
+                Map<String, GeoPoint> locations = new HashMap<>(locationCount * 4 / 3 + 1);
+                for (int i = 0; i < locationCount - 1; i++) {
+                    String userId = in.readString(strings);
+                    GeoPoint point = in.readLength() == 0 ? null : new GeoPoint(in.readDouble(), in.readDouble());
+                    locations.put(userId, point);
+                }
+                event.setWaitingListLocations(locations);
+            }
+            return event;
+        } catch (ArrayIndexOutOfBoundsException e) {
+            throw new IllegalArgumentException("Truncated or corrupt event encoding", e);
+        }
+    }
+
+    /** Assigns each distinct string an index in order of first use. */
+    private static final class StringTable {
+        final HashMap<String, Integer> indexes = new HashMap<>();
+        final List<String> values = new ArrayList<>();
+        int byteEstimate;
+
+        int indexOf(String value) {
+            Integer index = indexes.get(value);
+            if (index == null) {
+                index = values.size();
+                indexes.put(value, index);
+                values.add(value);
+                byteEstimate += value.length() + 2;
+            }
+            return index;
+        }
+    }
+
+    private static boolean isPackable(String value) {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c >= 128 || ID_CODES[c] < 0) return false;
+        }
+        return true;
+    }
+
+    private static final class Writer {
+        byte[] buffer;
+        int position;
+
+        Writer(int capacity) {
+            buffer = new byte[Math.max(16, capacity)];
+        }
+
+        int size() {
+            return position;
+        }
+
+        void ensure(int extra) {
+            if (position + extra > buffer.length) {
+                buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, position + extra));
+            }
+        }
+
+        void writeVarint(long value) {
+            ensure(10);
+            while ((value & ~0x7FL) != 0) {
+                buffer[position++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            buffer[position++] = (byte) value;
+        }
+
+        void writeSignedVarint(long value) {
+            writeVarint((value << 1) ^ (value >> 63));
+        }
+
+        void writeDouble(double value) {
+            long bits = Double.doubleToRawLongBits(value);
+            ensure(8);
+            for (int i = 0; i < 8; i++) {
+                buffer[position++] = (byte) (bits >>> (i * 8));
+            }
+        }
+
+        void writeBytes(byte[] bytes, int length) {
+            ensure(length);
+            System.arraycopy(bytes, 0, buffer, position, length);
+            position += length;
+        }
+
+        /** Writes {@code length << 1 | packed} followed by six-bit codes or UTF-8 bytes. */
+        void writeTableString(String value) {
+            if (!isPackable(value)) {
+                byte[] utf8 = value.getBytes(StandardCharsets.UTF_8);
+                writeVarint((long) utf8.length << 1);
+                writeBytes(utf8, utf8.length);
+                return;
+            }
+            writeVarint(((long) value.length() << 1) | 1);
+            ensure((value.length() * 6 + 7) / 8);
+            int bits = 0;
+            int pending = 0;
+            for (int i = 0; i < value.length(); i++) {
+                bits = (bits << 6) | ID_CODES[value.charAt(i)];
+                pending += 6;
+                if (pending >= 8) {
+                    pending -= 8;
+                    buffer[position++] = (byte) (bits >>> pending);
+                }
+            }
+            if (pending > 0) {
+                buffer[position++] = (byte) (bits << (8 - pending));
+            }
+        }
+
+        void writeString(StringTable strings, String value) {
+            writeVarint(value == null ? 0 : strings.indexOf(value) + 1L);
+        }
+
+        void writeDate(Date date) {
+            // Zigzag keeps pre-1970 dates small; +1 leaves 0 for null.
+            writeVarint(date == null ? 0 : ((date.getTime() << 1) ^ (date.getTime() >> 63)) + 1);
+        }
+
+        void writeStringList(StringTable strings, List<String> list) {
+            if (list == null) {
+                writeVarint(0);
+                return;
+            }
+            writeVarint(list.size() + 1L);
+            for (String value : list) {
+                writeString(strings, value);
+            }
+        }
+
+        byte[] toByteArray() {
+            return Arrays.copyOf(buffer, position);
+        }
+    }
+
+    private static final class Reader {
+        final byte[] buffer;
+        int position;
+
+        Reader(byte[] buffer) {
+            this.buffer = buffer;
+        }
+
+        long readVarint() {
+            long value = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                byte b = buffer[position++];
+                value |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) return value;
+            }
+            throw new IllegalArgumentException("Malformed varint");
+        }
+
+        int readLength() {
+            long value = readVarint();
+            if (value < 0 || value > buffer.length + 1L) {
+                throw new IllegalArgumentException("Implausible length " + value);
+            }
+            return (int) value;
+        }
+
+        long readSignedVarint() {
+            long value = readVarint();
+            return (value >>> 1) ^ -(value & 1);
+        }
+
+        double readDouble() {
+            long bits = 0;
+            for (int i = 0; i < 8; i++) {
+                bits |= (long) (buffer[position++] & 0xFF) << (i * 8);
+            }
+            return Double.longBitsToDouble(bits);
+        }
+
+        String readTableString() {
+            long header = readVarint();
+            long length = header >>> 1;
+            long byteCount = (header & 1) == 0 ? length : (length * 6 + 7) / 8;
+            if (header < 0 || position + byteCount > buffer.length) {
+                throw new IllegalArgumentException("Truncated string");
+            }
+            if ((header & 1) == 0) {
+                String value = new String(buffer, position, (int) length, StandardCharsets.UTF_8);
+                position += (int) length;
+                return value;
+            }
+            char[] chars = new char[(int) length];
+            int bits = 0;
+            int available = 0;
+            for (int i = 0; i < chars.length; i++) {
+                if (available < 6) {
+                    bits = (bits << 8) | (buffer[position++] & 0xFF);
+                    available += 8;
+                }
+                available -= 6;
+                chars[i] = ID_ALPHABET[(bits >>> available) & 0x3F];
+            }
+            return new String(chars);
+        }
+
+        String readString(String[] strings) {
+            int index = readLength();
+            if (index > strings.length) {
+                throw new IllegalArgumentException("Bad string reference " + index);
+            }
+            return index == 0 ? null : strings[index - 1];
+        }
+
+        Date readDate() {
+            long value = readVarint();
+            if (value == 0) return null;
+            long zigzag = value - 1;
+            return new Date((zigzag >>> 1) ^ -(zigzag & 1));
+        }
+
+        List<String> readStringList(String[] strings) {
+            int size = readLength();
+            if (size == 0) return null;
+            List<String> list = new ArrayList<>(size - 1);
+            for (int i = 0; i < size - 1; i++) {
+                list.add(readString(strings));
+            }
+            return list;
+        }
+    }
+}
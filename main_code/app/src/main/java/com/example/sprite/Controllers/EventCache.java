@@ -0,0 +1,200 @@
+package com.example.sprite.Controllers;
+
+import android.content.Context;
+import android.os.Bundle;
+import android.util.Log;
+
+import com.example.sprite.Models.Event;
+
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+
+/**
+ * Holds events handed from one screen to the next, so navigation arguments only
+ * need to carry an event ID.
+ *
+ * <p>{@link #putArguments} caches the event and puts its ID in the bundle;
+ * {@link #fromArguments} looks it up again. Recently used events are kept in
+ * memory. Each event is also written in the background to the app's cache
+ * directory with {@link EventBinaryCodec}, so a screen recreated after the
+ * process was killed can still restore its event from the ID in its saved
+ * arguments.</p>
+ */
+public class EventCache {
+
+    private static final String TAG = "EventCache";
+
+    /** The navigation argument holding the event's ID. */
+    public static final String ARG_EVENT_ID = "selectedEventId";
+
+    private static final int MEMORY_ENTRIES = 32;
+    private static final int DISK_ENTRIES = 128;
+    private static final String SUFFIX = ".event";
+
+    private static EventCache shared;
+
+    private final File directory;
+    private final Executor diskExecutor;
+    private final LinkedHashMap<String, Event> memory =
+            new LinkedHashMap<String, Event>(MEMORY_ENTRIES, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, Event> eldest) {
+                    return size() > MEMORY_ENTRIES;
+                }
+            };
+
+    /**
+     * Creates a cache.
+     *
+     * @param directory    Where encoded events are written, or null for memory only
+     * @param diskExecutor Runs disk writes
+     */
+    EventCache(File directory, Executor diskExecutor) {
+        this.directory = directory;
+        this.diskExecutor = diskExecutor;
+    }
+
+    /**
+     * Gets the app's event cache, stored under the app's cache directory.
+     *
+     * @param context Any context
+     * @return The shared cache
+     */
+    public static synchronized EventCache getInstance(Context context) {
+        if (shared == null) {
+            File directory = new File(context.getApplicationContext().getCacheDir(), "events");
+            shared = new EventCache(directory, Executors.newSingleThreadExecutor());
+        }
+        return shared;
+    }
+
+    /**
+     * Caches an event and puts its ID in a navigation bundle.
+     *
+     * @param arguments The bundle to pass to the next screen
+     * @param event     The event
+     */
+    public void putArguments(Bundle arguments, Event event) {
+        put(event);
+        arguments.putString(ARG_EVENT_ID, event.getEventId());
+    }
+
+    /**
+     * Gets the event whose ID was put in a bundle by {@link #putArguments}.
+     *
+     * @param arguments The screen's arguments, possibly null
+     * @return The event, or null if there is none or it is no longer cached
+     */
+    public Event fromArguments(Bundle arguments) {
+        return arguments != null ? get(arguments.getString(ARG_EVENT_ID)) : null;
+    }
+
+    /**
+     * Caches an event, replacing any earlier copy.
+     *
+     * @param event The event; ignored if it has no ID
+     */
+    public void put(Event event) {
+        String eventId = event.getEventId();
+        if (eventId == null) {
+            return;
+        }
+        synchronized (memory) {
+            memory.put(eventId, event);
+        }
+        if (directory != null) {
+            // Encode now so later changes to the event made on the main thread are not raced
+            byte[] encoded = EventBinaryCodec.encode(event);
+            diskExecutor.execute(() -> write(eventId, encoded));
+        }
+    }
+
+    /**
+     * Gets a cached event, reading it back from disk if it is no longer in memory.
+     *
+     * @param eventId The event ID
+     * @return The event, or null if it is not cached
+     */
+    public Event get(String eventId) {
+        if (eventId == null) {
+            return null;
+        }
+        synchronized (memory) {
+            Event event = memory.get(eventId);
+            if (event != null) return event;
+        }
+        Event event = read(eventId);
+        if (event != null) {
+            synchronized (memory) {
+                memory.put(eventId, event);
+            }
+        }
+        return event;
+    }
+
+    private File fileFor(String eventId) {
+        // Firestore IDs are file-name safe, but IDs are hashed anyway and checked on read
+        return new File(directory, Integer.toHexString(eventId.hashCode()) + SUFFIX);
+    }
+
+    private void write(String eventId, byte[] encoded) {
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            Log.w(TAG, "Cannot create " + directory);
+            return;
+        }
+        File target = fileFor(eventId);
+        File temp = new File(directory, target.getName() + ".tmp");
+        try (FileOutputStream out = new FileOutputStream(temp)) {
+            out.write(encoded);
+        } catch (IOException e) {
+            Log.w(TAG, "Failed to cache event " + eventId, e);
+            return;
+        }
+        if (!temp.renameTo(target)) {
+            temp.delete();
+            return;
+        }
+        trim();
+    }
+
+    private Event read(String eventId) {
+        if (directory == null) {
+            return null;
+        }
+        File file = fileFor(eventId);
+        if (!file.isFile()) {
+            return null;
+        }
+        // java.nio.file needs API 26
+        byte[] bytes = new byte[(int) file.length()];
+        try (DataInputStream in = new DataInputStream(new FileInputStream(file))) {
+            in.readFully(bytes);
+            Event event = EventBinaryCodec.decode(bytes);
+            return eventId.equals(event.getEventId()) ? event : null;
+        } catch (IOException | IllegalArgumentException e) {
+            file.delete();
+            return null;
+        }
+    }
+
+    /** Deletes the least recently written files beyond {@link #DISK_ENTRIES}. */
+    private void trim() {
+        File[] files = directory.listFiles((dir, name) -> name.endsWith(SUFFIX));
+        if (files == null || files.length <= DISK_ENTRIES) {
+            return;
+        }
+        Arrays.sort(files, Comparator.comparingLong(File::lastModified));
+        for (int i = 0; i < files.length - DISK_ENTRIES; i++) {
+            files[i].delete();
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package com.example.sprite.Controllers;
+
+import com.example.sprite.Models.Event;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Maps {@link Event} documents without reflection.
+ *
+ * <p>Field names match the bean properties Firestore derives from {@link Event}'s
+ * getters, e.g. {@code lotteryHasRun} for {@code isLotteryHasRun()}. Decoding is a
+ * single pass over the document's fields.</p>
+ */
+public final class EventCodec implements DocumentCodec<Event> {
+
+    private static final EventCodec INSTANCE = new EventCodec();
+
+    /** Number of fields written by {@link #encode}, used to size the map. */
+    private static final int FIELD_COUNT = 30;
+
+    private EventCodec() {
+    }
+
+    /**
+     * Gets the codec.
+     *
+     * @return The shared codec
+     */
+    public static EventCodec getInstance() {
+        return INSTANCE;
+    }
+
+    @Override
+    public Event decode(Map<String, Object> data) {
+        Event event = new Event();
+        for (Map.Entry<String, Object> field : data.entrySet()) {
+            Object value = field.getValue();
+            switch (field.getKey()) {
+                case "eventId": event.setEventId(CodecValues.toString(value)); break;
+                case "organizerId": event.setOrganizerId(CodecValues.toString(value)); break;
+                case "title": event.setTitle(CodecValues.toString(value)); break;
+                case "description": event.setDescription(CodecValues.toString(value)); break;
+                case "location": event.setLocation(CodecValues.toString(value)); break;
+                case "date": event.setDate(CodecValues.toDate(value)); break;
+                case "time": event.setTime(CodecValues.toDate(value)); break;
+                case "eventStartDate": event.setEventStartDate(CodecValues.toDate(value)); break;
+                case "eventEndDate": event.setEventEndDate(CodecValues.toDate(value)); break;
+                case "registrationStartDate": event.setRegistrationStartDate(CodecValues.toDate(value)); break;
+                case "registrationEndDate": event.setRegistrationEndDate(CodecValues.toDate(value)); break;
+                case "createdAt": event.setCreatedAt(CodecValues.toDate(value)); break;
+                case "updatedAt": event.setUpdatedAt(CodecValues.toDate(value)); break;
+                case "maxAttendees": event.setMaxAttendees(CodecValues.toInt(value, event.getMaxAttendees())); break;
+                case "maxWaitingListSize":
+                    event.setMaxWaitingListSize(CodecValues.toInt(value, event.getMaxWaitingListSize()));
+                    break;
+                case "entrantLimit": event.setEntrantLimit(CodecValues.toInt(value, event.getEntrantLimit())); break;
+                case "price": event.setPrice(CodecValues.toDouble(value, event.getPrice())); break;
+                case "posterImageUrl": event.setPosterImageUrl(CodecValues.toString(value)); break;
+                case "posterVariants": event.setPosterVariants(CodecValues.toStringMap(value)); break;
+                case "qrCodeUrl": event.setQrCodeUrl(CodecValues.toString(value)); break;
+                case "status": event.setStatus(CodecValues.toEnum(value, Event.EventStatus.class)); break;
+                case "lotteryHasRun":
+                    event.setLotteryHasRun(CodecValues.toBoolean(value, event.isLotteryHasRun()));
+                    break;
+                case "drawRound": event.setDrawRound(CodecValues.toInt(value, event.getDrawRound())); break;
+                case "geolocationRequired":
+                    event.setGeolocationRequired(CodecValues.toBoolean(value, event.isGeolocationRequired()));
+                    break;
+                case "geolocation": event.setGeolocation(CodecValues.toBoxedBoolean(value)); break;
+                case "selectedAttendees": event.setSelectedAttendees(CodecValues.toStringList(value)); break;
+                case "confirmedAttendees": event.setConfirmedAttendees(CodecValues.toStringList(value)); break;
+                case "cancelledAttendees": event.setCancelledAttendees(CodecValues.toStringList(value)); break;
+                case "waitingList": event.setWaitingList(CodecValues.toStringList(value)); break;
+                case "waitingListLocations":
+                    event.setWaitingListLocations(CodecValues.toGeoPointMap(value));
+                    break;
+                default:
+                    break;
+            }
+        }
+        return event;
+    }
+
+    @Override
+    public Map<String, Object> encode(Event event) {
+        Map<String, Object> data = new HashMap<>(FIELD_COUNT * 4 / 3 + 1);
+        data.put("eventId", event.getEventId());
+        data.put("organizerId", event.getOrganizerId());
+        data.put("title", event.getTitle());
+        data.put("description", event.getDescription());
+        data.put("location", event.getLocation());
+        data.put("date", event.getDate());
+        data.put("time", event.getTime());
+        data.put("eventStartDate", event.getEventStartDate());
+        data.put("eventEndDate", event.getEventEndDate());
+        data.put("registrationStartDate", event.getRegistrationStartDate());
+        data.put("registrationEndDate", event.getRegistrationEndDate());
+        data.put("createdAt", event.getCreatedAt());
+        data.put("updatedAt", event.getUpdatedAt());
+        data.put("maxAttendees", event.getMaxAttendees());
+        data.put("maxWaitingListSize", event.getMaxWaitingListSize());
+        data.put("entrantLimit", event.getEntrantLimit());
+        data.put("price", event.getPrice());
+        data.put("posterImageUrl", event.getPosterImageUrl());
+        data.put("posterVariants", event.getPosterVariants());
+        data.put("qrCodeUrl", event.getQrCodeUrl());
+        data.put("status", CodecValues.fromEnum(event.getStatus()));
+        data.put("lotteryHasRun", event.isLotteryHasRun());
+        data.put("drawRound", event.getDrawRound());
+        data.put("geolocationRequired", event.isGeolocationRequired());
+        data.put("geolocation", event.getGeolocation());
+        data.put("selectedAttendees", event.getSelectedAttendees());
+        data.put("confirmedAttendees", event.getConfirmedAttendees());
+        data.put("cancelledAttendees", event.getCancelledAttendees());
+        data.put("waitingList", event.getWaitingList());
+        data.put("waitingListLocations", event.getWaitingListLocations());
+        return data;
+    }
+}
@@ -0,0 +1,140 @@
+package com.example.sprite.Controllers;
+
+import java.util.Locale;
+
+/**
+ * A snapshot of how far a {@link NotificationFanout} has got.
+ */
+public final class FanoutProgress {
+
+    private final int recipients;
+    private final int checked;
+    private final int optedOut;
+    private final int duplicates;
+    private final int sent;
+    private final int failed;
+    private final int lookups;
+    private final int commits;
+    private final long elapsedNanos;
+    private final boolean done;
+
+    FanoutProgress(int recipients, int checked, int optedOut, int duplicates, int sent, int failed,
+                   int lookups, int commits, long elapsedNanos, boolean done) {
+        this.recipients = recipients;
+        this.checked = checked;
+        this.optedOut = optedOut;
+        this.duplicates = duplicates;
+        this.sent = sent;
+        this.failed = failed;
+        this.lookups = lookups;
+        this.commits = commits;
+        this.elapsedNanos = elapsedNanos;
+        this.done = done;
+    }
+
+    /**
+     * Gets the number of entrants the fan-out was started for.
+     *
+     * @return The recipient count
+     */
+    public int getRecipients() {
+        return recipients;
+    }
+
+    /**
+     * Gets the number of entrants checked against the opt-out index.
+     *
+     * @return The entrants checked so far
+     */
+    public int getChecked() {
+        return checked;
+    }
+
+    /**
+     * Gets the number of entrants skipped because they turned notifications off.
+     *
+     * @return The opted-out count
+     */
+    public int getOptedOut() {
+        return optedOut;
+    }
+
+    /**
+     * Gets the number of notifications skipped because they were already sent.
+     *
+     * @return The duplicate count
+     */
+    public int getDuplicates() {
+        return duplicates;
+    }
+
+    /**
+     * Gets the number of notifications committed.
+     *
+     * @return The sent count
+     */
+    public int getSent() {
+        return sent;
+    }
+
+    /**
+     * Gets the number of notifications whose batch failed to commit.
+     *
+     * @return The failed count
+     */
+    public int getFailed() {
+        return failed;
+    }
+
+    /**
+     * Gets the number of up-front queries: the opt-out index, and notifications already sent.
+     *
+     * @return The lookups
+     */
+    public int getLookups() {
+        return lookups;
+    }
+
+    /**
+     * Gets the number of batch commits issued.
+     *
+     * @return The commits
+     */
+    public int getCommits() {
+        return commits;
+    }
+
+    /**
+     * Gets the round trips used so far: the up-front lookups plus batch commits.
+     *
+     * @return The round trips
+     */
+    public int getRoundTrips() {
+        return lookups + commits;
+    }
+
+    /**
+     * Gets the time since the fan-out started.
+     *
+     * @return The elapsed time in nanoseconds
+     */
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+
+    /**
+     * Gets whether every recipient has been checked and every batch has finished.
+     *
+     * @return true once the fan-out is complete
+     */
+    public boolean isDone() {
+        return done;
+    }
+
+    @Override
+    public String toString() {
+        return String.format(Locale.US,
+                "%d/%d checked, %d sent, %d failed, %d opted out, %d duplicates; %d round trips in %.1f ms",
+                checked, recipients, sent, failed, optedOut, duplicates, getRoundTrips(), elapsedNanos / 1e6);
+    }
+}
@@ -0,0 +1,55 @@
+package com.example.sprite.Controllers;
+
+import com.google.android.gms.tasks.Task;
+import com.google.firebase.storage.FirebaseStorage;
+import com.google.firebase.storage.ListResult;
+import com.google.firebase.storage.StorageReference;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * A {@link BlobStore} over Firebase Storage. Pass an instance configured with
+ * {@link FirebaseStorage#useEmulator(String, int)} to work against the Storage emulator.
+ */
+public class FirebaseBlobStore implements BlobStore {
+
+    private final FirebaseStorage storage;
+
+    /**
+     * Creates a blob store.
+     *
+     * @param storage The storage instance to use
+     */
+    public FirebaseBlobStore(FirebaseStorage storage) {
+        this.storage = storage;
+    }
+
+    @Override
+    public CompletableFuture<Page> list(String folder, int maxResults, String pageToken) {
+        StorageReference reference = storage.getReference(folder);
+        Task<ListResult> task = pageToken == null
+                ? reference.list(maxResults)
+                : reference.list(maxResults, pageToken);
+        return TaskFutures.from(task).thenApply(result -> {
+            List<String> paths = new ArrayList<>(result.getItems().size());
+            for (StorageReference item : result.getItems()) {
+                String path = item.getPath();
+                paths.add(path.startsWith("/") ? path.substring(1) : path);
+            }
+            return new Page(paths, result.getPageToken());
+        });
+    }
+
+    @Override
+    public CompletableFuture<Long> createdAt(String path) {
+        return TaskFutures.from(storage.getReference(path).getMetadata())
+                .thenApply(metadata -> metadata.getCreationTimeMillis());
+    }
+
+    @Override
+    public CompletableFuture<Void> delete(String path) {
+        return TaskFutures.from(storage.getReference(path).delete());
+    }
+}
@@ -0,0 +1,304 @@
+package com.example.sprite.Controllers;
+
+import com.google.firebase.Timestamp;
+import com.google.firebase.firestore.CollectionReference;
+import com.google.firebase.firestore.DocumentReference;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.FieldPath;
+import com.google.firebase.firestore.FieldValue;
+import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.FirebaseFirestoreException;
+import com.google.firebase.firestore.Query;
+import com.google.firebase.firestore.SetOptions;
+import com.google.firebase.firestore.Transaction;
+import com.google.firebase.firestore.WriteBatch;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * {@link DataStore} implementation backed by Cloud Firestore.
+ *
+ * <p>{@link StoreValues} sentinels are translated into {@link FieldValue}s, and
+ * {@link Timestamp}s in read results are converted to {@link java.util.Date} so
+ * documents look the same as those returned by {@link InMemoryDataStore}.</p>
+ */
+public class FirestoreDataStore implements DataStore {
+
+    private final FirebaseFirestore db;
+
+    /**
+     * Creates a store over the default Firestore instance.
+     */
+    public FirestoreDataStore() {
+        this(FirebaseFirestore.getInstance());
+    }
+
+    /**
+     * Creates a store over the given Firestore instance.
+     *
+     * @param db The Firestore instance to use
+     */
+    public FirestoreDataStore(FirebaseFirestore db) {
+        this.db = db;
+    }
+
+    @Override
+    public String newDocumentId(String collection) {
+        return db.collection(collection).document().getId();
+    }
+
+    @Override
+    public CompletableFuture<StoreDocument> get(String collection, String documentId) {
+        return TaskFutures.from(document(collection, documentId).get())
+                .thenApply(FirestoreDataStore::toStoreDocument);
+    }
+
+    @Override
+    public CompletableFuture<Void> set(String collection, String documentId, Map<String, Object> data) {
+        return TaskFutures.from(document(collection, documentId).set(toFirestore(data)));
+    }
+
+    @Override
+    public CompletableFuture<Void> update(String collection, String documentId, Map<String, Object> updates) {
+        return TaskFutures.from(document(collection, documentId).update(toFirestore(updates)));
+    }
+
+    @Override
+    public CompletableFuture<Void> delete(String collection, String documentId) {
+        return TaskFutures.from(document(collection, documentId).delete());
+    }
+
+    @Override
+    public CompletableFuture<List<StoreDocument>> query(StoreQuery query) {
+        return TaskFutures.from(toFirestoreQuery(query).get())
+                .thenApply(snapshot -> {
+                    List<StoreDocument> documents = new ArrayList<>();
+                    for (DocumentSnapshot doc : snapshot.getDocuments()) {
+                        documents.add(toStoreDocument(doc));
+                    }
+                    return documents;
+                });
+    }
+
+    @Override
+    public StoreBatch batch() {
+        return new FirestoreBatch(db.batch());
+    }
+
+    /**
+     * Adapts a Firestore batch, so writes made through {@link StoreBatch} commit together
+     * with writes the store cannot express, such as documents mapped from objects.
+     *
+     * @param batch The batch
+     * @return A view of the batch; committing it commits {@code batch}
+     */
+    public StoreBatch wrap(WriteBatch batch) {
+        return new FirestoreBatch(batch);
+    }
+
+    @Override
+    public <T> CompletableFuture<T> runTransaction(StoreTransaction.Function<T> function) {
+        return TaskFutures.from(db.runTransaction((Transaction.Function<T>) transaction -> {
+            try {
+                return function.apply(new FirestoreTransaction(transaction));
+            } catch (FirebaseFirestoreException e) {
+                throw e;
+            } catch (Exception e) {
+                throw new FirebaseFirestoreException(String.valueOf(e.getMessage()),
+                        FirebaseFirestoreException.Code.CANCELLED, e);
+            }
+        }));
+    }
+
+    /**
+     * Builds the Firestore query equivalent to a {@link StoreQuery}.
+     *
+     * @param query The backend-neutral query
+     * @return The Firestore query
+     */
+    Query toFirestoreQuery(StoreQuery query) {
+        Query result = db.collection(query.getCollection());
+        for (StoreQuery.Filter filter : query.getFilters()) {
+            boolean byId = StoreQuery.DOCUMENT_ID.equals(filter.getField());
+            switch (filter.getOperator()) {
+                case EQUAL:
+                    result = byId
+                            ? result.whereEqualTo(FieldPath.documentId(), filter.getValue())
+                            : result.whereEqualTo(filter.getField(), filter.getValue());
+                    break;
+                case ARRAY_CONTAINS:
+                    result = result.whereArrayContains(filter.getField(), filter.getValue());
+                    break;
+                case IN:
+                    List<Object> values = new ArrayList<>((List<?>) filter.getValue());
+                    result = byId
+                            ? result.whereIn(FieldPath.documentId(), values)
+                            : result.whereIn(filter.getField(), values);
+                    break;
+            }
+        }
+        if (query.getOrderByField() != null) {
+            Query.Direction direction = query.getDirection() == StoreQuery.Direction.DESCENDING
+                    ? Query.Direction.DESCENDING
+                    : Query.Direction.ASCENDING;
+            result = StoreQuery.DOCUMENT_ID.equals(query.getOrderByField())
+                    ? result.orderBy(FieldPath.documentId(), direction)
+                    : result.orderBy(query.getOrderByField(), direction);
+            if (query.getStartAfter() != null) {
+                result = result.startAfter(query.getStartAfter());
+            }
+        }
+        if (query.getLimit() > 0) {
+            result = result.limit(query.getLimit());
+        }
+        return result;
+    }
+
+    private DocumentReference document(String collection, String documentId) {
+        CollectionReference reference = db.collection(collection);
+        return reference.document(documentId);
+    }
+
+    private static StoreDocument toStoreDocument(DocumentSnapshot snapshot) {
+        if (snapshot == null || !snapshot.exists()) {
+            return new StoreDocument(snapshot != null ? snapshot.getId() : null, null);
+        }
+        @SuppressWarnings("unchecked")
+        Map<String, Object> data = (Map<String, Object>) fromFirestore(snapshot.getData());
+        return new StoreDocument(snapshot.getId(), data);
+    }
+
+    /** Converts Firestore read values (Timestamps, nested maps and lists) to plain Java values. */
+    private static Object fromFirestore(Object value) {
+        if (value instanceof Timestamp) {
+            return ((Timestamp) value).toDate();
+        }
+        if (value instanceof Map) {
+            Map<String, Object> copy = new HashMap<>();
+            for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+                copy.put(String.valueOf(entry.getKey()), fromFirestore(entry.getValue()));
+            }
+            return copy;
+        }
+        if (value instanceof List) {
+            List<Object> copy = new ArrayList<>();
+            for (Object element : (List<?>) value) copy.add(fromFirestore(element));
+            return copy;
+        }
+        return value;
+    }
+
+    /** Replaces {@link StoreValues} sentinels with their {@link FieldValue} equivalents. */
+    static Map<String, Object> toFirestore(Map<String, Object> data) {
+        Map<String, Object> converted = new HashMap<>();
+        for (Map.Entry<String, Object> entry : data.entrySet()) {
+            converted.put(entry.getKey(), toFirestoreValue(entry.getValue()));
+        }
+        return converted;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Object toFirestoreValue(Object value) {
+        if (value instanceof StoreValues.Increment) {
+            return FieldValue.increment(((StoreValues.Increment) value).getDelta());
+        }
+        if (value instanceof StoreValues.ArrayUnion) {
+            return FieldValue.arrayUnion(((StoreValues.ArrayUnion) value).getElements().toArray());
+        }
+        if (value instanceof StoreValues.ArrayRemove) {
+            return FieldValue.arrayRemove(((StoreValues.ArrayRemove) value).getElements().toArray());
+        }
+        if (value instanceof StoreValues.Delete) {
+            return FieldValue.delete();
+        }
+        if (value instanceof StoreValues.ServerTimestamp) {
+            return FieldValue.serverTimestamp();
+        }
+        if (value instanceof Map) {
+            return toFirestore((Map<String, Object>) value);
+        }
+        return value;
+    }
+
+    private final class FirestoreBatch implements StoreBatch {
+        private final WriteBatch batch;
+        private int size;
+
+        FirestoreBatch(WriteBatch batch) {
+            this.batch = batch;
+        }
+
+        @Override
+        public StoreBatch set(String collection, String documentId, Map<String, Object> data) {
+            batch.set(document(collection, documentId), toFirestore(data));
+            size++;
+            return this;
+        }
+
+        @Override
+        public StoreBatch merge(String collection, String documentId, Map<String, Object> data) {
+            batch.set(document(collection, documentId), toFirestore(data), SetOptions.merge());
+            size++;
+            return this;
+        }
+
+        @Override
+        public StoreBatch update(String collection, String documentId, Map<String, Object> updates) {
+            batch.update(document(collection, documentId), toFirestore(updates));
+            size++;
+            return this;
+        }
+
+        @Override
+        public StoreBatch delete(String collection, String documentId) {
+            batch.delete(document(collection, documentId));
+            size++;
+            return this;
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+
+        @Override
+        public CompletableFuture<Void> commit() {
+            return TaskFutures.from(batch.commit());
+        }
+    }
+
+    private final class FirestoreTransaction implements StoreTransaction {
+        private final Transaction transaction;
+
+        FirestoreTransaction(Transaction transaction) {
+            this.transaction = transaction;
+        }
+
+        @Override
+        public StoreDocument get(String collection, String documentId) throws Exception {
+            return toStoreDocument(transaction.get(document(collection, documentId)));
+        }
+
+        @Override
+        public StoreTransaction set(String collection, String documentId, Map<String, Object> data) {
+            transaction.set(document(collection, documentId), toFirestore(data));
+            return this;
+        }
+
+        @Override
+        public StoreTransaction update(String collection, String documentId, Map<String, Object> updates) {
+            transaction.update(document(collection, documentId), toFirestore(updates));
+            return this;
+        }
+
+        @Override
+        public StoreTransaction delete(String collection, String documentId) {
+            transaction.delete(document(collection, documentId));
+            return this;
+        }
+    }
+}
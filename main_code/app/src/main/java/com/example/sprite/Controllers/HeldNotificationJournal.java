@@ -0,0 +1,240 @@
+package com.example.sprite.Controllers;
+
+import com.example.sprite.Models.Notification;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+
+/**
+ * A durable journal of the notifications a {@link NotificationCoalescer} is holding,
+ * so notifications held when the process is killed are still sent on the next start.
+ *
+ * <p>{@link #hold} appends one record per notification and fsyncs before returning;
+ * {@link #sent} appends a record for each notification once it has been written to
+ * the store. On open, the journal is replayed: notifications held and not sent are
+ * pending, in the order they were held. Records use the checksummed line format of
+ * {@link MutationOutbox}, and a damaged tail is truncated the same way. The journal
+ * is compacted once enough sent records have built up.</p>
+ */
+public class HeldNotificationJournal implements Closeable {
+
+    static final String FILE_NAME = "held_notifications.journal";
+    private static final int COMPACT_THRESHOLD = 256;
+    private static final String HELD = "H";
+    private static final String SENT = "S";
+
+    /**
+     * A notification being held, and when it was first held.
+     */
+    public static final class Held {
+        private final Notification notification;
+        private final long heldAt;
+
+        Held(Notification notification, long heldAt) {
+            this.notification = notification;
+            this.heldAt = heldAt;
+        }
+
+        /**
+         * Gets the held notification.
+         *
+         * @return The notification
+         */
+        public Notification getNotification() {
+            return notification;
+        }
+
+        /**
+         * Gets when the notification was held.
+         *
+         * @return The time in milliseconds
+         */
+        public long getHeldAt() {
+            return heldAt;
+        }
+    }
+
+    private final File file;
+    private final LinkedHashMap<String, Held> pending = new LinkedHashMap<>();
+    private FileOutputStream out;
+    private int sentRecords;
+
+    private HeldNotificationJournal(File file) {
+        this.file = file;
+    }
+
+    /**
+     * Opens (creating if needed) the journal stored in a directory.
+     *
+     * @param directory Where the journal lives
+     * @return The journal, with held notifications loaded
+     * @throws IOException If the journal cannot be read or created
+     */
+    public static HeldNotificationJournal open(File directory) throws IOException {
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("Cannot create " + directory);
+        }
+        HeldNotificationJournal journal = new HeldNotificationJournal(new File(directory, FILE_NAME));
+        journal.load();
+        journal.out = new FileOutputStream(journal.file, true);
+        return journal;
+    }
+
+    /**
+     * Durably records notifications being held. A notification already held keeps its
+     * original time.
+     *
+     * @param notifications The notifications, each with an ID
+     * @param heldAt        When they were held, in milliseconds
+     * @throws IOException If the journal cannot be written
+     */
+    public synchronized void hold(Collection<Notification> notifications, long heldAt) throws IOException {
+        ByteArrayOutputStream records = new ByteArrayOutputStream();
+        for (Notification notification : notifications) {
+            Held held = pending.get(notification.getNotificationId());
+            byte[] record = encodeHeld(notification, held != null ? held.heldAt : heldAt);
+            records.write(record, 0, record.length);
+        }
+        append(records.toByteArray());
+        for (Notification notification : notifications) {
+            Held held = pending.get(notification.getNotificationId());
+            pending.put(notification.getNotificationId(),
+                    new Held(notification, held != null ? held.heldAt : heldAt));
+        }
+    }
+
+    /**
+     * Durably marks notifications as written to the store, so they are not sent again.
+     *
+     * @param notificationIds The IDs of the notifications
+     * @throws IOException If the journal cannot be written
+     */
+    public synchronized void sent(Collection<String> notificationIds) throws IOException {
+        ByteArrayOutputStream records = new ByteArrayOutputStream();
+        int count = 0;
+        for (String notificationId : notificationIds) {
+            if (pending.remove(notificationId) != null) {
+                byte[] record = MutationOutbox.encode(SENT, notificationId);
+                records.write(record, 0, record.length);
+                count++;
+            }
+        }
+        if (count == 0) {
+            return;
+        }
+        append(records.toByteArray());
+        sentRecords += count;
+        if (sentRecords >= COMPACT_THRESHOLD && sentRecords > pending.size()) {
+            compact();
+        }
+    }
+
+    /**
+     * Gets the notifications held and not yet sent, in the order they were held.
+     *
+     * @return A copy of the held notifications
+     */
+    public synchronized List<Held> pending() {
+        return new ArrayList<>(pending.values());
+    }
+
+    /**
+     * Rewrites the journal with only the held notifications.
+     *
+     * @throws IOException If the new journal cannot be written
+     */
+    public synchronized void compact() throws IOException {
+        File temp = new File(file.getParentFile(), FILE_NAME + ".tmp");
+        try (FileOutputStream compacted = new FileOutputStream(temp, false)) {
+            for (Held held : pending.values()) {
+                compacted.write(encodeHeld(held.notification, held.heldAt));
+            }
+            compacted.getFD().sync();
+        }
+        out.close();
+        if (!temp.renameTo(file)) {
+            out = new FileOutputStream(file, true);
+            throw new IOException("Cannot replace " + file);
+        }
+        out = new FileOutputStream(file, true);
+        sentRecords = 0;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        out.close();
+    }
+
+    private void append(byte[] records) throws IOException {
+        out.write(records);
+        out.getFD().sync();
+    }
+
+    private void load() throws IOException {
+        if (!file.exists()) {
+            return;
+        }
+        byte[] bytes = MutationOutbox.readAll(file);
+        int lineStart = 0;
+        int goodLength = 0;
+        for (int i = 0; i < bytes.length; i++) {
+            if (bytes[i] != '\n') continue;
+            String line = new String(bytes, lineStart, i - lineStart, StandardCharsets.UTF_8);
+            lineStart = i + 1;
+            List<String> fields = MutationOutbox.decode(line);
+            if (fields == null) {
+                // A corrupt record means everything after it was written during the same crash.
+                break;
+            }
+            apply(fields);
+            goodLength = lineStart;
+        }
+        if (goodLength < bytes.length) {
+            try (RandomAccessFile journal = new RandomAccessFile(file, "rw")) {
+                journal.setLength(goodLength);
+                journal.getFD().sync();
+            }
+        }
+    }
+
+    private void apply(List<String> fields) {
+        if (HELD.equals(fields.get(0)) && fields.size() == 10) {
+            Notification notification = new Notification(fields.get(1), fields.get(2), optional(fields.get(3)),
+                    optional(fields.get(4)), optional(fields.get(5)),
+                    CodecValues.toEnum(optional(fields.get(6)), Notification.NotificationType.class));
+            notification.setDrawRound(Integer.parseInt(fields.get(7)));
+            if (!fields.get(8).isEmpty()) {
+                notification.setCreatedAt(new Date(Long.parseLong(fields.get(8))));
+            }
+            pending.put(notification.getNotificationId(), new Held(notification, Long.parseLong(fields.get(9))));
+        } else if (SENT.equals(fields.get(0)) && fields.size() >= 2) {
+            pending.remove(fields.get(1));
+            sentRecords++;
+        }
+    }
+
+    private static byte[] encodeHeld(Notification notification, long heldAt) {
+        Date createdAt = notification.getCreatedAt();
+        return MutationOutbox.encode(HELD, notification.getNotificationId(), notification.getEntrantId(),
+                notification.getEventId(), notification.getEventTitle(), notification.getMessage(),
+                CodecValues.fromEnum(notification.getType()),
+                Integer.toString(notification.getDrawRound()),
+                createdAt != null ? Long.toString(createdAt.getTime()) : null,
+                Long.toString(heldAt));
+    }
+
+    /** Reads back a field {@link MutationOutbox#encode} wrote as empty because it was null. */
+    private static String optional(String field) {
+        return field.isEmpty() ? null : field;
+    }
+}
@@ -0,0 +1,203 @@
+package com.example.sprite.Controllers;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Tracks which image each target, such as an ImageView, is waiting for, so one download
+ * serves every target that wants the same URL and a recycled target never receives the
+ * image it asked for before it was rebound.
+ *
+ * <p>A target is bound to one URL at a time. Binding it again, or detaching it, drops
+ * its interest in the earlier URL. The first target bound to a URL starts the load; later
+ * ones join it. When the load finishes, {@link #finish(String)} returns the targets still
+ * waiting, and each result is only handed to a target that {@link #deliver claims} it while
+ * still bound to that URL. A load nobody is waiting for any more can be skipped with
+ * {@link #isWanted(String)}.</p>
+ *
+ * <p>Targets are compared by identity, as views are. Methods may be called from any thread.</p>
+ *
+ * @param <T> The target type
+ * @param <R> What each target asked for beyond the URL, such as its size
+ */
+public class ImageRequestManager<T, R> {
+
+    private final Map<T, Binding<R>> bindings = new HashMap<>();
+    /** Whether each URL's load is in progress. */
+    private final Map<String, Boolean> inFlight = new HashMap<>();
+
+    private long started;
+    private long joined;
+    private long detached;
+    private long skipped;
+
+    /**
+     * Binds a target to a URL, dropping any earlier binding.
+     *
+     * @param target  The target
+     * @param url     The image URL
+     * @param request What the target asked for
+     * @return true if the caller should start loading the URL; false if a load is already running
+     */
+    public synchronized boolean attach(T target, String url, R request) {
+        Binding<R> previous = bindings.put(target, new Binding<>(url, request));
+        if (previous != null && !previous.url.equals(url)) {
+            detached++;
+        }
+        if (inFlight.containsKey(url)) {
+            joined++;
+            return false;
+        }
+        inFlight.put(url, Boolean.TRUE);
+        started++;
+        return true;
+    }
+
+    /**
+     * Drops a target's binding, so it receives nothing from loads already running.
+     *
+     * @param target The target
+     */
+    public synchronized void detach(T target) {
+        if (bindings.remove(target) != null) {
+            detached++;
+        }
+    }
+
+    /**
+     * Checks whether any target is still waiting for a URL.
+     *
+     * @param url The image URL
+     * @return true if a target is bound to it
+     */
+    public synchronized boolean isWanted(String url) {
+        for (Binding<R> binding : bindings.values()) {
+            if (binding.url.equals(url)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Ends a URL's load early if no target is waiting for it any more, such as when a list
+     * scrolled past or a prefetch was cancelled before the download started.
+     *
+     * @param url The image URL
+     * @return true if the load was ended and the caller should stop; false if a target still wants it
+     */
+    public synchronized boolean cancelIfUnwanted(String url) {
+        if (isWanted(url)) {
+            return false;
+        }
+        inFlight.remove(url);
+        skipped++;
+        return true;
+    }
+
+    /**
+     * Ends a URL's load and gets the targets still waiting for it.
+     *
+     * @param url The image URL
+     * @return Each waiting target and what it asked for; empty if nobody is waiting
+     */
+    public synchronized Map<T, R> finish(String url) {
+        inFlight.remove(url);
+        Map<T, R> waiting = new LinkedHashMap<>();
+        for (Map.Entry<T, Binding<R>> entry : bindings.entrySet()) {
+            if (entry.getValue().url.equals(url)) {
+                waiting.put(entry.getKey(), entry.getValue().request);
+            }
+        }
+        if (waiting.isEmpty()) {
+            skipped++;
+        }
+        return waiting;
+    }
+
+    /**
+     * Ends a URL's load that failed, releasing every target waiting for it.
+     *
+     * @param url The image URL
+     */
+    public synchronized void fail(String url) {
+        inFlight.remove(url);
+        Iterator<Binding<R>> it = bindings.values().iterator();
+        while (it.hasNext()) {
+            if (it.next().url.equals(url)) {
+                it.remove();
+            }
+        }
+    }
+
+    /**
+     * Claims a finished URL's result for a target, releasing its binding.
+     *
+     * @param target The target
+     * @param url    The URL that finished loading
+     * @return true if the target is still bound to the URL and should show the result
+     */
+    public synchronized boolean deliver(T target, String url) {
+        Binding<R> binding = bindings.get(target);
+        if (binding == null || !binding.url.equals(url)) {
+            return false;
+        }
+        bindings.remove(target);
+        return true;
+    }
+
+    /**
+     * Gets the number of loads started.
+     *
+     * @return The started count
+     */
+    public synchronized long getStarted() {
+        return started;
+    }
+
+    /**
+     * Gets the number of requests that joined a load already running instead of starting one.
+     *
+     * @return The joined count
+     */
+    public synchronized long getJoined() {
+        return joined;
+    }
+
+    /**
+     * Gets the number of bindings dropped before their load finished.
+     *
+     * @return The detached count
+     */
+    public synchronized long getDetached() {
+        return detached;
+    }
+
+    /**
+     * Gets the number of loads that finished with nobody waiting.
+     *
+     * @return The skipped count
+     */
+    public synchronized long getSkipped() {
+        return skipped;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return "ImageRequestManager{" + started + " started, " + joined + " joined, "
+                + detached + " detached, " + skipped + " unwanted, " + bindings.size() + " waiting}";
+    }
+
+    /** The URL a target is bound to and what it asked for. */
+    private static final class Binding<R> {
+        final String url;
+        final R request;
+
+        Binding(String url, R request) {
+            this.url = url;
+            this.request = request;
+        }
+    }
+}
@@ -1,28 +1,222 @@
 package com.example.sprite.Controllers;
 
+import android.app.ActivityManager;
+import android.content.ComponentCallbacks2;
+import android.content.Context;
+import android.content.res.Configuration;
 import android.graphics.Bitmap;
-import android.graphics.BitmapFactory;
+import android.graphics.drawable.BitmapDrawable;
+import android.graphics.drawable.Drawable;
 import android.net.Uri;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.Process;
 import android.util.Log;
+import android.view.View;
+import android.view.ViewGroup;
 import android.widget.ImageView;
 
+import androidx.lifecycle.LiveData;
+
 import com.example.sprite.Models.Event;
 import com.google.firebase.firestore.FirebaseFirestore;
 import com.google.firebase.storage.FirebaseStorage;
 import com.google.firebase.storage.StorageReference;
 
+import java.io.File;
+import java.io.IOException;
+import java.util.Collections;
 import java.util.HashMap;
-import java.util.UUID;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 public class ImageService {
 
-    private static final HashMap<String, Bitmap> imageCache = new HashMap<>();
+    /** The share of the app's heap limit that decoded posters may take up. */
+    private static final int CACHE_HEAP_DIVISOR = 8;
+
+    private static final String DISK_CACHE_DIR = "posters";
+    private static final long DISK_CACHE_BYTES = 50L * 1024 * 1024;
+
+    /** Reads and writes the disk cache off the main thread. */
+    private static final ExecutorService IO_EXECUTOR = Executors.newSingleThreadExecutor();
+
+    /** Decodes posters on a few low-priority threads, so decoding never competes with drawing. */
+    private static final ExecutorService DECODE_EXECUTOR = decodeExecutor();
+    private static final AtomicLong networkLoads = new AtomicLong();
+    private static final AtomicLong networkBytes = new AtomicLong();
+
+    /**
+     * Looks posters up on disk for prefetches, on one low-priority thread, so they queue
+     * behind nothing a visible view is waiting for.
+     */
+    private static final ExecutorService PREFETCH_EXECUTOR = Executors.newSingleThreadExecutor(task ->
+            new Thread(() -> {
+                Process.setThreadPriority(Process.THREAD_PRIORITY_LOWEST);
+                task.run();
+            }, "PosterPrefetch"));
+
+    /**
+     * Which poster each view or prefetch is waiting for, so concurrent loads of one URL
+     * share a download.
+     */
+    private static final ImageRequestManager<Object, PosterSize> REQUESTS = new ImageRequestManager<>();
+
+    private static final AtomicLong prefetchesStarted = new AtomicLong();
+    private static final AtomicLong prefetchHits = new AtomicLong();
+    /** Memory cache keys a prefetch decoded that no view has shown yet. */
+    private static final Set<String> prefetchedKeys = Collections.newSetFromMap(new ConcurrentHashMap<>());
+    /** How long each bound view showed a placeholder before its poster; 0 for memory hits. */
+    private static final LatencyHistogram PLACEHOLDER_TIME = new LatencyHistogram();
+
+    /** The share of the memory cache's size given to the pool of reusable bitmaps. */
+    private static final int POOL_CACHE_DIVISOR = 4;
+
+    /**
+     * How many views show each bitmap, so a bitmap is only pooled once no view shows it.
+     * Views are held weakly, so those dropped with a poster still in them release it.
+     */
+    private static final DisplayedBitmaps<ImageView, Bitmap> DISPLAYED = new DisplayedBitmaps<>(bitmap -> {
+        BitmapPool pool = ImageService.bitmapPool;
+        if (pool != null) {
+            pool.put(bitmap);
+        }
+    });
+    /** Guards the placeholder times. */
+    private static final Object DISPLAY_LOCK = new Object();
+    /** When each view waiting for a poster was bound, in {@link System#nanoTime()} units. */
+    private static final Map<ImageView, Long> placeholderSince = new WeakHashMap<>();
+    /**
+     * Delivers decoded posters. Unlike {@link View#post}, this runs even if the view is
+     * never attached again, so the bitmap retained for it is always shown or released.
+     */
+    private static final Handler MAIN = new Handler(Looper.getMainLooper());
+
+    private static MemoryCache<String, Bitmap> imageCache;
+    private static volatile BitmapPool bitmapPool;
+
+    private static PosterDiskCache diskCache;
+    private static PosterRegistry registry;
+    private static boolean diskCacheFailed;
 
     private FirebaseStorage firebaseStorage = FirebaseStorage.getInstance();
     private StorageReference storageReference = firebaseStorage.getReference();
 
     /**
-     * Loads an image from the firebase storage and updates the corresponding imageview
+     * Gets the cache of decoded posters, creating it on first use with an eighth of the
+     * app's heap limit. Bitmaps it evicts are pooled for reuse once no view shows them.
+     * The cache and pool give memory back when the system asks the app to trim.
+     * @param context Any context in the app
+     * @return The shared poster cache
+     */
+    public static synchronized MemoryCache<String, Bitmap> getImageCache(Context context) {
+        if (imageCache == null) {
+            Context app = context.getApplicationContext();
+            ActivityManager activityManager = (ActivityManager) app.getSystemService(Context.ACTIVITY_SERVICE);
+            long maxBytes = activityManager.getMemoryClass() * 1024L * 1024L / CACHE_HEAP_DIVISOR;
+            BitmapPool pool = new BitmapPool(maxBytes / POOL_CACHE_DIVISOR);
+            MemoryCache<String, Bitmap> cache = new MemoryCache<>(maxBytes, Bitmap::getAllocationByteCount,
+                    (key, bitmap) -> {
+                        prefetchedKeys.remove(key);
+                        if (DISPLAYED.evicted(bitmap)) {
+                            pool.put(bitmap);
+                        }
+                    });
+            app.registerComponentCallbacks(new ComponentCallbacks2() {
+                @Override
+                public void onTrimMemory(int level) {
+                    cache.trimMemory(level);
+                    pool.trimMemory(level);
+                }
+
+                @Override
+                public void onConfigurationChanged(Configuration newConfig) {
+                }
+
+                @Override
+                public void onLowMemory() {
+                    cache.evictAll();
+                    pool.trimToSize(0);
+                }
+            });
+            bitmapPool = pool;
+            imageCache = cache;
+        }
+        return imageCache;
+    }
+
+    /**
+     * Gets the on-disk poster cache, opening it on first use. Must be called off the main thread.
+     * @param context Any context in the app
+     * @return The shared disk cache, or null if it could not be opened
+     */
+    static synchronized PosterDiskCache getDiskCache(Context context) {
+        if (diskCache == null && !diskCacheFailed) {
+            try {
+                diskCache = new PosterDiskCache(
+                        new File(context.getApplicationContext().getCacheDir(), DISK_CACHE_DIR), DISK_CACHE_BYTES);
+            } catch (IOException e) {
+                Log.e("EventImage", "Could not open the poster disk cache", e);
+                diskCacheFailed = true;
+            }
+        }
+        return diskCache;
+    }
+
+    /**
+     * Describes how posters have been served since the app started: hit rates of the
+     * memory and disk caches, and what had to be downloaded.
+     * @return A one-line summary
+     */
+    public static String getCacheReport() {
+        MemoryCache<String, Bitmap> memory;
+        PosterDiskCache disk;
+        synchronized (ImageService.class) {
+            memory = imageCache;
+            disk = diskCache;
+        }
+        return "memory: " + memory + ", disk: " + disk + ", network: " + networkLoads.get()
+                + " posters, " + networkBytes.get() + " bytes downloaded, decoding: " + BitmapDecoder.getReport() + ", pool: " + bitmapPool
+                + ", requests: " + REQUESTS + ", prefetch: " + prefetchesStarted.get() + " started, "
+                + prefetchHits.get() + " shown from memory, placeholder: p50 "
+                + PLACEHOLDER_TIME.getPercentileMicros(50) / 1000 + " ms, p95 "
+                + PLACEHOLDER_TIME.getPercentileMicros(95) / 1000 + " ms over " + PLACEHOLDER_TIME.getCount() + " binds";
+    }
+
+    private static ExecutorService decodeExecutor() {
+        int threads = Math.max(1, Math.min(3, Runtime.getRuntime().availableProcessors() - 1));
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads, 30, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), task -> new Thread(() -> {
+                    Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+                    task.run();
+                }, "PosterDecoder"));
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    /**
+     * Loads an event's poster into an ImageView, choosing the smallest uploaded variant at
+     * least as wide as the view so list rows do not download full-size posters
+     * @param event The event whose poster to show
+     * @param view The ImageView to be updated
+     */
+    public void loadPoster(Event event, ImageView view) {
+        loadImage(event.getPosterUrlForWidth(targetWidth(view)), view);
+    }
+
+    /**
+     * Loads an image into an ImageView, looking in memory, then on disk, then in firebase storage.
+     * The image is decoded at about the size of the view. Views waiting for the same image share
+     * one load, and a view loaded again before its image arrives only receives the newer one
      * @param imageUrl The image url to set the imageview
      * @param view The ImageView to be updated
      */
@@ -30,25 +224,117 @@ public class ImageService {
         if (imageUrl == null || imageUrl.trim().isEmpty()
                 || imageUrl.equalsIgnoreCase("POSTER")
                 || imageUrl.equalsIgnoreCase("null")){
+            REQUESTS.detach(view);
+            forgetReplacedBitmap(view);
+            synchronized (DISPLAY_LOCK) {
+                placeholderSince.remove(view);
+            }
             return;
         }
 
-        if (imageCache.containsKey(imageUrl)) {
-            Bitmap cached = imageCache.get(imageUrl);
-            if (cached != null) {
-                view.setImageBitmap(cached);
+        forgetReplacedBitmap(view);
+        PosterSize size = new PosterSize(targetWidth(view), targetHeight(view));
+        MemoryCache<String, Bitmap> cache = getImageCache(view.getContext());
+        String memoryKey = size.memoryKey(imageUrl);
+        Bitmap cached = cache.get(memoryKey);
+        if (cached != null) {
+            if (prefetchedKeys.remove(memoryKey)) {
+                prefetchHits.incrementAndGet();
             }
+            REQUESTS.detach(view);
+            synchronized (DISPLAY_LOCK) {
+                // Shown straight away, whatever the view was waiting for before
+                placeholderSince.remove(view);
+            }
+            retain(cached);
+            show(view, cached);
             return;
         }
 
-        FirebaseStorage storage;
-        StorageReference storageRef;
+        synchronized (DISPLAY_LOCK) {
+            placeholderSince.put(view, System.nanoTime());
+        }
+        if (!REQUESTS.attach(view, imageUrl, size)) {
+            // Another view or a prefetch is already loading this image; this one will get it too
+            return;
+        }
+        startLoad(view.getContext().getApplicationContext(), imageUrl, cache, IO_EXECUTOR);
+    }
+
+    /**
+     * Warms the memory and disk caches with a poster a view is about to show, at low priority.
+     * The size must match the view's, or the view will not find the decoded poster. A view
+     * bound to the poster while the prefetch runs shares its load
+     * @param context Any context in the app
+     * @param imageUrl The image url the view will load
+     * @param width The view's width in pixels
+     * @param height The view's height in pixels, or 0 to limit only by width
+     * @return A handle for cancelling the prefetch
+     */
+    public Prefetch prefetch(Context context, String imageUrl, int width, int height) {
+        Prefetch prefetch = new Prefetch();
+        if (imageUrl == null || imageUrl.trim().isEmpty()
+                || imageUrl.equalsIgnoreCase("POSTER")
+                || imageUrl.equalsIgnoreCase("null")) {
+            return prefetch;
+        }
+        PosterSize size = new PosterSize(width, height);
+        MemoryCache<String, Bitmap> cache = getImageCache(context);
+        if (cache.contains(size.memoryKey(imageUrl))) {
+            return prefetch;
+        }
+        prefetchesStarted.incrementAndGet();
+        if (REQUESTS.attach(prefetch, imageUrl, size)) {
+            startLoad(context.getApplicationContext(), imageUrl, cache, PREFETCH_EXECUTOR);
+        }
+        return prefetch;
+    }
 
+    /**
+     * Loads a poster from disk, or else from firebase storage, on the given executor, unless
+     * nothing wants it by the time the executor gets to it.
+     */
+    private void startLoad(Context app, String imageUrl, MemoryCache<String, Bitmap> cache, ExecutorService executor) {
+        String key = PosterDiskCache.keyFor(imageUrl);
+        executor.execute(() -> {
+            if (REQUESTS.cancelIfUnwanted(imageUrl)) {
+                return;
+            }
+            PosterDiskCache disk = getDiskCache(app);
+            byte[] stored = null;
+            if (disk != null) {
+                try {
+                    stored = disk.get(key);
+                    if (stored != null && !BitmapDecoder.isImage(stored)) {
+                        disk.remove(key);
+                        stored = null;
+                    }
+                } catch (IOException e) {
+                    Log.e("EventImage", "Poster disk cache read failed", e);
+                }
+            }
+            if (stored == null) {
+                download(imageUrl, key, cache, disk);
+                return;
+            }
+            byte[] bytes = stored;
+            DECODE_EXECUTOR.execute(() -> decodeAndDeliver(imageUrl, bytes, cache));
+        });
+    }
+
+    /**
+     * Downloads a poster, stores it on disk, then decodes and delivers it in the background.
+     */
+    private void download(String imageUrl, String key, MemoryCache<String, Bitmap> cache, PosterDiskCache disk) {
+        if (REQUESTS.cancelIfUnwanted(imageUrl)) {
+            return;
+        }
+        StorageReference storageRef;
         try {
-            storage = FirebaseStorage.getInstance();
-            storageRef = storage.getReferenceFromUrl(imageUrl);
+            storageRef = FirebaseStorage.getInstance().getReferenceFromUrl(imageUrl);
         } catch (Exception e) {
             Log.e("EventImage", "Invalid image URL stored: " + imageUrl, e);
+            REQUESTS.fail(imageUrl);
             return;
         }
 
@@ -56,71 +342,176 @@ public class ImageService {
 
         storageRef.getBytes(MAX_SIZE)
                 .addOnSuccessListener(bytes -> {
-                    Bitmap bitmap = BitmapFactory.decodeByteArray(bytes, 0, bytes.length);
-
-                    imageCache.put(imageUrl, bitmap);
-
-                    if (view.getDrawable() == null) {
-                        view.setImageBitmap(bitmap);
-                    }
+                    networkLoads.incrementAndGet();
+                    networkBytes.addAndGet(bytes.length);
+                    DECODE_EXECUTOR.execute(() -> {
+                        if (!decodeAndDeliver(imageUrl, bytes, cache)) {
+                            return;
+                        }
+                        if (disk != null) {
+                            IO_EXECUTOR.execute(() -> {
+                                try {
+                                    disk.put(key, bytes);
+                                } catch (IOException e) {
+                                    Log.e("EventImage", "Poster disk cache write failed", e);
+                                }
+                            });
+                        }
+                    });
                 })
                 .addOnFailureListener(e -> {
                     Log.e("EventImage", "Failed to load image: " + imageUrl, e);
+                    REQUESTS.fail(imageUrl);
                 });
     }
 
     /**
-     * Sets the image uri of an event an uploads the image to firestore storage
+     * Decodes a poster once for each size still waiting for it, caches the bitmaps in memory
+     * and shows them in the views that are still bound to it. Prefetches only cache them.
+     * @return false if the bytes are not an image
+     */
+    private static boolean decodeAndDeliver(String imageUrl, byte[] bytes, MemoryCache<String, Bitmap> cache) {
+        Map<Object, PosterSize> waiting = REQUESTS.finish(imageUrl);
+        Map<PosterSize, Bitmap> decoded = new HashMap<>();
+        for (Map.Entry<Object, PosterSize> entry : waiting.entrySet()) {
+            PosterSize size = entry.getValue();
+            Bitmap bitmap = decoded.get(size);
+            if (bitmap == null) {
+                bitmap = BitmapDecoder.decode(bytes, size.width, size.height, bitmapPool);
+                if (bitmap == null) {
+                    Log.e("EventImage", "Could not decode image: " + imageUrl);
+                    REQUESTS.fail(imageUrl);
+                    return false;
+                }
+                decoded.put(size, bitmap);
+                // Held for the view before caching, so an immediate eviction cannot pool it
+                retain(bitmap);
+                cache.put(size.memoryKey(imageUrl), bitmap);
+            } else {
+                retain(bitmap);
+            }
+            if (!(entry.getKey() instanceof ImageView)) {
+                REQUESTS.deliver(entry.getKey(), imageUrl);
+                prefetchedKeys.add(size.memoryKey(imageUrl));
+                release(bitmap);
+                continue;
+            }
+            ImageView view = (ImageView) entry.getKey();
+            Bitmap shown = bitmap;
+            MAIN.post(() -> {
+                if (REQUESTS.deliver(view, imageUrl)) {
+                    show(view, shown);
+                } else {
+                    release(shown);
+                }
+            });
+        }
+        return true;
+    }
+
+    /**
+     * Shows a retained bitmap in a view, releasing the bitmap this service showed there before.
+     */
+    private static void show(ImageView view, Bitmap bitmap) {
+        view.setImageBitmap(bitmap);
+        DISPLAYED.show(view, bitmap);
+        Long since;
+        synchronized (DISPLAY_LOCK) {
+            since = placeholderSince.remove(view);
+        }
+        PLACEHOLDER_TIME.record(since == null ? 0 : System.nanoTime() - since, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Releases the bitmap this service last showed in a view if the view has since been
+     * given something else, such as when an adapter clears it before rebinding.
+     */
+    private static void forgetReplacedBitmap(ImageView view) {
+        Drawable drawable = view.getDrawable();
+        DISPLAYED.forgetIfReplaced(view,
+                drawable instanceof BitmapDrawable ? ((BitmapDrawable) drawable).getBitmap() : null);
+    }
+
+    /** Counts a view that shows, or is about to show, a bitmap. */
+    private static void retain(Bitmap bitmap) {
+        DISPLAYED.retain(bitmap);
+    }
+
+    /** Uncounts a view, pooling the bitmap if no view shows it and the cache has evicted it. */
+    private static void release(Bitmap bitmap) {
+        DISPLAYED.release(bitmap);
+    }
+
+    /**
+     * Gets the width to decode for a view: its laid-out width, else its fixed layout
+     * width or that of the ancestor it matches, else the screen width.
+     */
+    private static int targetWidth(ImageView view) {
+        if (view.getWidth() > 0) {
+            return view.getWidth();
+        }
+        // Before layout, a match_parent view is as wide as the nearest ancestor with a size
+        View current = view;
+        while (current != null) {
+            if (current != view && current.getWidth() > 0) {
+                return current.getWidth();
+            }
+            ViewGroup.LayoutParams params = current.getLayoutParams();
+            if (params == null || params.width != ViewGroup.LayoutParams.MATCH_PARENT) {
+                if (params != null && params.width > 0) {
+                    return params.width;
+                }
+                break;
+            }
+            current = current.getParent() instanceof View ? (View) current.getParent() : null;
+        }
+        return view.getResources().getDisplayMetrics().widthPixels;
+    }
+
+    /**
+     * Gets the height to decode for a view: its laid-out height, else its fixed layout
+     * height, else 0 so only the width limits the decode.
+     */
+    private static int targetHeight(ImageView view) {
+        if (view.getHeight() > 0) {
+            return view.getHeight();
+        }
+        ViewGroup.LayoutParams params = view.getLayoutParams();
+        return params != null && params.height > 0 ? params.height : 0;
+    }
+
+    /**
+     * Sets the image uri of an event and uploads the image to firestore storage in the
+     * background, along with resized WebP variants so list screens can load a small copy.
+     * Posters are stored by content, so a poster already uploaded for another event is
+     * reused instead of uploaded again. The event's previous poster is released once the
+     * new one is saved
+     * @param context Any context in the app, for reading the picked image
      * @param event The selected event
      * @param uri uri of image
-     * @param onComplete Runnable to ensure images are stored first before returning
+     * @param onComplete Run once on the main thread, when the poster is saved or the upload failed
+     * @return The upload's progress, or null if there is nothing to upload
      */
-    public void setEventImageUri(Event event, Uri uri, Runnable onComplete)
+    public LiveData<PosterUploader.Progress> setEventImageUri(Context context, Event event, Uri uri,
+                                                              Runnable onComplete)
     {
         if (uri == null) {
             onComplete.run();
-            return;
+            return null;
         }
 
-        removeImage(event);
-
-        String fileName = "event_posters/" + UUID.randomUUID().toString() + ".jpg";
-
-        StorageReference fileRef = storageReference.child(fileName);
-        Log.d("CreateEventViewModel", "setEventImageUri");
-        fileRef.putFile(uri)
-                .addOnSuccessListener(taskSnapshot ->
-                        fileRef.getDownloadUrl().addOnSuccessListener(downloadUri -> {
-                            String imageUrl = downloadUri.toString();
-                            if (event.getEventId() != null && !event.getEventId().isEmpty()) {
-                                FirebaseFirestore db = FirebaseFirestore.getInstance();
-                                db.collection("events")
-                                        .document(event.getEventId())
-                                        .update("posterImageUrl", imageUrl)
-                                        .addOnSuccessListener(aVoid -> {
-                                            Log.d("CreateEventViewModel", "Event poster URL updated in DB");
-                                            onComplete.run();
-                                        })
-                                        .addOnFailureListener(e -> {
-                                            Log.e("CreateEventViewModel", "Failed to update poster URL in DB", e);
-                                            onComplete.run();
-                                        });
-                                onComplete.run();
-                            } else{
-                                // Event not created yet, just set in memory
-                                event.setPosterImageUrl(imageUrl);
-                                Log.d("CreateEventViewModel", "Event not yet created, image URL set in memory only");
-                                onComplete.run();
-                            }
-                        })
-                ).addOnFailureListener(e ->
-                { Log.e("Storage", "Upload failed", e);
-                    onComplete.run();
-                });
+        try {
+            return PosterUploader.getShared(context).upload(context, event, uri, onComplete);
+        } catch (IOException e) {
+            Log.e("Storage", "Could not open poster upload journal", e);
+            onComplete.run();
+            return null;
+        }
     }
 
     /**
-     * Removes image reference from event and removes image from storage
+     * Removes image reference from event, and removes the image and its resized variants
+     * from storage once no other event uses them
      * @param event the event to remove the image from
      */
     public void removeImage(Event event)
@@ -130,26 +521,112 @@ public class ImageService {
         if (imageUrl == null || imageUrl.isEmpty()) {
             return;
         }
+
+        releasePoster(imageUrl, event.getPosterVariants())
+                .thenRun(() -> FirebaseFirestore.getInstance()
+                        .collection("events")
+                        .document(event.getEventId())
+                        .update("posterImageUrl", null, "posterVariants", null)
+                        .addOnSuccessListener(v -> {
+                            Log.d("DeleteImage", "Image URL removed from Firestore");
+                            event.setPosterImageUrl(null);
+                            event.setPosterVariants(null);
+                        })
+                        .addOnFailureListener(e -> {
+                            Log.e("DeleteImage", "Failed to remove image URL from Firestore", e);
+                        }));
+    }
+
+    /**
+     * Drops one event's reference to a poster, deleting the poster and its variants from
+     * storage if no event uses it any more
+     * @param imageUrl The poster's download URL, or null for none
+     * @param variants The variants' download URLs, or null
+     * @return A future completed once the reference is dropped, before the files are deleted
+     */
+    static CompletableFuture<Void> releasePoster(String imageUrl, Map<String, String> variants) {
+        if (imageUrl == null || imageUrl.isEmpty()) {
+            return CompletableFuture.completedFuture(null);
+        }
         StorageReference imageRef = FirebaseStorage.getInstance().getReferenceFromUrl(imageUrl);
+        return getRegistry().release(contentKey(imageRef)).handle((unreferenced, error) -> {
+            if (error != null) {
+                // Keeping a file another event may use beats deleting it
+                Log.e("DeleteImage", "Failed to release image", TaskFutures.unwrap(error));
+                return null;
+            }
+            if (!unreferenced) {
+                Log.d("DeleteImage", "Image still used by another event");
+                return null;
+            }
+            if (variants != null) {
+                for (String variantUrl : variants.values()) {
+                    FirebaseStorage.getInstance().getReferenceFromUrl(variantUrl).delete()
+                            .addOnFailureListener(e -> Log.e("DeleteImage", "Failed to delete poster variant", e));
+                }
+            }
+            imageRef.delete()
+                    .addOnSuccessListener(aVoid -> Log.d("DeleteImage", "Image deleted from Firebase Storage"))
+                    .addOnFailureListener(e -> Log.e("DeleteImage", "Failed to delete image", e));
+            return null;
+        });
+    }
 
-        imageRef.delete()
-                .addOnSuccessListener(aVoid -> {
-                    Log.d("DeleteImage", "Image deleted from Firebase Storage");{
-                        FirebaseFirestore.getInstance()
-                                .collection("events")
-                                .document(event.getEventId())
-                                .update("posterImageUrl", null)
-                                .addOnSuccessListener(v -> {
-                                    Log.d("DeleteImage", "Image URL removed from Firestore");
-                                    event.setPosterImageUrl(null);
-                                })
-                                .addOnFailureListener(e -> {
-                                    Log.e("DeleteImage", "Failed to remove image URL from Firestore", e);
-                                });
-                    }
-                })
-                .addOnFailureListener(e -> {
-                    Log.e("DeleteImage", "Failed to delete image", e);
-                });
+    /**
+     * Gets a poster's content key from its storage name; posters uploaded before content
+     * keys get their random name back, which the registry does not know
+     */
+    private static String contentKey(StorageReference imageRef) {
+        String name = imageRef.getName();
+        int dot = name.lastIndexOf('.');
+        return dot > 0 ? name.substring(0, dot) : name;
+    }
+
+    private static synchronized PosterRegistry getRegistry() {
+        if (registry == null) {
+            registry = new PosterRegistry(new DatabaseService().getDataStore());
+        }
+        return registry;
+    }
+
+    /**
+     * A poster prefetch that can be cancelled, such as when the list scrolls back.
+     */
+    public static final class Prefetch {
+        /**
+         * Stops waiting for the poster. A download already running still finishes and is
+         * kept on disk, but the poster is not decoded unless a view wants it.
+         */
+        public void cancel() {
+            REQUESTS.detach(this);
+        }
+    }
+
+    /** The size a view wants a poster decoded at. */
+    private static final class PosterSize {
+        final int width;
+        final int height;
+
+        PosterSize(int width, int height) {
+            this.width = width;
+            this.height = height;
+        }
+
+        /** The same poster decoded for a thumbnail and for a full-screen view are different bitmaps. */
+        String memoryKey(String imageUrl) {
+            return imageUrl + "@" + width + "x" + height;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof PosterSize)) return false;
+            PosterSize other = (PosterSize) o;
+            return width == other.width && height == other.height;
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * width + height;
+        }
     }
 }
@@ -0,0 +1,645 @@
+package com.example.sprite.Controllers;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.ConcurrentModificationException;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A concurrent, in-memory {@link DataStore} for tests and JVM load benchmarks.
+ *
+ * <p>Documents live in a {@link ConcurrentHashMap} per collection and are stored as
+ * immutable, versioned snapshots, so reads never block. Writes to a collection are
+ * serialized by a per-collection lock; batches and transactions lock every
+ * collection they touch in name order, which keeps them atomic without deadlocks.
+ * Transactions are optimistic: the versions of the documents they read are checked
+ * at commit and the body is retried on conflict, like Firestore.</p>
+ *
+ * <p>Fields registered with {@link #ensureIndex(String, String)} are kept in a
+ * secondary index (value to document IDs, with array fields indexed per element),
+ * so equality, array-contains and "in" queries on them avoid a collection scan.
+ * All futures returned by this store are already complete.</p>
+ *
+ * <p>Values are normalized the way Firestore stores them: integral numbers become
+ * {@link Long} and floating-point numbers become {@link Double}.</p>
+ */
+public class InMemoryDataStore implements DataStore {
+
+    private static final int MAX_TRANSACTION_ATTEMPTS = 5;
+    private static final String ID_ALPHABET =
+            "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789";
+
+    private final ConcurrentHashMap<String, CollectionData> collections = new ConcurrentHashMap<>();
+    private final AtomicLong versions = new AtomicLong();
+    private final LongAdder roundTrips = new LongAdder();
+
+    /**
+     * Registers a secondary index on a field. Existing documents are indexed immediately.
+     *
+     * @param collection The collection name
+     * @param field      The field to index
+     */
+    public void ensureIndex(String collection, String field) {
+        CollectionData data = collection(collection);
+        data.lock.lock();
+        try {
+            if (data.indexes.containsKey(field)) return;
+            FieldIndex index = new FieldIndex();
+            for (Map.Entry<String, Versioned> entry : data.docs.entrySet()) {
+                index.add(entry.getKey(), entry.getValue().data.get(field));
+            }
+            data.indexes.put(field, index);
+        } finally {
+            data.lock.unlock();
+        }
+    }
+
+    /**
+     * Gets the number of documents in a collection.
+     *
+     * @param collection The collection name
+     * @return The document count
+     */
+    public int size(String collection) {
+        CollectionData data = collections.get(collection);
+        return data == null ? 0 : data.docs.size();
+    }
+
+    /**
+     * Gets the number of backend calls made so far. Each get, write, query,
+     * batch commit and transaction attempt counts as one round-trip, which is
+     * what it would cost against a remote backend.
+     *
+     * @return The round-trip count
+     */
+    public long getRoundTrips() {
+        return roundTrips.sum();
+    }
+
+    @Override
+    public String newDocumentId(String collection) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        StringBuilder id = new StringBuilder(20);
+        for (int i = 0; i < 20; i++) {
+            id.append(ID_ALPHABET.charAt(random.nextInt(ID_ALPHABET.length())));
+        }
+        return id.toString();
+    }
+
+    @Override
+    public CompletableFuture<StoreDocument> get(String collection, String documentId) {
+        roundTrips.increment();
+        return CompletableFuture.completedFuture(snapshot(collection, documentId));
+    }
+
+    @Override
+    public CompletableFuture<Void> set(String collection, String documentId, Map<String, Object> data) {
+        roundTrips.increment();
+        return apply(Collections.singletonList(Write.set(collection, documentId, data)), null);
+    }
+
+    @Override
+    public CompletableFuture<Void> update(String collection, String documentId, Map<String, Object> updates) {
+        roundTrips.increment();
+        return apply(Collections.singletonList(Write.update(collection, documentId, updates)), null);
+    }
+
+    @Override
+    public CompletableFuture<Void> delete(String collection, String documentId) {
+        roundTrips.increment();
+        return apply(Collections.singletonList(Write.delete(collection, documentId)), null);
+    }
+
+    @Override
+    public CompletableFuture<List<StoreDocument>> query(StoreQuery query) {
+        roundTrips.increment();
+        CollectionData data = collections.get(query.getCollection());
+        if (data == null) {
+            return CompletableFuture.completedFuture(new ArrayList<>());
+        }
+
+        List<StoreDocument> results = new ArrayList<>();
+        for (String id : candidates(data, query)) {
+            Versioned doc = data.docs.get(id);
+            if (doc != null && matches(id, doc.data, query)) {
+                results.add(new StoreDocument(id, doc.data));
+            }
+        }
+
+        String orderBy = query.getOrderByField();
+        if (orderBy != null) {
+            // Like Firestore, documents without the sort field are left out of ordered results.
+            results.removeIf(doc -> sortValue(doc, orderBy) == null);
+            results.sort((a, b) -> compareValues(sortValue(a, orderBy), sortValue(b, orderBy)));
+            boolean descending = query.getDirection() == StoreQuery.Direction.DESCENDING;
+            if (descending) {
+                Collections.reverse(results);
+            }
+            Object cursor = query.getStartAfter();
+            if (cursor != null) {
+                results.removeIf(doc -> {
+                    int order = compareValues(sortValue(doc, orderBy), cursor);
+                    return descending ? order >= 0 : order <= 0;
+                });
+            }
+        }
+        if (query.getLimit() > 0 && results.size() > query.getLimit()) {
+            results = new ArrayList<>(results.subList(0, query.getLimit()));
+        }
+        return CompletableFuture.completedFuture(results);
+    }
+
+    @Override
+    public StoreBatch batch() {
+        return new InMemoryBatch();
+    }
+
+    @Override
+    public <T> CompletableFuture<T> runTransaction(StoreTransaction.Function<T> function) {
+        for (int attempt = 1; attempt <= MAX_TRANSACTION_ATTEMPTS; attempt++) {
+            roundTrips.increment();
+            InMemoryTransaction transaction = new InMemoryTransaction();
+            T result;
+            try {
+                result = function.apply(transaction);
+            } catch (Exception e) {
+                return failed(e);
+            }
+            try {
+                commit(transaction.writes, transaction.readVersions);
+                return CompletableFuture.completedFuture(result);
+            } catch (ConflictException conflict) {
+                // Another writer changed something we read; run the body again.
+            } catch (RuntimeException e) {
+                return failed(e);
+            }
+        }
+        return failed(new ConcurrentModificationException(
+                "Transaction failed after " + MAX_TRANSACTION_ATTEMPTS + " attempts"));
+    }
+
+    // ----------------------------
+    // Internals
+    // ----------------------------
+
+    private CollectionData collection(String name) {
+        return collections.computeIfAbsent(name, key -> new CollectionData());
+    }
+
+    private StoreDocument snapshot(String collection, String documentId) {
+        CollectionData data = collections.get(collection);
+        Versioned doc = data == null ? null : data.docs.get(documentId);
+        return new StoreDocument(documentId, doc == null ? null : doc.data);
+    }
+
+    private long version(String collection, String documentId) {
+        CollectionData data = collections.get(collection);
+        Versioned doc = data == null ? null : data.docs.get(documentId);
+        return doc == null ? 0 : doc.version;
+    }
+
+    private CompletableFuture<Void> apply(List<Write> writes, Map<String, Long> expectedVersions) {
+        try {
+            commit(writes, expectedVersions);
+            return CompletableFuture.completedFuture(null);
+        } catch (RuntimeException e) {
+            return failed(e);
+        }
+    }
+
+    /**
+     * Applies writes atomically. Every collection involved is locked in name order,
+     * the expected versions (if any) are validated, all new documents are computed
+     * and only then installed, so a failing write leaves nothing behind.
+     */
+    private void commit(List<Write> writes, Map<String, Long> expectedVersions) {
+        Set<String> names = new TreeSet<>();
+        for (Write write : writes) names.add(write.collection);
+        if (expectedVersions != null) {
+            for (String key : expectedVersions.keySet()) names.add(collectionOf(key));
+        }
+
+        List<CollectionData> locked = new ArrayList<>();
+        for (String name : names) {
+            CollectionData data = collection(name);
+            data.lock.lock();
+            locked.add(data);
+        }
+        try {
+            if (expectedVersions != null) {
+                for (Map.Entry<String, Long> expected : expectedVersions.entrySet()) {
+                    String key = expected.getKey();
+                    if (version(collectionOf(key), idOf(key)) != expected.getValue()) {
+                        throw new ConflictException();
+                    }
+                }
+            }
+
+            // Compute every resulting document first, applying writes in order.
+            Map<String, Map<String, Object>> pending = new LinkedHashMap<>();
+            for (Write write : writes) {
+                String key = key(write.collection, write.documentId);
+                Map<String, Object> current;
+                if (pending.containsKey(key)) {
+                    current = pending.get(key);
+                } else {
+                    StoreDocument existing = snapshot(write.collection, write.documentId);
+                    current = existing.exists() ? existing.getData() : null;
+                }
+                pending.put(key, write.applyTo(current));
+            }
+
+            for (Map.Entry<String, Map<String, Object>> entry : pending.entrySet()) {
+                install(collectionOf(entry.getKey()), idOf(entry.getKey()), entry.getValue());
+            }
+        } finally {
+            for (CollectionData data : locked) data.lock.unlock();
+        }
+    }
+
+    private void install(String collection, String documentId, Map<String, Object> newData) {
+        CollectionData data = collection(collection);
+        Versioned previous = data.docs.get(documentId);
+        if (newData == null) {
+            data.docs.remove(documentId);
+        } else {
+            data.docs.put(documentId, new Versioned(versions.incrementAndGet(),
+                    Collections.unmodifiableMap(newData)));
+        }
+        for (Map.Entry<String, FieldIndex> index : data.indexes.entrySet()) {
+            String field = index.getKey();
+            Object before = previous == null ? null : previous.data.get(field);
+            Object after = newData == null ? null : newData.get(field);
+            if (!Objects.equals(before, after)) {
+                index.getValue().remove(documentId, before);
+                index.getValue().add(documentId, after);
+            }
+        }
+    }
+
+    /** Picks the narrowest candidate ID set an index (or the ID filter) can give. */
+    private Collection<String> candidates(CollectionData data, StoreQuery query) {
+        Collection<String> best = null;
+        for (StoreQuery.Filter filter : query.getFilters()) {
+            Collection<String> ids = null;
+            if (StoreQuery.DOCUMENT_ID.equals(filter.getField())
+                    && filter.getOperator() == StoreQuery.Operator.IN) {
+                ids = new LinkedHashSet<>();
+                for (Object value : (List<?>) filter.getValue()) ids.add(String.valueOf(value));
+            } else {
+                FieldIndex index = data.indexes.get(filter.getField());
+                if (index != null) {
+                    if (filter.getOperator() == StoreQuery.Operator.IN) {
+                        ids = new LinkedHashSet<>();
+                        for (Object value : (List<?>) filter.getValue()) ids.addAll(index.lookup(normalize(value)));
+                    } else {
+                        ids = index.lookup(normalize(filter.getValue()));
+                    }
+                }
+            }
+            if (ids != null && (best == null || ids.size() < best.size())) {
+                best = ids;
+            }
+        }
+        return best != null ? new ArrayList<>(best) : new ArrayList<>(data.docs.keySet());
+    }
+
+    private static boolean matches(String id, Map<String, Object> doc, StoreQuery query) {
+        for (StoreQuery.Filter filter : query.getFilters()) {
+            Object actual = StoreQuery.DOCUMENT_ID.equals(filter.getField()) ? id : doc.get(filter.getField());
+            Object expected = normalize(filter.getValue());
+            switch (filter.getOperator()) {
+                case EQUAL:
+                    if (!Objects.equals(actual, expected)) return false;
+                    break;
+                case ARRAY_CONTAINS:
+                    if (!(actual instanceof List) || !((List<?>) actual).contains(expected)) return false;
+                    break;
+                case IN:
+                    if (!((List<?>) expected).contains(actual)) return false;
+                    break;
+                default:
+                    return false;
+            }
+        }
+        return true;
+    }
+
+    private static Object sortValue(StoreDocument doc, String field) {
+        return StoreQuery.DOCUMENT_ID.equals(field) ? doc.getId() : doc.get(field);
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static int compareValues(Object a, Object b) {
+        if (a instanceof Number && b instanceof Number) {
+            return Double.compare(((Number) a).doubleValue(), ((Number) b).doubleValue());
+        }
+        if (a instanceof Comparable && a.getClass() == b.getClass()) {
+            return ((Comparable) a).compareTo(b);
+        }
+        return a.getClass().getName().compareTo(b.getClass().getName());
+    }
+
+    /** Deep-copies a value, converting numbers to the types Firestore would return. */
+    static Object normalize(Object value) {
+        if (value instanceof Integer || value instanceof Short || value instanceof Byte) {
+            return ((Number) value).longValue();
+        }
+        if (value instanceof Float) {
+            return ((Float) value).doubleValue();
+        }
+        if (value instanceof Date) {
+            return new Date(((Date) value).getTime());
+        }
+        if (value instanceof Enum) {
+            return ((Enum<?>) value).name();
+        }
+        if (value instanceof List) {
+            List<Object> copy = new ArrayList<>();
+            for (Object element : (List<?>) value) copy.add(normalize(element));
+            return Collections.unmodifiableList(copy);
+        }
+        if (value instanceof Map) {
+            Map<String, Object> copy = new HashMap<>();
+            for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+                copy.put(String.valueOf(entry.getKey()), normalize(entry.getValue()));
+            }
+            return Collections.unmodifiableMap(copy);
+        }
+        return value;
+    }
+
+    /** Applies a (possibly dotted) field path and value, resolving sentinels against the current value. */
+    @SuppressWarnings("unchecked")
+    private static void applyField(Map<String, Object> doc, String path, Object value) {
+        int dot = path.indexOf('.');
+        if (dot >= 0) {
+            String head = path.substring(0, dot);
+            Object child = doc.get(head);
+            Map<String, Object> nested = child instanceof Map
+                    ? new HashMap<>((Map<String, Object>) child)
+                    : new HashMap<>();
+            applyField(nested, path.substring(dot + 1), value);
+            doc.put(head, Collections.unmodifiableMap(nested));
+            return;
+        }
+
+        Object current = doc.get(path);
+        if (value instanceof StoreValues.Delete) {
+            doc.remove(path);
+        } else if (value instanceof StoreValues.ServerTimestamp) {
+            doc.put(path, new Date());
+        } else if (value instanceof StoreValues.Increment) {
+            long delta = ((StoreValues.Increment) value).getDelta();
+            if (current instanceof Double) {
+                doc.put(path, (Double) current + delta);
+            } else {
+                doc.put(path, (current instanceof Number ? ((Number) current).longValue() : 0L) + delta);
+            }
+        } else if (value instanceof StoreValues.ArrayUnion) {
+            Set<Object> union = current instanceof List
+                    ? new LinkedHashSet<>((List<Object>) current)
+                    : new LinkedHashSet<>();
+            for (Object element : ((StoreValues.ArrayUnion) value).getElements()) {
+                union.add(normalize(element));
+            }
+            doc.put(path, Collections.unmodifiableList(new ArrayList<>(union)));
+        } else if (value instanceof StoreValues.ArrayRemove) {
+            Set<Object> removed = new HashSet<>();
+            for (Object element : ((StoreValues.ArrayRemove) value).getElements()) {
+                removed.add(normalize(element));
+            }
+            List<Object> list = new ArrayList<>();
+            if (current instanceof List) {
+                for (Object existing : (List<Object>) current) {
+                    if (!removed.contains(existing)) list.add(existing);
+                }
+            }
+            doc.put(path, Collections.unmodifiableList(list));
+        } else {
+            doc.put(path, normalize(value));
+        }
+    }
+
+    private static String key(String collection, String documentId) {
+        return collection + "/" + documentId;
+    }
+
+    private static String collectionOf(String key) {
+        return key.substring(0, key.indexOf('/'));
+    }
+
+    private static String idOf(String key) {
+        return key.substring(key.indexOf('/') + 1);
+    }
+
+    private static <T> CompletableFuture<T> failed(Throwable error) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        future.completeExceptionally(error);
+        return future;
+    }
+
+    private static final class CollectionData {
+        final ConcurrentHashMap<String, Versioned> docs = new ConcurrentHashMap<>();
+        final ConcurrentHashMap<String, FieldIndex> indexes = new ConcurrentHashMap<>();
+        final ReentrantLock lock = new ReentrantLock();
+    }
+
+    private static final class Versioned {
+        final long version;
+        final Map<String, Object> data;
+
+        Versioned(long version, Map<String, Object> data) {
+            this.version = version;
+            this.data = data;
+        }
+    }
+
+    /** Value-to-IDs index for one field; list values are indexed per element. */
+    private static final class FieldIndex {
+        private final ConcurrentHashMap<Object, Set<String>> entries = new ConcurrentHashMap<>();
+
+        void add(String id, Object value) {
+            if (value == null) return;
+            if (value instanceof List) {
+                for (Object element : (List<?>) value) add(id, element);
+                return;
+            }
+            entries.computeIfAbsent(value, key -> ConcurrentHashMap.newKeySet()).add(id);
+        }
+
+        void remove(String id, Object value) {
+            if (value == null) return;
+            if (value instanceof List) {
+                for (Object element : (List<?>) value) remove(id, element);
+                return;
+            }
+            Set<String> ids = entries.get(value);
+            if (ids != null) ids.remove(id);
+        }
+
+        Set<String> lookup(Object value) {
+            Set<String> ids = entries.get(value);
+            return ids == null ? Collections.emptySet() : ids;
+        }
+    }
+
+    private static final class ConflictException extends RuntimeException {
+        ConflictException() {
+            super("Transaction read a document that has since changed");
+        }
+    }
+
+    private static final class Write {
+        enum Kind { SET, MERGE, UPDATE, DELETE }
+
+        final Kind kind;
+        final String collection;
+        final String documentId;
+        final Map<String, Object> data;
+
+        private Write(Kind kind, String collection, String documentId, Map<String, Object> data) {
+            this.kind = kind;
+            this.collection = collection;
+            this.documentId = documentId;
+            this.data = data == null ? null : new LinkedHashMap<>(data);
+        }
+
+        static Write set(String collection, String documentId, Map<String, Object> data) {
+            return new Write(Kind.SET, collection, documentId, data);
+        }
+
+        static Write merge(String collection, String documentId, Map<String, Object> data) {
+            return new Write(Kind.MERGE, collection, documentId, data);
+        }
+
+        static Write update(String collection, String documentId, Map<String, Object> updates) {
+            return new Write(Kind.UPDATE, collection, documentId, updates);
+        }
+
+        static Write delete(String collection, String documentId) {
+            return new Write(Kind.DELETE, collection, documentId, null);
+        }
+
+        /** Returns the document after this write, or {@code null} if it is deleted. */
+        Map<String, Object> applyTo(Map<String, Object> current) {
+            switch (kind) {
+                case DELETE:
+                    return null;
+                case UPDATE:
+                    if (current == null) {
+                        throw new NoSuchElementException("No document to update: " + key(collection, documentId));
+                    }
+                    Map<String, Object> updated = new HashMap<>(current);
+                    for (Map.Entry<String, Object> field : data.entrySet()) {
+                        applyField(updated, field.getKey(), field.getValue());
+                    }
+                    return updated;
+                case MERGE:
+                    Map<String, Object> merged = current == null ? new HashMap<>() : new HashMap<>(current);
+                    for (Map.Entry<String, Object> field : data.entrySet()) {
+                        applyField(merged, field.getKey(), field.getValue());
+                    }
+                    return merged;
+                case SET:
+                default:
+                    Map<String, Object> replaced = new HashMap<>();
+                    for (Map.Entry<String, Object> field : data.entrySet()) {
+                        applyField(replaced, field.getKey(), field.getValue());
+                    }
+                    return replaced;
+            }
+        }
+    }
+
+    private final class InMemoryBatch implements StoreBatch {
+        private final List<Write> writes = new ArrayList<>();
+
+        @Override
+        public StoreBatch set(String collection, String documentId, Map<String, Object> data) {
+            writes.add(Write.set(collection, documentId, data));
+            return this;
+        }
+
+        @Override
+        public StoreBatch merge(String collection, String documentId, Map<String, Object> data) {
+            writes.add(Write.merge(collection, documentId, data));
+            return this;
+        }
+
+        @Override
+        public StoreBatch update(String collection, String documentId, Map<String, Object> updates) {
+            writes.add(Write.update(collection, documentId, updates));
+            return this;
+        }
+
+        @Override
+        public StoreBatch delete(String collection, String documentId) {
+            writes.add(Write.delete(collection, documentId));
+            return this;
+        }
+
+        @Override
+        public int size() {
+            return writes.size();
+        }
+
+        @Override
+        public CompletableFuture<Void> commit() {
+            roundTrips.increment();
+            if (writes.size() > MAX_WRITES) {
+                return failed(new IllegalStateException(
+                        "Batch has " + writes.size() + " writes; the limit is " + MAX_WRITES));
+            }
+            return apply(writes, null);
+        }
+    }
+
+    private final class InMemoryTransaction implements StoreTransaction {
+        final Map<String, Long> readVersions = new HashMap<>();
+        final List<Write> writes = new ArrayList<>();
+
+        @Override
+        public StoreDocument get(String collection, String documentId) {
+            CollectionData data = collections.get(collection);
+            Versioned doc = data == null ? null : data.docs.get(documentId);
+            readVersions.putIfAbsent(key(collection, documentId), doc == null ? 0 : doc.version);
+            return new StoreDocument(documentId, doc == null ? null : doc.data);
+        }
+
+        @Override
+        public StoreTransaction set(String collection, String documentId, Map<String, Object> data) {
+            writes.add(Write.set(collection, documentId, data));
+            return this;
+        }
+
+        @Override
+        public StoreTransaction update(String collection, String documentId, Map<String, Object> updates) {
+            writes.add(Write.update(collection, documentId, updates));
+            return this;
+        }
+
+        @Override
+        public StoreTransaction delete(String collection, String documentId) {
+            writes.add(Write.delete(collection, documentId));
+            return this;
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package com.example.sprite.Controllers;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * A {@link DataStore} decorator that records every call in {@link StoreMetrics}.
+ *
+ * <p>Operations are named {@code "DataStore.<op>:<collection>"}, e.g.
+ * {@code "DataStore.query:notifications"}, so the same collection can be compared
+ * across reads and writes. Batches and transactions are recorded as a whole.</p>
+ */
+public class InstrumentedDataStore implements DataStore {
+
+    private final DataStore delegate;
+    private final StoreMetrics metrics;
+
+    /**
+     * Wraps a store, recording into the shared {@link StoreMetrics}.
+     *
+     * @param delegate The store to instrument
+     */
+    public InstrumentedDataStore(DataStore delegate) {
+        this(delegate, StoreMetrics.getInstance());
+    }
+
+    /**
+     * Wraps a store, recording into a specific registry.
+     *
+     * @param delegate The store to instrument
+     * @param metrics  Where to record
+     */
+    public InstrumentedDataStore(DataStore delegate, StoreMetrics metrics) {
+        this.delegate = delegate;
+        this.metrics = metrics;
+    }
+
+    @Override
+    public String newDocumentId(String collection) {
+        return delegate.newDocumentId(collection);
+    }
+
+    @Override
+    public CompletableFuture<StoreDocument> get(String collection, String documentId) {
+        return metrics.track("DataStore.get:" + collection, delegate.get(collection, documentId), null);
+    }
+
+    @Override
+    public CompletableFuture<Void> set(String collection, String documentId, Map<String, Object> data) {
+        return metrics.track("DataStore.set:" + collection, delegate.set(collection, documentId, data), data);
+    }
+
+    @Override
+    public CompletableFuture<Void> update(String collection, String documentId, Map<String, Object> updates) {
+        return metrics.track("DataStore.update:" + collection,
+                delegate.update(collection, documentId, updates), updates);
+    }
+
+    @Override
+    public CompletableFuture<Void> delete(String collection, String documentId) {
+        return metrics.track("DataStore.delete:" + collection, delegate.delete(collection, documentId), null);
+    }
+
+    @Override
+    public CompletableFuture<List<StoreDocument>> query(StoreQuery query) {
+        return metrics.track("DataStore.query:" + query.getCollection(), delegate.query(query), null);
+    }
+
+    @Override
+    public StoreBatch batch() {
+        return new InstrumentedBatch(delegate.batch());
+    }
+
+    @Override
+    public <T> CompletableFuture<T> runTransaction(StoreTransaction.Function<T> function) {
+        return metrics.track("DataStore.transaction", delegate.runTransaction(function), null);
+    }
+
+    private final class InstrumentedBatch implements StoreBatch {
+        private final StoreBatch batch;
+        private final List<Object> payloads = new ArrayList<>();
+
+        InstrumentedBatch(StoreBatch batch) {
+            this.batch = batch;
+        }
+
+        @Override
+        public StoreBatch set(String collection, String documentId, Map<String, Object> data) {
+            batch.set(collection, documentId, data);
+            payloads.add(data);
+            return this;
+        }
+
+        @Override
+        public StoreBatch merge(String collection, String documentId, Map<String, Object> data) {
+            batch.merge(collection, documentId, data);
+            payloads.add(data);
+            return this;
+        }
+
+        @Override
+        public StoreBatch update(String collection, String documentId, Map<String, Object> updates) {
+            batch.update(collection, documentId, updates);
+            payloads.add(updates);
+            return this;
+        }
+
+        @Override
+        public StoreBatch delete(String collection, String documentId) {
+            batch.delete(collection, documentId);
+            payloads.add(documentId);
+            return this;
+        }
+
+        @Override
+        public int size() {
+            return batch.size();
+        }
+
+        @Override
+        public CompletableFuture<Void> commit() {
+            return metrics.track("DataStore.batch", batch.commit(), payloads);
+        }
+    }
+}
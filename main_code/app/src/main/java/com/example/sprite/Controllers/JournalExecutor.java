@@ -0,0 +1,35 @@
+package com.example.sprite.Controllers;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * The background thread that opens, reads and writes the app's on-disk journals:
+ * the {@link MutationOutbox}, the {@link HeldNotificationJournal} and the
+ * {@link PosterUploadJournal}. Each write is synced to disk, which can take tens of
+ * milliseconds, so none of it may run on the main thread.
+ *
+ * <p>Tasks run one at a time, in the order they were submitted, so a journal opened by
+ * one task is ready for every task submitted after it.</p>
+ */
+public final class JournalExecutor {
+
+    private static final ExecutorService EXECUTOR = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "JournalExecutor");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private JournalExecutor() {
+    }
+
+    /**
+     * Gets the journal thread.
+     *
+     * @return The executor
+     */
+    public static Executor get() {
+        return EXECUTOR;
+    }
+}
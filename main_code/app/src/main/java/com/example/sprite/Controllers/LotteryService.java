@@ -1,16 +1,24 @@
 package com.example.sprite.Controllers;
 
+import android.content.Context;
 import android.util.Log;
 
 import com.example.sprite.Models.Event;
 import com.example.sprite.Models.Notification;
 import com.example.sprite.Models.Waitlist;
 
+import java.io.File;
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Date;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Function;
 
 /**
@@ -20,19 +28,76 @@ import java.util.function.Function;
  */
 public class LotteryService {
 
+    /** Upper bound on how long a single lottery notification may take before it is counted as failed. */
+    private static final long NOTIFY_TIMEOUT_SECONDS = 30;
+
+    /** How many entrants are checked between progress log lines during a fan-out. */
+    private static final int PROGRESS_LOG_STEP = 1000;
+
     private final Random random = new Random();
 
     private DatabaseService dbService;
     private NotificationService notificationService;
     private Function<Event, Waitlist> waitlistProvider;
+    private NotificationFanout fanout;
+    private CompletableFuture<NotificationCoalescer> coalescer;
+    private final ResilientWriter writer = ResilientWriter.getInstance();
+
+    /**
+     * Shared by every default LotteryService, so draws run from different screens coalesce.
+     * Completed on the {@link JournalExecutor} once its journal is open.
+     */
+    private static CompletableFuture<NotificationCoalescer> sharedCoalescer;
 
     /**
      * Default constructor for LotteryService.
+     *
+     * @param context
+     *      Any context, used to open the journal of held notifications.
      */
-    public LotteryService() {
+    public LotteryService(Context context) {
         this.dbService = new DatabaseService();
         this.notificationService = new NotificationService();
         this.waitlistProvider = Waitlist::new;
+        this.fanout = new NotificationFanout(dbService.getDataStore(), OptOutIndex.getInstance(),
+                RecentSends.getInstance(), NotificationFanout.DEFAULT_MAX_IN_FLIGHT);
+        this.coalescer = sharedCoalescer(context);
+    }
+
+    /**
+     * Sends draw notifications that were still held when the app was last closed or
+     * killed, once their windows close. The journal is read on the {@link JournalExecutor}.
+     *
+     * @param context
+     *      Any context, used to open the journal of held notifications.
+     */
+    public static void resumeHeldNotifications(Context context) {
+        sharedCoalescer(context);
+    }
+
+    /**
+     * Gets the shared coalescer, creating it on first use with the journal in the app's
+     * files directory, which re-holds any notifications left there. The journal is
+     * opened on the {@link JournalExecutor}; if it cannot be, notifications are held
+     * only in memory.
+     */
+    private static synchronized CompletableFuture<NotificationCoalescer> sharedCoalescer(Context context) {
+        if (sharedCoalescer == null) {
+            NotificationFanout fanout = new NotificationFanout(new DatabaseService().getDataStore(),
+                    OptOutIndex.getInstance(), RecentSends.getInstance(), NotificationFanout.DEFAULT_MAX_IN_FLIGHT);
+            NotificationCoalescer.Sink sink = notifications -> sendCoalesced(fanout, notifications);
+            File directory = new File(context.getApplicationContext().getFilesDir(), "held_notifications");
+            sharedCoalescer = CompletableFuture.supplyAsync(() -> {
+                HeldNotificationJournal journal = null;
+                try {
+                    journal = HeldNotificationJournal.open(directory);
+                } catch (IOException e) {
+                    Log.e("LotteryService", "Could not open held notification journal", e);
+                }
+                return new NotificationCoalescer(NotificationCoalescer.DEFAULT_WINDOW_MILLIS, journal, sink);
+            }, JournalExecutor.get());
+        }
+        return sharedCoalescer;
     }
 
     /**
@@ -63,6 +128,28 @@ public class LotteryService {
         this.notificationService = notificationService;
     }
 
+    /**
+     * Sets the pipeline used to notify entrants after a draw in bulk.
+     * Without one, entrants are notified one at a time through the NotificationService.
+     *
+     * @param fanout
+     *      The fan-out pipeline, or null to notify entrants individually.
+     */
+    public void setNotificationFanout(NotificationFanout fanout) {
+        this.fanout = fanout;
+    }
+
+    /**
+     * Sets the stage that holds each entrant's draw notifications briefly and merges
+     * several into one digest. Used only together with a fan-out pipeline.
+     *
+     * @param coalescer
+     *      The coalescer, or null to send each draw's notifications straight away.
+     */
+    public void setNotificationCoalescer(NotificationCoalescer coalescer) {
+        this.coalescer = coalescer != null ? CompletableFuture.completedFuture(coalescer) : null;
+    }
+
 
     /**
      * Runs the main lottery draw for a given event.
@@ -108,6 +195,10 @@ public class LotteryService {
         Collections.shuffle(waitlist, random);
 
         List<String> waitlistCopy = new ArrayList<>(waitlist);
+        // Notifications are keyed by draw round, so rerunning this draw cannot notify anyone twice
+        event.setDrawRound(event.getDrawRound() + 1);
+        // With a fan-out pipeline, selected entrants are notified in bulk once the draw is saved
+        waitlistObject.setNotifyOnSelect(fanout == null);
 
         int selectedCount = 0;
         List<String> selectedEntrantIds = new ArrayList<>();
@@ -136,41 +227,148 @@ public class LotteryService {
 
 
         if (dbService != null) {
-            dbService.updateEvent(event, task -> {
-                if (task.isSuccessful()) {
-                    Log.i("LotteryService", "Event updated successfully in database: " + event.getEventId());
-                    
-
-                    String eventTitle = event.getTitle() != null ? event.getTitle() : "Event";
-
-                    for (String entrantId : notSelectedEntrantIds) {
-                        if (notificationService != null) {
-                            notificationService.notifyNotSelectedFromWaitlist(
-                                    entrantId,
-                                    event.getEventId(),
-                                    eventTitle,
-                                    new NotificationService.NotificationCallback() {
-                                        @Override
-                                        public void onSuccess(Notification notification) {
-                                            Log.d("LotteryService", "Notification sent to not-selected entrant: " + entrantId);
-                                        }
-
-                                        @Override
-                                        public void onFailure(String error) {
-                                            Log.e("LotteryService", "Failed to notify not-selected entrant " + entrantId + ": " + error);
-                                        }
-                                    });
+            saveEvent(event)
+                    .whenComplete((ignored, error) -> {
+                        if (error != null) {
+                            Log.e("LotteryService", "Failed to update event: " + event.getEventId(),
+                                    TaskFutures.unwrap(error));
+                            return;
                         }
-                    }
-                } else {
-                    Log.e("LotteryService", "Failed to update event: " + event.getEventId(), task.getException());
-                }
-            });
+                        Log.i("LotteryService", "Event updated successfully in database: " + event.getEventId());
+                        if (fanout != null) {
+                            fanOut(event, selectedEntrantIds, notSelectedEntrantIds);
+                        } else {
+                            notifyNotSelected(event, notSelectedEntrantIds);
+                        }
+                    });
         } else {
             Log.w("LotteryService", "DatabaseService is null - event changes not saved to database!");
         }
     }
 
+    /**
+     * Saves the whole event document. The write is a full overwrite and therefore
+     * idempotent, so transient failures are retried instead of losing the draw.
+     *
+     * @param event
+     *      The event to save.
+     * @return
+     *      A future completed when the write is acknowledged or retries are exhausted.
+     */
+    private CompletableFuture<Void> saveEvent(Event event) {
+        return writer.execute("events", () -> TaskFutures.<Void>call(listener -> dbService.updateEvent(event, listener)));
+    }
+
+    /**
+     * Notifies the selected and not-selected entrants of a draw through the fan-out
+     * pipeline, logging progress every {@value #PROGRESS_LOG_STEP} entrants.
+     * Notifications already stored for this draw round are skipped. With a coalescer,
+     * the notifications are handed to it instead and written when it releases them,
+     * skipping those already stored by ID.
+     *
+     * @param event
+     *      The event whose draw was just saved.
+     * @param selectedEntrantIds
+     *      The entrants who were drawn.
+     * @param notSelectedEntrantIds
+     *      The entrants who were not drawn.
+     */
+    private void fanOut(Event event, List<String> selectedEntrantIds, List<String> notSelectedEntrantIds) {
+        String eventTitle = event.getTitle() != null ? event.getTitle() : "Event";
+        Set<String> selected = new HashSet<>(selectedEntrantIds);
+        List<String> recipients = new ArrayList<>(selectedEntrantIds);
+        recipients.addAll(notSelectedEntrantIds);
+
+        String eventId = event.getEventId();
+        int drawRound = event.getDrawRound();
+        Function<String, Notification> notificationFor = entrantId -> selected.contains(entrantId)
+                ? NotificationService.selectedNotification(entrantId, eventId, eventTitle, drawRound)
+                : NotificationService.notSelectedNotification(entrantId, eventId, eventTitle, drawRound);
+
+        if (coalescer != null) {
+            List<Notification> notifications = new ArrayList<>(recipients.size());
+            for (String entrantId : recipients) {
+                notifications.add(notificationFor.apply(entrantId));
+            }
+            // Until the journal is open, submits once it is, on the journal thread
+            coalescer.thenAccept(opened -> opened.submit(notifications));
+            return;
+        }
+
+        StoreQuery alreadySent = StoreQuery.collection(NotificationService.COLLECTION_NAME)
+                .whereEqualTo("eventId", eventId)
+                .whereEqualTo("drawRound", drawRound);
+        int[] nextLog = {PROGRESS_LOG_STEP};
+        fanout.send(recipients, notificationFor, alreadySent,
+                progress -> {
+                    synchronized (nextLog) {
+                        if (progress.getChecked() < nextLog[0]) return;
+                        nextLog[0] = progress.getChecked() + PROGRESS_LOG_STEP;
+                    }
+                    Log.d("LotteryService", "Lottery notifications for " + event.getEventId() + ": " + progress);
+                })
+                .thenAccept(result -> Log.i("LotteryService", "Lottery notifications for "
+                        + event.getEventId() + " finished: " + result));
+    }
+
+    /**
+     * Writes the notifications released by the coalescer through the fan-out pipeline,
+     * skipping any already stored, such as by an earlier run of the same draw.
+     *
+     * @param fanout
+     *      The fan-out pipeline.
+     * @param notifications
+     *      One notification per entrant, some of them digests.
+     * @return
+     *      A future completed with true once every notification is stored.
+     */
+    private static CompletableFuture<Boolean> sendCoalesced(NotificationFanout fanout,
+                                                            Map<String, Notification> notifications) {
+        return fanout.send(notifications, null).thenApply(result -> {
+            Log.i("LotteryService", "Coalesced lottery notifications finished: " + result);
+            return result.getFailed() == 0;
+        });
+    }
+
+    /**
+     * Sends "not selected" notifications to every entrant concurrently and logs
+     * a single summary once they have all finished (or the timeout expires).
+     *
+     * @param event
+     *      The event whose lottery just completed.
+     * @param notSelectedEntrantIds
+     *      The entrants who were not drawn.
+     */
+    private void notifyNotSelected(Event event, List<String> notSelectedEntrantIds) {
+        if (notificationService == null || notSelectedEntrantIds.isEmpty()) {
+            return;
+        }
+
+        String eventTitle = event.getTitle() != null ? event.getTitle() : "Event";
+        List<CompletableFuture<Notification>> sends = new ArrayList<>();
+        for (String entrantId : notSelectedEntrantIds) {
+            CompletableFuture<Notification> send = notificationService
+                    .notifyNotSelectedFromWaitlistAsync(entrantId, event.getEventId(), eventTitle,
+                            event.getDrawRound());
+            sends.add(TaskFutures.withTimeout(send, NOTIFY_TIMEOUT_SECONDS, TimeUnit.SECONDS)
+                    .whenComplete((notification, error) -> {
+                        if (error != null) {
+                            Log.e("LotteryService", "Failed to notify not-selected entrant " + entrantId
+                                    + ": " + TaskFutures.unwrap(error).getMessage());
+                        }
+                    }));
+        }
+
+        TaskFutures.successfulAsList(sends).thenAccept(results -> {
+            int sent = 0;
+            for (Notification notification : results) {
+                if (notification != null) sent++;
+            }
+            Log.i("LotteryService", "Sent " + sent + " of " + results.size()
+                    + " not-selected notifications for event: " + event.getEventId());
+        });
+    }
+
     /**
      * Automatically runs the lottery if:
      *  - registrationEndDate has passed, AND
@@ -254,11 +452,15 @@ public class LotteryService {
 
 
         List<String> waitlistCopy = new ArrayList<>(waitingList);
+        event.setDrawRound(event.getDrawRound() + 1);
+        waitlist.setNotifyOnSelect(fanout == null);
 
         int drawnCount = 0;
+        List<String> drawnEntrantIds = new ArrayList<>();
         for (String entrantId : waitlistCopy) {
             if (openSlots > 0) {
                 waitlist.moveToSelected(entrantId);
+                drawnEntrantIds.add(entrantId);
                 openSlots--;
                 drawnCount++;
             } else {
@@ -270,13 +472,18 @@ public class LotteryService {
 
 
         if (dbService != null) {
-            dbService.updateEvent(event, task -> {
-                if (task.isSuccessful()) {
-                    Log.i("LotteryService", "Replacements updated successfully in database: " + event.getEventId());
-                } else {
-                    Log.e("LotteryService", "Failed to update replacements for event: " + event.getEventId(), task.getException());
-                }
-            });
+            saveEvent(event)
+                    .whenComplete((ignored, error) -> {
+                        if (error == null) {
+                            Log.i("LotteryService", "Replacements updated successfully in database: " + event.getEventId());
+                            if (fanout != null) {
+                                fanOut(event, drawnEntrantIds, Collections.emptyList());
+                            }
+                        } else {
+                            Log.e("LotteryService", "Failed to update replacements for event: " + event.getEventId(),
+                                    TaskFutures.unwrap(error));
+                        }
+                    });
         } else {
             Log.w("LotteryService", "DatabaseService is null - replacement changes not saved to database!");
         }
@@ -0,0 +1,252 @@
+package com.example.sprite.Controllers;
+
+import android.content.ComponentCallbacks2;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.ToLongFunction;
+
+/**
+ * An in-memory cache bounded by the total size of its values rather than their count,
+ * evicting the least recently used entries first.
+ *
+ * <p>Sizes are measured once, when a value is put, so values must not change size
+ * while cached. A single value larger than the whole cache is not stored. All methods
+ * are safe to call from background threads.</p>
+ *
+ * @param <K> The key type
+ * @param <V> The value type
+ */
+public class MemoryCache<K, V> {
+
+    /**
+     * Told about values the cache lets go of, so their memory can be reused.
+     *
+     * @param <K> The key type
+     * @param <V> The value type
+     */
+    public interface EvictionListener<K, V> {
+        /**
+         * Called when a value is evicted or replaced, while the cache is locked.
+         *
+         * @param key   The value's key
+         * @param value The value no longer cached
+         */
+        void onEvicted(K key, V value);
+    }
+
+    private final LinkedHashMap<K, Entry<V>> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private final ToLongFunction<V> sizeOf;
+    private final long maxBytes;
+    private final EvictionListener<K, V> listener;
+
+    private long sizeBytes;
+    private long hits;
+    private long misses;
+    private long evictions;
+
+    /**
+     * Creates an empty cache.
+     *
+     * @param maxBytes The most bytes the cached values may take up
+     * @param sizeOf   Measures a value in bytes
+     */
+    public MemoryCache(long maxBytes, ToLongFunction<V> sizeOf) {
+        this(maxBytes, sizeOf, null);
+    }
+
+    /**
+     * Creates an empty cache that reports the values it lets go of.
+     *
+     * @param maxBytes The most bytes the cached values may take up
+     * @param sizeOf   Measures a value in bytes
+     * @param listener Told about each evicted or replaced value, or null
+     */
+    public MemoryCache(long maxBytes, ToLongFunction<V> sizeOf, EvictionListener<K, V> listener) {
+        if (maxBytes <= 0) {
+            throw new IllegalArgumentException("maxBytes must be positive");
+        }
+        this.maxBytes = maxBytes;
+        this.sizeOf = sizeOf;
+        this.listener = listener;
+    }
+
+    /**
+     * Gets a cached value and marks it recently used.
+     *
+     * @param key The key
+     * @return The value, or null if it is not cached
+     */
+    public synchronized V get(K key) {
+        Entry<V> entry = entries.get(key);
+        if (entry == null) {
+            misses++;
+            return null;
+        }
+        hits++;
+        return entry.value;
+    }
+
+    /**
+     * Checks whether a value is cached, without marking it used or counting a hit or miss.
+     *
+     * @param key The key
+     * @return true if a value is cached under the key
+     */
+    public synchronized boolean contains(K key) {
+        return entries.containsKey(key);
+    }
+
+    /**
+     * Caches a value, evicting the least recently used values until it fits.
+     *
+     * @param key   The key
+     * @param value The value
+     * @return The value previously cached under the key, or null
+     */
+    public synchronized V put(K key, V value) {
+        long bytes = sizeOf.applyAsLong(value);
+        Entry<V> previous = entries.remove(key);
+        if (previous != null) {
+            sizeBytes -= previous.bytes;
+            if (listener != null && previous.value != value) {
+                listener.onEvicted(key, previous.value);
+            }
+        }
+        if (bytes <= maxBytes) {
+            entries.put(key, new Entry<>(value, bytes));
+            sizeBytes += bytes;
+            trimToSize(maxBytes);
+        }
+        return previous == null ? null : previous.value;
+    }
+
+    /**
+     * Removes a value from the cache.
+     *
+     * @param key The key
+     * @return The removed value, or null if it was not cached
+     */
+    public synchronized V remove(K key) {
+        Entry<V> entry = entries.remove(key);
+        if (entry == null) {
+            return null;
+        }
+        sizeBytes -= entry.bytes;
+        return entry.value;
+    }
+
+    /**
+     * Evicts the least recently used values until the cache takes up at most the given size.
+     *
+     * @param bytes The size to trim to
+     */
+    public synchronized void trimToSize(long bytes) {
+        Iterator<Map.Entry<K, Entry<V>>> eldest = entries.entrySet().iterator();
+        while (sizeBytes > bytes && eldest.hasNext()) {
+            Map.Entry<K, Entry<V>> entry = eldest.next();
+            sizeBytes -= entry.getValue().bytes;
+            eldest.remove();
+            evictions++;
+            if (listener != null) {
+                listener.onEvicted(entry.getKey(), entry.getValue().value);
+            }
+        }
+    }
+
+    /**
+     * Evicts every value.
+     */
+    public void evictAll() {
+        trimToSize(0);
+    }
+
+    /**
+     * Releases memory in response to {@link ComponentCallbacks2#onTrimMemory}: everything
+     * once the system is reclaiming memory from background apps, or half the cache when
+     * memory is running low or the app's UI has been hidden.
+     *
+     * @param level The trim level passed to {@code onTrimMemory}
+     */
+    public void trimMemory(int level) {
+        if (level >= ComponentCallbacks2.TRIM_MEMORY_MODERATE) {
+            evictAll();
+        } else if (level >= ComponentCallbacks2.TRIM_MEMORY_RUNNING_LOW) {
+            trimToSize(maxBytes / 2);
+        }
+    }
+
+    /**
+     * Gets the total size of the cached values.
+     *
+     * @return The size in bytes
+     */
+    public synchronized long getSizeBytes() {
+        return sizeBytes;
+    }
+
+    /**
+     * Gets the most the cached values may take up.
+     *
+     * @return The limit in bytes
+     */
+    public long getMaxBytes() {
+        return maxBytes;
+    }
+
+    /**
+     * Gets the number of cached values.
+     *
+     * @return The entry count
+     */
+    public synchronized int getCount() {
+        return entries.size();
+    }
+
+    /**
+     * Gets the number of lookups that found a value.
+     *
+     * @return The hit count
+     */
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    /**
+     * Gets the number of lookups that found nothing.
+     *
+     * @return The miss count
+     */
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    /**
+     * Gets the number of values evicted to make room or release memory.
+     *
+     * @return The eviction count
+     */
+    public synchronized long getEvictions() {
+        return evictions;
+    }
+
+    @Override
+    public synchronized String toString() {
+        long lookups = hits + misses;
+        return "MemoryCache{" + sizeBytes + "/" + maxBytes + " bytes, " + entries.size() + " entries, "
+                + hits + " hits, " + misses + " misses ("
+                + (lookups == 0 ? 0 : hits * 100 / lookups) + "% hit rate), " + evictions + " evictions}";
+    }
+
+    /** A cached value and its measured size. */
+    private static final class Entry<V> {
+        final V value;
+        final long bytes;
+
+        Entry(V value, long bytes) {
+            this.value = value;
+            this.bytes = bytes;
+        }
+    }
+}
@@ -0,0 +1,150 @@
+package com.example.sprite.Controllers;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Periodically appends {@link StoreMetrics} snapshots to a rolling set of local files.
+ *
+ * <p>Each export writes one JSON line per operation, prefixed with a timestamp, to
+ * {@code store-metrics.log}. When that file grows past the size limit it is renamed to
+ * {@code store-metrics.1.log} (shifting older files up) and a new file is started;
+ * only the newest {@code maxFiles} files are kept. Exports run on a single
+ * background thread.</p>
+ */
+public class MetricsFileExporter {
+
+    static final String FILE_NAME = "store-metrics";
+
+    private final File directory;
+    private final StoreMetrics metrics;
+    private final long maxFileBytes;
+    private final int maxFiles;
+    private ScheduledExecutorService executor;
+    private ScheduledFuture<?> schedule;
+
+    /**
+     * Creates an exporter for the shared {@link StoreMetrics}.
+     *
+     * @param directory    Where to write the files
+     * @param maxFileBytes Size at which the current file is rolled over
+     * @param maxFiles     How many files to keep, including the current one
+     */
+    public MetricsFileExporter(File directory, long maxFileBytes, int maxFiles) {
+        this(directory, StoreMetrics.getInstance(), maxFileBytes, maxFiles);
+    }
+
+    /**
+     * Creates an exporter for a specific registry.
+     *
+     * @param directory    Where to write the files
+     * @param metrics      The metrics to export
+     * @param maxFileBytes Size at which the current file is rolled over
+     * @param maxFiles     How many files to keep, including the current one
+     */
+    public MetricsFileExporter(File directory, StoreMetrics metrics, long maxFileBytes, int maxFiles) {
+        this.directory = directory;
+        this.metrics = metrics;
+        this.maxFileBytes = maxFileBytes;
+        this.maxFiles = Math.max(1, maxFiles);
+    }
+
+    /**
+     * Starts exporting at a fixed interval. Calling this again while running has no effect.
+     *
+     * @param interval The time between exports
+     * @param unit     The unit of {@code interval}
+     */
+    public synchronized void start(long interval, TimeUnit unit) {
+        if (schedule != null) return;
+        executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "MetricsFileExporter");
+            thread.setDaemon(true);
+            return thread;
+        });
+        schedule = executor.scheduleWithFixedDelay(() -> {
+            try {
+                export();
+            } catch (IOException ignored) {
+                // Metrics are best effort; try again at the next interval.
+            }
+        }, interval, interval, unit);
+    }
+
+    /**
+     * Stops periodic exports.
+     */
+    public synchronized void stop() {
+        if (schedule == null) return;
+        schedule.cancel(false);
+        executor.shutdown();
+        schedule = null;
+        executor = null;
+    }
+
+    /**
+     * Gets the file currently being written.
+     *
+     * @return The current file
+     */
+    public File getCurrentFile() {
+        return new File(directory, FILE_NAME + ".log");
+    }
+
+    /**
+     * Writes one snapshot now, rolling the files first if needed.
+     *
+     * @throws IOException If the directory or file cannot be written
+     */
+    public synchronized void export() throws IOException {
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("Cannot create " + directory);
+        }
+        File current = getCurrentFile();
+        if (current.length() >= maxFileBytes) {
+            roll();
+        }
+
+        StringBuilder lines = new StringBuilder();
+        long now = System.currentTimeMillis();
+        for (OperationStats.Snapshot snapshot : metrics.snapshot()) {
+            lines.append("{\"ts\":").append(now).append(",\"stats\":").append(snapshot.toJson()).append("}\n");
+        }
+        if (lines.length() == 0) return;
+
+        try (Writer writer = new OutputStreamWriter(new FileOutputStream(current, true), StandardCharsets.UTF_8)) {
+            writer.write(lines.toString());
+        }
+    }
+
+    private void roll() throws IOException {
+        File oldest = rolledFile(maxFiles - 1);
+        if (oldest.exists() && !oldest.delete()) {
+            throw new IOException("Cannot delete " + oldest);
+        }
+        for (int i = maxFiles - 2; i >= 1; i--) {
+            File file = rolledFile(i);
+            if (file.exists() && !file.renameTo(rolledFile(i + 1))) {
+                throw new IOException("Cannot rename " + file);
+            }
+        }
+        File current = getCurrentFile();
+        if (maxFiles == 1) {
+            if (!current.delete()) throw new IOException("Cannot delete " + current);
+        } else if (!current.renameTo(rolledFile(1))) {
+            throw new IOException("Cannot rename " + current);
+        }
+    }
+
+    private File rolledFile(int index) {
+        return new File(directory, FILE_NAME + "." + index + ".log");
+    }
+}
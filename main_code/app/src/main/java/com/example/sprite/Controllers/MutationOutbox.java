@@ -0,0 +1,264 @@
+package com.example.sprite.Controllers;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.UUID;
+import java.util.zip.CRC32;
+
+/**
+ * A durable, append-only journal of {@link OutboxMutation}s waiting to reach the backend.
+ *
+ * <p>{@link #enqueue} appends a mutation record and fsyncs it before returning, so
+ * once the UI has acknowledged an action it survives the process being killed.
+ * {@link #acknowledge} appends a record marking a mutation as resolved. On open,
+ * the journal is replayed: mutations without an acknowledgement are pending, in
+ * the order they were enqueued.</p>
+ *
+ * <p>Every line carries a CRC32 of its contents. A line cut short by a crash
+ * (no trailing newline, or a bad checksum) is dropped and the file is truncated
+ * back to the last good record. When enough acknowledged records have built up the
+ * journal is compacted by writing the pending mutations to a new file and
+ * renaming it over the old one.</p>
+ */
+public class MutationOutbox implements Closeable {
+
+    static final String FILE_NAME = "outbox.journal";
+    private static final int COMPACT_THRESHOLD = 64;
+    private static final String MUTATION = "M";
+    private static final String ACK = "A";
+
+    private final File file;
+    private final LinkedHashMap<String, OutboxMutation> pending = new LinkedHashMap<>();
+    private FileOutputStream out;
+    private int acknowledgedRecords;
+
+    private MutationOutbox(File file) {
+        this.file = file;
+    }
+
+    /**
+     * Opens (creating if needed) the outbox stored in a directory.
+     *
+     * @param directory Where the journal lives
+     * @return The outbox, with pending mutations loaded
+     * @throws IOException If the journal cannot be read or created
+     */
+    public static MutationOutbox open(File directory) throws IOException {
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("Cannot create " + directory);
+        }
+        MutationOutbox outbox = new MutationOutbox(new File(directory, FILE_NAME));
+        outbox.load();
+        outbox.out = new FileOutputStream(outbox.file, true);
+        return outbox;
+    }
+
+    /**
+     * Durably records a new mutation.
+     *
+     * @param type    The action
+     * @param eventId The event acted on
+     * @param userId  The user acting
+     * @return The recorded mutation
+     * @throws IOException If the journal cannot be written
+     */
+    public synchronized OutboxMutation enqueue(OutboxMutation.Type type, String eventId, String userId)
+            throws IOException {
+        OutboxMutation mutation = new OutboxMutation(UUID.randomUUID().toString(), type, eventId, userId,
+                System.currentTimeMillis());
+        append(encode(MUTATION, mutation.getId(), type.name(), eventId, userId,
+                Long.toString(mutation.getCreatedAt())));
+        pending.put(mutation.getId(), mutation);
+        return mutation;
+    }
+
+    /**
+     * Durably marks a mutation as resolved so it is not replayed again.
+     *
+     * @param mutation The mutation
+     * @param outcome  How it was resolved
+     * @throws IOException If the journal cannot be written
+     */
+    public synchronized void acknowledge(OutboxMutation mutation, OutboxMutation.Outcome outcome)
+            throws IOException {
+        if (pending.remove(mutation.getId()) == null) {
+            return;
+        }
+        append(encode(ACK, mutation.getId(), outcome.name()));
+        acknowledgedRecords++;
+        if (acknowledgedRecords >= COMPACT_THRESHOLD && acknowledgedRecords > pending.size()) {
+            compact();
+        }
+    }
+
+    /**
+     * Gets the pending mutations in the order they were enqueued.
+     *
+     * @return A copy of the pending mutations
+     */
+    public synchronized List<OutboxMutation> pending() {
+        return new ArrayList<>(pending.values());
+    }
+
+    /**
+     * Gets the number of pending mutations.
+     *
+     * @return The count
+     */
+    public synchronized int size() {
+        return pending.size();
+    }
+
+    /**
+     * Rewrites the journal with only the pending mutations.
+     *
+     * @throws IOException If the new journal cannot be written
+     */
+    public synchronized void compact() throws IOException {
+        File temp = new File(file.getParentFile(), FILE_NAME + ".tmp");
+        try (FileOutputStream compacted = new FileOutputStream(temp, false)) {
+            for (OutboxMutation mutation : pending.values()) {
+                compacted.write(encode(MUTATION, mutation.getId(), mutation.getType().name(),
+                        mutation.getEventId(), mutation.getUserId(), Long.toString(mutation.getCreatedAt())));
+            }
+            compacted.getFD().sync();
+        }
+        out.close();
+        if (!temp.renameTo(file)) {
+            out = new FileOutputStream(file, true);
+            throw new IOException("Cannot replace " + file);
+        }
+        out = new FileOutputStream(file, true);
+        acknowledgedRecords = 0;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        out.close();
+    }
+
+    private void append(byte[] record) throws IOException {
+        out.write(record);
+        out.getFD().sync();
+    }
+
+    private void load() throws IOException {
+        if (!file.exists()) {
+            return;
+        }
+        byte[] bytes = readAll(file);
+        int lineStart = 0;
+        int goodLength = 0;
+        for (int i = 0; i < bytes.length; i++) {
+            if (bytes[i] != '\n') continue;
+            String line = new String(bytes, lineStart, i - lineStart, StandardCharsets.UTF_8);
+            lineStart = i + 1;
+            List<String> fields = decode(line);
+            if (fields == null) {
+                // A corrupt record means everything after it was written during the same crash.
+                break;
+            }
+            apply(fields);
+            goodLength = lineStart;
+        }
+        if (goodLength < bytes.length) {
+            try (RandomAccessFile journal = new RandomAccessFile(file, "rw")) {
+                journal.setLength(goodLength);
+                journal.getFD().sync();
+            }
+        }
+    }
+
+    private void apply(List<String> fields) {
+        if (MUTATION.equals(fields.get(0)) && fields.size() == 6) {
+            OutboxMutation mutation = new OutboxMutation(fields.get(1), OutboxMutation.Type.valueOf(fields.get(2)),
+                    fields.get(3), fields.get(4), Long.parseLong(fields.get(5)));
+            pending.put(mutation.getId(), mutation);
+        } else if (ACK.equals(fields.get(0)) && fields.size() >= 2) {
+            pending.remove(fields.get(1));
+            acknowledgedRecords++;
+        }
+    }
+
+    // ----------------------------
+    // Record encoding
+    // ----------------------------
+
+    /** Encodes fields as {@code crc<TAB>field<TAB>field...<LF>}, escaping tabs, newlines and backslashes. */
+    static byte[] encode(String... fields) {
+        StringBuilder body = new StringBuilder();
+        for (int i = 0; i < fields.length; i++) {
+            if (i > 0) body.append('\t');
+            String field = fields[i] != null ? fields[i] : "";
+            body.append(field.replace("\\", "\\\\").replace("\t", "\\t").replace("\n", "\\n"));
+        }
+        byte[] payload = body.toString().getBytes(StandardCharsets.UTF_8);
+        CRC32 crc = new CRC32();
+        crc.update(payload);
+
+        ByteArrayOutputStream record = new ByteArrayOutputStream(payload.length + 10);
+        byte[] checksum = (Long.toHexString(crc.getValue()) + "\t").getBytes(StandardCharsets.UTF_8);
+        record.write(checksum, 0, checksum.length);
+        record.write(payload, 0, payload.length);
+        record.write('\n');
+        return record.toByteArray();
+    }
+
+    /** Decodes a line written by {@link #encode}, or returns null if it is damaged. */
+    static List<String> decode(String line) {
+        int tab = line.indexOf('\t');
+        if (tab <= 0) return null;
+        String body = line.substring(tab + 1);
+        CRC32 crc = new CRC32();
+        crc.update(body.getBytes(StandardCharsets.UTF_8));
+        if (!Long.toHexString(crc.getValue()).equals(line.substring(0, tab))) {
+            return null;
+        }
+
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        for (int i = 0; i < body.length(); i++) {
+            char c = body.charAt(i);
+            if (c == '\t') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else if (c == '\\' && i + 1 < body.length()) {
+                char next = body.charAt(++i);
+                field.append(next == 't' ? '\t' : next == 'n' ? '\n' : next);
+            } else {
+                field.append(c);
+            }
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+
+    /**
+     * Reads a whole file. {@code java.nio.file.Files} needs API 26.
+     *
+     * @param file The file
+     * @return Its bytes
+     * @throws IOException If the file cannot be read
+     */
+    static byte[] readAll(File file) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream((int) file.length());
+        byte[] buffer = new byte[8192];
+        try (InputStream in = new FileInputStream(file)) {
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                bytes.write(buffer, 0, read);
+            }
+        }
+        return bytes.toByteArray();
+    }
+}
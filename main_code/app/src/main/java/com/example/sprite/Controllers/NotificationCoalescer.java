@@ -0,0 +1,385 @@
+package com.example.sprite.Controllers;
+
+import com.example.sprite.Models.Notification;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * Holds notifications briefly so that an entrant who gets several at once, such as
+ * when a few lotteries they are waitlisted for close together, receives one digest
+ * instead of one notification and one popup each.
+ *
+ * <p>An entrant's window opens with their first notification and lasts
+ * {@code windowMillis}. When it closes, an entrant with a single notification gets it
+ * unchanged; an entrant with more gets one {@link Notification.NotificationType#DIGEST}
+ * listing them. Everything due is handed to the {@link Sink} together, so the whole
+ * flush can be written in a few batches.</p>
+ *
+ * <p>With a {@link HeldNotificationJournal}, notifications are recorded on disk before
+ * they are held and marked sent once the sink has stored them, so notifications held
+ * when the process dies are sent when the next coalescer opens the journal. If the
+ * journal cannot be written, notifications are sent without being held. Journal writes
+ * run on a separate executor, by default the {@link JournalExecutor}, so
+ * {@link #submit} never waits for the disk.</p>
+ */
+public class NotificationCoalescer {
+
+    /** The default window, long enough to catch draws run back to back. */
+    public static final long DEFAULT_WINDOW_MILLIS = TimeUnit.SECONDS.toMillis(5);
+
+    /**
+     * Receives the notifications to write when a window closes.
+     */
+    public interface Sink {
+        /**
+         * Writes one notification per entrant.
+         *
+         * @param notifications The notifications, keyed by entrant ID
+         * @return A future completed with true once every notification is stored, or
+         *         false if some could not be
+         */
+        CompletableFuture<Boolean> send(Map<String, Notification> notifications);
+    }
+
+    /**
+     * Runs a task after a delay.
+     */
+    public interface Scheduler {
+        /**
+         * Schedules a task.
+         *
+         * @param task        The task to run
+         * @param delayMillis The delay in milliseconds
+         */
+        void schedule(Runnable task, long delayMillis);
+    }
+
+    private final long windowMillis;
+    private final LongSupplier clock;
+    private final Scheduler scheduler;
+    private final Sink sink;
+    private final HeldNotificationJournal journal;
+    private final Executor journalExecutor;
+
+    /** Each entrant's held notifications by ID, in the order their windows opened. */
+    private final LinkedHashMap<String, Pending> pending = new LinkedHashMap<>();
+    private boolean flushScheduled;
+
+    /**
+     * Creates a coalescer that flushes on a background thread.
+     *
+     * @param windowMillis How long to hold an entrant's notifications
+     * @param sink         Writes the notifications when a window closes
+     */
+    public NotificationCoalescer(long windowMillis, Sink sink) {
+        this(windowMillis, System::currentTimeMillis, backgroundScheduler(), sink, null);
+    }
+
+    /**
+     * Creates a coalescer that flushes on a background thread and keeps held
+     * notifications in a journal, written on the {@link JournalExecutor}.
+     * Notifications left in the journal are held again, keeping their original windows.
+     *
+     * @param windowMillis How long to hold an entrant's notifications
+     * @param journal      Where held notifications are recorded
+     * @param sink         Writes the notifications when a window closes
+     */
+    public NotificationCoalescer(long windowMillis, HeldNotificationJournal journal, Sink sink) {
+        this(windowMillis, System::currentTimeMillis, backgroundScheduler(), sink, journal, JournalExecutor.get());
+    }
+
+    /**
+     * Creates a coalescer.
+     *
+     * @param windowMillis How long to hold an entrant's notifications
+     * @param clock        Supplies the current time in milliseconds
+     * @param scheduler    Runs flushes when windows close
+     * @param sink         Writes the notifications when a window closes
+     */
+    public NotificationCoalescer(long windowMillis, LongSupplier clock, Scheduler scheduler, Sink sink) {
+        this(windowMillis, clock, scheduler, sink, null);
+    }
+
+    /**
+     * Creates a coalescer that keeps held notifications in a journal, written on the
+     * calling thread. Notifications left in the journal are held again, keeping their
+     * original windows.
+     *
+     * @param windowMillis How long to hold an entrant's notifications
+     * @param clock        Supplies the current time in milliseconds
+     * @param scheduler    Runs flushes when windows close
+     * @param sink         Writes the notifications when a window closes
+     * @param journal      Where held notifications are recorded, or null to hold them only in memory
+     */
+    public NotificationCoalescer(long windowMillis, LongSupplier clock, Scheduler scheduler, Sink sink,
+                                 HeldNotificationJournal journal) {
+        this(windowMillis, clock, scheduler, sink, journal, Runnable::run);
+    }
+
+    /**
+     * Creates a coalescer that keeps held notifications in a journal. Notifications
+     * left in the journal are held again, keeping their original windows.
+     *
+     * @param windowMillis    How long to hold an entrant's notifications
+     * @param clock           Supplies the current time in milliseconds
+     * @param scheduler       Runs flushes when windows close
+     * @param sink            Writes the notifications when a window closes
+     * @param journal         Where held notifications are recorded, or null to hold them only in memory
+     * @param journalExecutor Runs journal writes, one at a time in submission order
+     */
+    public NotificationCoalescer(long windowMillis, LongSupplier clock, Scheduler scheduler, Sink sink,
+                                 HeldNotificationJournal journal, Executor journalExecutor) {
+        if (windowMillis < 0) {
+            throw new IllegalArgumentException("windowMillis must not be negative");
+        }
+        this.windowMillis = windowMillis;
+        this.clock = clock;
+        this.scheduler = scheduler;
+        this.sink = sink;
+        this.journal = journal;
+        this.journalExecutor = journalExecutor;
+        if (journal != null) {
+            for (HeldNotificationJournal.Held held : journal.pending()) {
+                hold(held.getNotification(), held.getHeldAt());
+            }
+            if (!pending.isEmpty()) {
+                flushScheduled = true;
+                scheduler.schedule(this::flushDue, nextDelay(clock.getAsLong()));
+            }
+        }
+    }
+
+    /** Schedules flushes on a daemon thread, so a pending flush never keeps the process alive. */
+    private static Scheduler backgroundScheduler() {
+        ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(task -> {
+            Thread thread = new Thread(task, "NotificationCoalescer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        return (task, delayMillis) -> executor.schedule(task, delayMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Holds notifications until their entrants' windows close. A notification with the
+     * same ID as one already held replaces it. With a journal, the notifications are
+     * held once the journal executor has recorded them on disk; their windows still
+     * open now.
+     *
+     * @param notifications The notifications to send
+     */
+    public void submit(Collection<Notification> notifications) {
+        long now = clock.getAsLong();
+        List<Notification> submitted = new ArrayList<>(notifications);
+        for (Notification notification : submitted) {
+            if (notification.getNotificationId() == null || notification.getNotificationId().isEmpty()) {
+                notification.setNotificationId(UUID.randomUUID().toString());
+            }
+        }
+        if (journal == null) {
+            holdAll(submitted, now);
+            return;
+        }
+        journalExecutor.execute(() -> {
+            try {
+                journal.hold(submitted, now);
+            } catch (IOException e) {
+                sendUnheld(submitted);
+                return;
+            }
+            holdAll(submitted, now);
+        });
+    }
+
+    /** Holds notifications submitted at {@code now}, scheduling a flush if none is. */
+    private void holdAll(Collection<Notification> notifications, long now) {
+        long delay;
+        synchronized (this) {
+            for (Notification notification : notifications) {
+                hold(notification, now);
+            }
+            if (flushScheduled || pending.isEmpty()) {
+                return;
+            }
+            flushScheduled = true;
+            delay = nextDelay(clock.getAsLong());
+        }
+        scheduler.schedule(this::flushDue, delay);
+    }
+
+    /** Adds a notification to its entrant's window, opening the window if needed. */
+    private void hold(Notification notification, long heldAt) {
+        Pending entrant = pending.get(notification.getEntrantId());
+        if (entrant == null) {
+            entrant = new Pending(heldAt);
+            pending.put(notification.getEntrantId(), entrant);
+        }
+        entrant.notifications.put(notification.getNotificationId(), notification);
+    }
+
+    /**
+     * Sends notifications that could not be journalled straight away, one per entrant,
+     * rather than holding them where a process death would lose them.
+     */
+    private void sendUnheld(Collection<Notification> notifications) {
+        Map<String, List<Notification>> byEntrant = new LinkedHashMap<>();
+        for (Notification notification : notifications) {
+            byEntrant.computeIfAbsent(notification.getEntrantId(), entrant -> new ArrayList<>()).add(notification);
+        }
+        Map<String, Notification> due = new LinkedHashMap<>();
+        for (Map.Entry<String, List<Notification>> entry : byEntrant.entrySet()) {
+            due.put(entry.getKey(), coalesce(entry.getValue()));
+        }
+        sink.send(due);
+    }
+
+    /**
+     * Hands notifications to the sink, and once it has stored them all, marks their
+     * members sent in the journal. Otherwise they stay in the journal and are sent
+     * again when it is next opened; the sink skips any already stored.
+     */
+    private void send(Map<String, Notification> due, List<String> memberIds) {
+        CompletableFuture<Boolean> stored = sink.send(due);
+        if (journal == null) {
+            return;
+        }
+        stored.thenAccept(complete -> {
+            if (Boolean.TRUE.equals(complete)) {
+                journalExecutor.execute(() -> {
+                    try {
+                        journal.sent(memberIds);
+                    } catch (IOException e) {
+                        // Left in the journal; resent and skipped as stored when it is next opened
+                    }
+                });
+            }
+        });
+    }
+
+    /**
+     * Sends the notifications of every entrant whose window has closed, and schedules
+     * the next flush if any are still held.
+     */
+    void flushDue() {
+        long now = clock.getAsLong();
+        Map<String, Notification> due = new LinkedHashMap<>();
+        List<String> memberIds = new ArrayList<>();
+        long delay = -1;
+        synchronized (this) {
+            Iterator<Map.Entry<String, Pending>> entries = pending.entrySet().iterator();
+            while (entries.hasNext()) {
+                Map.Entry<String, Pending> entry = entries.next();
+                if (now - entry.getValue().openedAt < windowMillis) {
+                    break;
+                }
+                due.put(entry.getKey(), coalesce(entry.getValue().notifications.values()));
+                memberIds.addAll(entry.getValue().notifications.keySet());
+                entries.remove();
+            }
+            flushScheduled = !pending.isEmpty();
+            if (flushScheduled) {
+                delay = nextDelay(now);
+            }
+        }
+        if (!due.isEmpty()) {
+            send(due, memberIds);
+        }
+        if (delay >= 0) {
+            scheduler.schedule(this::flushDue, delay);
+        }
+    }
+
+    /**
+     * Sends everything held now, without waiting for windows to close.
+     */
+    public void flush() {
+        Map<String, Notification> all = new LinkedHashMap<>();
+        List<String> memberIds = new ArrayList<>();
+        synchronized (this) {
+            for (Map.Entry<String, Pending> entry : pending.entrySet()) {
+                all.put(entry.getKey(), coalesce(entry.getValue().notifications.values()));
+                memberIds.addAll(entry.getValue().notifications.keySet());
+            }
+            pending.clear();
+        }
+        if (!all.isEmpty()) {
+            send(all, memberIds);
+        }
+    }
+
+    /**
+     * Gets the number of entrants with notifications held.
+     *
+     * @return The entrant count
+     */
+    public synchronized int getPendingEntrants() {
+        return pending.size();
+    }
+
+    /** Gets the time until the oldest open window closes. */
+    private long nextDelay(long now) {
+        long openedAt = pending.values().iterator().next().openedAt;
+        return Math.max(0, openedAt + windowMillis - now);
+    }
+
+    /**
+     * Builds the notification for one entrant's window: the notification itself if there
+     * is one, or a digest of all of them, newest last.
+     *
+     * @param notifications The entrant's notifications, in the order they were submitted
+     * @return The notification to send
+     */
+    static Notification coalesce(Collection<Notification> notifications) {
+        if (notifications.size() == 1) {
+            return notifications.iterator().next();
+        }
+        List<String> ids = new ArrayList<>();
+        StringBuilder message = new StringBuilder();
+        Notification first = null;
+        for (Notification notification : notifications) {
+            if (first == null) first = notification;
+            ids.add(notification.getNotificationId());
+            if (message.length() > 0) message.append('\n');
+            message.append("• ");
+            if (notification.getEventTitle() != null) {
+                message.append(notification.getEventTitle()).append(": ");
+            }
+            message.append(notification.getMessage());
+        }
+        // The digest's ID follows from its members, so the same burst always makes the same digest
+        Collections.sort(ids);
+        String key = "digest\n" + String.join("\n", ids);
+        return new Notification(
+                UUID.nameUUIDFromBytes(key.getBytes(StandardCharsets.UTF_8)).toString(),
+                first.getEntrantId(),
+                null,
+                notifications.size() + " event updates",
+                message.toString(),
+                Notification.NotificationType.DIGEST
+        );
+    }
+
+    /** One entrant's held notifications. */
+    private static final class Pending {
+        final long openedAt;
+        final LinkedHashMap<String, Notification> notifications = new LinkedHashMap<>();
+
+        Pending(long openedAt) {
+            this.openedAt = openedAt;
+        }
+    }
+}
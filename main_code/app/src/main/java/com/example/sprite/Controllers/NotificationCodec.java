@@ -0,0 +1,74 @@
+package com.example.sprite.Controllers;
+
+import com.example.sprite.Models.Notification;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Maps {@link Notification} documents without reflection.
+ *
+ * <p>The read state is stored in an {@code isRead} field. Documents stored
+ * reflectively have only the {@code read} property Firestore derived from
+ * {@code isRead()}, which is decoded when {@code isRead} is absent.</p>
+ */
+public final class NotificationCodec implements DocumentCodec<Notification> {
+
+    private static final NotificationCodec INSTANCE = new NotificationCodec();
+
+    private NotificationCodec() {
+    }
+
+    /**
+     * Gets the codec.
+     *
+     * @return The shared codec
+     */
+    public static NotificationCodec getInstance() {
+        return INSTANCE;
+    }
+
+    @Override
+    public Notification decode(Map<String, Object> data) {
+        Notification notification = new Notification();
+        for (Map.Entry<String, Object> field : data.entrySet()) {
+            Object value = field.getValue();
+            switch (field.getKey()) {
+                case "notificationId": notification.setNotificationId(CodecValues.toString(value)); break;
+                case "entrantId": notification.setEntrantId(CodecValues.toString(value)); break;
+                case "eventId": notification.setEventId(CodecValues.toString(value)); break;
+                case "eventTitle": notification.setEventTitle(CodecValues.toString(value)); break;
+                case "message": notification.setMessage(CodecValues.toString(value)); break;
+                case "type":
+                    notification.setType(CodecValues.toEnum(value, Notification.NotificationType.class));
+                    break;
+                case "drawRound": notification.setDrawRound(CodecValues.toInt(value, 0)); break;
+                case "createdAt": notification.setCreatedAt(CodecValues.toDate(value)); break;
+                case "read":
+                    if (!data.containsKey("isRead")) {
+                        notification.setRead(CodecValues.toBoolean(value, notification.isRead()));
+                    }
+                    break;
+                case "isRead": notification.setRead(CodecValues.toBoolean(value, notification.isRead())); break;
+                default:
+                    break;
+            }
+        }
+        return notification;
+    }
+
+    @Override
+    public Map<String, Object> encode(Notification notification) {
+        Map<String, Object> data = new HashMap<>();
+        data.put("notificationId", notification.getNotificationId());
+        data.put("entrantId", notification.getEntrantId());
+        data.put("eventId", notification.getEventId());
+        data.put("eventTitle", notification.getEventTitle());
+        data.put("message", notification.getMessage());
+        data.put("type", CodecValues.fromEnum(notification.getType()));
+        data.put("drawRound", notification.getDrawRound());
+        data.put("createdAt", notification.getCreatedAt());
+        data.put("isRead", notification.isRead());
+        return data;
+    }
+}
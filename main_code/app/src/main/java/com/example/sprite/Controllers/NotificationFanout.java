@@ -0,0 +1,352 @@
+package com.example.sprite.Controllers;
+
+import com.example.sprite.Models.Notification;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * Sends one notification to each of many entrants, such as everyone in a lottery draw.
+ *
+ * <p>Sending notifications one at a time costs two round trips per entrant: a user
+ * read to check {@code notificationsEnabled}, then the notification write. This
+ * pipeline instead loads the {@link OptOutIndex} once, skips opted-out entrants
+ * with a set lookup, and commits the rest in {@link StoreBatch}es of
+ * {@value #NOTIFICATIONS_PER_BATCH}, together with each recipient's unread counter.</p>
+ *
+ * <p>Notification IDs are derived from what the notification is about, so a repeated
+ * send produces the same IDs. Those already claimed in {@link RecentSends}, or found
+ * among the notifications already stored, are skipped rather than written again:
+ * a batch write replaces a stored notification, resetting its read state, and its
+ * counter increment would count it twice. Stored notifications are found by a query
+ * the caller supplies, or, for {@linkplain #send(Map, ProgressListener) prepared
+ * notifications}, looked up by ID. A notification stored by another device between
+ * that lookup and the commit is still overwritten.</p>
+ *
+ * <p>At most {@code maxInFlight} commits are outstanding at once, and each batch's
+ * notifications are only built when a commit slot is free, so memory stays bounded
+ * however many entrants there are. Lookups by ID are likewise run at most
+ * {@code maxInFlight} at a time.</p>
+ */
+public class NotificationFanout {
+
+    /** Writes per notification: the notification and its entrant's unread counter. */
+    private static final int WRITES_PER_NOTIFICATION = 2;
+
+    /** Notifications committed per batch. */
+    static final int NOTIFICATIONS_PER_BATCH = StoreBatch.MAX_WRITES / WRITES_PER_NOTIFICATION;
+
+    /** Most document IDs one lookup query may list. */
+    static final int IDS_PER_LOOKUP = 30;
+
+    /** Default limit on outstanding commits. */
+    public static final int DEFAULT_MAX_IN_FLIGHT = 4;
+
+    /**
+     * Receives progress as batches are committed.
+     * Called on whichever thread completed the store call.
+     */
+    public interface ProgressListener {
+        /**
+         * Called after the up-front lookups finish and after each commit finishes.
+         *
+         * @param progress The progress so far
+         */
+        void onProgress(FanoutProgress progress);
+    }
+
+    private final DataStore store;
+    private final OptOutIndex optOuts;
+    private final RecentSends recentSends;
+    private final int maxInFlight;
+
+    /**
+     * Creates a fan-out with the default parallelism.
+     *
+     * @param store The store to read the opt-out index from and write notifications to
+     */
+    public NotificationFanout(DataStore store) {
+        this(store, new OptOutIndex(store, System::currentTimeMillis), RecentSends.getInstance(),
+                DEFAULT_MAX_IN_FLIGHT);
+    }
+
+    /**
+     * Creates a fan-out.
+     *
+     * @param store       The store to write notifications to
+     * @param optOuts     The index of users who have notifications off
+     * @param recentSends The notification IDs recently sent from this process
+     * @param maxInFlight Most commits outstanding at once
+     */
+    public NotificationFanout(DataStore store, OptOutIndex optOuts, RecentSends recentSends, int maxInFlight) {
+        if (maxInFlight < 1) {
+            throw new IllegalArgumentException("maxInFlight must be at least 1");
+        }
+        this.store = store;
+        this.optOuts = optOuts;
+        this.recentSends = recentSends;
+        this.maxInFlight = maxInFlight;
+    }
+
+    /**
+     * Sends a notification to every entrant who has notifications enabled.
+     * Entrants listed more than once are notified once. The store is not checked for
+     * notifications already stored, so use this only for notifications that cannot be.
+     *
+     * @param entrantIds      The entrants to notify
+     * @param notificationFor Builds the notification for an entrant
+     * @param listener        Receives progress, or null
+     * @return A future completed with the final progress once every batch has finished; never exceptional
+     */
+    public CompletableFuture<FanoutProgress> send(List<String> entrantIds,
+                                                  Function<String, Notification> notificationFor,
+                                                  ProgressListener listener) {
+        return send(entrantIds, notificationFor, null, listener);
+    }
+
+    /**
+     * Sends a notification to every entrant who has notifications enabled, skipping
+     * notifications that are already stored.
+     *
+     * @param entrantIds      The entrants to notify
+     * @param notificationFor Builds the notification for an entrant
+     * @param alreadySent     Finds notifications from an earlier send of the same notifications, or null
+     * @param listener        Receives progress, or null
+     * @return A future completed with the final progress once every batch has finished; never exceptional
+     */
+    public CompletableFuture<FanoutProgress> send(List<String> entrantIds,
+                                                  Function<String, Notification> notificationFor,
+                                                  StoreQuery alreadySent,
+                                                  ProgressListener listener) {
+        Run run = new Run(new ArrayList<>(new LinkedHashSet<>(entrantIds)), notificationFor, listener);
+        CompletableFuture<Set<String>> stored = CompletableFuture.completedFuture(Collections.emptySet());
+        if (alreadySent != null) {
+            run.lookups++;
+            stored = storedIds(alreadySent);
+        }
+        return start(run, stored);
+    }
+
+    /**
+     * Sends prepared notifications, one per entrant, to every entrant who has
+     * notifications enabled, skipping notifications that are already stored. Those are
+     * looked up by ID, {@value #IDS_PER_LOOKUP} IDs per query, with up to
+     * {@code maxInFlight} queries outstanding at once.
+     *
+     * @param notifications The notifications, keyed by entrant ID
+     * @param listener      Receives progress, or null
+     * @return A future completed with the final progress once every batch has finished; never exceptional
+     */
+    public CompletableFuture<FanoutProgress> send(Map<String, Notification> notifications,
+                                                  ProgressListener listener) {
+        List<String> ids = new ArrayList<>();
+        for (Notification notification : notifications.values()) {
+            if (notification.getNotificationId() == null || notification.getNotificationId().isEmpty()) {
+                notification.setNotificationId(UUID.randomUUID().toString());
+            }
+            ids.add(notification.getNotificationId());
+        }
+        Run run = new Run(new ArrayList<>(notifications.keySet()), notifications::get, listener);
+        List<List<String>> chunks = new ArrayList<>();
+        for (int from = 0; from < ids.size(); from += IDS_PER_LOOKUP) {
+            chunks.add(ids.subList(from, Math.min(from + IDS_PER_LOOKUP, ids.size())));
+        }
+        run.lookups += chunks.size();
+        // Each lane runs every maxInFlight-th lookup, one after another
+        Set<String> found = ConcurrentHashMap.newKeySet();
+        List<CompletableFuture<Void>> lanes = new ArrayList<>();
+        for (int lane = 0; lane < Math.min(maxInFlight, chunks.size()); lane++) {
+            CompletableFuture<Void> lookups = CompletableFuture.completedFuture(null);
+            for (int i = lane; i < chunks.size(); i += maxInFlight) {
+                StoreQuery query = StoreQuery.collection(NotificationService.COLLECTION_NAME).whereIdIn(chunks.get(i));
+                lookups = lookups.thenCompose(ignored -> storedIds(query)).thenAccept(found::addAll);
+            }
+            lanes.add(lookups);
+        }
+        CompletableFuture<Set<String>> stored = CompletableFuture
+                .allOf(lanes.toArray(new CompletableFuture[0]))
+                .thenApply(ignored -> found);
+        return start(run, stored);
+    }
+
+    private CompletableFuture<Set<String>> storedIds(StoreQuery query) {
+        return store.query(query).thenApply(documents -> {
+            Set<String> ids = new HashSet<>();
+            for (StoreDocument document : documents) {
+                ids.add(document.getId());
+            }
+            return ids;
+        });
+    }
+
+    /**
+     * Starts writing once the opt-out index and the stored notifications are loaded. If
+     * either cannot be loaded, nothing is written and every recipient counts as failed.
+     */
+    private CompletableFuture<FanoutProgress> start(Run run, CompletableFuture<Set<String>> stored) {
+        optOuts.load().thenCombine(stored, (optedOut, sentIds) -> {
+            synchronized (run) {
+                run.optedOutIds = optedOut;
+                run.storedIds = sentIds;
+            }
+            return null;
+        }).whenComplete((ignored, error) -> {
+            if (error != null) {
+                synchronized (run) {
+                    run.failed = run.recipients;
+                    run.next = run.recipients;
+                }
+            }
+            run.report();
+            run.pump();
+        });
+        return run.done;
+    }
+
+    /** The state of one {@link #send} call. */
+    private final class Run {
+        final List<String> entrantIds;
+        final int recipients;
+        final Function<String, Notification> notificationFor;
+        final ProgressListener listener;
+        final CompletableFuture<FanoutProgress> done = new CompletableFuture<>();
+        final long start = System.nanoTime();
+
+        Set<String> optedOutIds = Collections.emptySet();
+        Set<String> storedIds = Collections.emptySet();
+        int next;
+        int commitsInFlight;
+        int optedOut;
+        int duplicates;
+        int sent;
+        int failed;
+        int lookups = 1;
+        int commits;
+        boolean pumping;
+        boolean again;
+
+        Run(List<String> entrantIds, Function<String, Notification> notificationFor, ProgressListener listener) {
+            this.entrantIds = entrantIds;
+            this.recipients = entrantIds.size();
+            this.notificationFor = notificationFor;
+            this.listener = listener;
+        }
+
+        /**
+         * Starts whatever commits the limit allows. Commits that complete synchronously
+         * re-enter here, so only one caller runs the loop at a time and others just ask
+         * it to go round again.
+         */
+        void pump() {
+            synchronized (this) {
+                if (pumping) {
+                    again = true;
+                    return;
+                }
+                pumping = true;
+            }
+            while (true) {
+                List<Notification> batch = null;
+                boolean finished;
+                synchronized (this) {
+                    if (commitsInFlight < maxInFlight && next < recipients) {
+                        batch = new ArrayList<>();
+                        while (batch.size() < NOTIFICATIONS_PER_BATCH && next < recipients) {
+                            String entrantId = entrantIds.get(next++);
+                            if (optedOutIds.contains(entrantId)) {
+                                optedOut++;
+                                continue;
+                            }
+                            Notification notification = notificationFor.apply(entrantId);
+                            if (notification.getNotificationId() == null
+                                    || notification.getNotificationId().isEmpty()) {
+                                notification.setNotificationId(UUID.randomUUID().toString());
+                            }
+                            if (storedIds.contains(notification.getNotificationId())
+                                    || !recentSends.claim(notification.getNotificationId())) {
+                                duplicates++;
+                            } else {
+                                batch.add(notification);
+                            }
+                        }
+                        if (batch.isEmpty()) {
+                            continue;
+                        }
+                        commitsInFlight++;
+                        commits++;
+                    }
+                    finished = next == recipients && commitsInFlight == 0;
+                    if (batch == null) {
+                        if (again) {
+                            again = false;
+                            continue;
+                        }
+                        pumping = false;
+                    }
+                }
+                if (batch != null) {
+                    commit(batch);
+                } else {
+                    if (finished) {
+                        finish();
+                    }
+                    return;
+                }
+            }
+        }
+
+        void commit(List<Notification> notifications) {
+            StoreBatch batch = store.batch();
+            Map<String, Object> increment = Collections.singletonMap(
+                    NotificationService.UNREAD_FIELD, StoreValues.increment(1));
+            for (Notification notification : notifications) {
+                notification.setRead(false);
+                batch.set(NotificationService.COLLECTION_NAME, notification.getNotificationId(),
+                        NotificationCodec.getInstance().encode(notification));
+                batch.merge(NotificationService.COUNTER_COLLECTION, notification.getEntrantId(), increment);
+            }
+            batch.commit().whenComplete((ignored, error) -> {
+                synchronized (this) {
+                    commitsInFlight--;
+                    if (error == null) {
+                        sent += notifications.size();
+                    } else {
+                        failed += notifications.size();
+                        for (Notification notification : notifications) {
+                            recentSends.release(notification.getNotificationId());
+                        }
+                    }
+                }
+                report();
+                pump();
+            });
+        }
+
+        synchronized FanoutProgress progress(boolean complete) {
+            return new FanoutProgress(recipients, next, optedOut, duplicates, sent, failed,
+                    lookups, commits, System.nanoTime() - start, complete);
+        }
+
+        void report() {
+            if (listener != null) {
+                listener.onProgress(progress(false));
+            }
+        }
+
+        void finish() {
+            FanoutProgress result = progress(true);
+            if (done.complete(result) && listener != null) {
+                listener.onProgress(result);
+            }
+        }
+    }
+}
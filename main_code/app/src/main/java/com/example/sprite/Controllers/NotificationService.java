@@ -3,20 +3,36 @@ package com.example.sprite.Controllers;
 import android.util.Log;
 
 import com.example.sprite.Models.Notification;
-import com.example.sprite.Models.User;
 import com.google.android.gms.tasks.OnCompleteListener;
 import com.google.android.gms.tasks.OnFailureListener;
 import com.google.android.gms.tasks.OnSuccessListener;
 import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.Tasks;
+import com.google.firebase.firestore.AggregateSource;
+import com.google.firebase.firestore.DocumentChange;
+import com.google.firebase.firestore.DocumentReference;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.FieldValue;
 import com.google.firebase.firestore.FirebaseFirestore;
-import com.google.firebase.firestore.QueryDocumentSnapshot;
+import com.google.firebase.firestore.FirebaseFirestoreException;
+import com.google.firebase.firestore.ListenerRegistration;
+import com.google.firebase.firestore.Query;
 import com.google.firebase.firestore.QuerySnapshot;
+import com.google.firebase.firestore.SetOptions;
+import com.google.firebase.firestore.WriteBatch;
 
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Collections;
-import java.util.Comparator;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Service class responsible for managing notifications for entrants.
@@ -29,8 +45,32 @@ import java.util.UUID;
  */
 public class NotificationService {
     private static final String TAG = "NotificationService";
-    private static final String COLLECTION_NAME = "notifications";
+    static final String COLLECTION_NAME = "notifications";
+    static final String COUNTER_COLLECTION = "notificationCounters";
+    static final String UNREAD_FIELD = "unread";
+    /** Set on a counter once it has been seeded from the entrant's stored notifications. */
+    static final String SEEDED_FIELD = "seeded";
+    /** The read state that is queried and updated. */
+    static final String READ_FIELD = "isRead";
+    /**
+     * The read state Firestore derived from {@code isRead()} when notifications were
+     * stored reflectively; older documents have only this field.
+     */
+    static final String LEGACY_READ_FIELD = "read";
+    /** Set on a counter once the entrant's older notifications have been given an {@code isRead} field. */
+    static final String READ_BACKFILLED_FIELD = "readBackfilled";
+    /** Legacy notifications looked up per page while backfilling, one batch's worth. */
+    private static final int BACKFILL_PAGE_SIZE = ChunkedBatchWriter.MAX_BATCH_WRITES;
+    private static final String ARCHIVE_COLLECTION = "archivedNotifications";
+
+    /** The number of notifications read per page. */
+    public static final int PAGE_SIZE = 20;
     private FirebaseFirestore db;
+    private final ResilientWriter writer = ResilientWriter.getInstance();
+    /** Entrants known to have {@value #READ_BACKFILLED_FIELD} set on their counter. */
+    private static final Set<String> backfilledEntrants = ConcurrentHashMap.newKeySet();
+    /** Entrants whose counter is being seeded by this process. */
+    private static final Set<String> seedingEntrants = ConcurrentHashMap.newKeySet();
 
     /**
      * Constructs a new NotificationService instance.
@@ -79,33 +119,333 @@ public class NotificationService {
     }
 
     /**
-     * Creates a new notification in Firestore.
+     * Callback interface for retrieving a page of notifications.
+     */
+    public interface NotificationPageCallback {
+        /**
+         * Called when a page is successfully retrieved.
+         *
+         * @param page The page of notifications
+         */
+        void onSuccess(NotificationPage page);
+
+        /**
+         * Called when retrieving the page fails.
+         *
+         * @param error The error message describing the failure
+         */
+        void onFailure(String error);
+    }
+
+    /**
+     * Callback interface for an entrant's unread notification count.
+     */
+    public interface UnreadCountCallback {
+        /**
+         * Called when the unread count is known or changes.
+         *
+         * @param unreadCount The number of unread notifications
+         */
+        void onSuccess(int unreadCount);
+
+        /**
+         * Called when the count cannot be read.
+         *
+         * @param error The error message describing the failure
+         */
+        void onFailure(String error);
+    }
+
+    /**
+     * Callback interface for bulk operations on notifications.
+     */
+    public interface BulkCallback {
+        /**
+         * Called once every batch of a bulk operation has been committed.
+         *
+         * @param result How many notifications were written and in how many commits
+         */
+        void onSuccess(BulkWriteResult result);
+
+        /**
+         * Called when the notifications cannot be read or some batch fails to commit.
+         *
+         * @param error The error message describing the failure
+         */
+        void onFailure(String error);
+    }
+
+    /**
+     * One page of an entrant's notifications, with the cursor for the next page.
+     */
+    public static final class NotificationPage {
+        private final List<Notification> notifications;
+        private final DocumentSnapshot cursor;
+        private final boolean hasMore;
+
+        NotificationPage(List<Notification> notifications, DocumentSnapshot cursor, boolean hasMore) {
+            this.notifications = notifications;
+            this.cursor = cursor;
+            this.hasMore = hasMore;
+        }
+
+        /**
+         * Gets the notifications in this page, newest first.
+         *
+         * @return The notifications
+         */
+        public List<Notification> getNotifications() {
+            return notifications;
+        }
+
+        /**
+         * Gets the cursor to pass to {@link #getNotificationsPage} for the next page.
+         *
+         * @return The last document read, or null if none has been read
+         */
+        public DocumentSnapshot getCursor() {
+            return cursor;
+        }
+
+        /**
+         * Gets whether there may be older notifications after this page.
+         *
+         * @return true if the page was full
+         */
+        public boolean hasMore() {
+            return hasMore;
+        }
+    }
+
+    /**
+     * Creates a new notification in Firestore. A notification whose ID was sent
+     * recently from this device, or that is already stored, is not written again;
+     * the callback still receives it.
      * 
      * @param notification The notification to create
      * @param callback The callback to handle the result
      */
     public void createNotification(Notification notification, NotificationCallback callback) {
-        if (notification.getNotificationId() == null || notification.getNotificationId().isEmpty()) {
+        boolean generatedId = notification.getNotificationId() == null || notification.getNotificationId().isEmpty();
+        if (generatedId) {
             notification.setNotificationId(UUID.randomUUID().toString());
         }
 
         // Ensure isRead is explicitly set to false
         notification.setRead(false);
 
-        db.collection(COLLECTION_NAME)
-                .document(notification.getNotificationId())
-                .set(notification)
-                .addOnSuccessListener(aVoid -> {
-                    Log.d(TAG, "Notification created successfully: " + notification.getNotificationId() +
-                        " with isRead=" + notification.isRead());
-                    callback.onSuccess(notification);
-                })
-                .addOnFailureListener(e -> {
-                    Log.e(TAG, "Error creating notification", e);
-                    callback.onFailure("Failed to create notification: " + e.getMessage());
-                });
+        String notificationId = notification.getNotificationId();
+        if (!RecentSends.getInstance().claim(notificationId)) {
+            Log.d(TAG, "Dropped duplicate notification: " + notificationId);
+            callback.onSuccess(notification);
+            return;
+        }
+
+        // A fresh random ID cannot be stored yet, so the notification and its unread count go
+        // out in one batch with no read first. A caller's ID may already be stored by an earlier
+        // send, which must neither reset its read state nor count it again, so it is created in
+        // a transaction that writes nothing if it exists. Transactions need the server; while
+        // offline it falls back to the batch, which is queued, and the counter may drift by one
+        // if a copy this device cannot see was already stored.
+        Map<String, Object> data = NotificationCodec.getInstance().encode(notification);
+        DocumentReference reference = db.collection(COLLECTION_NAME).document(notificationId);
+        String entrantId = notification.getEntrantId();
+        CompletableFuture<Void> write;
+        if (generatedId) {
+            write = writer.executeOnce(COLLECTION_NAME, () -> TaskFutures.from(track("createNotification",
+                    createBatch(reference, data, entrantId), data)));
+        } else {
+            write = writer.execute(COLLECTION_NAME, () -> TaskFutures.from(track("createNotification.ifAbsent",
+                            createIfAbsent(reference, data, entrantId), data)))
+                    .handle((ignored, error) -> error)
+                    .thenCompose(error -> {
+                        if (error == null) {
+                            return CompletableFuture.completedFuture(null);
+                        }
+                        if (!isOffline(error)) {
+                            CompletableFuture<Void> failed = new CompletableFuture<>();
+                            failed.completeExceptionally(error);
+                            return failed;
+                        }
+                        return writer.executeOnce(COLLECTION_NAME, () -> TaskFutures.from(track("createNotification",
+                                createBatch(reference, data, entrantId), data)));
+                    });
+        }
+        write.whenComplete((ignored, error) -> {
+            if (error == null) {
+                Log.d(TAG, "Notification created successfully: " + notificationId +
+                    " with isRead=" + notification.isRead());
+                callback.onSuccess(notification);
+            } else {
+                RecentSends.getInstance().release(notificationId);
+                Log.e(TAG, "Error creating notification", error);
+                callback.onFailure("Failed to create notification: " + error.getMessage());
+            }
+        });
     }
 
+    /**
+     * Writes a notification and counts it as unread in one batch, which is queued while offline.
+     */
+    private Task<Void> createBatch(DocumentReference reference, Map<String, Object> data, String entrantId) {
+        WriteBatch batch = db.batch();
+        batch.set(reference, data);
+        adjustUnreadCount(batch, entrantId, 1);
+        return batch.commit();
+    }
+
+    /**
+     * Writes a notification and counts it as unread, unless it is already stored.
+     */
+    private Task<Void> createIfAbsent(DocumentReference reference, Map<String, Object> data, String entrantId) {
+        return db.runTransaction(transaction -> {
+            if (!transaction.get(reference).exists()) {
+                transaction.set(reference, data);
+                if (entrantId != null) {
+                    transaction.set(counterReference(entrantId), unreadDelta(1), SetOptions.merge());
+                }
+            }
+            return null;
+        });
+    }
+
+    private static boolean isOffline(Throwable error) {
+        Throwable cause = TaskFutures.unwrap(error);
+        return cause instanceof FirebaseFirestoreException
+                && ((FirebaseFirestoreException) cause).getCode() == FirebaseFirestoreException.Code.UNAVAILABLE;
+    }
+
+
+    /**
+     * Creates a new notification in Firestore and exposes the result as a future.
+     *
+     * @param notification The notification to create
+     * @return A future completed with the stored notification
+     */
+    public CompletableFuture<Notification> createNotificationAsync(Notification notification) {
+        CompletableFuture<Notification> future = new CompletableFuture<>();
+        createNotification(notification, futureCallback(future));
+        return future;
+    }
+
+    /**
+     * Notifies an entrant that they were not selected and exposes the result as a future.
+     * The future completes with {@code null} if the entrant has opted out.
+     *
+     * @param entrantId The unique identifier of the entrant
+     * @param eventId The unique identifier of the event
+     * @param eventTitle The title of the event
+     * @param drawRound The event's draw round the entrant was not selected in
+     * @return A future completed with the created notification, or {@code null}
+     */
+    public CompletableFuture<Notification> notifyNotSelectedFromWaitlistAsync(String entrantId, String eventId,
+                                                                            String eventTitle, int drawRound) {
+        CompletableFuture<Notification> future = new CompletableFuture<>();
+        notifyNotSelectedFromWaitlist(entrantId, eventId, eventTitle, drawRound, futureCallback(future));
+        return future;
+    }
+
+    /**
+     * Adapts a {@link NotificationCallback} onto a future.
+     *
+     * @param future The future to complete
+     * @return A callback that completes {@code future}
+     */
+    static NotificationCallback futureCallback(CompletableFuture<Notification> future) {
+        return new NotificationCallback() {
+            @Override
+            public void onSuccess(Notification notification) {
+                future.complete(notification);
+            }
+
+            @Override
+            public void onFailure(String error) {
+                future.completeExceptionally(new IllegalStateException(error));
+            }
+        };
+    }
+
+    /**
+     * Gets the ID for a notification, derived from what it is about, so sending the same
+     * notification twice writes the same document.
+     *
+     * @param eventId The unique identifier of the event
+     * @param entrantId The unique identifier of the entrant
+     * @param type The type of notification
+     * @param drawRound The event's draw round the notification is about
+     * @return The notification ID
+     */
+    public static String notificationId(String eventId, String entrantId, Notification.NotificationType type,
+                                        int drawRound) {
+        return notificationId(eventId, entrantId, type, drawRound, null);
+    }
+
+    /**
+     * Gets the ID for a notification with an organizer-written message. The message is
+     * part of the key, so resending it is a duplicate but a new message is not.
+     *
+     * @param eventId The unique identifier of the event
+     * @param entrantId The unique identifier of the entrant
+     * @param type The type of notification
+     * @param drawRound The event's draw round the notification is about
+     * @param message The message, or null if it follows from the type
+     * @return The notification ID
+     */
+    public static String notificationId(String eventId, String entrantId, Notification.NotificationType type,
+                                        int drawRound, String message) {
+        String key = eventId + '\n' + entrantId + '\n' + type + '\n' + drawRound
+                + (message == null ? "" : '\n' + message);
+        return UUID.nameUUIDFromBytes(key.getBytes(StandardCharsets.UTF_8)).toString();
+    }
+
+    /**
+     * Builds the notification telling an entrant they were selected from the waiting list.
+     *
+     * @param entrantId The unique identifier of the entrant
+     * @param eventId The unique identifier of the event
+     * @param eventTitle The title of the event
+     * @param drawRound The event's draw round the notification is about
+     * @return The unsaved notification
+     */
+    public static Notification selectedNotification(String entrantId, String eventId, String eventTitle,
+                                                    int drawRound) {
+        Notification.NotificationType type = Notification.NotificationType.SELECTED_FROM_WAITLIST;
+        Notification notification = new Notification(
+                notificationId(eventId, entrantId, type, drawRound),
+                entrantId,
+                eventId,
+                eventTitle,
+                "You have been selected to participate in " + eventTitle + "!",
+                type
+        );
+        notification.setDrawRound(drawRound);
+        return notification;
+    }
+
+    /**
+     * Builds the notification telling an entrant they were not selected from the waiting list.
+     *
+     * @param entrantId The unique identifier of the entrant
+     * @param eventId The unique identifier of the event
+     * @param eventTitle The title of the event
+     * @param drawRound The event's draw round the notification is about
+     * @return The unsaved notification
+     */
+    public static Notification notSelectedNotification(String entrantId, String eventId, String eventTitle,
+                                                       int drawRound) {
+        Notification.NotificationType type = Notification.NotificationType.NOT_SELECTED_FROM_WAITLIST;
+        Notification notification = new Notification(
+                notificationId(eventId, entrantId, type, drawRound),
+                entrantId,
+                eventId,
+                eventTitle,
+                "Unfortunately, you were not selected to participate in " + eventTitle +
+                        ". Thank you for your interest!",
+                type
+        );
+        notification.setDrawRound(drawRound);
+        return notification;
+    }
 
     /**
      * Creates a notification for an entrant who has been selected from the waiting list.
@@ -113,35 +453,12 @@ public class NotificationService {
      * @param entrantId The unique identifier of the entrant
      * @param eventId The unique identifier of the event
      * @param eventTitle The title of the event
+     * @param drawRound The event's draw round the notification is about
      * @param callback The callback to handle the result
      */
-    public void notifySelectedFromWaitlist(String entrantId, String eventId, String eventTitle,
+    public void notifySelectedFromWaitlist(String entrantId, String eventId, String eventTitle, int drawRound,
                                            NotificationCallback callback) {
-        // Check if the user has notifications enabled
-        DatabaseService dbService = new DatabaseService();
-        dbService.getUser(entrantId, task -> {
-            if (task.isSuccessful() && task.getResult().exists()) {
-                User user = task.getResult().toObject(User.class);
-                if (user != null && user.isNotificationsEnabled()) {
-
-                    String notificationId = UUID.randomUUID().toString();
-                    String message = "You have been selected to participate in " + eventTitle + "!";
-
-                    Notification notification = new Notification(
-                            notificationId,
-                            entrantId,
-                            eventId,
-                            eventTitle,
-                            message,
-                            Notification.NotificationType.SELECTED_FROM_WAITLIST
-                    );
-                    createNotification(notification, callback);
-                } else {
-                    // User opted out
-                    Log.d(TAG, "User " + entrantId + " has opted out of notifications");
-                }
-            }
-        });
+        notifyUnlessOptedOut(selectedNotification(entrantId, eventId, eventTitle, drawRound), callback);
     }
 
 
@@ -151,140 +468,261 @@ public class NotificationService {
      * @param entrantId The unique identifier of the entrant
      * @param eventId The unique identifier of the event
      * @param eventTitle The title of the event
+     * @param drawRound The event's draw round the notification is about
      * @param callback The callback to handle the result
      */
-    public void notifyNotSelectedFromWaitlist(String entrantId, String eventId, String eventTitle,
+    public void notifyNotSelectedFromWaitlist(String entrantId, String eventId, String eventTitle, int drawRound,
                                               NotificationCallback callback) {
-        // Check if the user has notifications enabled
-        DatabaseService dbService = new DatabaseService();
-        dbService.getUser(entrantId, task -> {
-            if (task.isSuccessful() && task.getResult().exists()) {
-                User user = task.getResult().toObject(User.class);
-                if (user != null && user.isNotificationsEnabled()) {
-
-                    String notificationId = UUID.randomUUID().toString();
-                    String message = "Unfortunately, you were not selected to participate in " + eventTitle +
-                            ". Thank you for your interest!";
-
-                    Notification notification = new Notification(
-                            notificationId,
-                            entrantId,
-                            eventId,
-                            eventTitle,
-                            message,
-                            Notification.NotificationType.NOT_SELECTED_FROM_WAITLIST
-                    );
-                    createNotification(notification, callback);
-                } else {
-                    // User opted out
-                    Log.d(TAG, "User " + entrantId + " has opted out of notifications");
-                }
+        notifyUnlessOptedOut(notSelectedNotification(entrantId, eventId, eventTitle, drawRound), callback);
+    }
+
+
+    /**
+     * Creates a notification unless its entrant has turned notifications off, checking the
+     * cached {@link OptOutIndex} instead of reading the entrant's user document.
+     *
+     * @param notification The notification to create
+     * @param callback The callback to handle the result; given null if the entrant opted out
+     */
+    private void notifyUnlessOptedOut(Notification notification, NotificationCallback callback) {
+        String entrantId = notification.getEntrantId();
+        OptOutIndex.getInstance().get().whenComplete((optedOut, error) -> {
+            if (error != null) {
+                callback.onFailure("Failed to load notification preferences for " + entrantId);
+            } else if (optedOut.contains(entrantId)) {
+                // User opted out; report success with no notification so callers can finish
+                Log.d(TAG, "User " + entrantId + " has opted out of notifications");
+                callback.onSuccess(null);
+            } else {
+                createNotification(notification, callback);
             }
         });
     }
 
 
     /**
-     * Retrieves all notifications for a specific entrant.
+     * Retrieves the most recent page of notifications for a specific entrant, newest first.
+     * Use {@link #getNotificationsPage} to read further back.
      * 
      * @param entrantId The unique identifier of the entrant
      * @param callback The callback to handle the result
      */
     public void getNotificationsForEntrant(String entrantId, NotificationListCallback callback) {
-        db.collection(COLLECTION_NAME)
-                .whereEqualTo("entrantId", entrantId)
-                .get()
-                .addOnCompleteListener(new OnCompleteListener<QuerySnapshot>() {
-                    @Override
-                    public void onComplete(Task<QuerySnapshot> task) {
-                        if (task.isSuccessful()) {
-                            List<Notification> notifications = new ArrayList<>();
-                            for (QueryDocumentSnapshot document : task.getResult()) {
-                                Notification notification = document.toObject(Notification.class);
-                                notifications.add(notification);
-                            }
-                            // Sort by createdAt descending (newest first) in memory
-                            Collections.sort(notifications, new Comparator<Notification>() {
-                                @Override
-                                public int compare(Notification n1, Notification n2) {
-                                    if (n1.getCreatedAt() == null && n2.getCreatedAt() == null) return 0;
-                                    if (n1.getCreatedAt() == null) return 1;
-                                    if (n2.getCreatedAt() == null) return -1;
-                                    return n2.getCreatedAt().compareTo(n1.getCreatedAt()); // Descending
-                                }
-                            });
-                            Log.d(TAG, "Retrieved " + notifications.size() + " notifications for entrant: " + entrantId);
-                            callback.onSuccess(notifications);
-                        } else {
-                            Log.e(TAG, "Error getting notifications", task.getException());
-                            callback.onFailure("Failed to retrieve notifications: " + 
-                                    (task.getException() != null ? task.getException().getMessage() : "Unknown error"));
-                        }
-                    }
-                });
+        getNotificationsPage(entrantId, false, null, PAGE_SIZE, listCallback(callback));
     }
 
     /**
-     * Retrieves unread notifications for a specific entrant.
+     * Retrieves the most recent page of unread notifications for a specific entrant, newest first.
      * 
      * @param entrantId The unique identifier of the entrant
      * @param callback The callback to handle the result
      */
     public void getUnreadNotificationsForEntrant(String entrantId, NotificationListCallback callback) {
-        // First, get all notifications for this entrant, then filter in memory
-        // This avoids Firestore query issues with boolean fields
-        db.collection(COLLECTION_NAME)
-                .whereEqualTo("entrantId", entrantId)
-                .get()
-                .addOnCompleteListener(new OnCompleteListener<QuerySnapshot>() {
-                    @Override
-                    public void onComplete(Task<QuerySnapshot> task) {
-                        if (task.isSuccessful()) {
-                            List<Notification> allNotifications = new ArrayList<>();
-                            List<Notification> unreadNotifications = new ArrayList<>();
-                            
-                            for (QueryDocumentSnapshot document : task.getResult()) {
-                                Notification notification = document.toObject(Notification.class);
-                                allNotifications.add(notification);
-                                
-                                // Debug: Log the isRead status
-                                Boolean isReadValue = document.getBoolean("isRead");
-                                Log.d(TAG, "Notification " + notification.getNotificationId() + 
-                                    " - isRead from doc: " + isReadValue + 
-                                    ", isRead from object: " + notification.isRead());
-                                
-                                // Filter unread notifications - check both the object and the document
-                                if (isReadValue == null || !isReadValue) {
-                                    // If field doesn't exist (null) or is false, treat as unread
-                                    if (!notification.isRead()) {
-                                        unreadNotifications.add(notification);
-                                    }
+        getUnreadNotificationsForEntrant(entrantId, PAGE_SIZE, callback);
+    }
+
+    /**
+     * Retrieves up to {@code limit} of the newest unread notifications for a specific entrant.
+     *
+     * @param entrantId The unique identifier of the entrant
+     * @param limit The maximum number of notifications to read
+     * @param callback The callback to handle the result
+     */
+    public void getUnreadNotificationsForEntrant(String entrantId, int limit, NotificationListCallback callback) {
+        getNotificationsPage(entrantId, true, null, limit, listCallback(callback));
+    }
+
+    /**
+     * Retrieves one page of an entrant's notifications, newest first.
+     * Filtering and ordering are done by Firestore, so only the page is downloaded.
+     *
+     * @param entrantId The unique identifier of the entrant
+     * @param unreadOnly Whether to return only unread notifications
+     * @param after The cursor of the previous page, or null for the first page
+     * @param limit The maximum number of notifications in the page
+     * @param callback The callback to handle the result
+     */
+    public void getNotificationsPage(String entrantId, boolean unreadOnly, DocumentSnapshot after, int limit,
+                                     NotificationPageCallback callback) {
+        Query query = entrantQuery(entrantId, unreadOnly);
+        if (after != null) {
+            query = query.startAfter(after);
+        }
+        Query page = query.limit(limit);
+        (unreadOnly ? backfillReadState(entrantId) : Tasks.<Void>forResult(null))
+                .continueWithTask(backfilled ->
+                        track(unreadOnly ? "getUnreadNotificationsPage" : "getNotificationsPage", page.get()))
+                .addOnCompleteListener(task -> {
+                    if (task.isSuccessful()) {
+                        List<DocumentSnapshot> documents = task.getResult().getDocuments();
+                        callback.onSuccess(new NotificationPage(
+                                NotificationCodec.getInstance().decodeAll(task.getResult()),
+                                documents.isEmpty() ? after : documents.get(documents.size() - 1),
+                                documents.size() >= limit));
+                    } else {
+                        Log.e(TAG, "Error getting notifications", task.getException());
+                        callback.onFailure("Failed to retrieve notifications: " + 
+                                (task.getException() != null ? task.getException().getMessage() : "Unknown error"));
+                    }
+                });
+    }
+
+    /**
+     * Listens for notifications created for an entrant after a given time.
+     * The callback receives only newly added notifications, oldest first, each time
+     * some arrive; documents already seen are not downloaded again.
+     *
+     * @param entrantId The unique identifier of the entrant
+     * @param since Only notifications created after this time are reported, or null for all
+     * @param callback The callback to handle new notifications and errors
+     * @return The registration to remove when the listener is no longer needed
+     */
+    public ListenerRegistration listenForNewNotifications(String entrantId, Date since,
+                                                          NotificationListCallback callback) {
+        Query query = db.collection(COLLECTION_NAME).whereEqualTo("entrantId", entrantId);
+        if (since != null) {
+            query = query.whereGreaterThan("createdAt", since);
+        }
+        return query.orderBy("createdAt", Query.Direction.ASCENDING)
+                .addSnapshotListener((snapshot, error) -> {
+                    if (error != null) {
+                        Log.e(TAG, "Error listening for notifications", error);
+                        callback.onFailure("Failed to listen for notifications: " + error.getMessage());
+                        return;
+                    }
+                    if (snapshot == null) {
+                        return;
+                    }
+                    List<Notification> added = new ArrayList<>();
+                    for (DocumentChange change : snapshot.getDocumentChanges()) {
+                        if (change.getType() == DocumentChange.Type.ADDED) {
+                            added.add(NotificationCodec.getInstance().decode(change.getDocument()));
+                        }
+                    }
+                    if (!added.isEmpty()) {
+                        callback.onSuccess(added);
+                    }
+                });
+    }
+
+    /**
+     * Builds the query for an entrant's notifications, newest first.
+     * Backed by the composite indexes declared in {@code firestore.indexes.json}.
+     */
+    private Query entrantQuery(String entrantId, boolean unreadOnly) {
+        Query query = db.collection(COLLECTION_NAME).whereEqualTo("entrantId", entrantId);
+        if (unreadOnly) {
+            query = query.whereEqualTo(READ_FIELD, false);
+        }
+        return query.orderBy("createdAt", Query.Direction.DESCENDING);
+    }
+
+    /**
+     * Gives an entrant's unread notifications stored before the {@code isRead} field
+     * existed that field, so queries on it find them. Those documents only have the
+     * {@code read} field Firestore derived from {@code isRead()}; read ones need nothing,
+     * since a missing {@code isRead} never matches an unread query anyway.
+     *
+     * <p>The lookup is paged, {@value #BACKFILL_PAGE_SIZE} documents at a time. Once
+     * every page's writes have committed, {@value #READ_BACKFILLED_FIELD} is set on the
+     * entrant's counter, and later calls, in any process, only read that document. The
+     * returned task completes once the writes are applied locally, so a query made
+     * afterwards sees them even before they reach the server. A failed lookup, such as
+     * while offline, is logged and retried next time.</p>
+     *
+     * @param entrantId The unique identifier of the entrant
+     * @return A task that completes, never exceptionally, when the backfill has been issued
+     */
+    private Task<Void> backfillReadState(String entrantId) {
+        if (entrantId == null || backfilledEntrants.contains(entrantId)) {
+            return Tasks.forResult(null);
+        }
+        DocumentReference counter = counterReference(entrantId);
+        return track("backfillReadState.counter", counter.get())
+                .continueWithTask(task -> {
+                    if (!task.isSuccessful()) {
+                        Log.w(TAG, "Could not read notification counter", task.getException());
+                        return Tasks.forResult(null);
+                    }
+                    if (Boolean.TRUE.equals(task.getResult().getBoolean(READ_BACKFILLED_FIELD))) {
+                        backfilledEntrants.add(entrantId);
+                        return Tasks.forResult(null);
+                    }
+                    List<CompletableFuture<BulkWriteResult>> writes = new ArrayList<>();
+                    return backfillPage(entrantId, null, writes).continueWith(paged -> {
+                        if (!paged.isSuccessful()) {
+                            Log.w(TAG, "Could not look up notifications without isRead", paged.getException());
+                            return null;
+                        }
+                        TaskFutures.successfulAsList(writes).thenAccept(results -> {
+                            for (BulkWriteResult result : results) {
+                                if (result == null || !result.isComplete()) {
+                                    return;
                                 }
                             }
-                            
-                            Log.d(TAG, "Total notifications for entrant " + entrantId + ": " + allNotifications.size());
-                            Log.d(TAG, "Unread notifications found: " + unreadNotifications.size());
-                            
-                            // Sort by createdAt descending (newest first) in memory
-                            Collections.sort(unreadNotifications, new Comparator<Notification>() {
-                                @Override
-                                public int compare(Notification n1, Notification n2) {
-                                    if (n1.getCreatedAt() == null && n2.getCreatedAt() == null) return 0;
-                                    if (n1.getCreatedAt() == null) return 1;
-                                    if (n2.getCreatedAt() == null) return -1;
-                                    return n2.getCreatedAt().compareTo(n1.getCreatedAt()); // Descending
-                                }
-                            });
-                            callback.onSuccess(unreadNotifications);
-                        } else {
-                            Log.e(TAG, "Error getting unread notifications", task.getException());
-                            callback.onFailure("Failed to retrieve unread notifications: " + 
-                                    (task.getException() != null ? task.getException().getMessage() : "Unknown error"));
+                            track("backfillReadState.flag", counter.set(
+                                    Collections.singletonMap(READ_BACKFILLED_FIELD, true), SetOptions.merge()))
+                                    .addOnSuccessListener(ignored -> backfilledEntrants.add(entrantId));
+                        });
+                        return null;
+                    });
+                });
+    }
+
+    /**
+     * Adds an {@code isRead} field to one page of an entrant's legacy unread
+     * notifications, then moves on to the next page until a short one.
+     *
+     * @param entrantId The unique identifier of the entrant
+     * @param after The last document of the previous page, or null for the first page
+     * @param writes Collects each page's pending writes
+     * @return A task that completes once every page has been read and its writes issued
+     */
+    private Task<Void> backfillPage(String entrantId, DocumentSnapshot after,
+                                    List<CompletableFuture<BulkWriteResult>> writes) {
+        Query query = db.collection(COLLECTION_NAME)
+                .whereEqualTo("entrantId", entrantId)
+                .whereEqualTo(LEGACY_READ_FIELD, false);
+        if (after != null) {
+            query = query.startAfter(after);
+        }
+        return track("backfillReadState", query.limit(BACKFILL_PAGE_SIZE).get())
+                .continueWithTask(task -> {
+                    List<DocumentSnapshot> documents = task.getResult().getDocuments();
+                    List<DocumentReference> legacy = new ArrayList<>();
+                    for (DocumentSnapshot document : documents) {
+                        if (!document.contains(READ_FIELD)) {
+                            legacy.add(document.getReference());
                         }
                     }
+                    if (!legacy.isEmpty()) {
+                        writes.add(new ChunkedBatchWriter(db).commit("NotificationService.backfillReadState.batch",
+                                legacy, 1, 0, (batch, reference) -> batch.update(reference, READ_FIELD, false), null));
+                    }
+                    if (documents.size() < BACKFILL_PAGE_SIZE) {
+                        return Tasks.forResult(null);
+                    }
+                    return backfillPage(entrantId, documents.get(documents.size() - 1), writes);
                 });
     }
 
+    /**
+     * Adapts a {@link NotificationListCallback} onto a page callback that ignores the cursor.
+     */
+    private static NotificationPageCallback listCallback(NotificationListCallback callback) {
+        return new NotificationPageCallback() {
+            @Override
+            public void onSuccess(NotificationPage page) {
+                callback.onSuccess(page.getNotifications());
+            }
+
+            @Override
+            public void onFailure(String error) {
+                callback.onFailure(error);
+            }
+        };
+    }
+
     /**
      * Marks a notification as read.
      * 
@@ -292,34 +730,7 @@ public class NotificationService {
      * @param callback The callback to handle the result
      */
     public void markAsRead(String notificationId, NotificationCallback callback) {
-        db.collection(COLLECTION_NAME)
-                .document(notificationId)
-                .update("isRead", true)
-                .addOnSuccessListener(new OnSuccessListener<Void>() {
-                    @Override
-                    public void onSuccess(Void aVoid) {
-                        Log.d(TAG, "Notification marked as read: " + notificationId);
-                        // Retrieve the updated notification
-                        db.collection(COLLECTION_NAME)
-                                .document(notificationId)
-                                .get()
-                                .addOnCompleteListener(task -> {
-                                    if (task.isSuccessful() && task.getResult() != null) {
-                                        Notification notification = task.getResult().toObject(Notification.class);
-                                        callback.onSuccess(notification);
-                                    } else {
-                                        callback.onSuccess(null);
-                                    }
-                                });
-                    }
-                })
-                .addOnFailureListener(new OnFailureListener() {
-                    @Override
-                    public void onFailure(Exception e) {
-                        Log.e(TAG, "Error marking notification as read", e);
-                        callback.onFailure("Failed to mark notification as read: " + e.getMessage());
-                    }
-                });
+        setReadState("markAsRead", notificationId, true, callback);
     }
 
     /**
@@ -329,58 +740,70 @@ public class NotificationService {
      * @param callback The callback to handle the result
      */
     public void markAsUnread(String notificationId, NotificationCallback callback) {
-        db.collection(COLLECTION_NAME)
-                .document(notificationId)
-                .update("isRead", false)
-                .addOnSuccessListener(new OnSuccessListener<Void>() {
-                    @Override
-                    public void onSuccess(Void aVoid) {
-                        Log.d(TAG, "Notification marked as unread: " + notificationId);
-                        // Retrieve the updated notification
-                        db.collection(COLLECTION_NAME)
-                                .document(notificationId)
-                                .get()
-                                .addOnCompleteListener(task -> {
-                                    if (task.isSuccessful() && task.getResult() != null) {
-                                        Notification notification = task.getResult().toObject(Notification.class);
-                                        callback.onSuccess(notification);
-                                    } else {
-                                        callback.onSuccess(null);
-                                    }
-                                });
-                    }
+        setReadState("markAsUnread", notificationId, false, callback);
+    }
+
+    /**
+     * Sets a notification's read state and moves its entrant's unread counter in one
+     * batch, which is queued while offline; the current state is read from the local
+     * cache when the server cannot be reached. The counter is left alone if the state does
+     * not change; two devices flipping the same notification at once can move it twice.
+     *
+     * @param operation The operation name for metrics and errors
+     * @param notificationId The unique identifier of the notification
+     * @param read The new read state
+     * @param callback Receives the updated notification
+     */
+    private void setReadState(String operation, String notificationId, boolean read, NotificationCallback callback) {
+        DocumentReference reference = db.collection(COLLECTION_NAME).document(notificationId);
+        track(operation, reference.get().continueWithTask(task -> {
+            DocumentSnapshot snapshot = task.getResult();
+            if (!snapshot.exists()) {
+                throw new FirebaseFirestoreException("Notification " + notificationId + " not found",
+                        FirebaseFirestoreException.Code.NOT_FOUND);
+            }
+            Notification notification = NotificationCodec.getInstance().decode(snapshot);
+            if (notification.isRead() == read) {
+                return Tasks.forResult(notification);
+            }
+            WriteBatch batch = db.batch();
+            batch.update(reference, READ_FIELD, read);
+            adjustUnreadCount(batch, notification.getEntrantId(), read ? -1 : 1);
+            notification.setRead(read);
+            return batch.commit().continueWith(committed -> {
+                committed.getResult();
+                return notification;
+            });
+        }))
+                .addOnSuccessListener(notification -> {
+                    Log.d(TAG, "Notification " + notificationId + " isRead=" + read);
+                    callback.onSuccess(notification);
                 })
-                .addOnFailureListener(new OnFailureListener() {
-                    @Override
-                    public void onFailure(Exception e) {
-                        Log.e(TAG, "Error marking notification as unread", e);
-                        callback.onFailure("Failed to mark notification as unread: " + e.getMessage());
-                    }
+                .addOnFailureListener(e -> {
+                    String state = read ? "read" : "unread";
+                    Log.e(TAG, "Error marking notification as " + state, e);
+                    callback.onFailure("Failed to mark notification as " + state + ": " + e.getMessage());
                 });
     }
 
     /**
-     * Marks all notifications for a specific entrant as read.
+     * Marks all notifications for a specific entrant as read, in batches of up to
+     * {@value ChunkedBatchWriter#MAX_BATCH_WRITES} writes.
      * 
      * @param entrantId The unique identifier of the entrant
-     * @param callback The callback to handle the result
+     * @param callback Called once every batch has been committed
      */
-    public void markAllAsRead(String entrantId, NotificationCallback callback) {
-        db.collection(COLLECTION_NAME)
-                .whereEqualTo("entrantId", entrantId)
-                .whereEqualTo("isRead", false)
-                .get()
+    public void markAllAsRead(String entrantId, BulkCallback callback) {
+        backfillReadState(entrantId)
+                .continueWithTask(backfilled -> track("markAllAsRead", db.collection(COLLECTION_NAME)
+                        .whereEqualTo("entrantId", entrantId)
+                        .whereEqualTo(READ_FIELD, false)
+                        .get()))
                 .addOnCompleteListener(new OnCompleteListener<QuerySnapshot>() {
                     @Override
                     public void onComplete(Task<QuerySnapshot> task) {
                         if (task.isSuccessful()) {
-                            int count = 0;
-                            for (QueryDocumentSnapshot document : task.getResult()) {
-                                document.getReference().update("isRead", true);
-                                count++;
-                            }
-                            Log.d(TAG, "Marked " + count + " notifications as read for entrant: " + entrantId);
-                            callback.onSuccess(null);
+                            markAsRead(NotificationCodec.getInstance().decodeAll(task.getResult()), callback);
                         } else {
                             Log.e(TAG, "Error marking all notifications as read", task.getException());
                             callback.onFailure("Failed to mark all notifications as read: " + 
@@ -390,6 +813,113 @@ public class NotificationService {
                 });
     }
 
+    /**
+     * Marks notifications as read with batched writes. Notifications already read are skipped.
+     *
+     * @param notifications The notifications to mark
+     * @param callback Called once every batch has been committed
+     */
+    public void markAsRead(List<Notification> notifications, BulkCallback callback) {
+        List<Notification> unread = new ArrayList<>();
+        for (Notification notification : notifications) {
+            if (!notification.isRead()) unread.add(notification);
+        }
+        commitBulk("markAsRead.batch", unread, 1, -1,
+                (batch, notification) -> batch.update(reference(notification), READ_FIELD, true), callback);
+    }
+
+    /**
+     * Marks notifications as unread with batched writes. Notifications already unread are skipped.
+     *
+     * @param notifications The notifications to mark
+     * @param callback Called once every batch has been committed
+     */
+    public void markAsUnread(List<Notification> notifications, BulkCallback callback) {
+        List<Notification> read = new ArrayList<>();
+        for (Notification notification : notifications) {
+            if (notification.isRead()) read.add(notification);
+        }
+        commitBulk("markAsUnread.batch", read, 1, 1,
+                (batch, notification) -> batch.update(reference(notification), READ_FIELD, false), callback);
+    }
+
+    /**
+     * Deletes notifications with batched writes.
+     *
+     * @param notifications The notifications to delete
+     * @param callback Called once every batch has been committed
+     */
+    public void deleteNotifications(List<Notification> notifications, BulkCallback callback) {
+        commitBulk("deleteNotifications.batch", notifications, 1, -1,
+                (batch, notification) -> batch.delete(reference(notification)), callback);
+    }
+
+    /**
+     * Moves notifications to the archive collection with batched writes. Archived
+     * notifications are stored as read and no longer appear in an entrant's list.
+     *
+     * @param notifications The notifications to archive
+     * @param callback Called once every batch has been committed
+     */
+    public void archiveNotifications(List<Notification> notifications, BulkCallback callback) {
+        Date archivedAt = new Date();
+        commitBulk("archiveNotifications.batch", notifications, 2, -1, (batch, notification) -> {
+            Map<String, Object> data = NotificationCodec.getInstance().encode(notification);
+            data.put(READ_FIELD, true);
+            data.put("archivedAt", archivedAt);
+            batch.set(db.collection(ARCHIVE_COLLECTION).document(notification.getNotificationId()), data);
+            batch.delete(reference(notification));
+        }, callback);
+    }
+
+    /**
+     * Commits a bulk change in chunks, moving each entrant's unread counter in the
+     * same batch as the notifications it covers.
+     *
+     * @param operation The operation name for metrics
+     * @param notifications The notifications to change
+     * @param writesPerNotification The writes {@code writer} adds per notification
+     * @param counterStep -1 to take unread notifications off the counter, or +1 to add read ones
+     * @param writer Adds each notification's writes
+     * @param callback Called once every batch has been committed
+     */
+    private void commitBulk(String operation, List<Notification> notifications, int writesPerNotification,
+                            int counterStep, ChunkedBatchWriter.ItemWriter<Notification> writer,
+                            BulkCallback callback) {
+        Set<String> entrants = new HashSet<>();
+        for (Notification notification : notifications) {
+            if (notification.getEntrantId() != null) entrants.add(notification.getEntrantId());
+        }
+        new ChunkedBatchWriter(db).commit("NotificationService." + operation, notifications, writesPerNotification,
+                ChunkedBatchWriter.writesPerChunkForKeys(writesPerNotification, entrants.size()), writer, (batch, chunk) -> {
+                    // Counted notifications are unread ones being cleared, or read ones being re-flagged
+                    Map<String, Integer> deltas = new HashMap<>();
+                    for (Notification notification : chunk) {
+                        if (notification.getEntrantId() != null && notification.isRead() == (counterStep > 0)) {
+                            Integer current = deltas.get(notification.getEntrantId());
+                            deltas.put(notification.getEntrantId(), (current != null ? current : 0) + counterStep);
+                        }
+                    }
+                    for (Map.Entry<String, Integer> delta : deltas.entrySet()) {
+                        batch.set(counterReference(delta.getKey()), unreadDelta(delta.getValue()), SetOptions.merge());
+                    }
+                    return deltas.size();
+                })
+                .thenAccept(result -> {
+                    Log.d(TAG, operation + ": " + result);
+                    if (result.isComplete()) {
+                        callback.onSuccess(result);
+                    } else {
+                        callback.onFailure("Failed to update " + result.getFailedDocuments() + " of "
+                                + notifications.size() + " notifications");
+                    }
+                });
+    }
+
+    private DocumentReference reference(Notification notification) {
+        return db.collection(COLLECTION_NAME).document(notification.getNotificationId());
+    }
+
     /**
      * Deletes a notification from Firestore.
      * 
@@ -397,12 +927,23 @@ public class NotificationService {
      * @param callback The callback to handle the result
      */
     public void deleteNotification(String notificationId, NotificationCallback callback) {
-        db.collection(COLLECTION_NAME)
-                .document(notificationId)
-                .delete()
-                .addOnSuccessListener(new OnSuccessListener<Void>() {
+        DocumentReference reference = db.collection(COLLECTION_NAME).document(notificationId);
+        track("deleteNotification", reference.get().continueWithTask(task -> {
+            DocumentSnapshot snapshot = task.getResult();
+            if (!snapshot.exists()) {
+                return Tasks.<Void>forResult(null);
+            }
+            Notification notification = NotificationCodec.getInstance().decode(snapshot);
+            WriteBatch batch = db.batch();
+            batch.delete(reference);
+            if (!notification.isRead()) {
+                adjustUnreadCount(batch, notification.getEntrantId(), -1);
+            }
+            return batch.commit();
+        }))
+                .addOnSuccessListener(new OnSuccessListener<Object>() {
                     @Override
-                    public void onSuccess(Void aVoid) {
+                    public void onSuccess(Object ignored) {
                         Log.d(TAG, "Notification deleted: " + notificationId);
                         callback.onSuccess(null);
                     }
@@ -416,5 +957,100 @@ public class NotificationService {
                 });
     }
 
-}
+    /**
+     * Listens to an entrant's unread notification count. Each update costs a single
+     * document read, whatever the entrant's history.
+     *
+     * <p>A counter that has not been seeded, because it has never been written or was
+     * first created by an increment, is seeded from an aggregate count of the entrant's
+     * unread notifications, after which the listener reports it. Until then the
+     * unseeded value, if any, is reported.</p>
+     *
+     * @param entrantId The unique identifier of the entrant
+     * @param callback Receives the count each time it changes
+     * @return The registration to remove when the count is no longer needed
+     */
+    public ListenerRegistration listenForUnreadCount(String entrantId, UnreadCountCallback callback) {
+        return counterReference(entrantId).addSnapshotListener((snapshot, error) -> {
+            if (error != null) {
+                Log.e(TAG, "Error listening for unread count", error);
+                callback.onFailure("Failed to read unread count: " + error.getMessage());
+                return;
+            }
+            if (snapshot == null) {
+                return;
+            }
+            if (snapshot.exists()) {
+                Long unread = snapshot.getLong(UNREAD_FIELD);
+                // Concurrent decrements of the same notification can overshoot; never show a negative badge
+                callback.onSuccess(unread != null ? (int) Math.max(0, unread) : 0);
+            }
+            if (Boolean.TRUE.equals(snapshot.getBoolean(READ_BACKFILLED_FIELD))) {
+                backfilledEntrants.add(entrantId);
+            }
+            if (!Boolean.TRUE.equals(snapshot.getBoolean(SEEDED_FIELD)) && !snapshot.getMetadata().isFromCache()
+                    && seedingEntrants.add(entrantId)) {
+                seedUnreadCount(entrantId, callback);
+            }
+        });
+    }
 
+    /**
+     * Counts an entrant's unread notifications on the server and stores the count as
+     * their counter, replacing whatever increments created it, unless another client
+     * seeds it first. Increments landing between the count and the write are lost.
+     */
+    private void seedUnreadCount(String entrantId, UnreadCountCallback callback) {
+        backfillReadState(entrantId)
+                .continueWithTask(backfilled -> track("seedUnreadCount",
+                        entrantQuery(entrantId, true).count().get(AggregateSource.SERVER)))
+                .continueWithTask(task -> {
+                    if (!task.isSuccessful()) {
+                        callback.onFailure("Failed to count unread notifications: " +
+                                (task.getException() != null ? task.getException().getMessage() : "Unknown error"));
+                        return Tasks.<Void>forResult(null);
+                    }
+                    long count = task.getResult().getCount();
+                    callback.onSuccess((int) count);
+                    DocumentReference counter = counterReference(entrantId);
+                    Map<String, Object> seeded = new HashMap<>();
+                    seeded.put(UNREAD_FIELD, count);
+                    seeded.put(SEEDED_FIELD, true);
+                    Task<Void> seed = db.runTransaction(transaction -> {
+                        if (!Boolean.TRUE.equals(transaction.get(counter).getBoolean(SEEDED_FIELD))) {
+                            transaction.set(counter, seeded);
+                        }
+                        return null;
+                    });
+                    return track("seedUnreadCount.counter", seed);
+                })
+                .addOnCompleteListener(task -> seedingEntrants.remove(entrantId));
+    }
+
+    private DocumentReference counterReference(String entrantId) {
+        return db.collection(COUNTER_COLLECTION).document(entrantId);
+    }
+
+    private void adjustUnreadCount(WriteBatch batch, String entrantId, long delta) {
+        if (entrantId != null) {
+            batch.set(counterReference(entrantId), unreadDelta(delta), SetOptions.merge());
+        }
+    }
+
+    private static Map<String, Object> unreadDelta(long delta) {
+        return Collections.singletonMap(UNREAD_FIELD, FieldValue.increment(delta));
+    }
+
+    /**
+     * Records a Firestore call's latency and payload in {@link StoreMetrics}
+     * under {@code "NotificationService.<operation>"}.
+     */
+    private static <T> Task<T> track(String operation, Task<T> task) {
+        return StoreMetrics.getInstance().track("NotificationService." + operation, task);
+    }
+
+    private static <T> Task<T> track(String operation, Task<T> task, Object payload) {
+        return StoreMetrics.getInstance().track("NotificationService." + operation, task, payload);
+    }
+
+}
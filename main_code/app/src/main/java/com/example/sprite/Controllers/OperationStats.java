@@ -0,0 +1,160 @@
+package com.example.sprite.Controllers;
+
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counters for a single named store operation, such as {@code "DatabaseService.getEvent"}.
+ *
+ * <p>All counters are {@link LongAdder}s and the latency is kept in a
+ * {@link LatencyHistogram}, so concurrent updates never block each other.</p>
+ */
+public class OperationStats {
+
+    private final String name;
+    private final LatencyHistogram latency = new LatencyHistogram();
+    private final LongAdder calls = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+    private final LongAdder documents = new LongAdder();
+    private final LongAdder bytesIn = new LongAdder();
+    private final LongAdder bytesOut = new LongAdder();
+
+    /**
+     * Creates empty stats for an operation.
+     *
+     * @param name The operation name
+     */
+    public OperationStats(String name) {
+        this.name = name;
+    }
+
+    /**
+     * Records one completed call.
+     *
+     * @param elapsedNanos How long the call took
+     * @param success      Whether the call succeeded
+     * @param documentCount The number of documents read or written
+     * @param received     Approximate bytes received
+     * @param sent         Approximate bytes sent
+     */
+    public void record(long elapsedNanos, boolean success, long documentCount, long received, long sent) {
+        calls.increment();
+        if (!success) errors.increment();
+        latency.record(elapsedNanos, TimeUnit.NANOSECONDS);
+        if (documentCount > 0) documents.add(documentCount);
+        if (received > 0) bytesIn.add(received);
+        if (sent > 0) bytesOut.add(sent);
+    }
+
+    /**
+     * Adds payload sizes measured after the call was recorded.
+     *
+     * @param received Approximate bytes received
+     * @param sent     Approximate bytes sent
+     */
+    public void recordBytes(long received, long sent) {
+        if (received > 0) bytesIn.add(received);
+        if (sent > 0) bytesOut.add(sent);
+    }
+
+    /**
+     * Gets the operation name.
+     *
+     * @return The name
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Gets the latency histogram.
+     *
+     * @return The histogram
+     */
+    public LatencyHistogram getLatency() {
+        return latency;
+    }
+
+    /**
+     * Takes a point-in-time copy of the counters.
+     *
+     * @return The snapshot
+     */
+    public Snapshot snapshot() {
+        return new Snapshot(name, calls.sum(), errors.sum(), documents.sum(), bytesIn.sum(), bytesOut.sum(),
+                latency.getTotalMicros(), latency.getPercentileMicros(50), latency.getPercentileMicros(90),
+                latency.getPercentileMicros(99), latency.getMaxMicros());
+    }
+
+    /**
+     * Clears all counters.
+     */
+    public void reset() {
+        calls.reset();
+        errors.reset();
+        documents.reset();
+        bytesIn.reset();
+        bytesOut.reset();
+        latency.reset();
+    }
+
+    /**
+     * An immutable copy of an operation's counters. Latencies are in microseconds.
+     */
+    public static final class Snapshot {
+        public final String name;
+        public final long calls;
+        public final long errors;
+        public final long documents;
+        public final long bytesIn;
+        public final long bytesOut;
+        public final long totalMicros;
+        public final long p50Micros;
+        public final long p90Micros;
+        public final long p99Micros;
+        public final long maxMicros;
+
+        Snapshot(String name, long calls, long errors, long documents, long bytesIn, long bytesOut,
+                 long totalMicros, long p50Micros, long p90Micros, long p99Micros, long maxMicros) {
+            this.name = name;
+            this.calls = calls;
+            this.errors = errors;
+            this.documents = documents;
+            this.bytesIn = bytesIn;
+            this.bytesOut = bytesOut;
+            this.totalMicros = totalMicros;
+            this.p50Micros = p50Micros;
+            this.p90Micros = p90Micros;
+            this.p99Micros = p99Micros;
+            this.maxMicros = maxMicros;
+        }
+
+        /**
+         * Formats the snapshot as a single JSON object.
+         *
+         * @return The JSON text
+         */
+        public String toJson() {
+            return String.format(Locale.US,
+                    "{\"op\":\"%s\",\"calls\":%d,\"errors\":%d,\"docs\":%d,\"bytesIn\":%d,\"bytesOut\":%d,"
+                            + "\"totalUs\":%d,\"p50Us\":%d,\"p90Us\":%d,\"p99Us\":%d,\"maxUs\":%d}",
+                    name.replace("\\", "\\\\").replace("\"", "\\\""), calls, errors, documents, bytesIn, bytesOut,
+                    totalMicros, p50Micros, p90Micros, p99Micros, maxMicros);
+        }
+
+        @Override
+        public String toString() {
+            return String.format(Locale.US,
+                    "%-45s calls=%-6d err=%-4d docs=%-7d in=%-9s out=%-9s p50=%.1fms p90=%.1fms p99=%.1fms max=%.1fms",
+                    name, calls, errors, documents, formatBytes(bytesIn), formatBytes(bytesOut),
+                    p50Micros / 1000.0, p90Micros / 1000.0, p99Micros / 1000.0, maxMicros / 1000.0);
+        }
+
+        private static String formatBytes(long bytes) {
+            if (bytes < 1024) return bytes + "B";
+            if (bytes < 1024 * 1024) return String.format(Locale.US, "%.1fKB", bytes / 1024.0);
+            return String.format(Locale.US, "%.1fMB", bytes / (1024.0 * 1024.0));
+        }
+    }
+}
@@ -0,0 +1,189 @@
+package com.example.sprite.Controllers;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * The set of users who have turned notifications off, so senders can skip them
+ * without reading each recipient's user document.
+ *
+ * <p>User IDs are spread over {@value #SHARDS} documents in
+ * {@code notificationOptOuts}, each holding a {@code userIds} array, so the whole
+ * index loads with one query and every check after that is a set lookup.
+ * {@link DatabaseService} adds or removes a user in the same batch that writes
+ * their user document. The first load builds the index from the users collection
+ * if it has never been built. Building only adds to the shards, so it never undoes
+ * an update made while it runs, and several clients building at once agree.</p>
+ */
+public class OptOutIndex {
+
+    static final String COLLECTION = "notificationOptOuts";
+    static final String FIELD = "userIds";
+    static final int SHARDS = 16;
+
+    /** Marks a fully built index; shards created by single-user updates do not count. */
+    private static final String META = "meta";
+    private static final long CACHE_MILLIS = TimeUnit.MINUTES.toMillis(5);
+
+    private static OptOutIndex shared;
+
+    private final DataStore store;
+    private final LongSupplier clock;
+    private CompletableFuture<Set<String>> cached;
+    private long cachedAt;
+
+    /**
+     * Creates an index over a store.
+     *
+     * @param store The store holding users and the index
+     * @param clock Supplies the current time in milliseconds, for cache expiry
+     */
+    public OptOutIndex(DataStore store, LongSupplier clock) {
+        this.store = store;
+        this.clock = clock;
+    }
+
+    /**
+     * Gets the index shared by the app's services, over Firestore.
+     *
+     * @return The shared index
+     */
+    public static synchronized OptOutIndex getInstance() {
+        if (shared == null) {
+            shared = new OptOutIndex(new DatabaseService().getDataStore(), System::currentTimeMillis);
+        }
+        return shared;
+    }
+
+    /**
+     * Gets the shard document a user's ID is stored in.
+     *
+     * @param userId The user ID
+     * @return The shard's document ID
+     */
+    public static String shardFor(String userId) {
+        return "shard-" + Math.floorMod(userId.hashCode(), SHARDS);
+    }
+
+    /**
+     * Adds the index write for a user's preference to a batch.
+     *
+     * @param batch   The batch that also writes the user
+     * @param userId  The user ID
+     * @param enabled Whether the user has notifications enabled
+     */
+    public static void write(StoreBatch batch, String userId, boolean enabled) {
+        batch.merge(COLLECTION, shardFor(userId), Collections.singletonMap(FIELD,
+                enabled ? StoreValues.arrayRemove(userId) : StoreValues.arrayUnion(userId)));
+    }
+
+    /**
+     * Loads the index from the store with one query, building it first if needed,
+     * and refreshes the cached copy.
+     *
+     * @return A future with the opted-out user IDs
+     */
+    public CompletableFuture<Set<String>> load() {
+        CompletableFuture<Set<String>> loading = store.query(StoreQuery.collection(COLLECTION))
+                .thenCompose(shards -> {
+                    Set<String> optedOut = ConcurrentHashMap.newKeySet();
+                    boolean built = false;
+                    for (StoreDocument shard : shards) {
+                        if (META.equals(shard.getId())) {
+                            built = true;
+                        } else if (shard.get(FIELD) instanceof List) {
+                            for (Object userId : (List<?>) shard.get(FIELD)) {
+                                optedOut.add((String) userId);
+                            }
+                        }
+                    }
+                    return built ? CompletableFuture.completedFuture(optedOut) : rebuild(optedOut);
+                });
+        synchronized (this) {
+            cached = loading;
+            cachedAt = clock.getAsLong();
+        }
+        loading.whenComplete((ignored, error) -> {
+            if (error != null) {
+                synchronized (this) {
+                    if (cached == loading) cached = null;
+                }
+            }
+        });
+        return loading;
+    }
+
+    /**
+     * Gets the index, loading it only if there is no copy from the last five minutes.
+     *
+     * @return A future with the opted-out user IDs
+     */
+    public synchronized CompletableFuture<Set<String>> get() {
+        if (cached != null && clock.getAsLong() - cachedAt < CACHE_MILLIS) {
+            return cached;
+        }
+        return load();
+    }
+
+    /**
+     * Applies a preference change made on this device to the cached copy, so it is
+     * seen before the cache next reloads.
+     *
+     * @param userId  The user ID
+     * @param enabled Whether the user has notifications enabled
+     */
+    public void record(String userId, boolean enabled) {
+        CompletableFuture<Set<String>> current;
+        synchronized (this) {
+            current = cached;
+        }
+        if (current != null) {
+            current.thenAccept(optedOut -> {
+                if (enabled) optedOut.remove(userId);
+                else optedOut.add(userId);
+            });
+        }
+    }
+
+    /**
+     * Adds the users who have notifications off to the shards, then marks the index built.
+     *
+     * <p>The users are merged in with an array union rather than the shards being
+     * replaced, so entries {@link DatabaseService} writes meanwhile survive. A user who
+     * turns notifications back on between the users query and this commit can be left
+     * in the index until they next save their preference.</p>
+     *
+     * @param indexed The users already in the shards
+     */
+    private CompletableFuture<Set<String>> rebuild(Set<String> indexed) {
+        return store.query(StoreQuery.collection("users").whereEqualTo("notificationsEnabled", false))
+                .thenCompose(users -> {
+                    List<List<String>> shards = new ArrayList<>();
+                    for (int i = 0; i < SHARDS; i++) {
+                        shards.add(new ArrayList<>());
+                    }
+                    Set<String> optedOut = ConcurrentHashMap.newKeySet();
+                    optedOut.addAll(indexed);
+                    for (StoreDocument user : users) {
+                        optedOut.add(user.getId());
+                        shards.get(Math.floorMod(user.getId().hashCode(), SHARDS)).add(user.getId());
+                    }
+                    StoreBatch batch = store.batch();
+                    for (int i = 0; i < SHARDS; i++) {
+                        if (!shards.get(i).isEmpty()) {
+                            batch.merge(COLLECTION, "shard-" + i, Collections.singletonMap(FIELD,
+                                    StoreValues.arrayUnion(shards.get(i).toArray())));
+                        }
+                    }
+                    batch.set(COLLECTION, META, Collections.singletonMap("builtAt", new Date()));
+                    return batch.commit().thenApply(ignored -> optedOut);
+                });
+    }
+}
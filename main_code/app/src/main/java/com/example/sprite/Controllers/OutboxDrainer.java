@@ -0,0 +1,277 @@
+package com.example.sprite.Controllers;
+
+import android.content.Context;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Replays {@link MutationOutbox} entries against a {@link DataStore}, in order.
+ *
+ * <p>Each mutation is applied in a transaction that re-reads the event and checks
+ * that the action still makes sense (see {@link OutboxMutation.Outcome}), so a
+ * mutation replayed after a crash is recognised as already applied and a join
+ * that arrives after the waitlist filled up is reported as a conflict rather than
+ * overwriting newer data. Writes only touch the affected list fields.</p>
+ *
+ * <p>A mutation is acknowledged in the journal only after it is resolved, on the
+ * journal executor, by default the {@link JournalExecutor}. If the
+ * backend is unreachable the pass stops, keeping the rest of the queue in order,
+ * and another pass is scheduled with the {@link RetryPolicy}'s backoff.</p>
+ */
+public class OutboxDrainer {
+
+    /**
+     * Notified when a mutation is resolved, so the UI can report conflicts.
+     */
+    public interface Listener {
+        /**
+         * Called after a mutation is resolved and acknowledged.
+         *
+         * @param mutation The mutation
+         * @param outcome  How it was resolved
+         */
+        void onResolved(OutboxMutation mutation, OutboxMutation.Outcome outcome);
+    }
+
+    private static final String EVENTS = "events";
+    private static OutboxDrainer shared;
+
+    private final MutationOutbox outbox;
+    private final DataStore store;
+    private final RetryPolicy retryPolicy;
+    private final Executor journalExecutor;
+    private final List<Listener> listeners = new CopyOnWriteArrayList<>();
+
+    private CompletableFuture<Integer> currentPass;
+    private boolean passRequested;
+    private int consecutiveFailures;
+
+    /**
+     * Creates a drainer that acknowledges mutations on whichever thread resolved them.
+     *
+     * @param outbox      The outbox to drain
+     * @param store       Where to apply mutations
+     * @param retryPolicy Backoff used between passes when the backend is unreachable
+     */
+    public OutboxDrainer(MutationOutbox outbox, DataStore store, RetryPolicy retryPolicy) {
+        this(outbox, store, retryPolicy, Runnable::run);
+    }
+
+    /**
+     * Creates a drainer.
+     *
+     * @param outbox          The outbox to drain
+     * @param store           Where to apply mutations
+     * @param retryPolicy     Backoff used between passes when the backend is unreachable
+     * @param journalExecutor Runs acknowledgements, and with them listeners and the next mutation
+     */
+    public OutboxDrainer(MutationOutbox outbox, DataStore store, RetryPolicy retryPolicy, Executor journalExecutor) {
+        this.outbox = outbox;
+        this.store = store;
+        this.retryPolicy = retryPolicy;
+        this.journalExecutor = journalExecutor;
+    }
+
+    /**
+     * Gets the app's drainer, opening the outbox in the app's files directory on first use.
+     * Call it off the main thread the first time, such as on the {@link JournalExecutor}.
+     *
+     * @param context Any context
+     * @return The shared drainer
+     * @throws IOException If the outbox journal cannot be opened
+     */
+    public static synchronized OutboxDrainer getShared(Context context) throws IOException {
+        if (shared == null) {
+            File directory = new File(context.getApplicationContext().getFilesDir(), "outbox");
+            shared = new OutboxDrainer(MutationOutbox.open(directory),
+                    new DatabaseService().getDataStore(), RetryPolicy.DEFAULT, JournalExecutor.get());
+        }
+        return shared;
+    }
+
+    /**
+     * Adds a listener.
+     *
+     * @param listener The listener
+     */
+    public void addListener(Listener listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * Removes a listener.
+     *
+     * @param listener The listener
+     */
+    public void removeListener(Listener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Gets the mutations not yet delivered, in order.
+     *
+     * @return A copy of the pending mutations
+     */
+    public List<OutboxMutation> getPending() {
+        return outbox.pending();
+    }
+
+    /**
+     * Durably records a mutation and starts draining.
+     *
+     * @param type    The action
+     * @param eventId The event acted on
+     * @param userId  The user acting
+     * @return The recorded mutation
+     * @throws IOException If the journal cannot be written
+     */
+    public OutboxMutation submit(OutboxMutation.Type type, String eventId, String userId) throws IOException {
+        OutboxMutation mutation = outbox.enqueue(type, eventId, userId);
+        drain();
+        return mutation;
+    }
+
+    /**
+     * Replays every pending mutation. If a pass is already running another one is
+     * queued behind it, so mutations enqueued meanwhile are not missed.
+     *
+     * @return A future with the number of mutations resolved by this pass
+     */
+    public synchronized CompletableFuture<Integer> drain() {
+        if (currentPass != null) {
+            passRequested = true;
+            return currentPass;
+        }
+        CompletableFuture<Integer> pass = new CompletableFuture<>();
+        currentPass = pass;
+        drainFrom(outbox.pending(), 0, 0, pass);
+        return pass;
+    }
+
+    private void drainFrom(List<OutboxMutation> mutations, int index, int resolved, CompletableFuture<Integer> pass) {
+        if (index >= mutations.size()) {
+            finishPass(pass, resolved, false);
+            return;
+        }
+        OutboxMutation mutation = mutations.get(index);
+        apply(mutation).whenCompleteAsync((outcome, error) -> {
+            if (error != null) {
+                Throwable cause = TaskFutures.unwrap(error);
+                if (retryPolicy.isRetryable(cause) || cause instanceof CircuitBreaker.OpenException) {
+                    // Backend unreachable: keep the queue in order and try again later.
+                    finishPass(pass, resolved, true);
+                    return;
+                }
+                outcome = OutboxMutation.Outcome.REJECTED;
+            }
+            try {
+                outbox.acknowledge(mutation, outcome);
+            } catch (IOException e) {
+                synchronized (this) {
+                    currentPass = null;
+                }
+                pass.completeExceptionally(e);
+                return;
+            }
+            for (Listener listener : listeners) {
+                listener.onResolved(mutation, outcome);
+            }
+            drainFrom(mutations, index + 1, resolved + 1, pass);
+        }, journalExecutor);
+    }
+
+    private void finishPass(CompletableFuture<Integer> pass, int resolved, boolean failed) {
+        boolean again;
+        long retryDelay = 0;
+        synchronized (this) {
+            currentPass = null;
+            again = passRequested && !failed;
+            passRequested = false;
+            if (failed) {
+                consecutiveFailures++;
+                retryDelay = Math.max(1, retryPolicy.nextDelayMillis(consecutiveFailures));
+            } else {
+                consecutiveFailures = 0;
+            }
+        }
+        pass.complete(resolved);
+        if (failed) {
+            TaskFutures.delay(retryDelay, TimeUnit.MILLISECONDS).thenRun(this::drain);
+        } else if (again) {
+            drain();
+        }
+    }
+
+    /**
+     * Applies one mutation in a transaction that checks it against the current event.
+     *
+     * @param mutation The mutation to apply
+     * @return A future with the outcome
+     */
+    CompletableFuture<OutboxMutation.Outcome> apply(OutboxMutation mutation) {
+        return store.runTransaction(transaction -> {
+            StoreDocument event = transaction.get(EVENTS, mutation.getEventId());
+            if (!event.exists()) {
+                return OutboxMutation.Outcome.CONFLICT;
+            }
+            String userId = mutation.getUserId();
+            List<?> waitingList = list(event, "waitingList");
+            List<?> selected = list(event, "selectedAttendees");
+            List<?> confirmed = list(event, "confirmedAttendees");
+            List<?> cancelled = list(event, "cancelledAttendees");
+            Map<String, Object> updates = new HashMap<>();
+
+            switch (mutation.getType()) {
+                case JOIN_WAITLIST:
+                    if (waitingList.contains(userId) || selected.contains(userId) || confirmed.contains(userId)) {
+                        return OutboxMutation.Outcome.ALREADY_APPLIED;
+                    }
+                    Long maxWaitingListSize = event.getLong("maxWaitingListSize");
+                    boolean full = maxWaitingListSize != null && maxWaitingListSize > 0
+                            && waitingList.size() >= maxWaitingListSize;
+                    if (full || "LOTTERY_COMPLETED".equals(event.getString("status"))) {
+                        return OutboxMutation.Outcome.CONFLICT;
+                    }
+                    updates.put("waitingList", StoreValues.arrayUnion(userId));
+                    break;
+
+                case ACCEPT_INVITATION:
+                    if (confirmed.contains(userId)) {
+                        return OutboxMutation.Outcome.ALREADY_APPLIED;
+                    }
+                    if (!selected.contains(userId)) {
+                        return OutboxMutation.Outcome.CONFLICT;
+                    }
+                    updates.put("confirmedAttendees", StoreValues.arrayUnion(userId));
+                    break;
+
+                case DECLINE_INVITATION:
+                    if (!selected.contains(userId) && !confirmed.contains(userId)) {
+                        return cancelled.contains(userId)
+                                ? OutboxMutation.Outcome.ALREADY_APPLIED
+                                : OutboxMutation.Outcome.CONFLICT;
+                    }
+                    updates.put("selectedAttendees", StoreValues.arrayRemove(userId));
+                    updates.put("confirmedAttendees", StoreValues.arrayRemove(userId));
+                    updates.put("cancelledAttendees", StoreValues.arrayUnion(userId));
+                    break;
+            }
+            transaction.update(EVENTS, mutation.getEventId(), updates);
+            return OutboxMutation.Outcome.APPLIED;
+        });
+    }
+
+    private static List<?> list(StoreDocument document, String field) {
+        Object value = document.get(field);
+        return value instanceof List ? (List<?>) value : Collections.emptyList();
+    }
+}
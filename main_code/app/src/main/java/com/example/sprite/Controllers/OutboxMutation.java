@@ -0,0 +1,120 @@
+package com.example.sprite.Controllers;
+
+import java.util.Objects;
+
+/**
+ * A user action recorded in the {@link MutationOutbox} that still has to be
+ * applied to the backend, such as joining a waiting list.
+ */
+public final class OutboxMutation {
+
+    /**
+     * The kinds of action the outbox can replay.
+     */
+    public enum Type {
+        JOIN_WAITLIST,
+        ACCEPT_INVITATION,
+        DECLINE_INVITATION
+    }
+
+    /**
+     * How a replayed mutation was resolved.
+     */
+    public enum Outcome {
+        /** The change was written. */
+        APPLIED,
+        /** The backend already reflected the change, e.g. a replay after a crash. */
+        ALREADY_APPLIED,
+        /** The event changed in a way that makes the action invalid, e.g. the waitlist filled up. */
+        CONFLICT,
+        /** The backend refused the write permanently, e.g. a permissions error. */
+        REJECTED
+    }
+
+    private final String id;
+    private final Type type;
+    private final String eventId;
+    private final String userId;
+    private final long createdAt;
+
+    /**
+     * Creates a mutation.
+     *
+     * @param id        Unique ID of the mutation
+     * @param type      The action
+     * @param eventId   The event acted on
+     * @param userId    The user acting
+     * @param createdAt When the user performed the action, in epoch milliseconds
+     */
+    public OutboxMutation(String id, Type type, String eventId, String userId, long createdAt) {
+        this.id = id;
+        this.type = type;
+        this.eventId = eventId;
+        this.userId = userId;
+        this.createdAt = createdAt;
+    }
+
+    /**
+     * Gets the mutation ID.
+     *
+     * @return The ID
+     */
+    public String getId() {
+        return id;
+    }
+
+    /**
+     * Gets the action.
+     *
+     * @return The type
+     */
+    public Type getType() {
+        return type;
+    }
+
+    /**
+     * Gets the event acted on.
+     *
+     * @return The event ID
+     */
+    public String getEventId() {
+        return eventId;
+    }
+
+    /**
+     * Gets the user acting.
+     *
+     * @return The user ID
+     */
+    public String getUserId() {
+        return userId;
+    }
+
+    /**
+     * Gets when the user performed the action.
+     *
+     * @return Epoch milliseconds
+     */
+    public long getCreatedAt() {
+        return createdAt;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof OutboxMutation)) return false;
+        OutboxMutation that = (OutboxMutation) o;
+        return createdAt == that.createdAt && id.equals(that.id) && type == that.type
+                && Objects.equals(eventId, that.eventId) && Objects.equals(userId, that.userId);
+    }
+
+    @Override
+    public int hashCode() {
+        return id.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return type + "(" + eventId + ", " + userId + ")#" + id;
+    }
+}
@@ -0,0 +1,393 @@
+package com.example.sprite.Controllers;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A size-capped cache of downloaded poster bytes on disk, so posters survive restarts
+ * instead of being downloaded again on every cold start.
+ *
+ * <p>Each entry is one file named by the SHA-256 of its key. A {@code journal} file
+ * records every write, read and removal as an appended line; opening the cache replays
+ * it to rebuild the least-recently-used order. Entries are written to a temporary file
+ * and renamed into place, so a crash leaves either the whole entry or none of it. On
+ * open, entries whose file is missing or the wrong size are dropped, files the journal
+ * does not know about are deleted, and a journal that has grown much larger than its
+ * entries is rewritten.</p>
+ *
+ * <p>File access goes through {@link FileChannel}. Every method does disk I/O and
+ * must be called off the main thread.</p>
+ */
+public class PosterDiskCache {
+
+    static final String JOURNAL = "journal";
+    private static final String JOURNAL_TMP = "journal.tmp";
+    private static final String HEADER = "sprite.PosterDiskCache 1";
+    private static final String PUT = "PUT";
+    private static final String READ = "READ";
+    private static final String REMOVE = "REMOVE";
+    private static final String ENTRY_SUFFIX = ".bin";
+    private static final String TMP_SUFFIX = ".tmp";
+
+    /** Journal lines beyond one per entry that are tolerated before it is rewritten. */
+    private static final int COMPACT_THRESHOLD = 2000;
+
+    private final File directory;
+    private final long maxBytes;
+    private final LinkedHashMap<String, Long> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+    private FileChannel journal;
+    private int journalLines;
+    private long sizeBytes;
+    private long hits;
+    private long misses;
+    private long bytesRead;
+    private long bytesWritten;
+
+    /**
+     * Opens a cache, creating the directory if needed and recovering its contents.
+     *
+     * @param directory The directory the cache owns
+     * @param maxBytes  The most bytes the cached files may take up
+     * @throws IOException If the directory or journal cannot be read or written
+     */
+    public PosterDiskCache(File directory, long maxBytes) throws IOException {
+        if (maxBytes <= 0) {
+            throw new IllegalArgumentException("maxBytes must be positive");
+        }
+        this.directory = directory;
+        this.maxBytes = maxBytes;
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("Could not create " + directory);
+        }
+        readJournal();
+        removeStrayFiles();
+        if (journal == null || journalLines > entries.size() + COMPACT_THRESHOLD) {
+            rewriteJournal();
+        }
+        trimToSize(maxBytes);
+    }
+
+    /**
+     * Gets the cache key for a URL.
+     *
+     * @param url The URL
+     * @return The hex SHA-256 of the URL
+     */
+    public static String keyFor(String url) {
+        return sha256Hex(url.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /** Gets the lowercase hex SHA-256 of some bytes. */
+    static String sha256Hex(byte[] bytes) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(bytes);
+            StringBuilder hex = new StringBuilder(digest.length * 2);
+            for (byte b : digest) {
+                hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is unavailable", e);
+        }
+    }
+
+    /**
+     * Reads a cached entry and marks it recently used.
+     *
+     * @param key The key, from {@link #keyFor(String)}
+     * @return The cached bytes, or null if there is no entry
+     * @throws IOException If the journal cannot be written
+     */
+    public synchronized byte[] get(String key) throws IOException {
+        Long size = entries.get(key);
+        byte[] bytes = size == null ? null : readFile(entryFile(key), size);
+        if (bytes == null) {
+            misses++;
+            if (size != null) {
+                // The file was deleted or damaged behind our back
+                removeEntry(key);
+            }
+            return null;
+        }
+        hits++;
+        bytesRead += bytes.length;
+        appendJournal(READ + ' ' + key);
+        return bytes;
+    }
+
+    /**
+     * Writes an entry, replacing any entry with the same key, and evicts the least
+     * recently used entries until the cache fits its cap. An entry larger than the
+     * whole cache is not stored.
+     *
+     * @param key   The key, from {@link #keyFor(String)}
+     * @param bytes The bytes to cache
+     * @throws IOException If the entry or journal cannot be written
+     */
+    public synchronized void put(String key, byte[] bytes) throws IOException {
+        if (bytes.length > maxBytes) {
+            return;
+        }
+        File tmp = new File(directory, key + TMP_SUFFIX);
+        try (FileOutputStream out = new FileOutputStream(tmp)) {
+            FileChannel channel = out.getChannel();
+            ByteBuffer buffer = ByteBuffer.wrap(bytes);
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(true);
+        }
+        if (!tmp.renameTo(entryFile(key))) {
+            tmp.delete();
+            throw new IOException("Could not rename " + tmp);
+        }
+        Long previous = entries.put(key, (long) bytes.length);
+        if (previous != null) {
+            sizeBytes -= previous;
+        }
+        sizeBytes += bytes.length;
+        bytesWritten += bytes.length;
+        appendJournal(PUT + ' ' + key + ' ' + bytes.length);
+        trimToSize(maxBytes);
+    }
+
+    /**
+     * Removes an entry.
+     *
+     * @param key The key, from {@link #keyFor(String)}
+     * @throws IOException If the journal cannot be written
+     */
+    public synchronized void remove(String key) throws IOException {
+        if (entries.containsKey(key)) {
+            removeEntry(key);
+        }
+    }
+
+    /**
+     * Closes the journal. The cache cannot be used afterwards.
+     *
+     * @throws IOException If the journal cannot be closed
+     */
+    public synchronized void close() throws IOException {
+        if (journal != null) {
+            journal.close();
+            journal = null;
+        }
+    }
+
+    /**
+     * Gets the total size of the cached files.
+     *
+     * @return The size in bytes
+     */
+    public synchronized long getSizeBytes() {
+        return sizeBytes;
+    }
+
+    /**
+     * Gets the number of cached entries.
+     *
+     * @return The entry count
+     */
+    public synchronized int getCount() {
+        return entries.size();
+    }
+
+    /**
+     * Gets the number of reads that found an entry.
+     *
+     * @return The hit count
+     */
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    /**
+     * Gets the number of reads that found nothing.
+     *
+     * @return The miss count
+     */
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    /**
+     * Gets the number of bytes served from disk.
+     *
+     * @return The bytes read
+     */
+    public synchronized long getBytesRead() {
+        return bytesRead;
+    }
+
+    /**
+     * Gets the number of bytes written to disk.
+     *
+     * @return The bytes written
+     */
+    public synchronized long getBytesWritten() {
+        return bytesWritten;
+    }
+
+    @Override
+    public synchronized String toString() {
+        long lookups = hits + misses;
+        return "PosterDiskCache{" + sizeBytes + "/" + maxBytes + " bytes, " + entries.size() + " entries, "
+                + hits + " hits, " + misses + " misses ("
+                + (lookups == 0 ? 0 : hits * 100 / lookups) + "% hit rate), " + bytesRead + " bytes read}";
+    }
+
+    private File entryFile(String key) {
+        return new File(directory, key + ENTRY_SUFFIX);
+    }
+
+    private void trimToSize(long bytes) throws IOException {
+        Iterator<Map.Entry<String, Long>> eldest = entries.entrySet().iterator();
+        while (sizeBytes > bytes && eldest.hasNext()) {
+            Map.Entry<String, Long> entry = eldest.next();
+            eldest.remove();
+            sizeBytes -= entry.getValue();
+            entryFile(entry.getKey()).delete();
+            appendJournal(REMOVE + ' ' + entry.getKey());
+        }
+    }
+
+    private void removeEntry(String key) throws IOException {
+        Long size = entries.remove(key);
+        if (size != null) {
+            sizeBytes -= size;
+        }
+        entryFile(key).delete();
+        appendJournal(REMOVE + ' ' + key);
+    }
+
+    /** Reads a whole entry file, or returns null if it is missing or not the expected size. */
+    private static byte[] readFile(File file, long size) {
+        try (FileInputStream in = new FileInputStream(file)) {
+            FileChannel channel = in.getChannel();
+            if (channel.size() != size) {
+                return null;
+            }
+            ByteBuffer buffer = ByteBuffer.allocate((int) size);
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer) < 0) {
+                    return null;
+                }
+            }
+            return buffer.array();
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Replays the journal into {@link #entries}. A torn last line from a crash is ignored,
+     * and an unreadable journal leaves the cache empty.
+     */
+    private void readJournal() throws IOException {
+        File file = new File(directory, JOURNAL);
+        if (!file.exists()) {
+            return;
+        }
+        try (BufferedReader reader = new BufferedReader(
+                new InputStreamReader(new FileInputStream(file), StandardCharsets.UTF_8))) {
+            if (!HEADER.equals(reader.readLine())) {
+                return;
+            }
+            String line;
+            while ((line = reader.readLine()) != null) {
+                journalLines++;
+                String[] parts = line.split(" ");
+                if (parts.length == 3 && PUT.equals(parts[0])) {
+                    try {
+                        entries.put(parts[1], Long.parseLong(parts[2]));
+                    } catch (NumberFormatException e) {
+                        // A torn last line; the entry's file is deleted as a stray
+                    }
+                } else if (parts.length == 2 && READ.equals(parts[0])) {
+                    entries.get(parts[1]);
+                } else if (parts.length == 2 && REMOVE.equals(parts[0])) {
+                    entries.remove(parts[1]);
+                }
+            }
+        }
+        Iterator<Map.Entry<String, Long>> it = entries.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<String, Long> entry = it.next();
+            if (entryFile(entry.getKey()).length() != entry.getValue()) {
+                it.remove();
+            } else {
+                sizeBytes += entry.getValue();
+            }
+        }
+        journal = new FileOutputStream(file, true).getChannel();
+    }
+
+    /** Deletes temporary files and entry files the journal does not list. */
+    private void removeStrayFiles() {
+        File[] files = directory.listFiles();
+        if (files == null) {
+            return;
+        }
+        for (File file : files) {
+            String name = file.getName();
+            if (name.equals(JOURNAL)) {
+                continue;
+            }
+            if (name.endsWith(ENTRY_SUFFIX)
+                    && entries.containsKey(name.substring(0, name.length() - ENTRY_SUFFIX.length()))) {
+                continue;
+            }
+            file.delete();
+        }
+    }
+
+    /** Replaces the journal with one PUT per entry, in least-recently-used order. */
+    private void rewriteJournal() throws IOException {
+        if (journal != null) {
+            journal.close();
+        }
+        File tmp = new File(directory, JOURNAL_TMP);
+        StringBuilder content = new StringBuilder(HEADER).append('\n');
+        for (Map.Entry<String, Long> entry : entries.entrySet()) {
+            content.append(PUT).append(' ').append(entry.getKey()).append(' ').append(entry.getValue()).append('\n');
+        }
+        try (FileOutputStream out = new FileOutputStream(tmp)) {
+            FileChannel channel = out.getChannel();
+            ByteBuffer buffer = ByteBuffer.wrap(content.toString().getBytes(StandardCharsets.UTF_8));
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(true);
+        }
+        File file = new File(directory, JOURNAL);
+        if (!tmp.renameTo(file)) {
+            throw new IOException("Could not rename " + tmp);
+        }
+        journal = new FileOutputStream(file, true).getChannel();
+        journalLines = entries.size();
+    }
+
+    private void appendJournal(String line) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap((line + '\n').getBytes(StandardCharsets.UTF_8));
+        while (buffer.hasRemaining()) {
+            journal.write(buffer);
+        }
+        if (++journalLines > entries.size() + COMPACT_THRESHOLD) {
+            rewriteJournal();
+        }
+    }
+}
@@ -0,0 +1,494 @@
+package com.example.sprite.Controllers;
+
+import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.storage.FirebaseStorage;
+
+import java.io.UnsupportedEncodingException;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Deletes poster files in Storage that no event uses any more, such as a poster uploaded
+ * for an event whose write then failed.
+ *
+ * <p>A run first marks every file an event refers to, reading the {@code events} collection
+ * page by page and keeping a 64-bit fingerprint of each path in a compact hash set. It then
+ * reads the {@link PosterRegistry} to find content-addressed posters no event uses. Finally
+ * it lists {@value #FOLDER} page by page and deletes unmarked files, in batches with a pause
+ * between them so a large sweep does not flood Storage.</p>
+ *
+ * <p>Three rules keep a run from deleting a file that is in use:</p>
+ * <ul>
+ *     <li>A file is only deleted if it was created at least the grace period before the run
+ *     started. Uploads in progress and events being created are left alone.</li>
+ *     <li>A registry entry is removed before its files, in a transaction. The transaction
+ *     gives up if the count changed since the mark, for example because an event reused
+ *     the poster.</li>
+ *     <li>Right before a file is deleted, its registry entry and creation time are read
+ *     again. Paths are content-addressed, so an upload of the same poster after the entry
+ *     was removed rewrites the file and registers it again; either change keeps the file.
+ *     Only an upload landing between that check and the delete can still lose its file.</li>
+ *     <li>Two paths with the same fingerprint only make a run keep an orphan.</li>
+ * </ul>
+ *
+ * <p>To run against the emulators, configure the instances before anything else uses them:</p>
+ *
+ * <pre>
+ * FirebaseFirestore db = FirebaseFirestore.getInstance();
+ * db.useEmulator("10.0.2.2", 8080);
+ * FirebaseStorage storage = FirebaseStorage.getInstance();
+ * storage.useEmulator("10.0.2.2", 9199);
+ * PosterGarbageCollector.create(db, storage).run();
+ * </pre>
+ */
+public class PosterGarbageCollector {
+
+    /** The Storage folder posters are uploaded to. */
+    public static final String FOLDER = "event_posters";
+
+    /** How old an unused file must be before it is deleted. */
+    public static final long DEFAULT_GRACE_MILLIS = TimeUnit.DAYS.toMillis(1);
+
+    private static final String EVENTS = "events";
+    static final int EVENT_PAGE_SIZE = 300;
+    static final int LIST_PAGE_SIZE = 500;
+    private static final int DELETE_BATCH_SIZE = 20;
+    private static final long BATCH_PAUSE_MILLIS = 1000;
+
+    /**
+     * What a run found and did.
+     */
+    public static final class Report {
+        private final AtomicLong eventsScanned = new AtomicLong();
+        private final AtomicLong filesScanned = new AtomicLong();
+        private final AtomicLong referenced = new AtomicLong();
+        private final AtomicLong tooRecent = new AtomicLong();
+        private final AtomicLong inUse = new AtomicLong();
+        private final AtomicLong deleted = new AtomicLong();
+        private final AtomicLong failed = new AtomicLong();
+
+        /**
+         * Gets the number of events read.
+         *
+         * @return The event count
+         */
+        public long getEventsScanned() {
+            return eventsScanned.get();
+        }
+
+        /**
+         * Gets the number of files listed.
+         *
+         * @return The file count
+         */
+        public long getFilesScanned() {
+            return filesScanned.get();
+        }
+
+        /**
+         * Gets the number of files an event refers to.
+         *
+         * @return The referenced count
+         */
+        public long getReferenced() {
+            return referenced.get();
+        }
+
+        /**
+         * Gets the number of unused files kept because they are within the grace period.
+         *
+         * @return The kept count
+         */
+        public long getTooRecent() {
+            return tooRecent.get();
+        }
+
+        /**
+         * Gets the number of unused files kept because the registry still counts them.
+         *
+         * @return The kept count
+         */
+        public long getInUse() {
+            return inUse.get();
+        }
+
+        /**
+         * Gets the number of files deleted.
+         *
+         * @return The deleted count
+         */
+        public long getDeleted() {
+            return deleted.get();
+        }
+
+        /**
+         * Gets the number of files that could not be checked or deleted.
+         *
+         * @return The failed count
+         */
+        public long getFailed() {
+            return failed.get();
+        }
+
+        @Override
+        public String toString() {
+            return "PosterGarbageCollector.Report{" + eventsScanned + " events, " + filesScanned + " files, "
+                    + referenced + " referenced, " + tooRecent + " too recent, " + inUse + " in use, "
+                    + deleted + " deleted, " + failed + " failed}";
+        }
+    }
+
+    private final DataStore store;
+    private final BlobStore blobs;
+    private final long graceMillis;
+    private final int batchSize;
+    private final long batchPauseMillis;
+    private final LongSupplier clock;
+
+    /**
+     * Creates a collector.
+     *
+     * @param store            Where the events and the poster registry are read from
+     * @param blobs            Where the poster files are listed and deleted
+     * @param graceMillis      How old an unused file must be before it is deleted
+     * @param batchSize        How many files to delete at once
+     * @param batchPauseMillis How long to wait between delete batches
+     * @param clock            The current time in milliseconds since the epoch
+     */
+    public PosterGarbageCollector(DataStore store, BlobStore blobs, long graceMillis, int batchSize,
+                                  long batchPauseMillis, LongSupplier clock) {
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("batchSize must be positive");
+        }
+        this.store = store;
+        this.blobs = blobs;
+        this.graceMillis = graceMillis;
+        this.batchSize = batchSize;
+        this.batchPauseMillis = batchPauseMillis;
+        this.clock = clock;
+    }
+
+    /**
+     * Creates a collector with the default grace period and throttling.
+     *
+     * @param db      The Firestore instance, possibly pointed at the emulator
+     * @param storage The Storage instance, possibly pointed at the emulator
+     * @return The collector
+     */
+    public static PosterGarbageCollector create(FirebaseFirestore db, FirebaseStorage storage) {
+        return new PosterGarbageCollector(new DatabaseService(db).getDataStore(), new FirebaseBlobStore(storage),
+                DEFAULT_GRACE_MILLIS, DELETE_BATCH_SIZE, BATCH_PAUSE_MILLIS, System::currentTimeMillis);
+    }
+
+    /**
+     * Marks the files events refer to, then deletes the rest.
+     *
+     * @return A future with the report, completed when the sweep has finished
+     */
+    public CompletableFuture<Report> run() {
+        Report report = new Report();
+        Fingerprints referenced = new Fingerprints();
+        Sweep sweep = new Sweep(referenced, clock.getAsLong() - graceMillis, report);
+        return markEvents(referenced, null, report)
+                .thenCompose(unused -> markRegistry(sweep, null))
+                .thenCompose(unused -> sweep(sweep, null))
+                .thenApply(unused -> report);
+    }
+
+    private CompletableFuture<Void> markEvents(Fingerprints referenced, String cursor, Report report) {
+        return store.query(StoreQuery.collection(EVENTS)
+                        .orderBy(StoreQuery.DOCUMENT_ID, StoreQuery.Direction.ASCENDING)
+                        .startAfter(cursor)
+                        .limit(EVENT_PAGE_SIZE))
+                .thenCompose(page -> {
+                    for (StoreDocument event : page) {
+                        report.eventsScanned.incrementAndGet();
+                        referenced.add(pathOf(event.getString("posterImageUrl")));
+                        Map<String, String> variants = CodecValues.toStringMap(event.get("posterVariants"));
+                        if (variants != null) {
+                            for (String url : variants.values()) {
+                                referenced.add(pathOf(url));
+                            }
+                        }
+                    }
+                    if (page.size() < EVENT_PAGE_SIZE) {
+                        return CompletableFuture.completedFuture(null);
+                    }
+                    return markEvents(referenced, page.get(page.size() - 1).getId(), report);
+                });
+    }
+
+    /** Sorts registry entries into those an event uses and those no event uses. */
+    private CompletableFuture<Void> markRegistry(Sweep sweep, String cursor) {
+        return store.query(StoreQuery.collection(PosterRegistry.COLLECTION)
+                        .orderBy(StoreQuery.DOCUMENT_ID, StoreQuery.Direction.ASCENDING)
+                        .startAfter(cursor)
+                        .limit(EVENT_PAGE_SIZE))
+                .thenCompose(page -> {
+                    for (StoreDocument entry : page) {
+                        if (sweep.referenced.contains(pathOf(entry.getString("url")))) {
+                            sweep.usedKeys.add(entry.getId());
+                        } else {
+                            Long refCount = entry.getLong("refCount");
+                            sweep.unusedEntries.put(entry.getId(), refCount == null ? 0 : refCount);
+                        }
+                    }
+                    if (page.size() < EVENT_PAGE_SIZE) {
+                        return CompletableFuture.completedFuture(null);
+                    }
+                    return markRegistry(sweep, page.get(page.size() - 1).getId());
+                });
+    }
+
+    private CompletableFuture<Void> sweep(Sweep sweep, String pageToken) {
+        return blobs.list(FOLDER, LIST_PAGE_SIZE, pageToken).thenCompose(page -> {
+            List<String> unmarked = new ArrayList<>();
+            for (String path : page.getPaths()) {
+                sweep.report.filesScanned.incrementAndGet();
+                if (sweep.referenced.contains(path)) {
+                    sweep.report.referenced.incrementAndGet();
+                } else {
+                    unmarked.add(path);
+                }
+            }
+            return collectInBatches(sweep, unmarked, 0).thenCompose(unused -> page.getNextPageToken() == null
+                    ? CompletableFuture.<Void>completedFuture(null)
+                    : sweep(sweep, page.getNextPageToken()));
+        });
+    }
+
+    private CompletableFuture<Void> collectInBatches(Sweep sweep, List<String> paths, int from) {
+        if (from >= paths.size()) {
+            return CompletableFuture.completedFuture(null);
+        }
+        int to = Math.min(paths.size(), from + batchSize);
+        List<CompletableFuture<Void>> batch = new ArrayList<>(to - from);
+        for (String path : paths.subList(from, to)) {
+            batch.add(collect(sweep, path));
+        }
+        return CompletableFuture.allOf(batch.toArray(new CompletableFuture[0])).thenCompose(unused -> {
+            if (to >= paths.size()) {
+                return CompletableFuture.<Void>completedFuture(null);
+            }
+            return TaskFutures.delay(batchPauseMillis, TimeUnit.MILLISECONDS)
+                    .thenCompose(ignored -> collectInBatches(sweep, paths, to));
+        });
+    }
+
+    /** Deletes one unmarked file if it is old enough and the registry no longer counts it. */
+    private CompletableFuture<Void> collect(Sweep sweep, String path) {
+        Report report = sweep.report;
+        return blobs.createdAt(path)
+                .thenCompose(createdAt -> {
+                    if (createdAt > sweep.createdBefore) {
+                        report.tooRecent.incrementAndGet();
+                        return CompletableFuture.completedFuture(false);
+                    }
+                    String key = contentKey(path);
+                    if (sweep.usedKeys.contains(key)) {
+                        report.inUse.incrementAndGet();
+                        return CompletableFuture.completedFuture(false);
+                    }
+                    Long markedCount = sweep.unusedEntries.get(key);
+                    if (markedCount == null) {
+                        // Uploaded before the registry, or its entry is already gone
+                        return CompletableFuture.completedFuture(true);
+                    }
+                    return sweep.unregistered.computeIfAbsent(key, k -> unregister(k, markedCount))
+                            .thenApply(removed -> {
+                                if (!removed) {
+                                    report.inUse.incrementAndGet();
+                                }
+                                return removed;
+                            });
+                })
+                .thenCompose(delete -> delete
+                        ? stillUnused(sweep, path)
+                        : CompletableFuture.completedFuture(false))
+                .thenCompose(delete -> delete
+                        ? blobs.delete(path).thenRun(report.deleted::incrementAndGet)
+                        : CompletableFuture.<Void>completedFuture(null))
+                .exceptionally(error -> {
+                    report.failed.incrementAndGet();
+                    return null;
+                });
+    }
+
+    /**
+     * Checks that a file about to be deleted has not been uploaded and registered again
+     * since it was marked.
+     */
+    private CompletableFuture<Boolean> stillUnused(Sweep sweep, String path) {
+        return store.get(PosterRegistry.COLLECTION, contentKey(path))
+                .thenCombine(blobs.createdAt(path), (entry, createdAt) -> {
+                    if (entry.exists() || createdAt > sweep.createdBefore) {
+                        sweep.report.inUse.incrementAndGet();
+                        return false;
+                    }
+                    return true;
+                });
+    }
+
+    /** Removes a registry entry no event used, unless its count changed since it was marked. */
+    private CompletableFuture<Boolean> unregister(String key, long markedCount) {
+        return store.runTransaction(transaction -> {
+            StoreDocument entry = transaction.get(PosterRegistry.COLLECTION, key);
+            if (!entry.exists()) {
+                return true;
+            }
+            Long refCount = entry.getLong("refCount");
+            if (refCount == null || refCount != markedCount) {
+                return false;
+            }
+            transaction.delete(PosterRegistry.COLLECTION, key);
+            return true;
+        });
+    }
+
+    /**
+     * Gets the Storage path a download URL points at.
+     *
+     * @param url A download URL, or a {@code gs://} URL
+     * @return The path, or null if the URL is not a Storage URL
+     */
+    static String pathOf(String url) {
+        if (url == null) {
+            return null;
+        }
+        if (url.startsWith("gs://")) {
+            int slash = url.indexOf('/', "gs://".length());
+            return slash < 0 ? null : url.substring(slash + 1);
+        }
+        int start = url.indexOf("/o/");
+        if (start < 0) {
+            return null;
+        }
+        int end = url.indexOf('?', start);
+        String encoded = url.substring(start + "/o/".length(), end < 0 ? url.length() : end);
+        try {
+            return URLDecoder.decode(encoded, "UTF-8");
+        } catch (UnsupportedEncodingException | IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Gets the {@link PosterRegistry} key a poster file belongs to: its name without the
+     * extension or a variant's width suffix.
+     */
+    static String contentKey(String path) {
+        String name = path.substring(path.lastIndexOf('/') + 1);
+        int dot = name.lastIndexOf('.');
+        if (dot > 0) {
+            name = name.substring(0, dot);
+        }
+        return name.replaceFirst("_\\d+$", "");
+    }
+
+    /** The state shared by one run's sweep. */
+    private static final class Sweep {
+        final Fingerprints referenced;
+        final long createdBefore;
+        final Report report;
+        /** Registry keys an event uses. */
+        final Set<String> usedKeys = new HashSet<>();
+        /** Registry keys no event uses, with their counts when marked. */
+        final Map<String, Long> unusedEntries = new HashMap<>();
+        /** Each unused entry's removal, shared by its original and variant files. */
+        final Map<String, CompletableFuture<Boolean>> unregistered = new ConcurrentHashMap<>();
+
+        Sweep(Fingerprints referenced, long createdBefore, Report report) {
+            this.referenced = referenced;
+            this.createdBefore = createdBefore;
+            this.report = report;
+        }
+    }
+
+    /**
+     * A set of paths held as 64-bit fingerprints in an open-addressed array, 16 to 32 bytes
+     * a path instead of a string each. A fingerprint collision can only make a path look
+     * referenced, which keeps a file rather than deleting one.
+     */
+    static final class Fingerprints {
+        private long[] slots = new long[1024];
+        private int size;
+
+        synchronized void add(String path) {
+            if (path == null) {
+                return;
+            }
+            if ((size + 1) * 2 > slots.length) {
+                grow();
+            }
+            if (insert(slots, fingerprint(path))) {
+                size++;
+            }
+        }
+
+        synchronized boolean contains(String path) {
+            if (path == null) {
+                return false;
+            }
+            long fingerprint = fingerprint(path);
+            int mask = slots.length - 1;
+            for (int i = mix(fingerprint) & mask; slots[i] != 0; i = (i + 1) & mask) {
+                if (slots[i] == fingerprint) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        synchronized int size() {
+            return size;
+        }
+
+        private void grow() {
+            long[] bigger = new long[slots.length * 2];
+            for (long fingerprint : slots) {
+                if (fingerprint != 0) {
+                    insert(bigger, fingerprint);
+                }
+            }
+            slots = bigger;
+        }
+
+        private static boolean insert(long[] table, long fingerprint) {
+            int mask = table.length - 1;
+            int i = mix(fingerprint) & mask;
+            while (table[i] != 0) {
+                if (table[i] == fingerprint) {
+                    return false;
+                }
+                i = (i + 1) & mask;
+            }
+            table[i] = fingerprint;
+            return true;
+        }
+
+        private static int mix(long fingerprint) {
+            return (int) (fingerprint ^ (fingerprint >>> 32));
+        }
+
+        /** FNV-1a over the UTF-8 bytes, never 0 since 0 marks an empty slot. */
+        static long fingerprint(String path) {
+            long hash = 0xcbf29ce484222325L;
+            for (byte b : path.getBytes(StandardCharsets.UTF_8)) {
+                hash ^= b & 0xff;
+                hash *= 0x100000001b3L;
+            }
+            return hash == 0 ? 1 : hash;
+        }
+    }
+}
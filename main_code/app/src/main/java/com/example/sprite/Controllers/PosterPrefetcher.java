@@ -0,0 +1,117 @@
+package com.example.sprite.Controllers;
+
+import android.os.SystemClock;
+import android.util.Log;
+import android.view.View;
+
+import androidx.annotation.IdRes;
+import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.LinearLayoutManager;
+import androidx.recyclerview.widget.RecyclerView;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Loads posters for the items a list is about to show, so they are already in the memory
+ * cache when their rows are bound instead of popping in afterwards.
+ *
+ * <p>Add it to a {@link RecyclerView} with a {@link LinearLayoutManager} as a scroll
+ * listener. On each scroll, a {@link PrefetchWindow} picks the positions ahead of the
+ * scroll, further ahead the faster it moves, and prefetches are cancelled when the scroll
+ * reverses. Posters are prefetched at the size of the poster view in a visible row, so
+ * rows with the same layout find them in the cache. Call {@link #reset()} when the list's
+ * contents change.</p>
+ */
+public class PosterPrefetcher extends RecyclerView.OnScrollListener {
+
+    private static final int MIN_AHEAD = 2;
+    private static final int MAX_AHEAD = 8;
+
+    /**
+     * Finds the poster for a list position.
+     */
+    public interface PosterLookup {
+        /**
+         * Gets the poster URL a row would load.
+         *
+         * @param position The adapter position
+         * @param width    The width of the row's poster view in pixels
+         * @return The URL, or null if the row has no poster
+         */
+        String posterUrl(int position, int width);
+    }
+
+    private final int imageViewId;
+    private final PosterLookup lookup;
+    private final ImageService imageService = new ImageService();
+    private final PrefetchWindow window = new PrefetchWindow(MIN_AHEAD, MAX_AHEAD);
+    private final Map<Integer, ImageService.Prefetch> prefetches = new HashMap<>();
+
+    /**
+     * Creates a prefetcher.
+     *
+     * @param imageViewId The ID of the poster view in each row
+     * @param lookup      Finds the poster for each position
+     */
+    public PosterPrefetcher(@IdRes int imageViewId, PosterLookup lookup) {
+        this.imageViewId = imageViewId;
+        this.lookup = lookup;
+    }
+
+    @Override
+    public void onScrolled(@NonNull RecyclerView recyclerView, int dx, int dy) {
+        if (!(recyclerView.getLayoutManager() instanceof LinearLayoutManager)
+                || recyclerView.getAdapter() == null) {
+            return;
+        }
+        LinearLayoutManager layoutManager = (LinearLayoutManager) recyclerView.getLayoutManager();
+        int first = layoutManager.findFirstVisibleItemPosition();
+        int last = layoutManager.findLastVisibleItemPosition();
+        View row = first == RecyclerView.NO_POSITION ? null : layoutManager.findViewByPosition(first);
+        View poster = row == null ? null : row.findViewById(imageViewId);
+        if (poster == null || poster.getWidth() == 0) {
+            return;
+        }
+
+        PrefetchWindow.Plan plan = window.onScroll(first, last, recyclerView.getAdapter().getItemCount(),
+                dy, row.getHeight(), SystemClock.elapsedRealtimeNanos());
+        for (int position : plan.getCancel()) {
+            ImageService.Prefetch prefetch = prefetches.remove(position);
+            if (prefetch != null) {
+                prefetch.cancel();
+            }
+        }
+        for (int position = first; position <= last; position++) {
+            // The bound row now waits for its own poster
+            prefetches.remove(position);
+        }
+        for (int position : plan.getStart()) {
+            String url = lookup.posterUrl(position, poster.getWidth());
+            if (url != null) {
+                prefetches.put(position, imageService.prefetch(recyclerView.getContext(), url,
+                        poster.getWidth(), poster.getHeight()));
+            }
+        }
+    }
+
+    @Override
+    public void onScrollStateChanged(@NonNull RecyclerView recyclerView, int newState) {
+        if (newState == RecyclerView.SCROLL_STATE_IDLE && Log.isLoggable("EventImage", Log.DEBUG)) {
+            Log.d("EventImage", "Prefetch window: " + window.getStarted() + " started, "
+                    + window.getCancelled() + " cancelled; " + ImageService.getCacheReport());
+        }
+    }
+
+    /**
+     * Cancels every prefetch, such as when the list's contents change and positions no
+     * longer refer to the same items.
+     */
+    public void reset() {
+        window.reset();
+        for (ImageService.Prefetch prefetch : prefetches.values()) {
+            prefetch.cancel();
+        }
+        prefetches.clear();
+    }
+}
@@ -0,0 +1,155 @@
+package com.example.sprite.Controllers;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Counts how many events use each uploaded poster, so identical posters are stored once.
+ *
+ * <p>Posters are stored under their content key, the SHA-256 of the image bytes. Before
+ * uploading, {@link #acquire(String)} looks the key up; if the poster is already stored
+ * its URLs are reused and its count goes up, otherwise the caller uploads it and calls
+ * {@link #register}. Removing a poster from an event calls {@link #release(String)}, and
+ * the files are only deleted once no event uses them. Counts change in transactions, so
+ * two events sharing a poster can add or drop it at the same time.</p>
+ *
+ * <p>Each entry is a document in {@link #COLLECTION} named by the content key, holding
+ * {@code refCount}, {@code url} and {@code variants}.</p>
+ */
+public class PosterRegistry {
+
+    /** The collection of poster entries. */
+    public static final String COLLECTION = "posters";
+
+    private static final String REF_COUNT = "refCount";
+    private static final String URL = "url";
+    private static final String VARIANTS = "variants";
+
+    /**
+     * A stored poster.
+     */
+    public static final class Poster {
+        private final String url;
+        private final Map<String, String> variants;
+
+        Poster(String url, Map<String, String> variants) {
+            this.url = url;
+            this.variants = variants;
+        }
+
+        /**
+         * Gets the original poster's download URL.
+         *
+         * @return The URL
+         */
+        public String getUrl() {
+            return url;
+        }
+
+        /**
+         * Gets the resized variants' download URLs.
+         *
+         * @return The URLs keyed by width, or null if there are none
+         */
+        public Map<String, String> getVariants() {
+            return variants;
+        }
+    }
+
+    private final DataStore store;
+
+    /**
+     * Creates a registry.
+     *
+     * @param store Where the poster entries are kept
+     */
+    public PosterRegistry(DataStore store) {
+        this.store = store;
+    }
+
+    /**
+     * Gets the content key of a poster.
+     *
+     * @param bytes The image, exactly as uploaded
+     * @return The hex SHA-256 of the bytes
+     */
+    public static String contentKey(byte[] bytes) {
+        return PosterDiskCache.sha256Hex(bytes);
+    }
+
+    /**
+     * Takes a reference to a stored poster, if there is one.
+     *
+     * @param key The content key
+     * @return A future with the stored poster, or null if it must be uploaded
+     */
+    public CompletableFuture<Poster> acquire(String key) {
+        return store.runTransaction(transaction -> {
+            StoreDocument entry = transaction.get(COLLECTION, key);
+            if (!entry.exists()) {
+                return null;
+            }
+            transaction.update(COLLECTION, key, increment(1));
+            return poster(entry);
+        });
+    }
+
+    /**
+     * Records a newly uploaded poster with one reference. If another upload of the same
+     * poster registered first, takes a reference to that one instead.
+     *
+     * @param key      The content key
+     * @param url      The original's download URL
+     * @param variants The variants' download URLs keyed by width, or null
+     * @return A future with the poster the caller should use
+     */
+    public CompletableFuture<Poster> register(String key, String url, Map<String, String> variants) {
+        return store.runTransaction(transaction -> {
+            StoreDocument entry = transaction.get(COLLECTION, key);
+            if (entry.exists()) {
+                transaction.update(COLLECTION, key, increment(1));
+                return poster(entry);
+            }
+            Map<String, Object> data = new HashMap<>();
+            data.put(REF_COUNT, 1L);
+            data.put(URL, url);
+            data.put(VARIANTS, variants);
+            transaction.set(COLLECTION, key, data);
+            return new Poster(url, variants);
+        });
+    }
+
+    /**
+     * Drops a reference to a poster, removing its entry when it was the last one.
+     *
+     * @param key The content key
+     * @return A future with true if no event uses the poster any more and its files should
+     *         be deleted; posters uploaded before the registry have no entry and count as unshared
+     */
+    public CompletableFuture<Boolean> release(String key) {
+        return store.runTransaction(transaction -> {
+            StoreDocument entry = transaction.get(COLLECTION, key);
+            if (!entry.exists()) {
+                return true;
+            }
+            Long refCount = entry.getLong(REF_COUNT);
+            if (refCount == null || refCount <= 1) {
+                transaction.delete(COLLECTION, key);
+                return true;
+            }
+            transaction.update(COLLECTION, key, increment(-1));
+            return false;
+        });
+    }
+
+    private static Map<String, Object> increment(long delta) {
+        Map<String, Object> updates = new HashMap<>();
+        updates.put(REF_COUNT, StoreValues.increment(delta));
+        return updates;
+    }
+
+    private static Poster poster(StoreDocument entry) {
+        return new Poster(entry.getString(URL), CodecValues.toStringMap(entry.get(VARIANTS)));
+    }
+}
@@ -0,0 +1,303 @@
+package com.example.sprite.Controllers;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+
+/**
+ * Poster uploads that have not finished, kept on disk so an upload cut off by a lost
+ * connection or a killed process resumes where it stopped instead of starting over.
+ *
+ * <p>Each upload is stored under its {@link PosterRegistry} content key as two files: the
+ * compressed poster to send ({@code <key>.jpg}) and a small properties file
+ * ({@code <key>.upload}) with the Storage upload session URI, once there is one, and the
+ * IDs of the events waiting for the poster. Both are written to a temporary file and
+ * renamed into place. On open, uploads whose poster file is missing or whose properties
+ * cannot be read are dropped, along with stray temporary files.</p>
+ *
+ * <p>Every method does disk I/O and must be called off the main thread.</p>
+ */
+public class PosterUploadJournal {
+
+    private static final String DATA_SUFFIX = ".jpg";
+    private static final String UPLOAD_SUFFIX = ".upload";
+    private static final String TMP_SUFFIX = ".tmp";
+    private static final String SESSION = "session";
+    private static final String EVENTS = "events";
+
+    /**
+     * An upload that has not finished.
+     */
+    public static final class Pending {
+        private final String key;
+        private final File data;
+        private String sessionUri;
+        private final Set<String> eventIds = new LinkedHashSet<>();
+
+        Pending(String key, File data) {
+            this.key = key;
+            this.data = data;
+        }
+
+        /**
+         * Gets the poster's content key.
+         *
+         * @return The key
+         */
+        public String getKey() {
+            return key;
+        }
+
+        /**
+         * Gets the compressed poster to upload.
+         *
+         * @return The file
+         */
+        public File getData() {
+            return data;
+        }
+
+        /**
+         * Gets the Storage session to resume.
+         *
+         * @return The session URI, or null if the upload has not started
+         */
+        public String getSessionUri() {
+            return sessionUri;
+        }
+
+        /**
+         * Gets the events to point at the poster once it is uploaded.
+         *
+         * @return The event IDs
+         */
+        public List<String> getEventIds() {
+            return new ArrayList<>(eventIds);
+        }
+    }
+
+    private final File directory;
+    private final Map<String, Pending> pending = new LinkedHashMap<>();
+
+    private PosterUploadJournal(File directory) {
+        this.directory = directory;
+    }
+
+    /**
+     * Opens (creating if needed) the journal stored in a directory.
+     *
+     * @param directory Where the uploads are kept
+     * @return The journal, with unfinished uploads loaded
+     * @throws IOException If the directory cannot be created
+     */
+    public static PosterUploadJournal open(File directory) throws IOException {
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("Cannot create " + directory);
+        }
+        PosterUploadJournal journal = new PosterUploadJournal(directory);
+        journal.load();
+        return journal;
+    }
+
+    /**
+     * Records an upload, or adds an event to one already recorded.
+     *
+     * @param key     The poster's content key
+     * @param poster  The compressed poster; only written if the upload is new
+     * @param eventId The event waiting for the poster, or null if it has not been created
+     * @return The upload
+     * @throws IOException If the upload cannot be written
+     */
+    public synchronized Pending add(String key, byte[] poster, String eventId) throws IOException {
+        Pending upload = pending.get(key);
+        if (upload == null) {
+            upload = new Pending(key, new File(directory, key + DATA_SUFFIX));
+            writeAtomically(upload.data, poster);
+            pending.put(key, upload);
+        }
+        if (eventId != null) {
+            upload.eventIds.add(eventId);
+        }
+        save(upload);
+        return upload;
+    }
+
+    /**
+     * Removes events that now point at the poster, keeping the upload for any others.
+     *
+     * @param key      The poster's content key
+     * @param eventIds The patched events
+     * @throws IOException If the upload cannot be written
+     */
+    public synchronized void removeEvents(String key, Collection<String> eventIds) throws IOException {
+        Pending upload = pending.get(key);
+        if (upload == null || !upload.eventIds.removeAll(eventIds)) {
+            return;
+        }
+        save(upload);
+    }
+
+    /**
+     * Records the Storage session of an upload, so it can be resumed.
+     *
+     * @param key        The poster's content key
+     * @param sessionUri The session URI
+     * @throws IOException If the upload cannot be written
+     */
+    public synchronized void setSession(String key, String sessionUri) throws IOException {
+        Pending upload = pending.get(key);
+        if (upload == null || sessionUri.equals(upload.sessionUri)) {
+            return;
+        }
+        upload.sessionUri = sessionUri;
+        save(upload);
+    }
+
+    /**
+     * Forgets an upload's Storage session, such as when it expired, so it starts over.
+     *
+     * @param key The poster's content key
+     * @throws IOException If the upload cannot be written
+     */
+    public synchronized void clearSession(String key) throws IOException {
+        Pending upload = pending.get(key);
+        if (upload == null || upload.sessionUri == null) {
+            return;
+        }
+        upload.sessionUri = null;
+        save(upload);
+    }
+
+    /**
+     * Forgets a finished or abandoned upload and deletes its files.
+     *
+     * @param key The poster's content key
+     */
+    public synchronized void remove(String key) {
+        Pending upload = pending.remove(key);
+        if (upload != null) {
+            upload.data.delete();
+            new File(directory, key + UPLOAD_SUFFIX).delete();
+        }
+    }
+
+    /**
+     * Gets an unfinished upload.
+     *
+     * @param key The poster's content key
+     * @return The upload, or null if there is none
+     */
+    public synchronized Pending get(String key) {
+        return pending.get(key);
+    }
+
+    /**
+     * Gets every unfinished upload.
+     *
+     * @return The uploads, oldest first
+     */
+    public synchronized List<Pending> getPending() {
+        return Collections.unmodifiableList(new ArrayList<>(pending.values()));
+    }
+
+    private void load() {
+        File[] files = directory.listFiles();
+        if (files == null) {
+            return;
+        }
+        for (File file : files) {
+            String name = file.getName();
+            if (name.endsWith(TMP_SUFFIX)) {
+                file.delete();
+                continue;
+            }
+            if (!name.endsWith(UPLOAD_SUFFIX)) {
+                continue;
+            }
+            String key = name.substring(0, name.length() - UPLOAD_SUFFIX.length());
+            Pending upload = new Pending(key, new File(directory, key + DATA_SUFFIX));
+            Properties properties = new Properties();
+            try (Reader in = new InputStreamReader(new FileInputStream(file), StandardCharsets.UTF_8)) {
+                properties.load(in);
+            } catch (IOException | IllegalArgumentException e) {
+                file.delete();
+                upload.data.delete();
+                continue;
+            }
+            if (!upload.data.isFile()) {
+                file.delete();
+                continue;
+            }
+            upload.sessionUri = properties.getProperty(SESSION);
+            String events = properties.getProperty(EVENTS, "");
+            for (String eventId : events.split(",")) {
+                if (!eventId.isEmpty()) {
+                    upload.eventIds.add(eventId);
+                }
+            }
+            pending.put(key, upload);
+        }
+        // Posters whose properties never made it to disk cannot be finished
+        for (File file : files) {
+            String name = file.getName();
+            if (name.endsWith(DATA_SUFFIX)
+                    && !pending.containsKey(name.substring(0, name.length() - DATA_SUFFIX.length()))) {
+                file.delete();
+            }
+        }
+    }
+
+    private void save(Pending upload) throws IOException {
+        Properties properties = new Properties();
+        if (upload.sessionUri != null) {
+            properties.setProperty(SESSION, upload.sessionUri);
+        }
+        properties.setProperty(EVENTS, String.join(",", upload.eventIds));
+        File file = new File(directory, upload.key + UPLOAD_SUFFIX);
+        File tmp = new File(directory, upload.key + UPLOAD_SUFFIX + TMP_SUFFIX);
+        try (FileOutputStream out = new FileOutputStream(tmp);
+             Writer writer = new OutputStreamWriter(out, StandardCharsets.UTF_8)) {
+            properties.store(writer, null);
+            writer.flush();
+            out.getFD().sync();
+        }
+        rename(tmp, file);
+    }
+
+    private static void writeAtomically(File file, byte[] bytes) throws IOException {
+        File tmp = new File(file.getPath() + TMP_SUFFIX);
+        try (FileOutputStream out = new FileOutputStream(tmp)) {
+            FileChannel channel = out.getChannel();
+            ByteBuffer buffer = ByteBuffer.wrap(bytes);
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(true);
+        }
+        rename(tmp, file);
+    }
+
+    private static void rename(File from, File to) throws IOException {
+        if (!from.renameTo(to)) {
+            from.delete();
+            throw new IOException("Cannot rename " + from + " to " + to);
+        }
+    }
+}
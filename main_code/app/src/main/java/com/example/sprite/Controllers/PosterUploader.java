@@ -0,0 +1,596 @@
+package com.example.sprite.Controllers;
+
+import android.content.ContentResolver;
+import android.content.Context;
+import android.net.Uri;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.Process;
+import android.util.Log;
+
+import androidx.lifecycle.LiveData;
+import androidx.lifecycle.MutableLiveData;
+
+import com.example.sprite.Models.Event;
+import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.Tasks;
+import com.google.firebase.storage.FirebaseStorage;
+import com.google.firebase.storage.StorageMetadata;
+import com.google.firebase.storage.StorageReference;
+import com.google.firebase.storage.UploadTask;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Uploads event posters in the background, so creating or editing an event never waits
+ * for the poster.
+ *
+ * <p>A picked poster is read, shrunk and recompressed ({@link PosterVariants#normalize})
+ * on a background thread, then recorded in a {@link PosterUploadJournal} before anything
+ * touches the network, so a poster picked offline is not lost. Firebase Storage sends it
+ * in chunks over a resumable session, whose URI is saved in the journal as soon as it is
+ * known; an upload cut off by the process being killed is resumed from that session by
+ * {@link #resumePending()}, and one whose session expired starts over. The resized
+ * variants upload alongside it.</p>
+ *
+ * <p>Posters are stored by content, as in {@link PosterRegistry}: a poster already stored
+ * is reused at once, and events picking a poster that is still uploading share that
+ * upload. When it finishes, each waiting event's poster URLs are patched in the database
+ * and its previous poster is released. An event stays in the journal until its patch has
+ * succeeded, and a poster already stored by an earlier attempt is not sent again.
+ * Progress is reported through {@link LiveData}.</p>
+ */
+public class PosterUploader {
+
+    private static final String TAG = "PosterUpload";
+    private static final String EVENTS = "events";
+    private static final String POSTER_FOLDER = "event_posters/";
+    private static final StorageMetadata JPEG_METADATA =
+            new StorageMetadata.Builder().setContentType("image/jpeg").build();
+    private static final StorageMetadata WEBP_METADATA =
+            new StorageMetadata.Builder().setContentType("image/webp").build();
+
+    /** Uploads left unfinished for longer are given up; Storage sessions last a week. */
+    private static final long MAX_PENDING_AGE_MILLIS = TimeUnit.DAYS.toMillis(1);
+
+    private static final Handler MAIN = new Handler(Looper.getMainLooper());
+    private static PosterUploader shared;
+
+    /**
+     * Where an upload is up to.
+     */
+    public enum State {
+        /** The poster is being read and compressed. */
+        PREPARING,
+        /** The poster is being sent. */
+        UPLOADING,
+        /** The poster is stored and the event points at it. */
+        DONE,
+        /** The upload failed; it is retried the next time the app starts. */
+        FAILED,
+        /**
+         * The upload failed and is not retried, because the image could not be read or
+         * journalled, or the event has not been created.
+         */
+        ABANDONED
+    }
+
+    /**
+     * A snapshot of an upload's progress.
+     */
+    public static final class Progress {
+        private final State state;
+        private final int percent;
+
+        Progress(State state, int percent) {
+            this.state = state;
+            this.percent = percent;
+        }
+
+        /**
+         * Gets where the upload is up to.
+         *
+         * @return The state
+         */
+        public State getState() {
+            return state;
+        }
+
+        /**
+         * Gets how much of the poster has been sent.
+         *
+         * @return The share sent, 0 to 100
+         */
+        public int getPercent() {
+            return percent;
+        }
+    }
+
+    /** An event waiting for a poster. */
+    private static final class Waiter {
+        final String eventId;
+        final Event event;
+        final MutableLiveData<Progress> progress;
+        final Runnable onComplete;
+
+        Waiter(String eventId, Event event, MutableLiveData<Progress> progress, Runnable onComplete) {
+            this.eventId = eventId;
+            this.event = event;
+            this.progress = progress;
+            this.onComplete = onComplete;
+        }
+    }
+
+    /** A picked poster, once it is journalled. */
+    private static final class Picked {
+        final String key;
+        final byte[] original;
+
+        Picked(String key, byte[] original) {
+            this.key = key;
+            this.original = original;
+        }
+    }
+
+    /** An upload in progress and the events waiting for it; guarded by the uploader. */
+    private static final class Upload {
+        final List<Waiter> waiters = new ArrayList<>();
+        int percent;
+    }
+
+    private final PosterUploadJournal journal;
+    private final DataStore store;
+    private final PosterRegistry registry;
+    private final StorageReference storageReference;
+    /** Reads, compresses and journals posters on one background thread. */
+    private final ExecutorService worker = Executors.newSingleThreadExecutor(task ->
+            new Thread(() -> {
+                Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+                task.run();
+            }, TAG));
+    private final Map<String, Upload> uploads = new HashMap<>();
+
+    private PosterUploader(PosterUploadJournal journal, DataStore store, StorageReference storageReference) {
+        this.journal = journal;
+        this.store = store;
+        this.registry = new PosterRegistry(store);
+        this.storageReference = storageReference;
+    }
+
+    /**
+     * Gets the app's uploader, opening its journal in the app's files directory on first use.
+     * Call it off the main thread the first time, such as on the {@link JournalExecutor}.
+     *
+     * @param context Any context
+     * @return The shared uploader
+     * @throws IOException If the journal cannot be opened
+     */
+    public static synchronized PosterUploader getShared(Context context) throws IOException {
+        if (shared == null) {
+            File directory = new File(context.getApplicationContext().getFilesDir(), "poster_uploads");
+            shared = new PosterUploader(PosterUploadJournal.open(directory),
+                    new DatabaseService().getDataStore(), FirebaseStorage.getInstance().getReference());
+        }
+        return shared;
+    }
+
+    /**
+     * Starts uploading a poster for an event. If the event has an ID, its poster URLs are
+     * patched in the database once the poster is stored; otherwise they are only set on
+     * the event in memory.
+     *
+     * @param context    Any context in the app, for reading the picked image
+     * @param event      The event
+     * @param uri        The picked image
+     * @param onComplete Run once on the main thread, when the event points at the poster or
+     *                   the upload failed
+     * @return The upload's progress
+     */
+    public LiveData<Progress> upload(Context context, Event event, Uri uri, Runnable onComplete) {
+        MutableLiveData<Progress> progress = new MutableLiveData<>(new Progress(State.PREPARING, 0));
+        String eventId = event.getEventId() == null || event.getEventId().isEmpty() ? null : event.getEventId();
+        Waiter waiter = new Waiter(eventId, event, progress, onComplete);
+        ContentResolver resolver = context.getApplicationContext().getContentResolver();
+        CompletableFuture<Picked> picked = CompletableFuture.supplyAsync(() -> {
+            byte[] original;
+            try (InputStream in = resolver.openInputStream(uri)) {
+                if (in == null) {
+                    throw new IOException("Cannot open " + uri);
+                }
+                original = readFully(in);
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+            // Keyed by the picked bytes, so picking the same file again finds it
+            String key = PosterRegistry.contentKey(original);
+            try {
+                // Journalled before the registry lookup, which fails offline
+                journal.add(key, journal.get(key) != null ? null : PosterVariants.normalize(original), eventId);
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+            return new Picked(key, original);
+        }, worker);
+        picked.exceptionally(error -> {
+            fail(waiter, error, false);
+            return null;
+        });
+        picked.thenAccept(poster -> registry.acquire(poster.key).whenCompleteAsync((existing, error) -> {
+            if (error != null) {
+                fail(waiter, error, true);
+            } else if (existing != null) {
+                Log.d(TAG, "Poster already stored, reusing it");
+                List<Waiter> waiters = new ArrayList<>();
+                waiters.add(waiter);
+                patch(poster.key, waiters, existing, true);
+            } else {
+                join(poster.key, poster.original, waiter);
+            }
+        }, worker));
+        return progress;
+    }
+
+    /**
+     * Restarts the uploads the journal still holds, such as after the app was killed
+     * mid-upload or a poster was picked offline, and patches the events a finished upload
+     * did not reach. Uploads already running are left alone.
+     */
+    public void resumePending() {
+        worker.execute(() -> {
+            long now = System.currentTimeMillis();
+            for (PosterUploadJournal.Pending pending : journal.getPending()) {
+                String key = pending.getKey();
+                if (now - pending.getData().lastModified() > MAX_PENDING_AGE_MILLIS) {
+                    Log.w(TAG, "Giving up on poster upload " + key);
+                    journal.remove(key);
+                    continue;
+                }
+                synchronized (this) {
+                    if (uploads.containsKey(key)) {
+                        continue;
+                    }
+                    if (!pending.getEventIds().isEmpty()) {
+                        Upload upload = new Upload();
+                        for (String eventId : pending.getEventIds()) {
+                            upload.waiters.add(new Waiter(eventId, null, null, null));
+                        }
+                        uploads.put(key, upload);
+                    }
+                }
+                if (pending.getEventIds().isEmpty()) {
+                    // Only events that were never created waited for it
+                    journal.remove(key);
+                    continue;
+                }
+                Log.d(TAG, "Resuming poster upload " + key);
+                registry.acquire(key).whenCompleteAsync((existing, error) -> {
+                    if (error != null) {
+                        failAll(key, error, true);
+                    } else if (existing != null) {
+                        // Uploaded before, but not every event was patched
+                        patch(key, takeWaiters(key), existing, true);
+                    } else {
+                        send(key, pending);
+                    }
+                }, worker);
+            }
+        });
+    }
+
+    /**
+     * Adds an event to the upload of a poster, starting the upload if none is running.
+     * Called on the worker after the registry had no entry for the poster.
+     */
+    private void join(String key, byte[] original, Waiter waiter) {
+        boolean start;
+        synchronized (this) {
+            Upload upload = uploads.get(key);
+            start = upload == null;
+            if (start) {
+                upload = new Upload();
+                uploads.put(key, upload);
+            }
+            upload.waiters.add(waiter);
+            post(waiter, new Progress(start ? State.PREPARING : State.UPLOADING, upload.percent));
+        }
+        if (!start) {
+            return;
+        }
+        // Journalled when picked, with the session of any earlier attempt
+        PosterUploadJournal.Pending pending = journal.get(key);
+        if (pending == null) {
+            // Forgotten by an upload of the same poster that finished meanwhile
+            try {
+                pending = journal.add(key, PosterVariants.normalize(original), waiter.eventId);
+            } catch (IOException e) {
+                failAll(key, e, false);
+                return;
+            }
+        }
+        send(key, pending);
+    }
+
+    /**
+     * Uploads a journalled poster and its variants, then points every waiting event at it.
+     * Runs on the worker.
+     */
+    private void send(String key, PosterUploadJournal.Pending pending) {
+        byte[] bytes;
+        try (InputStream in = new FileInputStream(pending.getData())) {
+            bytes = readFully(in);
+        } catch (IOException e) {
+            journal.remove(key);
+            failAll(key, e, false);
+            return;
+        }
+        String baseName = POSTER_FOLDER + key;
+        CompletableFuture<String> original = uploadOriginal(key, pending, baseName);
+        // The variants upload alongside the original; one failing only costs a smaller download
+        CompletableFuture<Map<String, String>> variants = TaskFutures.from(uploadVariants(bytes, baseName))
+                .exceptionally(error -> {
+                    Log.w(TAG, "Poster variants not uploaded", TaskFutures.unwrap(error));
+                    return null;
+                });
+        original.thenCombine(variants, (url, variantUrls) ->
+                        new PosterRegistry.Poster(url, variantUrls == null || variantUrls.isEmpty() ? null : variantUrls))
+                .whenCompleteAsync((poster, error) -> {
+                    if (error != null) {
+                        // The journal keeps the poster, so the next start tries again
+                        failAll(key, error, true);
+                    } else {
+                        patch(key, takeWaiters(key), poster, false);
+                    }
+                }, worker);
+    }
+
+    /**
+     * Points waiting events at a stored poster, each holding its own reference, then
+     * forgets the events that were patched. The rest stay journalled for the next start;
+     * a reference taken for a patch that failed is kept, so the poster may outlive its
+     * events but is never deleted while one still uses it.
+     *
+     * @param acquired Whether the first waiter already holds a reference from
+     *                 {@link PosterRegistry#acquire}
+     */
+    private void patch(String key, List<Waiter> waiters, PosterRegistry.Poster poster, boolean acquired) {
+        List<CompletableFuture<String>> done = new ArrayList<>();
+        for (int i = 0; i < waiters.size(); i++) {
+            Waiter waiter = waiters.get(i);
+            CompletableFuture<PosterRegistry.Poster> reference = i == 0 && acquired
+                    ? CompletableFuture.completedFuture(poster)
+                    : registry.register(key, poster.getUrl(), poster.getVariants());
+            done.add(reference.thenCompose(registered -> finish(waiter, registered))
+                    .handle((unused, error) -> {
+                        if (error != null) {
+                            fail(waiter, error, true);
+                            return null;
+                        }
+                        complete(waiter, new Progress(State.DONE, 100));
+                        return waiter.eventId;
+                    }));
+        }
+        CompletableFuture.allOf(done.toArray(new CompletableFuture[0])).thenRunAsync(() -> {
+            List<String> patched = new ArrayList<>();
+            for (CompletableFuture<String> eventId : done) {
+                if (eventId.join() != null) {
+                    patched.add(eventId.join());
+                }
+            }
+            forget(key, patched);
+        }, worker);
+    }
+
+    /**
+     * Removes patched events from the journal, and the upload once no event waits for it
+     * and no upload of it is running. Runs on the worker.
+     */
+    private void forget(String key, List<String> eventIds) {
+        try {
+            journal.removeEvents(key, eventIds);
+        } catch (IOException e) {
+            Log.w(TAG, "Could not update poster upload journal", e);
+            return;
+        }
+        PosterUploadJournal.Pending pending = journal.get(key);
+        synchronized (this) {
+            if (pending == null || !pending.getEventIds().isEmpty() || uploads.containsKey(key)) {
+                return;
+            }
+        }
+        journal.remove(key);
+    }
+
+    /**
+     * Uploads a poster, resuming its saved session if it has one, and saves the session
+     * as soon as Storage starts it.
+     *
+     * @return A future with the poster's download URL
+     */
+    private CompletableFuture<String> uploadOriginal(String key, PosterUploadJournal.Pending pending, String baseName) {
+        StorageReference fileRef = storageReference.child(baseName + ".jpg");
+        String session = pending.getSessionUri();
+        return putFile(key, fileRef, pending.getData(), session)
+                .handle((url, error) -> {
+                    if (error == null) {
+                        return CompletableFuture.completedFuture(url);
+                    }
+                    if (session == null) {
+                        CompletableFuture<String> failed = new CompletableFuture<>();
+                        failed.completeExceptionally(error);
+                        return failed;
+                    }
+                    // The session may have expired or been cancelled; send the whole poster again
+                    Log.w(TAG, "Could not resume poster upload, starting over", TaskFutures.unwrap(error));
+                    return CompletableFuture.runAsync(() -> {
+                        try {
+                            journal.clearSession(key);
+                        } catch (IOException e) {
+                            Log.w(TAG, "Could not clear upload session", e);
+                        }
+                    }, worker).thenCompose(unused -> putFile(key, fileRef, pending.getData(), null));
+                })
+                .thenCompose(future -> future);
+    }
+
+    private CompletableFuture<String> putFile(String key, StorageReference fileRef, File data, String session) {
+        UploadTask task = session == null
+                ? fileRef.putFile(Uri.fromFile(data), JPEG_METADATA)
+                : fileRef.putFile(Uri.fromFile(data), JPEG_METADATA, Uri.parse(session));
+        task.addOnProgressListener(worker, snapshot -> {
+            Uri sessionUri = snapshot.getUploadSessionUri();
+            if (sessionUri != null) {
+                try {
+                    journal.setSession(key, sessionUri.toString());
+                } catch (IOException e) {
+                    Log.w(TAG, "Could not save upload session", e);
+                }
+            }
+            long total = snapshot.getTotalByteCount();
+            if (total > 0) {
+                progress(key, (int) (snapshot.getBytesTransferred() * 100 / total));
+            }
+        });
+        return TaskFutures.from(task.continueWithTask(upload -> {
+            if (!upload.isSuccessful()) {
+                throw upload.getException();
+            }
+            return fileRef.getDownloadUrl();
+        })).thenApply(Uri::toString);
+    }
+
+    /**
+     * Makes a poster's resized variants on the worker and uploads them in parallel.
+     *
+     * @param bytes    The poster as uploaded
+     * @param baseName The storage path of the original, without its extension
+     * @return The download URL of each variant that uploaded, keyed by width
+     */
+    private Task<Map<String, String>> uploadVariants(byte[] bytes, String baseName) {
+        return Tasks.call(worker, () -> PosterVariants.generate(bytes)).continueWithTask(generated -> {
+            List<PosterVariants.Variant> made = generated.getResult();
+            List<Task<Uri>> uploads = new ArrayList<>();
+            for (PosterVariants.Variant variant : made) {
+                StorageReference ref = storageReference.child(baseName + "_" + variant.getWidth() + ".webp");
+                uploads.add(ref.putBytes(variant.getBytes(), WEBP_METADATA).continueWithTask(task -> {
+                    if (!task.isSuccessful()) {
+                        throw task.getException();
+                    }
+                    return ref.getDownloadUrl();
+                }));
+            }
+            return Tasks.whenAllComplete(uploads).continueWith(done -> {
+                Map<String, String> urls = new HashMap<>();
+                for (int i = 0; i < uploads.size(); i++) {
+                    if (uploads.get(i).isSuccessful()) {
+                        urls.put(String.valueOf(made.get(i).getWidth()), uploads.get(i).getResult().toString());
+                    }
+                }
+                return urls;
+            });
+        });
+    }
+
+    /**
+     * Points an event at its stored poster and releases the poster it had before.
+     *
+     * @return A future that completes once the event points at the poster, or fails if
+     *         it could not be patched
+     */
+    private CompletableFuture<Void> finish(Waiter waiter, PosterRegistry.Poster poster) {
+        String imageUrl = poster.getUrl();
+        Map<String, String> posterVariants = poster.getVariants();
+        if (waiter.eventId == null) {
+            // Event not created yet, just set in memory
+            waiter.event.setPosterImageUrl(imageUrl);
+            waiter.event.setPosterVariants(posterVariants);
+            Log.d(TAG, "Event not yet created, image URL set in memory only");
+            return CompletableFuture.completedFuture(null);
+        }
+        Map<String, Object> updates = new HashMap<>();
+        updates.put("posterImageUrl", imageUrl);
+        updates.put("posterVariants", posterVariants);
+        // Read what the event points at now, which may have changed since the poster was picked
+        return store.get(EVENTS, waiter.eventId)
+                .thenCompose(current -> store.update(EVENTS, waiter.eventId, updates).thenRun(() -> {
+                    if (waiter.event != null) {
+                        waiter.event.setPosterImageUrl(imageUrl);
+                        waiter.event.setPosterVariants(posterVariants);
+                    }
+                    Log.d(TAG, "Event poster URL updated in DB");
+                    if (current.exists()) {
+                        // Re-picking the same poster took a second reference, so this never deletes it
+                        ImageService.releasePoster(current.getString("posterImageUrl"),
+                                CodecValues.toStringMap(current.get("posterVariants")));
+                    }
+                }));
+    }
+
+    /**
+     * Reports a failed upload.
+     *
+     * @param journalled Whether the waiter's event is still journalled, so it is retried
+     */
+    private void fail(Waiter waiter, Throwable error, boolean journalled) {
+        Log.e(TAG, "Upload failed", TaskFutures.unwrap(error));
+        boolean retried = journalled && waiter.eventId != null;
+        complete(waiter, new Progress(retried ? State.FAILED : State.ABANDONED, 0));
+    }
+
+    private void failAll(String key, Throwable error, boolean journalled) {
+        for (Waiter waiter : takeWaiters(key)) {
+            fail(waiter, error, journalled);
+        }
+    }
+
+    /** Ends the upload of a poster, so later events start a new one. */
+    private synchronized List<Waiter> takeWaiters(String key) {
+        Upload upload = uploads.remove(key);
+        return upload == null ? new ArrayList<>() : upload.waiters;
+    }
+
+    private static void complete(Waiter waiter, Progress progress) {
+        post(waiter, progress);
+        if (waiter.onComplete != null) {
+            MAIN.post(waiter.onComplete);
+        }
+    }
+
+    private synchronized void progress(String key, int percent) {
+        Upload upload = uploads.get(key);
+        if (upload == null) {
+            return;
+        }
+        upload.percent = percent;
+        for (Waiter waiter : upload.waiters) {
+            post(waiter, new Progress(State.UPLOADING, percent));
+        }
+    }
+
+    private static void post(Waiter waiter, Progress progress) {
+        if (waiter.progress != null) {
+            waiter.progress.postValue(progress);
+        }
+    }
+
+    private static byte[] readFully(InputStream in) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[8192];
+        int read;
+        while ((read = in.read(buffer)) != -1) {
+            out.write(buffer, 0, read);
+        }
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,144 @@
+package com.example.sprite.Controllers;
+
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.os.Build;
+
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Makes the resized copies of a poster that are uploaded next to the original, so list
+ * screens can fetch a small thumbnail and only detail screens fetch a large image.
+ *
+ * <p>Each variant is scaled to one of {@link #WIDTHS}, keeping the aspect ratio, and
+ * compressed to lossy WebP. Widths larger than the original are skipped, since the
+ * original serves them. Smaller variants use a lower quality, where artifacts are too
+ * small to see. The original itself is {@link #normalize normalized} before upload,
+ * so a photo straight off the camera is not sent at full resolution. Both are slow; call
+ * them off the main thread.</p>
+ */
+public final class PosterVariants {
+
+    /** The widths variants are made at, in pixels: list thumbnails, cards and full-screen. */
+    public static final int[] WIDTHS = {128, 512, 1080};
+
+    /** The widest an uploaded original is kept, in pixels; wider than any screen shows it. */
+    public static final int MAX_ORIGINAL_WIDTH = 2048;
+
+    /** The JPEG quality an original is recompressed at. */
+    static final int ORIGINAL_QUALITY = 85;
+
+    /**
+     * A resized, compressed copy of a poster.
+     */
+    public static final class Variant {
+        private final int width;
+        private final byte[] bytes;
+
+        Variant(int width, byte[] bytes) {
+            this.width = width;
+            this.bytes = bytes;
+        }
+
+        /**
+         * Gets the variant's width.
+         *
+         * @return The width in pixels
+         */
+        public int getWidth() {
+            return width;
+        }
+
+        /**
+         * Gets the compressed image.
+         *
+         * @return The WebP bytes
+         */
+        public byte[] getBytes() {
+            return bytes;
+        }
+    }
+
+    private PosterVariants() {
+    }
+
+    /**
+     * Makes every variant narrower than the original.
+     *
+     * @param original The original image, as picked
+     * @return The variants, smallest first; empty if the bytes are not an image
+     */
+    public static List<Variant> generate(byte[] original) {
+        List<Variant> variants = new ArrayList<>();
+        // One decode, just large enough for the widest variant, feeds all of them
+        Bitmap source = BitmapDecoder.decode(original, WIDTHS[WIDTHS.length - 1], 0);
+        if (source == null) {
+            return variants;
+        }
+        int originalWidth = BitmapDecoder.widthOf(original);
+        for (int width : WIDTHS) {
+            if (width >= originalWidth) {
+                break;
+            }
+            Bitmap scaled = width >= source.getWidth() ? source : Bitmap.createScaledBitmap(
+                    source, width, Math.max(1, Math.round(source.getHeight() * (float) width / source.getWidth())), true);
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            scaled.compress(webp(), quality(width), out);
+            variants.add(new Variant(width, out.toByteArray()));
+        }
+        return variants;
+    }
+
+    /**
+     * Shrinks a picked poster to at most {@link #MAX_ORIGINAL_WIDTH} wide and recompresses
+     * it as JPEG. Images with transparency, which JPEG would lose, and images the
+     * recompression would not make smaller are returned as they are.
+     *
+     * @param original The original image, as picked
+     * @return The image to upload in place of the original
+     */
+    public static byte[] normalize(byte[] original) {
+        BitmapFactory.Options options = new BitmapFactory.Options();
+        options.inJustDecodeBounds = true;
+        BitmapFactory.decodeByteArray(original, 0, original.length, options);
+        if (options.outWidth <= 0 || options.outHeight <= 0) {
+            return original;
+        }
+        // Full colour, unlike thumbnails: banding from RGB_565 would be baked into the upload
+        options.inSampleSize = BitmapDecoder.calculateInSampleSize(
+                options.outWidth, options.outHeight, MAX_ORIGINAL_WIDTH, 0);
+        options.inJustDecodeBounds = false;
+        Bitmap bitmap = BitmapFactory.decodeByteArray(original, 0, original.length, options);
+        if (bitmap == null || bitmap.hasAlpha()) {
+            return original;
+        }
+        if (bitmap.getWidth() > MAX_ORIGINAL_WIDTH) {
+            bitmap = Bitmap.createScaledBitmap(bitmap, MAX_ORIGINAL_WIDTH, Math.max(1,
+                    Math.round(bitmap.getHeight() * (float) MAX_ORIGINAL_WIDTH / bitmap.getWidth())), true);
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        bitmap.compress(Bitmap.CompressFormat.JPEG, ORIGINAL_QUALITY, out);
+        return out.size() < original.length ? out.toByteArray() : original;
+    }
+
+    /**
+     * Gets the compression quality for a variant width.
+     *
+     * @param width The variant width
+     * @return The WebP quality, 0 to 100
+     */
+    static int quality(int width) {
+        if (width <= 128) return 70;
+        if (width <= 512) return 75;
+        return 80;
+    }
+
+    @SuppressWarnings("deprecation")
+    private static Bitmap.CompressFormat webp() {
+        return Build.VERSION.SDK_INT >= Build.VERSION_CODES.R
+                ? Bitmap.CompressFormat.WEBP_LOSSY
+                : Bitmap.CompressFormat.WEBP;
+    }
+}
@@ -0,0 +1,178 @@
+package com.example.sprite.Controllers;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Decides which list positions to load images for before they scroll into view.
+ *
+ * <p>Positions are prefetched ahead of the scroll, in the direction it is moving. How far
+ * ahead depends on the speed: enough items to cover {@link #LOOKAHEAD_SECONDS} of travel,
+ * kept between a minimum and a maximum. When the scroll reverses, every prefetch still
+ * outstanding is cancelled, since the list is moving away from it. A prefetched position
+ * that scrolls into view is no longer outstanding; the view now waits for it instead.</p>
+ *
+ * <p>The window holds no views or images, so it can be driven by any list. It is not
+ * thread-safe; call it from the thread that delivers scroll events.</p>
+ */
+public class PrefetchWindow {
+
+    /** How far ahead to prefetch, in seconds of travel at the current scroll speed. */
+    static final double LOOKAHEAD_SECONDS = 0.5;
+
+    /**
+     * What to change after a scroll.
+     */
+    public static final class Plan {
+        private final List<Integer> start;
+        private final List<Integer> cancel;
+
+        Plan(List<Integer> start, List<Integer> cancel) {
+            this.start = start;
+            this.cancel = cancel;
+        }
+
+        /**
+         * Gets the positions to start prefetching.
+         *
+         * @return The positions, nearest to the visible items first
+         */
+        public List<Integer> getStart() {
+            return start;
+        }
+
+        /**
+         * Gets the positions whose prefetch should be cancelled.
+         *
+         * @return The positions
+         */
+        public List<Integer> getCancel() {
+            return cancel;
+        }
+    }
+
+    private static final Plan NOTHING = new Plan(Collections.emptyList(), Collections.emptyList());
+
+    private final int minAhead;
+    private final int maxAhead;
+    /** Positions prefetched that have not scrolled into view, in the order they were started. */
+    private final Set<Integer> outstanding = new LinkedHashSet<>();
+
+    private int direction;
+    private long lastScrollNanos;
+    private long started;
+    private long cancelled;
+
+    /**
+     * Creates a window.
+     *
+     * @param minAhead The fewest items to prefetch ahead of a scroll
+     * @param maxAhead The most items to prefetch ahead of a fast scroll
+     */
+    public PrefetchWindow(int minAhead, int maxAhead) {
+        if (minAhead < 1 || maxAhead < minAhead) {
+            throw new IllegalArgumentException("need 1 <= minAhead <= maxAhead");
+        }
+        this.minAhead = minAhead;
+        this.maxAhead = maxAhead;
+    }
+
+    /**
+     * Updates the window after the list scrolled.
+     *
+     * @param firstVisible The first visible position
+     * @param lastVisible  The last visible position
+     * @param itemCount    The number of items in the list
+     * @param dy           How far the list scrolled, in pixels; positive towards later items
+     * @param itemHeight   The height of one item, in pixels
+     * @param nowNanos     The time of the scroll event, from a monotonic clock
+     * @return The prefetches to start and cancel
+     */
+    public Plan onScroll(int firstVisible, int lastVisible, int itemCount, int dy, int itemHeight, long nowNanos) {
+        long elapsedNanos = lastScrollNanos == 0 ? 0 : nowNanos - lastScrollNanos;
+        lastScrollNanos = nowNanos;
+        if (dy == 0) {
+            return NOTHING;
+        }
+        int newDirection = dy > 0 ? 1 : -1;
+        List<Integer> cancel = new ArrayList<>();
+        if (direction != 0 && newDirection != direction) {
+            cancel.addAll(outstanding);
+            outstanding.clear();
+        }
+        direction = newDirection;
+
+        Iterator<Integer> it = outstanding.iterator();
+        while (it.hasNext()) {
+            int position = it.next();
+            if (position >= firstVisible && position <= lastVisible) {
+                it.remove();
+            } else if (direction > 0 ? position < firstVisible : position > lastVisible) {
+                // Flung past before it was ever shown
+                it.remove();
+                cancel.add(position);
+            }
+        }
+        cancelled += cancel.size();
+
+        int ahead = ahead(Math.abs(dy), elapsedNanos, itemHeight);
+        List<Integer> start = new ArrayList<>();
+        for (int i = 1; i <= ahead; i++) {
+            int position = direction > 0 ? lastVisible + i : firstVisible - i;
+            if (position < 0 || position >= itemCount) {
+                break;
+            }
+            if (outstanding.add(position)) {
+                start.add(position);
+            }
+        }
+        started += start.size();
+        return start.isEmpty() && cancel.isEmpty() ? NOTHING : new Plan(start, cancel);
+    }
+
+    /**
+     * Forgets every outstanding prefetch, such as when the list's contents change.
+     *
+     * @return The positions whose prefetch should be cancelled
+     */
+    public List<Integer> reset() {
+        List<Integer> cancel = new ArrayList<>(outstanding);
+        outstanding.clear();
+        direction = 0;
+        lastScrollNanos = 0;
+        cancelled += cancel.size();
+        return cancel;
+    }
+
+    /**
+     * Gets the number of prefetches started.
+     *
+     * @return The started count
+     */
+    public long getStarted() {
+        return started;
+    }
+
+    /**
+     * Gets the number of prefetches cancelled before their position scrolled into view.
+     *
+     * @return The cancelled count
+     */
+    public long getCancelled() {
+        return cancelled;
+    }
+
+    /** Gets how many items the scroll will cover in the lookahead time, within the bounds. */
+    private int ahead(int distance, long elapsedNanos, int itemHeight) {
+        if (elapsedNanos <= 0 || itemHeight <= 0) {
+            return minAhead;
+        }
+        double pixelsPerSecond = distance * 1e9 / elapsedNanos;
+        int items = (int) Math.ceil(pixelsPerSecond * LOOKAHEAD_SECONDS / itemHeight);
+        return Math.max(minAhead, Math.min(maxAhead, items));
+    }
+}
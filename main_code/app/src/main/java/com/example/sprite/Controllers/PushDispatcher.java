@@ -0,0 +1,382 @@
+package com.example.sprite.Controllers;
+
+import com.example.sprite.Models.Notification;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import okhttp3.Call;
+import okhttp3.Callback;
+import okhttp3.ConnectionPool;
+import okhttp3.Dispatcher;
+import okhttp3.MediaType;
+import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+
+/**
+ * Sends push messages to an FCM-compatible HTTP endpoint, so entrants hear about a
+ * notification without waiting for the app to check at startup.
+ *
+ * <p>Messages with the same title, body and data are sent together, up to
+ * {@value #MAX_TOKENS_PER_REQUEST} device tokens per request in the
+ * {@code registration_ids} form of the FCM HTTP API. Requests are started no faster
+ * than the configured rate, and they all go through one {@link OkHttpClient}. That
+ * client keeps its connections pooled and speaks HTTP/2, so concurrent requests to
+ * the endpoint share a single multiplexed connection. Rate-limited (429) and server
+ * (5xx) responses and I/O failures are retried with the {@link RetryPolicy} backoff,
+ * or after the delay in the response's {@code Retry-After} header.</p>
+ */
+public class PushDispatcher {
+
+    /** The most device tokens sent in one request. */
+    public static final int MAX_TOKENS_PER_REQUEST = 500;
+
+    /** The default limit on requests started per second. */
+    public static final double DEFAULT_REQUESTS_PER_SECOND = 50;
+
+    /** The most requests in flight to one host; HTTP/2 carries them all on one connection. */
+    static final int MAX_REQUESTS_PER_HOST = 16;
+
+    private static final MediaType JSON = MediaType.get("application/json; charset=utf-8");
+    private static final Pattern SUCCESS = Pattern.compile("\"success\"\\s*:\\s*(\\d+)");
+    private static final Pattern FAILURE = Pattern.compile("\"failure\"\\s*:\\s*(\\d+)");
+
+    private static final ScheduledExecutorService SCHEDULER = Executors.newSingleThreadScheduledExecutor(task -> {
+        Thread thread = new Thread(task, "PushDispatcher");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private static OkHttpClient sharedClient;
+
+    private final OkHttpClient client;
+    private final String endpoint;
+    private final String authorization;
+    private final RetryPolicy retryPolicy;
+    private final long intervalNanos;
+    private long nextSlotNanos;
+
+    /**
+     * A push message for one device.
+     */
+    public static final class Message {
+        private final String token;
+        private final String title;
+        private final String body;
+        private final Map<String, String> data;
+
+        /**
+         * Creates a message.
+         *
+         * @param token The device's registration token
+         * @param title The notification title
+         * @param body  The notification text
+         * @param data  Key-value data for the app, or null
+         */
+        public Message(String token, String title, String body, Map<String, String> data) {
+            this.token = token;
+            this.title = title;
+            this.body = body;
+            this.data = data == null ? Collections.emptyMap() : data;
+        }
+
+        /**
+         * Creates the push message for a stored notification.
+         *
+         * @param token        The recipient's registration token
+         * @param notification The notification
+         * @return The message
+         */
+        public static Message forNotification(String token, Notification notification) {
+            Map<String, String> data = new LinkedHashMap<>();
+            data.put("notificationId", notification.getNotificationId());
+            if (notification.getEventId() != null) {
+                data.put("eventId", notification.getEventId());
+            }
+            if (notification.getType() != null) {
+                data.put("type", notification.getType().name());
+            }
+            return new Message(token, notification.getEventTitle(), notification.getMessage(), data);
+        }
+
+        /**
+         * Gets the device's registration token.
+         *
+         * @return The token
+         */
+        public String getToken() {
+            return token;
+        }
+    }
+
+    /**
+     * Creates a dispatcher over the shared client, with the default rate limit and retries.
+     *
+     * @param endpoint      The URL messages are posted to
+     * @param authorization The value of the {@code Authorization} header
+     */
+    public PushDispatcher(String endpoint, String authorization) {
+        this(sharedClient(), endpoint, authorization, DEFAULT_REQUESTS_PER_SECOND, RetryPolicy.DEFAULT);
+    }
+
+    /**
+     * Creates a dispatcher.
+     *
+     * @param client            The HTTP client
+     * @param endpoint          The URL messages are posted to
+     * @param authorization     The value of the {@code Authorization} header
+     * @param requestsPerSecond The most requests started per second
+     * @param retryPolicy       How often and how long to wait before retrying a failed request
+     */
+    public PushDispatcher(OkHttpClient client, String endpoint, String authorization,
+                          double requestsPerSecond, RetryPolicy retryPolicy) {
+        if (requestsPerSecond <= 0) {
+            throw new IllegalArgumentException("requestsPerSecond must be positive");
+        }
+        this.client = client;
+        this.endpoint = endpoint;
+        this.authorization = authorization;
+        this.retryPolicy = retryPolicy;
+        this.intervalNanos = (long) (TimeUnit.SECONDS.toNanos(1) / requestsPerSecond);
+    }
+
+    /**
+     * Gets the HTTP client shared by every dispatcher, so they share its connection pool.
+     *
+     * @return The shared client
+     */
+    public static synchronized OkHttpClient sharedClient() {
+        if (sharedClient == null) {
+            Dispatcher dispatcher = new Dispatcher();
+            dispatcher.setMaxRequestsPerHost(MAX_REQUESTS_PER_HOST);
+            sharedClient = new OkHttpClient.Builder()
+                    .dispatcher(dispatcher)
+                    .connectionPool(new ConnectionPool(5, 5, TimeUnit.MINUTES))
+                    .protocols(Arrays.asList(Protocol.HTTP_2, Protocol.HTTP_1_1))
+                    .connectTimeout(10, TimeUnit.SECONDS)
+                    .callTimeout(30, TimeUnit.SECONDS)
+                    .build();
+        }
+        return sharedClient;
+    }
+
+    /**
+     * Sends messages, grouping those with the same content into shared requests.
+     * Messages without a token are counted as failed.
+     *
+     * @param messages The messages to send
+     * @return A future completed once every request has finished; never exceptional
+     */
+    public CompletableFuture<PushResult> send(List<Message> messages) {
+        Tally tally = new Tally(messages.size());
+        Map<String, List<String>> tokensByPayload = new LinkedHashMap<>();
+        for (Message message : messages) {
+            if (message.token == null || message.token.isEmpty()) {
+                tally.finish(0, 1);
+                continue;
+            }
+            String payload = payload(message);
+            List<String> tokens = tokensByPayload.get(payload);
+            if (tokens == null) {
+                tokens = new ArrayList<>();
+                tokensByPayload.put(payload, tokens);
+            }
+            tokens.add(message.token);
+        }
+
+        List<CompletableFuture<Void>> requests = new ArrayList<>();
+        for (Map.Entry<String, List<String>> group : tokensByPayload.entrySet()) {
+            List<String> tokens = group.getValue();
+            for (int i = 0; i < tokens.size(); i += MAX_TOKENS_PER_REQUEST) {
+                List<String> chunk = tokens.subList(i, Math.min(tokens.size(), i + MAX_TOKENS_PER_REQUEST));
+                requests.add(post(group.getKey(), chunk, 1, tally));
+            }
+        }
+        return CompletableFuture.allOf(requests.toArray(new CompletableFuture[0]))
+                .thenApply(ignored -> tally.result());
+    }
+
+    /**
+     * Posts one request once the rate limit allows, retrying transient failures.
+     */
+    private CompletableFuture<Void> post(String payload, List<String> tokens, int attempt, Tally tally) {
+        CompletableFuture<Void> done = new CompletableFuture<>();
+        StringBuilder json = new StringBuilder("{\"registration_ids\":[");
+        for (int i = 0; i < tokens.size(); i++) {
+            if (i > 0) json.append(',');
+            quote(json, tokens.get(i));
+        }
+        json.append("],").append(payload).append('}');
+        Request request = new Request.Builder()
+                .url(endpoint)
+                .header("Authorization", authorization)
+                .post(RequestBody.create(json.toString(), JSON))
+                .build();
+
+        Runnable enqueue = () -> {
+            tally.requestStarted(attempt > 1);
+            client.newCall(request).enqueue(new Callback() {
+                @Override
+                public void onFailure(Call call, IOException e) {
+                    retryOrFail(-1);
+                }
+
+                @Override
+                public void onResponse(Call call, Response response) {
+                    int code = response.code();
+                    String retryAfter = response.header("Retry-After");
+                    String body = "";
+                    try (ResponseBody responseBody = response.body()) {
+                        if (responseBody != null) body = responseBody.string();
+                    } catch (IOException e) {
+                        // The status is enough to count the request
+                    }
+                    if (response.isSuccessful()) {
+                        Matcher success = SUCCESS.matcher(body);
+                        Matcher failure = FAILURE.matcher(body);
+                        int delivered = success.find() ? Integer.parseInt(success.group(1)) : tokens.size();
+                        int failed = failure.find() ? Integer.parseInt(failure.group(1)) : tokens.size() - delivered;
+                        tally.finish(delivered, failed);
+                        done.complete(null);
+                    } else if (code == 429 || code >= 500) {
+                        retryOrFail(retryAfterMillis(retryAfter));
+                    } else {
+                        tally.finish(0, tokens.size());
+                        done.complete(null);
+                    }
+                }
+
+                private void retryOrFail(long retryAfterMillis) {
+                    if (attempt >= retryPolicy.getMaxAttempts()) {
+                        tally.finish(0, tokens.size());
+                        done.complete(null);
+                        return;
+                    }
+                    long delay = retryAfterMillis >= 0 ? retryAfterMillis : retryPolicy.nextDelayMillis(attempt);
+                    SCHEDULER.schedule(() -> post(payload, tokens, attempt + 1, tally)
+                            .whenComplete((ignored, error) -> done.complete(null)), delay, TimeUnit.MILLISECONDS);
+                }
+            });
+        };
+
+        long delay = reserveSlot();
+        if (delay == 0) {
+            enqueue.run();
+        } else {
+            SCHEDULER.schedule(enqueue, delay, TimeUnit.NANOSECONDS);
+        }
+        return done;
+    }
+
+    /**
+     * Reserves the next start time the rate limit allows.
+     *
+     * @return How long to wait before starting, in nanoseconds
+     */
+    private synchronized long reserveSlot() {
+        long now = System.nanoTime();
+        long slot = Math.max(now, nextSlotNanos);
+        nextSlotNanos = slot + intervalNanos;
+        return slot - now;
+    }
+
+    /** Reads a Retry-After header given in seconds, or -1 if there is none. */
+    private static long retryAfterMillis(String header) {
+        if (header == null) return -1;
+        try {
+            return TimeUnit.SECONDS.toMillis(Long.parseLong(header.trim()));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    /** Builds the part of a request body shared by every token it is sent to. */
+    private static String payload(Message message) {
+        StringBuilder json = new StringBuilder("\"notification\":{\"title\":");
+        quote(json, message.title);
+        json.append(",\"body\":");
+        quote(json, message.body);
+        json.append("},\"data\":{");
+        boolean first = true;
+        for (Map.Entry<String, String> entry : message.data.entrySet()) {
+            if (!first) json.append(',');
+            first = false;
+            quote(json, entry.getKey());
+            json.append(':');
+            quote(json, entry.getValue());
+        }
+        return json.append('}').toString();
+    }
+
+    /** Appends a JSON string, or null. */
+    private static void quote(StringBuilder json, String value) {
+        if (value == null) {
+            json.append("null");
+            return;
+        }
+        json.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"': json.append("\\\""); break;
+                case '\\': json.append("\\\\"); break;
+                case '\n': json.append("\\n"); break;
+                case '\r': json.append("\\r"); break;
+                case '\t': json.append("\\t"); break;
+                default:
+                    if (c < 0x20) {
+                        json.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        json.append(c);
+                    }
+            }
+        }
+        json.append('"');
+    }
+
+    /** Counts the outcome of one {@link #send} call. */
+    private static final class Tally {
+        final int messages;
+        final long start = System.nanoTime();
+        int delivered;
+        int failed;
+        int requests;
+        int retries;
+        long end;
+
+        Tally(int messages) {
+            this.messages = messages;
+        }
+
+        synchronized void requestStarted(boolean retry) {
+            requests++;
+            if (retry) retries++;
+        }
+
+        synchronized void finish(int delivered, int failed) {
+            this.delivered += delivered;
+            this.failed += failed;
+            end = System.nanoTime();
+        }
+
+        synchronized PushResult result() {
+            return new PushResult(messages, delivered, failed, requests, retries,
+                    Math.max(end, start) - start);
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package com.example.sprite.Controllers;
+
+import java.util.Locale;
+
+/**
+ * The outcome of a {@link PushDispatcher#send} call.
+ */
+public final class PushResult {
+
+    private final int messages;
+    private final int delivered;
+    private final int failed;
+    private final int requests;
+    private final int retries;
+    private final long elapsedNanos;
+
+    /**
+     * Creates a result.
+     *
+     * @param messages     Messages handed to the dispatcher
+     * @param delivered    Messages the endpoint accepted
+     * @param failed       Messages the endpoint rejected, or whose request failed
+     * @param requests     HTTP requests sent, including retries
+     * @param retries      Requests that were sent again after a transient failure
+     * @param elapsedNanos Time from the call to the last response
+     */
+    public PushResult(int messages, int delivered, int failed, int requests, int retries, long elapsedNanos) {
+        this.messages = messages;
+        this.delivered = delivered;
+        this.failed = failed;
+        this.requests = requests;
+        this.retries = retries;
+        this.elapsedNanos = elapsedNanos;
+    }
+
+    /**
+     * Gets the number of messages handed to the dispatcher.
+     *
+     * @return The message count
+     */
+    public int getMessages() {
+        return messages;
+    }
+
+    /**
+     * Gets the number of messages the endpoint accepted.
+     *
+     * @return The delivered count
+     */
+    public int getDelivered() {
+        return delivered;
+    }
+
+    /**
+     * Gets the number of messages that were not delivered.
+     *
+     * @return The failed count
+     */
+    public int getFailed() {
+        return failed;
+    }
+
+    /**
+     * Gets the number of HTTP requests sent, including retries.
+     *
+     * @return The request count
+     */
+    public int getRequests() {
+        return requests;
+    }
+
+    /**
+     * Gets the number of requests that were retried.
+     *
+     * @return The retry count
+     */
+    public int getRetries() {
+        return retries;
+    }
+
+    /**
+     * Gets the time the send took.
+     *
+     * @return The elapsed time in nanoseconds
+     */
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+
+    /**
+     * Gets the delivery rate.
+     *
+     * @return Messages delivered per second
+     */
+    public double getMessagesPerSecond() {
+        return elapsedNanos == 0 ? 0 : delivered / (elapsedNanos / 1e9);
+    }
+
+    @Override
+    public String toString() {
+        return String.format(Locale.US, "%d/%d delivered, %d failed; %d requests (%d retries) in %.1f ms, %.0f msg/s",
+                delivered, messages, failed, requests, retries, elapsedNanos / 1e6, getMessagesPerSecond());
+    }
+}
@@ -0,0 +1,69 @@
+package com.example.sprite.Controllers;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Remembers the notification IDs this process has recently sent, so a repeated
+ * send is dropped before it reaches the network.
+ *
+ * <p>Notification IDs are derived from what the notification is about (see
+ * {@link NotificationService#notificationId}), so the same ID always means the
+ * same notification. This cache only covers sends from this process; writing a
+ * notification whose document already exists replaces it, so senders also check the
+ * store for it (see {@link NotificationFanout}) before writing. The most recently
+ * claimed IDs are kept, up to a fixed count.</p>
+ */
+public class RecentSends {
+
+    private static final int DEFAULT_CAPACITY = 4096;
+
+    private static RecentSends shared;
+
+    private final LinkedHashMap<String, Boolean> sent;
+
+    /**
+     * Creates an empty cache.
+     *
+     * @param capacity The most IDs remembered
+     */
+    RecentSends(int capacity) {
+        this.sent = new LinkedHashMap<String, Boolean>(capacity, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Boolean> eldest) {
+                return size() > capacity;
+            }
+        };
+    }
+
+    /**
+     * Gets the cache shared by the app's notification senders.
+     *
+     * @return The shared cache
+     */
+    public static synchronized RecentSends getInstance() {
+        if (shared == null) {
+            shared = new RecentSends(DEFAULT_CAPACITY);
+        }
+        return shared;
+    }
+
+    /**
+     * Claims a notification ID for sending.
+     *
+     * @param notificationId The notification ID
+     * @return true if the caller should send it; false if it was sent or claimed recently
+     */
+    public synchronized boolean claim(String notificationId) {
+        return sent.put(notificationId, Boolean.TRUE) == null;
+    }
+
+    /**
+     * Releases a claimed ID whose send failed, so it can be sent again.
+     *
+     * @param notificationId The notification ID
+     */
+    public synchronized void release(String notificationId) {
+        sent.remove(notificationId);
+    }
+}
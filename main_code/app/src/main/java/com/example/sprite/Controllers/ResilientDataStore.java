@@ -0,0 +1,175 @@
+package com.example.sprite.Controllers;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+
+/**
+ * A {@link DataStore} decorator that sends writes through a {@link ResilientWriter}.
+ *
+ * <p>Sets, deletes and updates made only of plain values or array union/remove are
+ * idempotent and are retried. Updates containing an {@link StoreValues#increment}
+ * would double-count if an acknowledged attempt were repeated, so they are sent
+ * once. Batches are replayed from their recorded writes on each attempt, and
+ * transactions are always safe to retry because their body re-reads. Reads are
+ * passed straight through.</p>
+ */
+public class ResilientDataStore implements DataStore {
+
+    private static final String TRANSACTIONS = "transactions";
+
+    private final DataStore delegate;
+    private final ResilientWriter writer;
+
+    /**
+     * Wraps a store using the shared {@link ResilientWriter}.
+     *
+     * @param delegate The store to protect
+     */
+    public ResilientDataStore(DataStore delegate) {
+        this(delegate, ResilientWriter.getInstance());
+    }
+
+    /**
+     * Wraps a store using a specific writer.
+     *
+     * @param delegate The store to protect
+     * @param writer   The writer holding the retry policy and breakers
+     */
+    public ResilientDataStore(DataStore delegate, ResilientWriter writer) {
+        this.delegate = delegate;
+        this.writer = writer;
+    }
+
+    @Override
+    public String newDocumentId(String collection) {
+        return delegate.newDocumentId(collection);
+    }
+
+    @Override
+    public CompletableFuture<StoreDocument> get(String collection, String documentId) {
+        return delegate.get(collection, documentId);
+    }
+
+    @Override
+    public CompletableFuture<Void> set(String collection, String documentId, Map<String, Object> data) {
+        if (containsIncrement(data)) {
+            return writer.executeOnce(collection, () -> delegate.set(collection, documentId, data));
+        }
+        return writer.execute(collection, () -> delegate.set(collection, documentId, data));
+    }
+
+    @Override
+    public CompletableFuture<Void> update(String collection, String documentId, Map<String, Object> updates) {
+        if (containsIncrement(updates)) {
+            return writer.executeOnce(collection, () -> delegate.update(collection, documentId, updates));
+        }
+        return writer.execute(collection, () -> delegate.update(collection, documentId, updates));
+    }
+
+    @Override
+    public CompletableFuture<Void> delete(String collection, String documentId) {
+        return writer.execute(collection, () -> delegate.delete(collection, documentId));
+    }
+
+    @Override
+    public CompletableFuture<List<StoreDocument>> query(StoreQuery query) {
+        return delegate.query(query);
+    }
+
+    @Override
+    public StoreBatch batch() {
+        return new ResilientBatch();
+    }
+
+    @Override
+    public <T> CompletableFuture<T> runTransaction(StoreTransaction.Function<T> function) {
+        return writer.execute(TRANSACTIONS, () -> delegate.runTransaction(function));
+    }
+
+    /**
+     * Checks whether a write contains an increment anywhere, including nested maps.
+     */
+    static boolean containsIncrement(Object value) {
+        if (value instanceof StoreValues.Increment) {
+            return true;
+        }
+        if (value instanceof Map) {
+            for (Object nested : ((Map<?, ?>) value).values()) {
+                if (containsIncrement(nested)) return true;
+            }
+        } else if (value instanceof Collection) {
+            for (Object nested : (Collection<?>) value) {
+                if (containsIncrement(nested)) return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Records writes so a fresh delegate batch can be built for every attempt.
+     * The breaker used is that of the first collection written.
+     */
+    private final class ResilientBatch implements StoreBatch {
+        private final List<Consumer<StoreBatch>> writes = new ArrayList<>();
+        private String collection;
+        private boolean idempotent = true;
+
+        @Override
+        public StoreBatch set(String collection, String documentId, Map<String, Object> data) {
+            record(collection, containsIncrement(data), batch -> batch.set(collection, documentId, data));
+            return this;
+        }
+
+        @Override
+        public StoreBatch merge(String collection, String documentId, Map<String, Object> data) {
+            record(collection, containsIncrement(data), batch -> batch.merge(collection, documentId, data));
+            return this;
+        }
+
+        @Override
+        public StoreBatch update(String collection, String documentId, Map<String, Object> updates) {
+            record(collection, containsIncrement(updates), batch -> batch.update(collection, documentId, updates));
+            return this;
+        }
+
+        @Override
+        public StoreBatch delete(String collection, String documentId) {
+            record(collection, false, batch -> batch.delete(collection, documentId));
+            return this;
+        }
+
+        @Override
+        public int size() {
+            return writes.size();
+        }
+
+        @Override
+        public CompletableFuture<Void> commit() {
+            if (writes.isEmpty()) {
+                return CompletableFuture.completedFuture(null);
+            }
+            List<Consumer<StoreBatch>> snapshot = new ArrayList<>(writes);
+            return idempotent
+                    ? writer.execute(collection, () -> replay(snapshot))
+                    : writer.executeOnce(collection, () -> replay(snapshot));
+        }
+
+        private void record(String collection, boolean increments, Consumer<StoreBatch> write) {
+            if (this.collection == null) this.collection = collection;
+            if (increments) idempotent = false;
+            writes.add(write);
+        }
+
+        private CompletableFuture<Void> replay(List<Consumer<StoreBatch>> snapshot) {
+            StoreBatch batch = delegate.batch();
+            for (Consumer<StoreBatch> write : snapshot) {
+                write.accept(batch);
+            }
+            return batch.commit();
+        }
+    }
+}
@@ -0,0 +1,160 @@
+package com.example.sprite.Controllers;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Runs store writes with retry and a circuit breaker per collection.
+ *
+ * <p>{@link #execute(String, Supplier)} is for idempotent writes (document sets,
+ * deletes, plain field updates): transient failures are retried with the
+ * {@link RetryPolicy}'s backoff, so a write whose acknowledgement was lost is
+ * simply applied again. {@link #executeOnce(String, Supplier)} is for writes that
+ * must not be repeated, such as increments; it only goes through the breaker.</p>
+ *
+ * <p>Only transient failures count against a collection's breaker. A rejected
+ * write fails with {@link CircuitBreaker.OpenException} without reaching the
+ * backend. Each attempt is issued by calling the supplier again, so Firestore
+ * writes still complete on the main thread.</p>
+ */
+public class ResilientWriter {
+
+    private static final ResilientWriter INSTANCE =
+            new ResilientWriter(RetryPolicy.DEFAULT, 5, 30_000, System::currentTimeMillis);
+
+    private final RetryPolicy policy;
+    private final int failureThreshold;
+    private final long openMillis;
+    private final LongSupplier clock;
+    private final ConcurrentHashMap<String, CircuitBreaker> breakers = new ConcurrentHashMap<>();
+    private final LongAdder retries = new LongAdder();
+    private final LongAdder rejections = new LongAdder();
+
+    /**
+     * Creates a writer.
+     *
+     * @param policy           The retry policy
+     * @param failureThreshold Consecutive transient failures that open a collection's breaker
+     * @param openMillis       How long an open breaker rejects writes
+     * @param clock            Supplies the current time in milliseconds
+     */
+    public ResilientWriter(RetryPolicy policy, int failureThreshold, long openMillis, LongSupplier clock) {
+        this.policy = policy;
+        this.failureThreshold = failureThreshold;
+        this.openMillis = openMillis;
+        this.clock = clock;
+    }
+
+    /**
+     * Gets the writer shared by the app's services, so they see the same breakers.
+     *
+     * @return The shared writer
+     */
+    public static ResilientWriter getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Gets (creating if needed) the breaker for a collection.
+     *
+     * @param collection The collection name
+     * @return The breaker
+     */
+    public CircuitBreaker breaker(String collection) {
+        return breakers.computeIfAbsent(collection,
+                name -> new CircuitBreaker(name, failureThreshold, openMillis, clock));
+    }
+
+    /**
+     * Gets the number of retries issued so far.
+     *
+     * @return The retry count
+     */
+    public long getRetryCount() {
+        return retries.sum();
+    }
+
+    /**
+     * Gets the number of writes rejected by an open breaker.
+     *
+     * @return The rejection count
+     */
+    public long getRejectionCount() {
+        return rejections.sum();
+    }
+
+    /**
+     * Runs an idempotent write, retrying transient failures.
+     *
+     * @param collection The collection the write targets
+     * @param write      Issues one attempt of the write
+     * @param <T>        The result type
+     * @return A future with the result of the first successful attempt, or the last failure
+     */
+    public <T> CompletableFuture<T> execute(String collection, Supplier<CompletableFuture<T>> write) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        attempt(collection, write, true, 1, result);
+        return result;
+    }
+
+    /**
+     * Runs a non-idempotent write once, guarded by the collection's breaker.
+     *
+     * @param collection The collection the write targets
+     * @param write      Issues the write
+     * @param <T>        The result type
+     * @return A future with the write's result
+     */
+    public <T> CompletableFuture<T> executeOnce(String collection, Supplier<CompletableFuture<T>> write) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        attempt(collection, write, false, 1, result);
+        return result;
+    }
+
+    private <T> void attempt(String collection, Supplier<CompletableFuture<T>> write, boolean retry,
+                             int attempt, CompletableFuture<T> result) {
+        if (result.isDone()) {
+            return;
+        }
+        CircuitBreaker breaker = breaker(collection);
+        if (!breaker.tryAcquire()) {
+            rejections.increment();
+            result.completeExceptionally(new CircuitBreaker.OpenException(collection));
+            return;
+        }
+
+        CompletableFuture<T> future;
+        try {
+            future = write.get();
+        } catch (RuntimeException e) {
+            future = new CompletableFuture<>();
+            future.completeExceptionally(e);
+        }
+
+        future.whenComplete((value, error) -> {
+            if (error == null) {
+                breaker.recordSuccess();
+                result.complete(value);
+                return;
+            }
+            boolean transientFailure = policy.isRetryable(error);
+            if (transientFailure) {
+                breaker.recordFailure();
+            } else {
+                // The backend answered, so it is reachable; the request itself was bad.
+                breaker.recordSuccess();
+            }
+            if (!retry || !transientFailure || attempt >= policy.getMaxAttempts()) {
+                result.completeExceptionally(TaskFutures.unwrap(error));
+                return;
+            }
+            retries.increment();
+            TaskFutures.delay(policy.nextDelayMillis(attempt), TimeUnit.MILLISECONDS)
+                    .thenRun(() -> attempt(collection, write, true, attempt + 1, result));
+        });
+    }
+}
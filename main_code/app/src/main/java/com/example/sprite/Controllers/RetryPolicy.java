@@ -0,0 +1,95 @@
+package com.example.sprite.Controllers;
+
+import com.google.firebase.firestore.FirebaseFirestoreException;
+
+import java.io.IOException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Capped exponential backoff with full jitter.
+ *
+ * <p>The delay before retry {@code n} is a random value between zero and
+ * {@code min(maxDelay, baseDelay * 2^(n-1))}. Spreading retries over the whole
+ * window keeps many clients that failed together from retrying together.</p>
+ */
+public class RetryPolicy {
+
+    /** Policy used for app writes: 5 attempts, 200 ms base delay, capped at 10 s. */
+    public static final RetryPolicy DEFAULT = new RetryPolicy(5, 200, 10_000);
+
+    private final int maxAttempts;
+    private final long baseDelayMillis;
+    private final long maxDelayMillis;
+
+    /**
+     * Creates a policy.
+     *
+     * @param maxAttempts     Total attempts, including the first
+     * @param baseDelayMillis Upper bound of the first retry delay
+     * @param maxDelayMillis  Cap on any retry delay
+     */
+    public RetryPolicy(int maxAttempts, long baseDelayMillis, long maxDelayMillis) {
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.baseDelayMillis = Math.max(0, baseDelayMillis);
+        this.maxDelayMillis = Math.max(this.baseDelayMillis, maxDelayMillis);
+    }
+
+    /**
+     * Gets the total number of attempts, including the first.
+     *
+     * @return The attempt limit
+     */
+    public int getMaxAttempts() {
+        return maxAttempts;
+    }
+
+    /**
+     * Gets the upper bound of the delay before a retry.
+     *
+     * @param attempt The attempt that just failed, starting at 1
+     * @return The backoff ceiling in milliseconds
+     */
+    public long getBackoffCeilingMillis(int attempt) {
+        int doublings = Math.min(Math.max(0, attempt - 1), 30);
+        return Math.min(maxDelayMillis, baseDelayMillis << doublings);
+    }
+
+    /**
+     * Picks the delay before the next attempt.
+     *
+     * @param attempt The attempt that just failed, starting at 1
+     * @return A random delay in milliseconds, up to the backoff ceiling
+     */
+    public long nextDelayMillis(int attempt) {
+        long ceiling = getBackoffCeilingMillis(attempt);
+        return ceiling == 0 ? 0 : ThreadLocalRandom.current().nextLong(ceiling + 1);
+    }
+
+    /**
+     * Decides whether a failure is transient. Firestore errors are retried only
+     * for codes that mean the request may succeed later; timeouts and I/O
+     * errors are always retried.
+     *
+     * @param error The failure
+     * @return True if the operation may be retried
+     */
+    public boolean isRetryable(Throwable error) {
+        Throwable cause = TaskFutures.unwrap(error);
+        if (cause instanceof FirebaseFirestoreException) {
+            switch (((FirebaseFirestoreException) cause).getCode()) {
+                case ABORTED:
+                case CANCELLED:
+                case DEADLINE_EXCEEDED:
+                case INTERNAL:
+                case RESOURCE_EXHAUSTED:
+                case UNAVAILABLE:
+                case UNKNOWN:
+                    return true;
+                default:
+                    return false;
+            }
+        }
+        return cause instanceof TimeoutException || cause instanceof IOException;
+    }
+}
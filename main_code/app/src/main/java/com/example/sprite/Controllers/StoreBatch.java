@@ -0,0 +1,68 @@
+package com.example.sprite.Controllers;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * A group of writes committed atomically through a {@link DataStore}.
+ * Firestore limits a batch to 500 writes; see {@link #MAX_WRITES}.
+ */
+public interface StoreBatch {
+
+    /** Maximum number of writes a single batch may contain. */
+    int MAX_WRITES = 500;
+
+    /**
+     * Adds a create-or-overwrite write.
+     *
+     * @param collection The collection name
+     * @param documentId The document ID
+     * @param data       The full document contents
+     * @return This batch
+     */
+    StoreBatch set(String collection, String documentId, Map<String, Object> data);
+
+    /**
+     * Adds a write that merges fields into a document, creating it if it is missing.
+     * Fields not named in {@code data} are kept.
+     *
+     * @param collection The collection name
+     * @param documentId The document ID
+     * @param data       The fields to write
+     * @return This batch
+     */
+    StoreBatch merge(String collection, String documentId, Map<String, Object> data);
+
+    /**
+     * Adds an update of an existing document.
+     *
+     * @param collection The collection name
+     * @param documentId The document ID
+     * @param updates    The fields to change
+     * @return This batch
+     */
+    StoreBatch update(String collection, String documentId, Map<String, Object> updates);
+
+    /**
+     * Adds a delete.
+     *
+     * @param collection The collection name
+     * @param documentId The document ID
+     * @return This batch
+     */
+    StoreBatch delete(String collection, String documentId);
+
+    /**
+     * Gets the number of writes added so far.
+     *
+     * @return The write count
+     */
+    int size();
+
+    /**
+     * Commits every write in the batch. Either all writes apply or none do.
+     *
+     * @return A future completed when the batch is durable in the backend
+     */
+    CompletableFuture<Void> commit();
+}
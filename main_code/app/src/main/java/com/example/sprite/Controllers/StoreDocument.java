@@ -0,0 +1,97 @@
+package com.example.sprite.Controllers;
+
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * An immutable snapshot of a single document read from a {@link DataStore}.
+ *
+ * <p>A snapshot for a document that does not exist has {@code null} data and
+ * {@link #exists()} returns {@code false}.</p>
+ */
+public final class StoreDocument {
+
+    private final String id;
+    private final Map<String, Object> data;
+
+    /**
+     * Creates a document snapshot.
+     *
+     * @param id   The document ID
+     * @param data The document fields, or {@code null} if the document does not exist
+     */
+    public StoreDocument(String id, Map<String, Object> data) {
+        this.id = id;
+        this.data = data == null ? null : Collections.unmodifiableMap(data);
+    }
+
+    /**
+     * Gets the document ID.
+     *
+     * @return The document ID
+     */
+    public String getId() {
+        return id;
+    }
+
+    /**
+     * Checks whether the document exists.
+     *
+     * @return true if the document exists, false otherwise
+     */
+    public boolean exists() {
+        return data != null;
+    }
+
+    /**
+     * Gets all fields of the document.
+     *
+     * @return An unmodifiable view of the fields, or {@code null} if the document does not exist
+     */
+    public Map<String, Object> getData() {
+        return data;
+    }
+
+    /**
+     * Gets a single field.
+     *
+     * @param field The field name
+     * @return The field value, or {@code null} if absent
+     */
+    public Object get(String field) {
+        return data == null ? null : data.get(field);
+    }
+
+    /**
+     * Gets a string field.
+     *
+     * @param field The field name
+     * @return The value, or {@code null} if absent or not a string
+     */
+    public String getString(String field) {
+        Object value = get(field);
+        return value instanceof String ? (String) value : null;
+    }
+
+    /**
+     * Gets a numeric field as a long.
+     *
+     * @param field The field name
+     * @return The value, or {@code null} if absent or not a number
+     */
+    public Long getLong(String field) {
+        Object value = get(field);
+        return value instanceof Number ? ((Number) value).longValue() : null;
+    }
+
+    /**
+     * Gets a boolean field.
+     *
+     * @param field The field name
+     * @return The value, or {@code null} if absent or not a boolean
+     */
+    public Boolean getBoolean(String field) {
+        Object value = get(field);
+        return value instanceof Boolean ? (Boolean) value : null;
+    }
+}
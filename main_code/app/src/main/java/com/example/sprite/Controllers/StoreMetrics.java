@@ -0,0 +1,362 @@
+package com.example.sprite.Controllers;
+
+import android.util.Log;
+
+import com.google.android.gms.tasks.Task;
+import com.google.firebase.Timestamp;
+import com.google.firebase.firestore.DocumentReference;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.GeoPoint;
+import com.google.firebase.firestore.QuerySnapshot;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Process-wide latency and payload metrics for store operations.
+ *
+ * <p>Every {@link DatabaseService} and {@link NotificationService} Firestore call is
+ * passed through {@link #track(String, Task)}, and {@link DataStore} calls are
+ * recorded by {@link InstrumentedDataStore}. For each operation name this keeps a
+ * latency histogram, call and error counts, document counts and approximate bytes
+ * in and out (using Firestore's document size rules).</p>
+ *
+ * <p>Recording is lock-free. Payload sizes are only estimated for a random sample
+ * of calls (see {@link #setPayloadSampleRate(int)}) and scaled up. Estimating walks
+ * every field of the documents, so it runs on a low-priority background thread rather
+ * than the listener thread, which is usually the main thread; samples that arrive while
+ * it is behind are dropped.</p>
+ */
+public final class StoreMetrics {
+
+    private static final String TAG = "StoreMetrics";
+    private static final StoreMetrics INSTANCE = new StoreMetrics();
+
+    /** By default the payload of one call in four is measured. */
+    static final int DEFAULT_PAYLOAD_SAMPLE_RATE = 4;
+    private static final int MAX_DEPTH = 8;
+    /** Payloads waiting to be measured; more than this and samples are dropped. */
+    private static final int MAX_PENDING_ESTIMATES = 64;
+    private static final Map<Class<?>, Method[]> GETTERS = new ConcurrentHashMap<>();
+
+    private final ConcurrentHashMap<String, OperationStats> operations = new ConcurrentHashMap<>();
+    private volatile boolean enabled = true;
+    private volatile int payloadSampleRate = DEFAULT_PAYLOAD_SAMPLE_RATE;
+    private final Executor sizeExecutor;
+
+    /**
+     * Creates an empty registry that measures payloads in the background. Most code should
+     * use {@link #getInstance()}.
+     */
+    StoreMetrics() {
+        this(sizeExecutor());
+    }
+
+    /**
+     * Creates an empty registry.
+     *
+     * @param sizeExecutor Runs payload size estimates
+     */
+    StoreMetrics(Executor sizeExecutor) {
+        this.sizeExecutor = sizeExecutor;
+    }
+
+    private static Executor sizeExecutor() {
+        return new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(MAX_PENDING_ESTIMATES), task -> {
+                    Thread thread = new Thread(task, "StoreMetricsSizes");
+                    thread.setDaemon(true);
+                    thread.setPriority(Thread.MIN_PRIORITY);
+                    return thread;
+                }, new ThreadPoolExecutor.DiscardPolicy());
+    }
+
+    /**
+     * Gets the shared metrics registry.
+     *
+     * @return The process-wide instance
+     */
+    public static StoreMetrics getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Turns recording on or off. Disabled tracking adds no listeners at all.
+     *
+     * @param enabled Whether to record metrics
+     */
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    /**
+     * Sets how often payload sizes are measured: one call in {@code rate}.
+     * Use 1 to measure every call.
+     *
+     * @param rate The sampling rate
+     */
+    public void setPayloadSampleRate(int rate) {
+        this.payloadSampleRate = Math.max(1, rate);
+    }
+
+    /**
+     * Records the outcome of a read-only task.
+     *
+     * @param operation The operation name
+     * @param task      The task to observe
+     * @param <T>       The task's result type
+     * @return The same task, for chaining
+     */
+    public <T> Task<T> track(String operation, Task<T> task) {
+        return track(operation, task, null);
+    }
+
+    /**
+     * Records the outcome of a task that sends a payload, such as a set or update.
+     *
+     * @param operation The operation name
+     * @param task      The task to observe
+     * @param payload   The data sent, used to estimate bytes out (may be {@code null})
+     * @param <T>       The task's result type
+     * @return The same task, for chaining
+     */
+    public <T> Task<T> track(String operation, Task<T> task, Object payload) {
+        if (!enabled || task == null) return task;
+        long start = System.nanoTime();
+        task.addOnCompleteListener(completed -> record(operation, System.nanoTime() - start,
+                completed.isSuccessful(), completed.isSuccessful() ? completed.getResult() : null, payload));
+        return task;
+    }
+
+    /**
+     * Records the outcome of a future.
+     *
+     * @param operation The operation name
+     * @param future    The future to observe
+     * @param payload   The data sent, used to estimate bytes out (may be {@code null})
+     * @param <T>       The result type
+     * @return The same future, for chaining
+     */
+    public <T> CompletableFuture<T> track(String operation, CompletableFuture<T> future, Object payload) {
+        if (!enabled) return future;
+        long start = System.nanoTime();
+        future.whenComplete((result, error) ->
+                record(operation, System.nanoTime() - start, error == null, result, payload));
+        return future;
+    }
+
+    /**
+     * Records a completed call, deriving document counts and sizes from its result.
+     *
+     * @param operation    The operation name
+     * @param elapsedNanos How long the call took
+     * @param success      Whether it succeeded
+     * @param result       The call's result, if any
+     * @param payload      The data sent, if any; a collection counts as one document per element
+     */
+    public void record(String operation, long elapsedNanos, boolean success, Object result, Object payload) {
+        long documents = countDocuments(result);
+        if (documents == 0 && payload != null) {
+            // A collection payload is a batch of documents; anything else is one document.
+            documents = payload instanceof Collection ? ((Collection<?>) payload).size() : 1;
+        }
+
+        OperationStats stats = stats(operation);
+        stats.record(elapsedNanos, success, documents, 0, 0);
+        int rate = payloadSampleRate;
+        if ((result != null || payload != null)
+                && (rate == 1 || ThreadLocalRandom.current().nextInt(rate) == 0)) {
+            sizeExecutor.execute(() -> {
+                try {
+                    stats.recordBytes(estimateResultSize(result) * rate,
+                            (payload != null ? estimateSize(payload, 0) : 0) * rate);
+                } catch (RuntimeException ignored) {
+                    // The payload changed while it was measured; this is only an estimate.
+                }
+            });
+        }
+    }
+
+    /**
+     * Gets (creating if needed) the stats for an operation.
+     *
+     * @param operation The operation name
+     * @return The stats
+     */
+    public OperationStats stats(String operation) {
+        OperationStats stats = operations.get(operation);
+        return stats != null ? stats : operations.computeIfAbsent(operation, OperationStats::new);
+    }
+
+    /**
+     * Takes a snapshot of every operation, most expensive (by total latency) first.
+     *
+     * @return The snapshots
+     */
+    public List<OperationStats.Snapshot> snapshot() {
+        List<OperationStats.Snapshot> snapshots = new ArrayList<>();
+        for (OperationStats stats : operations.values()) {
+            snapshots.add(stats.snapshot());
+        }
+        snapshots.sort((a, b) -> Long.compare(b.totalMicros, a.totalMicros));
+        return snapshots;
+    }
+
+    /**
+     * Formats all operations as a human-readable table, one line per operation.
+     *
+     * @return The report
+     */
+    public String dump() {
+        StringBuilder report = new StringBuilder("Store metrics (by total latency):\n");
+        for (OperationStats.Snapshot snapshot : snapshot()) {
+            report.append(snapshot).append('\n');
+        }
+        return report.toString();
+    }
+
+    /**
+     * Writes {@link #dump()} to logcat.
+     */
+    public void logDump() {
+        for (String line : dump().split("\n")) {
+            Log.d(TAG, line);
+        }
+    }
+
+    /**
+     * Clears every operation's counters.
+     */
+    public void reset() {
+        operations.clear();
+    }
+
+    // ----------------------------
+    // Payload estimation
+    // ----------------------------
+
+    private static long countDocuments(Object result) {
+        if (result instanceof QuerySnapshot) {
+            return ((QuerySnapshot) result).size();
+        }
+        if (result instanceof DocumentSnapshot) {
+            return ((DocumentSnapshot) result).exists() ? 1 : 0;
+        }
+        if (result instanceof StoreDocument) {
+            return ((StoreDocument) result).exists() ? 1 : 0;
+        }
+        if (result instanceof Collection) {
+            return ((Collection<?>) result).size();
+        }
+        return 0;
+    }
+
+    private static long estimateResultSize(Object result) {
+        if (result instanceof QuerySnapshot) {
+            long size = 0;
+            for (DocumentSnapshot doc : ((QuerySnapshot) result).getDocuments()) {
+                size += estimateResultSize(doc);
+            }
+            return size;
+        }
+        if (result instanceof DocumentSnapshot) {
+            DocumentSnapshot doc = (DocumentSnapshot) result;
+            return doc.exists() ? estimateSize(doc.getData(), 0) + doc.getId().length() + 1 : 0;
+        }
+        if (result instanceof StoreDocument) {
+            StoreDocument doc = (StoreDocument) result;
+            return doc.exists() ? estimateSize(doc.getData(), 0) + doc.getId().length() + 1 : 0;
+        }
+        if (result instanceof Collection) {
+            long size = 0;
+            for (Object element : (Collection<?>) result) {
+                size += estimateResultSize(element);
+            }
+            return size;
+        }
+        return 0;
+    }
+
+    /**
+     * Estimates the stored size of a value using Firestore's size rules
+     * (strings count their length plus one, numbers and dates eight bytes, and so on).
+     * Plain Java objects are measured through their public getters, like Firestore's
+     * own mapper.
+     *
+     * @param value The value to measure
+     * @return The approximate size in bytes
+     */
+    static long estimateSize(Object value) {
+        return estimateSize(value, 0);
+    }
+
+    private static long estimateSize(Object value, int depth) {
+        if (value == null || value instanceof Boolean) return 1;
+        if (value instanceof String) return ((String) value).length() + 1;
+        if (value instanceof Number || value instanceof Date || value instanceof Timestamp) return 8;
+        if (value instanceof Enum) return ((Enum<?>) value).name().length() + 1;
+        if (value instanceof GeoPoint) return 16;
+        if (value instanceof byte[]) return ((byte[]) value).length;
+        if (value instanceof DocumentReference) return ((DocumentReference) value).getPath().length() + 1;
+        if (depth >= MAX_DEPTH) return 0;
+
+        long size = 0;
+        if (value instanceof Map) {
+            for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+                size += String.valueOf(entry.getKey()).length() + 1 + estimateSize(entry.getValue(), depth + 1);
+            }
+            return size;
+        }
+        if (value instanceof Collection) {
+            for (Object element : (Collection<?>) value) {
+                size += estimateSize(element, depth + 1);
+            }
+            return size;
+        }
+        if (value instanceof StoreValues.Increment || value instanceof StoreValues.Delete
+                || value instanceof StoreValues.ServerTimestamp) {
+            return 8;
+        }
+        for (Method getter : getters(value.getClass())) {
+            try {
+                size += propertyName(getter).length() + 1 + estimateSize(getter.invoke(value), depth + 1);
+            } catch (ReflectiveOperationException | RuntimeException ignored) {
+                // Getters that throw are skipped; this is only an estimate.
+            }
+        }
+        return size;
+    }
+
+    private static Method[] getters(Class<?> type) {
+        Method[] cached = GETTERS.get(type);
+        if (cached != null) return cached;
+        List<Method> getters = new ArrayList<>();
+        for (Method method : type.getMethods()) {
+            String name = method.getName();
+            boolean isGetter = (name.startsWith("get") && name.length() > 3 && !name.equals("getClass"))
+                    || (name.startsWith("is") && name.length() > 2 && method.getReturnType() == boolean.class);
+            if (isGetter && method.getParameterTypes().length == 0 && !Modifier.isStatic(method.getModifiers())) {
+                getters.add(method);
+            }
+        }
+        cached = getters.toArray(new Method[0]);
+        GETTERS.put(type, cached);
+        return cached;
+    }
+
+    private static String propertyName(Method getter) {
+        return getter.getName().substring(getter.getName().startsWith("is") ? 2 : 3);
+    }
+}
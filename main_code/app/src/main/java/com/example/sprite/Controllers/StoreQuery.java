@@ -0,0 +1,248 @@
+package com.example.sprite.Controllers;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Backend-neutral description of a collection query run through a {@link DataStore}.
+ *
+ * <p>Only the query shapes the app actually uses are supported: equality,
+ * array-contains and "in" filters, a single sort field with an optional
+ * start-after cursor, and a result limit.
+ * Methods return {@code this} so queries can be built fluently:</p>
+ *
+ * <pre>
+ * StoreQuery.collection("events")
+ *         .whereArrayContains("waitingList", userId)
+ *         .orderBy("createdAt", StoreQuery.Direction.DESCENDING)
+ *         .limit(20);
+ * </pre>
+ */
+public final class StoreQuery {
+
+    /** Pseudo-field name that filters on the document ID instead of a stored field. */
+    public static final String DOCUMENT_ID = "__name__";
+
+    /**
+     * Supported filter operators.
+     */
+    public enum Operator {
+        /** Field equals the value. */
+        EQUAL,
+        /** Array field contains the value. */
+        ARRAY_CONTAINS,
+        /** Field equals one of the values in a list. */
+        IN
+    }
+
+    /**
+     * Sort direction for {@link #orderBy(String, Direction)}.
+     */
+    public enum Direction {
+        /** Smallest values first. */
+        ASCENDING,
+        /** Largest values first. */
+        DESCENDING
+    }
+
+    /**
+     * A single field filter.
+     */
+    public static final class Filter {
+        private final String field;
+        private final Operator operator;
+        private final Object value;
+
+        Filter(String field, Operator operator, Object value) {
+            this.field = field;
+            this.operator = operator;
+            this.value = value;
+        }
+
+        /**
+         * Returns the filtered field.
+         *
+         * @return The filtered field, or {@link #DOCUMENT_ID}
+         */
+        public String getField() {
+            return field;
+        }
+
+        /**
+         * Returns the operator.
+         *
+         * @return The operator
+         */
+        public Operator getOperator() {
+            return operator;
+        }
+
+        /**
+         * Returns the comparison value (a {@link List} for {@link Operator#IN}).
+         *
+         * @return The comparison value (a {@link List} for {@link Operator#IN})
+         */
+        public Object getValue() {
+            return value;
+        }
+    }
+
+    private final String collection;
+    private final List<Filter> filters = new ArrayList<>();
+    private String orderByField;
+    private Direction direction = Direction.ASCENDING;
+    private int limit;
+    private Object startAfter;
+
+    private StoreQuery(String collection) {
+        this.collection = collection;
+    }
+
+    /**
+     * Starts a query over every document in a collection.
+     *
+     * @param collection The collection name
+     * @return A new query
+     */
+    public static StoreQuery collection(String collection) {
+        return new StoreQuery(collection);
+    }
+
+    /**
+     * Keeps documents whose field equals the value.
+     *
+     * @param field The field name
+     * @param value The required value
+     * @return This query
+     */
+    public StoreQuery whereEqualTo(String field, Object value) {
+        filters.add(new Filter(field, Operator.EQUAL, value));
+        return this;
+    }
+
+    /**
+     * Keeps documents whose array field contains the value.
+     *
+     * @param field The array field name
+     * @param value The required element
+     * @return This query
+     */
+    public StoreQuery whereArrayContains(String field, Object value) {
+        filters.add(new Filter(field, Operator.ARRAY_CONTAINS, value));
+        return this;
+    }
+
+    /**
+     * Keeps documents whose field equals one of the values.
+     *
+     * @param field  The field name
+     * @param values The accepted values
+     * @return This query
+     */
+    public StoreQuery whereIn(String field, Collection<?> values) {
+        filters.add(new Filter(field, Operator.IN, new ArrayList<>(values)));
+        return this;
+    }
+
+    /**
+     * Keeps documents whose ID is one of the given IDs.
+     *
+     * @param documentIds The accepted document IDs
+     * @return This query
+     */
+    public StoreQuery whereIdIn(Collection<String> documentIds) {
+        return whereIn(DOCUMENT_ID, documentIds);
+    }
+
+    /**
+     * Sorts results by a field.
+     *
+     * @param field     The field name
+     * @param direction The sort direction
+     * @return This query
+     */
+    public StoreQuery orderBy(String field, Direction direction) {
+        this.orderByField = field;
+        this.direction = direction;
+        return this;
+    }
+
+    /**
+     * Starts results after a value of the sort field, for reading a large collection page
+     * by page. Sort by {@link #DOCUMENT_ID} and pass the last ID of the previous page.
+     *
+     * @param value The sort field value of the last result already read
+     * @return This query
+     */
+    public StoreQuery startAfter(Object value) {
+        this.startAfter = value;
+        return this;
+    }
+
+    /**
+     * Caps the number of results.
+     *
+     * @param limit The maximum number of documents, or 0 for no limit
+     * @return This query
+     */
+    public StoreQuery limit(int limit) {
+        this.limit = limit;
+        return this;
+    }
+
+    /**
+     * Returns the queried collection.
+     *
+     * @return The queried collection
+     */
+    public String getCollection() {
+        return collection;
+    }
+
+    /**
+     * Returns the filters, in the order they were added.
+     *
+     * @return The filters, in the order they were added
+     */
+    public List<Filter> getFilters() {
+        return Collections.unmodifiableList(filters);
+    }
+
+    /**
+     * Returns the sort field.
+     *
+     * @return The sort field, or {@code null} if unsorted
+     */
+    public String getOrderByField() {
+        return orderByField;
+    }
+
+    /**
+     * Returns the sort direction.
+     *
+     * @return The sort direction
+     */
+    public Direction getDirection() {
+        return direction;
+    }
+
+    /**
+     * Returns the start-after cursor.
+     *
+     * @return The sort field value results start after, or {@code null} to start at the beginning
+     */
+    public Object getStartAfter() {
+        return startAfter;
+    }
+
+    /**
+     * Returns the result limit.
+     *
+     * @return The result limit, or 0 for no limit
+     */
+    public int getLimit() {
+        return limit;
+    }
+}
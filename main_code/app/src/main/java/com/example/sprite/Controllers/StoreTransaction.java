@@ -0,0 +1,66 @@
+package com.example.sprite.Controllers;
+
+import java.util.Map;
+
+/**
+ * The view of a {@link DataStore} available inside
+ * {@link DataStore#runTransaction(Function)}. Reads are synchronous and must
+ * happen before any writes, as in Firestore.
+ */
+public interface StoreTransaction {
+
+    /**
+     * Body of a transaction.
+     *
+     * @param <T> The result type
+     */
+    interface Function<T> {
+        /**
+         * Performs the transaction's reads and writes.
+         *
+         * @param transaction The transaction to read and write through
+         * @return The transaction result
+         * @throws Exception to abort the transaction
+         */
+        T apply(StoreTransaction transaction) throws Exception;
+    }
+
+    /**
+     * Reads a document as part of the transaction.
+     *
+     * @param collection The collection name
+     * @param documentId The document ID
+     * @return The snapshot
+     * @throws Exception if the read fails
+     */
+    StoreDocument get(String collection, String documentId) throws Exception;
+
+    /**
+     * Creates or overwrites a document when the transaction commits.
+     *
+     * @param collection The collection name
+     * @param documentId The document ID
+     * @param data       The full document contents
+     * @return This transaction
+     */
+    StoreTransaction set(String collection, String documentId, Map<String, Object> data);
+
+    /**
+     * Updates an existing document when the transaction commits.
+     *
+     * @param collection The collection name
+     * @param documentId The document ID
+     * @param updates    The fields to change
+     * @return This transaction
+     */
+    StoreTransaction update(String collection, String documentId, Map<String, Object> updates);
+
+    /**
+     * Deletes a document when the transaction commits.
+     *
+     * @param collection The collection name
+     * @param documentId The document ID
+     * @return This transaction
+     */
+    StoreTransaction delete(String collection, String documentId);
+}
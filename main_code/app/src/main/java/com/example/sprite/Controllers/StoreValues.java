@@ -0,0 +1,142 @@
+package com.example.sprite.Controllers;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Backend-neutral sentinel values for {@link DataStore} writes, mirroring
+ * Firestore's {@code FieldValue}. Each backend translates them into its own
+ * atomic field operations.
+ */
+public final class StoreValues {
+
+    private StoreValues() {
+    }
+
+    /**
+     * Base type of all sentinel values.
+     */
+    public abstract static class Sentinel {
+        Sentinel() {
+        }
+    }
+
+    /** Atomically adds {@link #getDelta()} to a numeric field. */
+    public static final class Increment extends Sentinel {
+        private final long delta;
+
+        Increment(long delta) {
+            this.delta = delta;
+        }
+
+        /**
+         * Returns the amount to add.
+         *
+         * @return The amount to add
+         */
+        public long getDelta() {
+            return delta;
+        }
+    }
+
+    /** Adds elements to an array field if they are not already present. */
+    public static final class ArrayUnion extends Sentinel {
+        private final List<Object> elements;
+
+        ArrayUnion(List<Object> elements) {
+            this.elements = Collections.unmodifiableList(elements);
+        }
+
+        /**
+         * Returns the elements to add.
+         *
+         * @return The elements to add
+         */
+        public List<Object> getElements() {
+            return elements;
+        }
+    }
+
+    /** Removes every occurrence of the elements from an array field. */
+    public static final class ArrayRemove extends Sentinel {
+        private final List<Object> elements;
+
+        ArrayRemove(List<Object> elements) {
+            this.elements = Collections.unmodifiableList(elements);
+        }
+
+        /**
+         * Returns the elements to remove.
+         *
+         * @return The elements to remove
+         */
+        public List<Object> getElements() {
+            return elements;
+        }
+    }
+
+    /** Removes the field from the document. */
+    public static final class Delete extends Sentinel {
+        Delete() {
+        }
+    }
+
+    /** Sets the field to the backend's commit time. */
+    public static final class ServerTimestamp extends Sentinel {
+        ServerTimestamp() {
+        }
+    }
+
+    private static final Delete DELETE = new Delete();
+    private static final ServerTimestamp SERVER_TIMESTAMP = new ServerTimestamp();
+
+    /**
+     * Creates a value that atomically adds to a numeric field.
+     *
+     * @param delta The amount to add
+     * @return An increment sentinel
+     */
+    public static Increment increment(long delta) {
+        return new Increment(delta);
+    }
+
+    /**
+     * Creates a value that adds elements to an array field without duplicating them.
+     *
+     * @param elements The elements to add
+     * @return An array-union sentinel
+     */
+    public static ArrayUnion arrayUnion(Object... elements) {
+        return new ArrayUnion(new ArrayList<>(Arrays.asList(elements)));
+    }
+
+    /**
+     * Creates a value that removes elements from an array field.
+     *
+     * @param elements The elements to remove
+     * @return An array-remove sentinel
+     */
+    public static ArrayRemove arrayRemove(Object... elements) {
+        return new ArrayRemove(new ArrayList<>(Arrays.asList(elements)));
+    }
+
+    /**
+     * Returns a field-delete sentinel.
+     *
+     * @return A field-delete sentinel
+     */
+    public static Delete delete() {
+        return DELETE;
+    }
+
+    /**
+     * Returns a server-timestamp sentinel.
+     *
+     * @return A server-timestamp sentinel
+     */
+    public static ServerTimestamp serverTimestamp() {
+        return SERVER_TIMESTAMP;
+    }
+}
@@ -0,0 +1,193 @@
+package com.example.sprite.Controllers;
+
+import com.google.android.gms.tasks.OnCompleteListener;
+import com.google.android.gms.tasks.Task;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Consumer;
+
+/**
+ * Adapters that turn Play Services {@link Task}s and the app's
+ * {@link OnCompleteListener}-style service methods into {@link CompletableFuture}s,
+ * plus a few combinators for fan-out/fan-in, timeouts and cancellation.
+ *
+ * <p>Futures created from a {@link Task} complete on whatever thread the task
+ * delivers its result on (the main thread for Firestore), so dependent stages
+ * can update {@code LiveData} directly. Futures completed by a timeout complete on
+ * an internal scheduler thread instead, so UI code should use
+ * {@code postValue} when a timeout is involved.</p>
+ *
+ * <p>Firestore tasks cannot be aborted once issued. Cancelling a future returned
+ * from this class detaches it from the underlying task: the request still runs,
+ * but its result is dropped and no dependent stage is executed.</p>
+ */
+public final class TaskFutures {
+
+    private static final ScheduledExecutorService TIMER =
+            Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "TaskFutures-timer");
+                thread.setDaemon(true);
+                return thread;
+            });
+
+    private TaskFutures() {
+    }
+
+    /**
+     * Wraps a {@link Task} in a {@link CompletableFuture}.
+     *
+     * @param task The task to adapt
+     * @param <T>  The task's result type
+     * @return A future completed with the task's result or failure
+     */
+    public static <T> CompletableFuture<T> from(Task<T> task) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        task.addOnCompleteListener(completed -> complete(future, completed));
+        return future;
+    }
+
+    /**
+     * Wraps a callback-style service call such as
+     * {@code dbService.getEvent(id, listener)} in a {@link CompletableFuture}.
+     *
+     * <p>This keeps the existing service method as the single code path, so
+     * callers (and mocks) that observe the listener-based API see the same call.</p>
+     *
+     * @param call Invokes the service method with the supplied listener
+     * @param <T>  The task's result type
+     * @return A future completed when the listener fires
+     */
+    public static <T> CompletableFuture<T> call(Consumer<OnCompleteListener<T>> call) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        try {
+            call.accept(completed -> complete(future, completed));
+        } catch (RuntimeException e) {
+            future.completeExceptionally(e);
+        }
+        return future;
+    }
+
+    /**
+     * Fan-in: completes with every result in input order once all futures succeed,
+     * or exceptionally as soon as any of them fails.
+     *
+     * @param futures The futures to combine
+     * @param <T>     The result type
+     * @return A future of all results
+     */
+    public static <T> CompletableFuture<List<T>> allAsList(Collection<? extends CompletableFuture<? extends T>> futures) {
+        List<CompletableFuture<? extends T>> copy = new ArrayList<>(futures);
+        CompletableFuture<List<T>> result = new CompletableFuture<>();
+        CompletableFuture.allOf(copy.toArray(new CompletableFuture[0]))
+                .whenComplete((ignored, error) -> {
+                    if (error != null) {
+                        result.completeExceptionally(unwrap(error));
+                        return;
+                    }
+                    List<T> values = new ArrayList<>(copy.size());
+                    for (CompletableFuture<? extends T> future : copy) {
+                        values.add(future.join());
+                    }
+                    result.complete(values);
+                });
+        for (CompletableFuture<? extends T> future : copy) {
+            future.whenComplete((value, error) -> {
+                if (error != null) {
+                    result.completeExceptionally(unwrap(error));
+                }
+            });
+        }
+        return result;
+    }
+
+    /**
+     * Fan-in that tolerates failures: completes once every future has finished,
+     * with {@code null} in the position of each future that failed.
+     *
+     * @param futures The futures to combine
+     * @param <T>     The result type
+     * @return A future of all results, never completed exceptionally
+     */
+    public static <T> CompletableFuture<List<T>> successfulAsList(Collection<? extends CompletableFuture<? extends T>> futures) {
+        List<CompletableFuture<? extends T>> copy = new ArrayList<>(futures);
+        return CompletableFuture.allOf(copy.stream()
+                        .map(future -> future.handle((value, error) -> null))
+                        .toArray(CompletableFuture[]::new))
+                .thenApply(ignored -> {
+                    List<T> values = new ArrayList<>(copy.size());
+                    for (CompletableFuture<? extends T> future : copy) {
+                        values.add(future.isCompletedExceptionally() ? null : future.join());
+                    }
+                    return values;
+                });
+    }
+
+    /**
+     * Fails the future with a {@link TimeoutException} if it has not completed
+     * within the given time. The returned future is the same instance as the input.
+     *
+     * @param future  The future to bound
+     * @param timeout The maximum time to wait
+     * @param unit    The unit of {@code timeout}
+     * @param <T>     The result type
+     * @return The given future
+     */
+    public static <T> CompletableFuture<T> withTimeout(CompletableFuture<T> future, long timeout, TimeUnit unit) {
+        ScheduledFuture<?> timer = TIMER.schedule(
+                () -> future.completeExceptionally(new TimeoutException("Timed out after " + timeout + " " + unit)),
+                timeout, unit);
+        future.whenComplete((value, error) -> timer.cancel(false));
+        return future;
+    }
+
+    /**
+     * Creates a future that completes with {@code null} after the given delay.
+     *
+     * @param delay The delay
+     * @param unit  The unit of {@code delay}
+     * @return A future completed on the scheduler thread
+     */
+    public static CompletableFuture<Void> delay(long delay, TimeUnit unit) {
+        CompletableFuture<Void> future = new CompletableFuture<>();
+        ScheduledFuture<?> timer = TIMER.schedule(() -> future.complete(null), delay, unit);
+        future.whenComplete((value, error) -> timer.cancel(false));
+        return future;
+    }
+
+    /**
+     * Strips the {@link CompletionException} wrapper that dependent stages add
+     * around the original failure.
+     *
+     * @param error The error reported to a stage
+     * @return The underlying cause
+     */
+    public static Throwable unwrap(Throwable error) {
+        while (error instanceof CompletionException && error.getCause() != null) {
+            error = error.getCause();
+        }
+        return error;
+    }
+
+    private static <T> void complete(CompletableFuture<T> future, Task<T> task) {
+        if (task == null) {
+            future.complete(null);
+        } else if (task.isCanceled()) {
+            future.completeExceptionally(new CancellationException("Task was cancelled"));
+        } else if (task.isSuccessful()) {
+            future.complete(task.getResult());
+        } else {
+            Exception error = task.getException();
+            future.completeExceptionally(error != null ? error : new IllegalStateException("Task failed"));
+        }
+    }
+}
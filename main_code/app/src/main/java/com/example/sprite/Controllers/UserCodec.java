@@ -0,0 +1,91 @@
+package com.example.sprite.Controllers;
+
+import com.example.sprite.Models.User;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Maps {@link User} documents without reflection.
+ *
+ * <p>{@link User} exposes its role through both {@code getRole()} and
+ * {@code getUserRole()}, so Firestore stores it twice as {@code role} and
+ * {@code userRole}; both are written and either is read.</p>
+ */
+public final class UserCodec implements DocumentCodec<User> {
+
+    private static final UserCodec INSTANCE = new UserCodec();
+
+    private UserCodec() {
+    }
+
+    /**
+     * Gets the codec.
+     *
+     * @return The shared codec
+     */
+    public static UserCodec getInstance() {
+        return INSTANCE;
+    }
+
+    @Override
+    public User decode(Map<String, Object> data) {
+        User user = new User();
+        for (Map.Entry<String, Object> field : data.entrySet()) {
+            readField(user, field.getKey(), field.getValue());
+        }
+        return user;
+    }
+
+    @Override
+    public Map<String, Object> encode(User user) {
+        Map<String, Object> data = new HashMap<>();
+        writeFields(user, data);
+        return data;
+    }
+
+    /**
+     * Sets one stored field on a user.
+     *
+     * @return True if the field belongs to {@link User}
+     */
+    static boolean readField(User user, String name, Object value) {
+        switch (name) {
+            case "userId": user.setUserId(CodecValues.toString(value)); return true;
+            case "name": user.setName(CodecValues.toString(value)); return true;
+            case "email": user.setEmail(CodecValues.toString(value)); return true;
+            case "phoneNumber": user.setPhoneNumber(CodecValues.toString(value)); return true;
+            case "role":
+            case "userRole":
+                User.UserRole role = CodecValues.toEnum(value, User.UserRole.class);
+                if (role != null || user.getUserRole() == null) user.setUserRole(role);
+                return true;
+            case "createdAt": user.setCreatedAt(CodecValues.toDate(value)); return true;
+            case "lastLoginAt": user.setLastLoginAt(CodecValues.toDate(value)); return true;
+            case "notificationsEnabled":
+                user.setNotificationsEnabled(CodecValues.toBoolean(value, user.isNotificationsEnabled()));
+                return true;
+            case "deviceToken": user.setDeviceToken(CodecValues.toString(value)); return true;
+            case "eventHistory": user.setEventHistory(CodecValues.toStringList(value)); return true;
+            default: return false;
+        }
+    }
+
+    /**
+     * Writes a user's stored fields into a map.
+     */
+    static void writeFields(User user, Map<String, Object> data) {
+        String role = CodecValues.fromEnum(user.getUserRole());
+        data.put("userId", user.getUserId());
+        data.put("name", user.getName());
+        data.put("email", user.getEmail());
+        data.put("phoneNumber", user.getPhoneNumber());
+        data.put("role", role);
+        data.put("userRole", role);
+        data.put("createdAt", user.getCreatedAt());
+        data.put("lastLoginAt", user.getLastLoginAt());
+        data.put("notificationsEnabled", user.isNotificationsEnabled());
+        data.put("deviceToken", user.getDeviceToken());
+        data.put("eventHistory", user.getEventHistory());
+    }
+}
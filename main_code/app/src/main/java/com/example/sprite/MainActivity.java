@@ -1,26 +1,41 @@
 package com.example.sprite;
 
+import android.content.Context;
 import android.content.Intent;
 import android.os.Bundle;
+import android.util.Log;
+import android.view.MenuItem;
 import android.view.View;
 import android.widget.TextView;
 
 import androidx.appcompat.app.AppCompatActivity;
 import androidx.drawerlayout.widget.DrawerLayout;
+import androidx.lifecycle.ViewModelProvider;
 import androidx.navigation.NavController;
 import androidx.navigation.Navigation;
 import androidx.navigation.ui.AppBarConfiguration;
 import androidx.navigation.ui.NavigationUI;
 
 import com.example.sprite.Controllers.Authentication_Service;
+import com.example.sprite.Controllers.EventCache;
+import com.example.sprite.Controllers.EventCodec;
+import com.example.sprite.Controllers.JournalExecutor;
+import com.example.sprite.Controllers.LotteryService;
+import com.example.sprite.Controllers.MetricsFileExporter;
 import com.example.sprite.Controllers.NotificationService;
+import com.example.sprite.Controllers.OutboxDrainer;
+import com.example.sprite.Controllers.PosterUploader;
 import com.example.sprite.Models.Notification;
 import com.example.sprite.Models.User;
+import com.example.sprite.ViewModels.UnreadNotificationsViewModel;
 import com.example.sprite.databinding.ActivityMainBinding;
 import com.example.sprite.screens.Notifications.NotificationPopupDialog;
 import com.google.android.material.navigation.NavigationView;
 
+import java.io.File;
+import java.io.IOException;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 /**
  * {@code MainActivity} serves as the primary entry point for the Sprite app after authentication.
@@ -47,6 +62,11 @@ public class MainActivity extends AppCompatActivity {
 
     /** View binding for the main layout. */
     private ActivityMainBinding binding;
+    private UnreadNotificationsViewModel unreadNotifications;
+    private boolean unreadChecked;
+
+    /** Writes store metrics to a rolling local file; one per process. */
+    private static MetricsFileExporter metricsExporter;
 
     /**
      * Initializes the main activity.
@@ -63,12 +83,18 @@ public class MainActivity extends AppCompatActivity {
         binding = ActivityMainBinding.inflate(getLayoutInflater());
         setContentView(binding.getRoot());
 
+        startMetricsExport();
+        resumeJournals();
+
         setSupportActionBar(binding.appBarMain.toolbar);
 
         DrawerLayout drawer = binding.drawerLayout;
         NavigationView navigationView = binding.navView;
 
 
+        unreadNotifications = new ViewModelProvider(this).get(UnreadNotificationsViewModel.class);
+        unreadNotifications.getUnreadCount().observe(this, count -> onUnreadCountChanged(navigationView, count));
+
         loadUserProfileAndSetMenu(navigationView);
 
 
@@ -167,6 +193,39 @@ public class MainActivity extends AppCompatActivity {
         }
     }
 
+    /**
+     * Starts exporting Firestore call metrics to {@code files/metrics} once per process.
+     * Files roll over at 256 KB and the newest four are kept.
+     */
+    private void startMetricsExport() {
+        if (metricsExporter != null) return;
+        metricsExporter = new MetricsFileExporter(new File(getFilesDir(), "metrics"), 256 * 1024, 4);
+        metricsExporter.start(5, TimeUnit.MINUTES);
+    }
+
+    /**
+     * Opens the on-disk journals on the {@link JournalExecutor}, keeping their reads off
+     * the main thread, and resumes the work left in them: waitlist and invitation actions
+     * queued while the app was offline or killed, poster uploads cut off when it was last
+     * closed, and draw notifications still held.
+     */
+    private void resumeJournals() {
+        Context app = getApplicationContext();
+        JournalExecutor.get().execute(() -> {
+            try {
+                OutboxDrainer.getShared(app).drain();
+            } catch (IOException e) {
+                Log.e("MainActivity", "Could not open mutation outbox", e);
+            }
+            try {
+                PosterUploader.getShared(app).resumePending();
+            } catch (IOException e) {
+                Log.e("MainActivity", "Could not open poster upload journal", e);
+            }
+        });
+        LotteryService.resumeHeldNotifications(app);
+    }
+
     /**
      * Loads the current user's profile and updates the navigation menu accordingly.
      *
@@ -217,7 +276,10 @@ public class MainActivity extends AppCompatActivity {
                 }
 
 
-                checkForUnreadNotifications(userId);
+                // The menu was re-inflated, so put the badge back
+                Integer unread = unreadNotifications.getUnreadCount().getValue();
+                onUnreadCountChanged(navigationView, unread != null ? unread : 0);
+                unreadNotifications.start(userId);
             }
 
             @Override
@@ -273,6 +335,28 @@ public class MainActivity extends AppCompatActivity {
 //        return true;
 //    }
 
+    /**
+     * Shows the unread count on the Notifications menu item, and the newest unread
+     * notification as a popup the first time any are found.
+     *
+     * @param navigationView The navigation drawer
+     * @param count The number of unread notifications
+     */
+    private void onUnreadCountChanged(NavigationView navigationView, int count) {
+        MenuItem item = navigationView.getMenu().findItem(R.id.nav_notifications);
+        if (item != null) {
+            item.setTitle(count > 0
+                    ? getString(R.string.menu_notifications_unread, count)
+                    : getString(R.string.menu_notifications));
+        }
+
+        Authentication_Service authService = new Authentication_Service();
+        if (count > 0 && !unreadChecked && authService.getCurrentUser() != null) {
+            unreadChecked = true;
+            checkForUnreadNotifications(authService.getCurrentUser().getUid());
+        }
+    }
+
     /**
      * Checks for unread notifications and displays a popup if any exist.
      *
@@ -281,7 +365,8 @@ public class MainActivity extends AppCompatActivity {
     private void checkForUnreadNotifications(String userId) {
         NotificationService notificationService = new NotificationService();
 
-        notificationService.getUnreadNotificationsForEntrant(userId,
+        // Only the newest unread notification is shown, so only it is read
+        notificationService.getUnreadNotificationsForEntrant(userId, 1,
             new NotificationService.NotificationListCallback() {
                 @Override
                 public void onSuccess(List<Notification> notifications) {
@@ -330,7 +415,7 @@ public class MainActivity extends AppCompatActivity {
                     dbService.getEvent(eventId, task -> {
                         if (task.isSuccessful() && task.getResult() != null) {
                             com.example.sprite.Models.Event event =
-                                task.getResult().toObject(com.example.sprite.Models.Event.class);
+                                EventCodec.getInstance().decode(task.getResult());
 
                             if (event != null) {
                                 NavController navController = Navigation.findNavController(
@@ -339,7 +424,7 @@ public class MainActivity extends AppCompatActivity {
                                 );
 
                                 android.os.Bundle bundle = new android.os.Bundle();
-                                bundle.putSerializable("selectedEvent", event);
+                                EventCache.getInstance(MainActivity.this).putArguments(bundle, event);
                                 navController.navigate(R.id.fragment_event_details, bundle);
                             } else {
 
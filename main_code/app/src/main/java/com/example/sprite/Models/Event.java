@@ -1,5 +1,9 @@
 package com.example.sprite.Models;
 
+import android.os.Parcel;
+import android.os.Parcelable;
+
+import com.example.sprite.Controllers.EventBinaryCodec;
 import com.google.firebase.firestore.GeoPoint;
 
 import java.io.Serializable;
@@ -30,8 +34,11 @@ import java.util.Map;
  *     <li>Confirmed attendees: Selected users who confirmed participation</li>
  *     <li>Cancelled attendees: Users who declined or were cancelled</li>
  * </ul>
+ *
+ * <p>Events are parcelled with {@link EventBinaryCodec}, which stores each user ID
+ * once however many lists it appears in.</p>
  */
-public class Event implements Serializable {
+public class Event implements Serializable, Parcelable {
     private Date date;
     private Date time;
     private String eventId;
@@ -47,10 +54,12 @@ public class Event implements Serializable {
     private int maxWaitingListSize;
     private double price;
     private String posterImageUrl;
+    private Map<String, String> posterVariants; // Resized poster URLs keyed by width in pixels
     private String qrCodeUrl;
     private EventStatus status;
 
     private boolean lotteryHasRun;
+    private int drawRound; // Draws so far, the main lottery plus each replacement draw
     private boolean geolocationRequired;
     private Date createdAt;
     private Date updatedAt;
@@ -103,6 +112,21 @@ public class Event implements Serializable {
         CANCELLED
     }
 
+    /**
+     * Creates events from parcels written by {@link #writeToParcel}.
+     */
+    public static final Creator<Event> CREATOR = new Creator<Event>() {
+        @Override
+        public Event createFromParcel(Parcel in) {
+            return EventBinaryCodec.decode(in.createByteArray());
+        }
+
+        @Override
+        public Event[] newArray(int size) {
+            return new Event[size];
+        }
+    };
+
     /**
      * Default constructor for Firestore deserialization.
      */
@@ -406,6 +430,62 @@ public class Event implements Serializable {
         this.posterImageUrl = posterImageUrl;
     }
 
+    /**
+     * Gets the URLs of the resized copies of the poster, keyed by their width in pixels.
+     *
+     * @return The poster variants, or null if the poster has none
+     */
+    public Map<String, String> getPosterVariants() {
+        return posterVariants;
+    }
+
+    /**
+     * Sets the URLs of the resized copies of the poster.
+     *
+     * @param posterVariants The poster URLs keyed by width in pixels
+     */
+    public void setPosterVariants(Map<String, String> posterVariants) {
+        this.posterVariants = posterVariants;
+    }
+
+    /**
+     * Gets the URL of the smallest poster at least as wide as the given width, falling
+     * back to the widest variant and then to the original poster.
+     *
+     * @param widthPx The width the poster will be shown at, in pixels
+     * @return The poster URL to load, or null if the event has no poster
+     */
+    public String getPosterUrlForWidth(int widthPx) {
+        if (posterVariants == null || posterVariants.isEmpty()) {
+            return posterImageUrl;
+        }
+        String best = null;
+        int bestWidth = 0;
+        String widest = null;
+        int widestWidth = 0;
+        for (Map.Entry<String, String> variant : posterVariants.entrySet()) {
+            int width;
+            try {
+                width = Integer.parseInt(variant.getKey());
+            } catch (NumberFormatException e) {
+                continue;
+            }
+            if (width >= widthPx && (best == null || width < bestWidth)) {
+                best = variant.getValue();
+                bestWidth = width;
+            }
+            if (width > widestWidth) {
+                widest = variant.getValue();
+                widestWidth = width;
+            }
+        }
+        if (best != null) {
+            return best;
+        }
+        // Nothing is wide enough; the original is at least as large as any variant
+        return posterImageUrl != null ? posterImageUrl : widest;
+    }
+
     /**
      * Gets the URL of the QR code for this event.
      * 
@@ -494,6 +574,26 @@ public class Event implements Serializable {
     public void setLotteryHasRun(boolean lotteryHasRun) {
         this.lotteryHasRun = lotteryHasRun;
     }
+
+    /**
+     * Gets the number of draws run for this event: the main lottery, then one per
+     * replacement draw. Notifications about a draw are keyed by its round.
+     *
+     * @return The draw round, 0 before the lottery has run
+     */
+    public int getDrawRound() {
+        return drawRound;
+    }
+
+    /**
+     * Sets the number of draws run for this event.
+     *
+     * @param drawRound The draw round to set
+     */
+    public void setDrawRound(int drawRound) {
+        this.drawRound = drawRound;
+    }
+
     public boolean isGeolocationRequired() {
         return geolocationRequired;
     }
@@ -635,7 +735,19 @@ public class Event implements Serializable {
         this.waitingListLocations = waitingListLocations;
     }
 
-}
-
-
+    @Override
+    public int describeContents() {
+        return 0;
+    }
 
+    /**
+     * Writes this event to a parcel in its compact binary form.
+     *
+     * @param dest  The parcel
+     * @param flags Unused
+     */
+    @Override
+    public void writeToParcel(Parcel dest, int flags) {
+        dest.writeByteArray(EventBinaryCodec.encode(this));
+    }
+}
@@ -17,6 +17,7 @@ public class Notification {
     private String eventTitle;
     private String message;
     private NotificationType type;
+    private int drawRound;
     private Date createdAt;
     private boolean isRead;
 
@@ -42,7 +43,12 @@ public class Notification {
         /**
          * Notification sent when an entrant confirms their attendance.
          */
-        CONFIRMED
+        CONFIRMED,
+
+        /**
+         * Notification summarizing several that arrived for an entrant at once.
+         */
+        DIGEST
     }
 
     /**
@@ -183,6 +189,24 @@ public class Notification {
         this.type = type;
     }
 
+    /**
+     * Gets the draw round of the event this notification is about.
+     * 
+     * @return The draw round, or 0 if it is not about a draw
+     */
+    public int getDrawRound() {
+        return drawRound;
+    }
+
+    /**
+     * Sets the draw round of the event this notification is about.
+     * 
+     * @param drawRound The draw round to set
+     */
+    public void setDrawRound(int drawRound) {
+        this.drawRound = drawRound;
+    }
+
     /**
      * Gets the date and time when this notification was created.
      * 
@@ -1,5 +1,8 @@
 package com.example.sprite.Models;
 
+import android.os.Parcel;
+import android.os.Parcelable;
+
 import java.io.Serializable;
 import java.util.Date;
 import java.util.List;
@@ -17,7 +20,7 @@ import java.util.List;
  *     <li>Event history</li>
  * </ul>
  */
-public class User implements Serializable {
+public class User implements Serializable, Parcelable {
     private String name;
     //private String userRole;
     private String userId;
@@ -51,6 +54,36 @@ public class User implements Serializable {
         ADMIN
     }
     
+    /**
+     * Creates users from parcels written by {@link #writeToParcel}.
+     * Subclasses are restored as plain users.
+     */
+    public static final Creator<User> CREATOR = new Creator<User>() {
+        @Override
+        public User createFromParcel(Parcel in) {
+            User user = new User();
+            user.userId = in.readString();
+            user.name = in.readString();
+            user.email = in.readString();
+            user.phoneNumber = in.readString();
+            user.deviceToken = in.readString();
+            long createdAt = in.readLong();
+            user.createdAt = createdAt != Long.MIN_VALUE ? new Date(createdAt) : null;
+            long lastLoginAt = in.readLong();
+            user.lastLoginAt = lastLoginAt != Long.MIN_VALUE ? new Date(lastLoginAt) : null;
+            user.notificationsEnabled = in.readInt() != 0;
+            int role = in.readInt();
+            user.userRole = role >= 0 ? UserRole.values()[role] : null;
+            user.eventHistory = in.createStringArrayList();
+            return user;
+        }
+
+        @Override
+        public User[] newArray(int size) {
+            return new User[size];
+        }
+    };
+
     /**
      * Default constructor for Firestore deserialization.
      */
@@ -272,4 +305,29 @@ public class User implements Serializable {
     public void setEventHistory(List<String> eventHistory) {
         this.eventHistory = eventHistory;
     }
+
+    @Override
+    public int describeContents() {
+        return 0;
+    }
+
+    /**
+     * Writes this user's fields to a parcel. Missing dates are written as {@link Long#MIN_VALUE}.
+     *
+     * @param dest  The parcel
+     * @param flags Unused
+     */
+    @Override
+    public void writeToParcel(Parcel dest, int flags) {
+        dest.writeString(userId);
+        dest.writeString(name);
+        dest.writeString(email);
+        dest.writeString(phoneNumber);
+        dest.writeString(deviceToken);
+        dest.writeLong(createdAt != null ? createdAt.getTime() : Long.MIN_VALUE);
+        dest.writeLong(lastLoginAt != null ? lastLoginAt.getTime() : Long.MIN_VALUE);
+        dest.writeInt(notificationsEnabled ? 1 : 0);
+        dest.writeInt(userRole != null ? userRole.ordinal() : -1);
+        dest.writeStringList(eventHistory);
+    }
 }
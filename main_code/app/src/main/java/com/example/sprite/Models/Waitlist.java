@@ -22,6 +22,7 @@ public class Waitlist {
     List<String> cancelledList;
     List<String> confirmedList;
     private NotificationService notificationService;
+    private boolean notifyOnSelect = true;
     Map<String, GeoPoint> waitingListLocations;
 
     /**
@@ -152,6 +153,15 @@ public class Waitlist {
 
 
 
+    /** Sets whether {@link #moveToSelected} notifies each entrant itself.
+     * Turned off when the caller sends all selection notifications in bulk afterwards.
+     * @param notifyOnSelect
+     *      Whether to send a notification for each selected entrant
+     */
+    public void setNotifyOnSelect(boolean notifyOnSelect) {
+        this.notifyOnSelect = notifyOnSelect;
+    }
+
     /** Moves an entrant from waiting list to selected list and sends a notification.
      * @param entrantId
      *      The unique ID of the entrant
@@ -171,11 +181,15 @@ public class Waitlist {
         if (!selectedList.contains(entrantId)) {
             selectedList.add(entrantId);
         }
+        if (!notifyOnSelect) {
+            return;
+        }
         // Send notification to entrant that they have been selected from the waiting list
         notificationService.notifySelectedFromWaitlist(
             entrantId,
             event.getEventId(),
             event.getTitle(),
+            event.getDrawRound(),
             new NotificationService.NotificationCallback() {
                 @Override
                 public void onSuccess(com.example.sprite.Models.Notification notification) {
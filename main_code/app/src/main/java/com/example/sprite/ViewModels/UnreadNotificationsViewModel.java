@@ -0,0 +1,73 @@
+package com.example.sprite.ViewModels;
+
+import android.util.Log;
+
+import androidx.lifecycle.LiveData;
+import androidx.lifecycle.MutableLiveData;
+import androidx.lifecycle.ViewModel;
+
+import com.example.sprite.Controllers.NotificationService;
+import com.google.firebase.firestore.ListenerRegistration;
+
+/**
+ * ViewModel exposing the signed-in user's unread notification count.
+ *
+ * <p>The count comes from the user's unread counter document, which
+ * {@link NotificationService} keeps in step with their notifications, so each
+ * update costs one document read no matter how many notifications they have.</p>
+ */
+public class UnreadNotificationsViewModel extends ViewModel {
+
+    private static final String TAG = "UnreadNotificationsVM";
+
+    private final MutableLiveData<Integer> unreadCount = new MutableLiveData<>(0);
+    private ListenerRegistration registration;
+    private String userId;
+
+    /**
+     * Gets the unread notification count, for badges.
+     *
+     * @return The live unread count; 0 until it is first read
+     */
+    public LiveData<Integer> getUnreadCount() {
+        return unreadCount;
+    }
+
+    /**
+     * Starts following a user's unread count. Calling it again for the same user does nothing.
+     *
+     * @param userId The user's ID
+     */
+    public void start(String userId) {
+        if (userId == null || userId.equals(this.userId)) {
+            return;
+        }
+        stop();
+        this.userId = userId;
+        registration = new NotificationService().listenForUnreadCount(userId,
+                new NotificationService.UnreadCountCallback() {
+                    @Override
+                    public void onSuccess(int count) {
+                        unreadCount.setValue(count);
+                    }
+
+                    @Override
+                    public void onFailure(String error) {
+                        Log.e(TAG, error);
+                    }
+                });
+    }
+
+    private void stop() {
+        if (registration != null) {
+            registration.remove();
+            registration = null;
+        }
+        userId = null;
+    }
+
+    @Override
+    protected void onCleared() {
+        stop();
+    }
+}
@@ -17,19 +17,25 @@ import com.example.sprite.Controllers.NotificationService;
 import com.example.sprite.Models.Notification;
 import com.example.sprite.Adapters.NotificationAdapter;
 import com.example.sprite.R;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.ListenerRegistration;
 
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 /**
  * Fragment that displays a list of notifications for the logged-in user.
  * 
- * <p>This fragment retrieves and displays all notifications for the current user
- * from Firestore. If there are no notifications, an empty state message is shown.</p>
+ * <p>This fragment retrieves and displays notifications for the current user
+ * from Firestore a page at a time, loading older pages as the user scrolls.
+ * If there are no notifications, an empty state message is shown.</p>
  * 
  * <p>Features:
  * <ul>
- *     <li>Displays all notifications sorted by creation date (newest first)</li>
+ *     <li>Displays notifications sorted by creation date (newest first)</li>
+ *     <li>Adds new notifications to the top of the list as they arrive</li>
  *     <li>Shows unread status indicators</li>
  *     <li>Allows users to mark notifications as read by clicking on them</li>
  *     <li>Automatically refreshes when notifications are marked as read</li>
@@ -45,6 +51,13 @@ public class NotificationFragment extends Fragment {
     private List<Notification> notificationsList;
     private NotificationService notificationService;
     private String currentUserId;
+    private DocumentSnapshot nextPageCursor;
+    private boolean hasMorePages;
+    private boolean loadingPage;
+    private ListenerRegistration arrivalsRegistration;
+
+    /** How close to the end of the list the next page starts loading. */
+    private static final int PREFETCH_DISTANCE = 5;
 
     public NotificationFragment() {
         // Required empty public constructor
@@ -96,18 +109,37 @@ public class NotificationFragment extends Fragment {
             return;
         }
 
-        // Set listener to refresh after deleting notification
-        adapter.setOnNotificationDeletedListener(notification -> {
-            // Refresh the list after deletion
-            refreshNotifications(currentUserId);
+        // The adapter removes deleted rows itself, so only the empty state needs updating
+        adapter.setOnNotificationDeletedListener(notification -> updateEmptyState());
+
+        // Read older pages as the user nears the end of the list
+        recyclerView.addOnScrollListener(new RecyclerView.OnScrollListener() {
+            @Override
+            public void onScrolled(@NonNull RecyclerView view, int dx, int dy) {
+                LinearLayoutManager layoutManager = (LinearLayoutManager) view.getLayoutManager();
+                if (dy > 0 && layoutManager != null
+                        && layoutManager.findLastVisibleItemPosition() >= adapter.getItemCount() - PREFETCH_DISTANCE) {
+                    loadNextPage();
+                }
+            }
         });
 
         // Fetch notifications for this user
         refreshNotifications(currentUserId);
     }
 
+    @Override
+    public void onDestroyView() {
+        super.onDestroyView();
+        if (arrivalsRegistration != null) {
+            arrivalsRegistration.remove();
+            arrivalsRegistration = null;
+        }
+    }
+
     /**
      * Refreshes the notifications list for the current user.
+     * Loads the newest page, then listens for notifications that arrive afterwards.
      * 
      * @param userId The user ID to fetch notifications for
      */
@@ -116,78 +148,27 @@ public class NotificationFragment extends Fragment {
             return;
         }
 
-        notificationService.getNotificationsForEntrant(userId, 
-            new NotificationService.NotificationListCallback() {
+        loadingPage = true;
+        notificationService.getNotificationsPage(userId, false, null, NotificationService.PAGE_SIZE,
+            new NotificationService.NotificationPageCallback() {
                 @Override
-                public void onSuccess(List<Notification> notifications) {
+                public void onSuccess(NotificationService.NotificationPage page) {
+                    loadingPage = false;
                     if (!isAdded() || getView() == null) {
                         // Fragment is no longer active — don't touch UI
                         return;
                     }
+                    nextPageCursor = page.getCursor();
+                    hasMorePages = page.hasMore();
+                    showNotifications(page.getNotifications());
 
-                    android.util.Log.d("NotificationFragment", "Received " + 
-                        (notifications != null ? notifications.size() : 0) + " notifications from service");
-                    
-                    // Update the adapter's list directly - this must be on UI thread
-                    if (getActivity() != null) {
-                        getActivity().runOnUiThread(() -> {
-                            if (adapter == null) {
-                                android.util.Log.e("NotificationFragment", "Adapter is null!");
-                                return;
-                            }
-                            
-                            if (recyclerView == null) {
-                                android.util.Log.e("NotificationFragment", "RecyclerView is null!");
-                                return;
-                            }
-                            
-                            android.util.Log.d("NotificationFragment", "Before update - Adapter count: " + adapter.getItemCount());
-                            
-                            // Update adapter
-                            adapter.updateNotifications(notifications);
-                            
-                            android.util.Log.d("NotificationFragment", "After update - Adapter count: " + adapter.getItemCount());
-                            
-                            // Also update our local list for consistency (they should be the same reference)
-                            notificationsList.clear();
-                            if (notifications != null && !notifications.isEmpty()) {
-                                notificationsList.addAll(notifications);
-                            }
-                            
-                            // Force RecyclerView to refresh and request layout
-                            recyclerView.setVisibility(View.VISIBLE);
-                            recyclerView.post(() -> {
-                                recyclerView.invalidate();
-                                recyclerView.requestLayout();
-                                android.util.Log.d("NotificationFragment", "RecyclerView refreshed. Visibility: " + 
-                                    (recyclerView.getVisibility() == View.VISIBLE ? "VISIBLE" : "GONE"));
-                            });
-                            
-                            updateEmptyState();
-                        });
-                    } else {
-                        android.util.Log.w("NotificationFragment", "Activity is null, using fallback");
-                        // Fallback if activity is null
-                        if (adapter != null) {
-                            adapter.updateNotifications(notifications);
-                        }
-                        notificationsList.clear();
-                        if (notifications != null && !notifications.isEmpty()) {
-                            notificationsList.addAll(notifications);
-                        }
-                        updateEmptyState();
-                        if (recyclerView != null) {
-                            recyclerView.setVisibility(View.VISIBLE);
-                            recyclerView.post(() -> {
-                                recyclerView.invalidate();
-                                recyclerView.requestLayout();
-                            });
-                        }
-                    }
+                    List<Notification> loaded = page.getNotifications();
+                    listenForNewNotifications(userId, loaded.isEmpty() ? null : loaded.get(0).getCreatedAt());
                 }
 
                 @Override
                 public void onFailure(String error) {
+                    loadingPage = false;
                     android.util.Log.e("NotificationFragment", "Failed to get notifications: " + error);
                     if (!isAdded() || getView() == null) {
                         return;
@@ -197,6 +178,91 @@ public class NotificationFragment extends Fragment {
             });
     }
 
+    /**
+     * Loads the next page of older notifications, if there is one and none is loading.
+     */
+    private void loadNextPage() {
+        if (loadingPage || !hasMorePages || nextPageCursor == null || currentUserId == null) {
+            return;
+        }
+
+        loadingPage = true;
+        notificationService.getNotificationsPage(currentUserId, false, nextPageCursor, NotificationService.PAGE_SIZE,
+            new NotificationService.NotificationPageCallback() {
+                @Override
+                public void onSuccess(NotificationService.NotificationPage page) {
+                    loadingPage = false;
+                    if (!isAdded() || getView() == null) {
+                        return;
+                    }
+                    nextPageCursor = page.getCursor();
+                    hasMorePages = page.hasMore();
+                    List<Notification> combined = new ArrayList<>(notificationsList);
+                    combined.addAll(page.getNotifications());
+                    showNotifications(combined);
+                }
+
+                @Override
+                public void onFailure(String error) {
+                    loadingPage = false;
+                    android.util.Log.e("NotificationFragment", "Failed to get older notifications: " + error);
+                }
+            });
+    }
+
+    /**
+     * Adds notifications created after {@code since} to the top of the list as they arrive.
+     *
+     * @param userId The user ID to listen for
+     * @param since The creation time of the newest notification shown, or null if none are shown
+     */
+    private void listenForNewNotifications(String userId, java.util.Date since) {
+        if (arrivalsRegistration != null) {
+            arrivalsRegistration.remove();
+        }
+        arrivalsRegistration = notificationService.listenForNewNotifications(userId, since,
+            new NotificationService.NotificationListCallback() {
+                @Override
+                public void onSuccess(List<Notification> added) {
+                    if (!isAdded() || getView() == null) {
+                        return;
+                    }
+                    Set<String> shown = new HashSet<>();
+                    for (Notification notification : notificationsList) {
+                        shown.add(notification.getNotificationId());
+                    }
+                    // Arrivals come oldest first; the list shows newest first
+                    List<Notification> combined = new ArrayList<>();
+                    for (int i = added.size() - 1; i >= 0; i--) {
+                        if (!shown.contains(added.get(i).getNotificationId())) {
+                            combined.add(added.get(i));
+                        }
+                    }
+                    combined.addAll(notificationsList);
+                    showNotifications(combined);
+                }
+
+                @Override
+                public void onFailure(String error) {
+                    android.util.Log.e("NotificationFragment", "Stopped listening for notifications: " + error);
+                }
+            });
+    }
+
+    /**
+     * Replaces the notifications shown by the adapter.
+     *
+     * @param notifications The notifications to show, newest first
+     */
+    private void showNotifications(List<Notification> notifications) {
+        if (adapter == null || recyclerView == null) {
+            return;
+        }
+        // The adapter clears and refills notificationsList, which it shares with this fragment
+        adapter.updateNotifications(notifications);
+        updateEmptyState();
+    }
+
     /**
      * Updates visibility of the empty state message based on list content.
      */
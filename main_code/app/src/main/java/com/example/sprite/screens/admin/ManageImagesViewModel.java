@@ -8,6 +8,7 @@ import androidx.lifecycle.MutableLiveData;
 import androidx.lifecycle.ViewModel;
 
 import com.example.sprite.Controllers.DatabaseService;
+import com.example.sprite.Controllers.EventCodec;
 import com.example.sprite.Controllers.ImageService;
 import com.example.sprite.Models.Event;
 import com.example.sprite.R;
@@ -49,7 +50,7 @@ public class ManageImagesViewModel extends ViewModel {
             if (task.isSuccessful() && task.getResult() != null) {
                 allEvents = new ArrayList<>();
                 for (DocumentSnapshot doc : task.getResult().getDocuments()) {
-                    Event e = doc.toObject(Event.class);
+                    Event e = EventCodec.getInstance().decode(doc);
                     if (e != null && e.getPosterImageUrl() != null) allEvents.add(e);
                 }
                 events.setValue(allEvents);
@@ -21,6 +21,7 @@ import androidx.fragment.app.Fragment;
 import androidx.lifecycle.ViewModelProvider;
 import androidx.navigation.Navigation;
 
+import com.example.sprite.Controllers.EventCache;
 import com.example.sprite.Controllers.ImageService;
 import com.example.sprite.Models.Event;
 import com.example.sprite.R;
@@ -71,7 +72,7 @@ public class ReviewEventFragment extends Fragment {
 
         // Get event from arguments
         if (getArguments() != null) {
-            selectedEvent = (Event) getArguments().getSerializable("selectedEvent");
+            selectedEvent = EventCache.getInstance(requireContext()).fromArguments(getArguments());
             viewModel.setSelectedEvent(selectedEvent);
         }
 
@@ -165,7 +166,7 @@ public class ReviewEventFragment extends Fragment {
         titleView.setText(event.getTitle());
         descriptionView.setText(event.getDescription());
         ImageService imageService = new ImageService();
-        imageService.loadImage(event.getPosterImageUrl(), eventImageView);
+        imageService.loadPoster(event, eventImageView);
         if (eventInfoFragment != null && eventInfoFragment.getView() != null) {
             eventInfoFragment.setFields(
                     event.getLocation(),
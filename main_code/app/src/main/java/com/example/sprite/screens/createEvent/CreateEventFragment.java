@@ -27,6 +27,8 @@ import androidx.fragment.app.Fragment;
 import androidx.lifecycle.ViewModelProvider;
 import androidx.navigation.Navigation;
 
+import com.example.sprite.Controllers.EventCache;
+import com.example.sprite.Controllers.PosterUploader;
 import com.example.sprite.R;
 import com.example.sprite.screens.organizer.eventDetails.EventInfoFragment;
 import com.google.android.material.button.MaterialButton;
@@ -248,7 +250,7 @@ public class CreateEventFragment extends Fragment {
             if (Boolean.TRUE.equals(created)) {
                 // Navigate to EventsList
                 Bundle bundle = new Bundle();
-                bundle.putSerializable("selectedEvent", mViewModel.getEventInfo());
+                EventCache.getInstance(requireContext()).putArguments(bundle, mViewModel.getEventInfo());
                 Navigation.findNavController(requireView())
                         .navigate(R.id.nav_events_list, bundle);
 
@@ -256,6 +258,14 @@ public class CreateEventFragment extends Fragment {
                 mViewModel.onEventCreationHandled();
             }
         });
+        // The poster keeps uploading after the event is created
+        mViewModel.getPosterUploadProgress().observe(getViewLifecycleOwner(), progress -> {
+            if (progress != null && progress.getState() == PosterUploader.State.FAILED) {
+                Toast.makeText(getContext(), "Poster upload failed, it will be retried", Toast.LENGTH_SHORT).show();
+            } else if (progress != null && progress.getState() == PosterUploader.State.ABANDONED) {
+                Toast.makeText(getContext(), "Poster upload failed", Toast.LENGTH_SHORT).show();
+            }
+        });
 
     }
 
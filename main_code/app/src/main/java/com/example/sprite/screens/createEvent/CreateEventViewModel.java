@@ -8,11 +8,14 @@ import android.widget.Toast;
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 import androidx.lifecycle.AndroidViewModel;
+import androidx.lifecycle.LiveData;
+import androidx.lifecycle.MediatorLiveData;
 import androidx.lifecycle.MutableLiveData;
 
 import com.example.sprite.Controllers.Authentication_Service;
 import com.example.sprite.Controllers.DatabaseService;
 import com.example.sprite.Controllers.ImageService;
+import com.example.sprite.Controllers.PosterUploader;
 import com.example.sprite.Models.Event;
 import com.google.firebase.auth.FirebaseUser;
 import com.google.firebase.storage.FirebaseStorage;
@@ -53,6 +56,8 @@ public class CreateEventViewModel extends AndroidViewModel {
     private final MutableLiveData<Boolean> eventCreatedSuccessfully = new MutableLiveData<>(false);
 
     private final MutableLiveData<Boolean> shouldResetFields = new MutableLiveData<>(false);
+    private final MediatorLiveData<PosterUploader.Progress> posterUploadProgress = new MediatorLiveData<>();
+    private LiveData<PosterUploader.Progress> currentPosterUpload;
 
     public CreateEventViewModel(@NonNull Application application) {
         super(application);
@@ -203,6 +208,16 @@ public class CreateEventViewModel extends AndroidViewModel {
         return eventCreatedSuccessfully;
     }
 
+    /**
+     * Returns a LiveData with the progress of the last created event's poster upload,
+     * which carries on after the event itself is created.
+     *
+     * @return LiveData containing the upload's progress, with no value before any upload
+     */
+    public LiveData<PosterUploader.Progress> getPosterUploadProgress() {
+        return posterUploadProgress;
+    }
+
     /**
      * Resets the event creation success flag.
      *
@@ -359,21 +374,40 @@ public class CreateEventViewModel extends AndroidViewModel {
 
         Event newEvent = new Event();
         setEventInfo(newEvent);
-        imageService.setEventImageUri(newEvent, localPosterUri.getValue(), () -> {
-            db.createEvent(newEvent, task -> {
-                if (task.isSuccessful()){
-                    Log.d("Firestore", "Event Created Successfully");
-                    Toast.makeText(getApplication(), "Event created successfully!", Toast.LENGTH_SHORT).show();
-                    shouldResetFields.setValue(Boolean.TRUE);
-                    eventCreatedSuccessfully.setValue(true);
-                } else {
-                    Log.e("Firestore", "Error Creating Event", task.getException());
-                }
-            });
+        Uri posterUri = localPosterUri.getValue();
+        // The event is created at once; its poster URL is patched in when the upload finishes
+        db.createEvent(newEvent, task -> {
+            if (task.isSuccessful()){
+                Log.d("Firestore", "Event Created Successfully");
+                Toast.makeText(getApplication(), "Event created successfully!", Toast.LENGTH_SHORT).show();
+                shouldResetFields.setValue(Boolean.TRUE);
+                eventCreatedSuccessfully.setValue(true);
+            } else {
+                Log.e("Firestore", "Error Creating Event", task.getException());
+            }
         });
+        if (posterUri != null) {
+            trackPosterUpload(imageService.setEventImageUri(getApplication(), newEvent, posterUri, () -> {}));
+        }
 
     }
 
+    /**
+     * Reports a poster upload's progress through {@link #getPosterUploadProgress()} in
+     * place of the previous one.
+     *
+     * @param upload The upload's progress, or null if it could not start
+     */
+    private void trackPosterUpload(@Nullable LiveData<PosterUploader.Progress> upload) {
+        if (currentPosterUpload != null) {
+            posterUploadProgress.removeSource(currentPosterUpload);
+        }
+        currentPosterUpload = upload;
+        if (upload != null) {
+            posterUploadProgress.addSource(upload, posterUploadProgress::setValue);
+        }
+    }
+
     /**
      * Resets all form fields to their default/empty values.
      * 
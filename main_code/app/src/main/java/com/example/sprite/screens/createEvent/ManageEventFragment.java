@@ -17,6 +17,7 @@ import androidx.fragment.app.Fragment;
 import androidx.lifecycle.ViewModelProvider;
 import androidx.navigation.Navigation;
 
+import com.example.sprite.Controllers.EventCache;
 import com.example.sprite.Controllers.ImageService;
 import com.example.sprite.Controllers.LotteryService;
 import com.example.sprite.Models.Event;
@@ -74,12 +75,12 @@ public class ManageEventFragment extends Fragment {
         geolocationToggle = view.findViewById(R.id.geolocationToggle);
 
         viewModel = new ViewModelProvider(this).get(ManageEventViewModel.class);
-        lotteryService = new LotteryService();
+        lotteryService = new LotteryService(requireContext());
         imageService = new ImageService();
 
 
         if (getArguments() != null) {
-            selectedEvent = (Event) getArguments().getSerializable("selectedEvent");
+            selectedEvent = EventCache.getInstance(requireContext()).fromArguments(getArguments());
             viewModel.setSelectedEvent(selectedEvent);
         }
 
@@ -103,7 +104,7 @@ public class ManageEventFragment extends Fragment {
                         selectedEvent.getEventStartDate(),
                         selectedEvent.getTime()
                 );
-                imageService.loadImage(selectedEvent.getPosterImageUrl(), eventImageView);
+                imageService.loadPoster(selectedEvent, eventImageView);
                 updateLotteryButton();
             }
         });
@@ -166,13 +167,13 @@ public class ManageEventFragment extends Fragment {
             }
 
             Bundle bundle = new Bundle();
-            bundle.putSerializable("selectedEvent", selectedEvent);
+            EventCache.getInstance(requireContext()).putArguments(bundle, selectedEvent);
             Navigation.findNavController(v).navigate(R.id.fragment_view_entrants, bundle);
         });
 
         viewMapButton.setOnClickListener(v -> {
             Bundle bundle = new Bundle();
-            bundle.putSerializable("selectedEvent", selectedEvent);
+            EventCache.getInstance(requireContext()).putArguments(bundle, selectedEvent);
             Navigation.findNavController(v).navigate(R.id.fragment_view_map, bundle);
         });
 
@@ -184,7 +185,7 @@ public class ManageEventFragment extends Fragment {
             }
 
             Bundle bundle = new Bundle();
-            bundle.putSerializable("selectedEvent", selectedEvent);
+            EventCache.getInstance(requireContext()).putArguments(bundle, selectedEvent);
 
             com.example.sprite.screens.ui.QRCodePopup popup =
                     new com.example.sprite.screens.ui.QRCodePopup();
@@ -60,7 +60,7 @@ public class ManageEventViewModel extends ViewModel {
     public void setEventImage(Uri uri, ImageView view)
     {
         ImageService imageService = new ImageService();
-        imageService.setEventImageUri(selectedEvent.getValue(), uri, () -> {view.setImageURI(uri);});
+        imageService.setEventImageUri(view.getContext(), selectedEvent.getValue(), uri, () -> {view.setImageURI(uri);});
     }
 
     /**
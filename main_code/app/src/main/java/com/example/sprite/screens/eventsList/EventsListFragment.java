@@ -16,6 +16,8 @@ import androidx.recyclerview.widget.RecyclerView;
 
 import com.example.sprite.Adapters.EventAdapter;
 import com.example.sprite.Controllers.Authentication_Service;
+import com.example.sprite.Controllers.EventCache;
+import com.example.sprite.Controllers.PosterPrefetcher;
 import com.example.sprite.Models.Event;
 import com.example.sprite.Models.User;
 import com.example.sprite.R;
@@ -23,7 +25,6 @@ import com.google.android.material.datepicker.MaterialDatePicker;
 import com.google.android.material.textfield.TextInputEditText;
 import android.widget.SearchView;
 
-import java.io.Serializable;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
 import java.util.Calendar;
@@ -47,6 +48,7 @@ public class EventsListFragment extends Fragment {
     private EventsListViewModel mViewModel;
     private RecyclerView recyclerView;
     private EventAdapter adapter;
+    private PosterPrefetcher prefetcher;
     private User currentUser;
     private SearchView searchView;
     private TextInputEditText startDateEditText;
@@ -102,6 +104,7 @@ public class EventsListFragment extends Fragment {
         mViewModel.getFilteredEvents().observe(getViewLifecycleOwner(), events -> {
             if (events != null && currentUser != null && 
                 currentUser.getUserRole() == User.UserRole.ENTRANT) {
+                prefetcher.reset();
                 adapter.setEvents(events);
                 adapter.notifyDataSetChanged();
             }
@@ -112,6 +115,7 @@ public class EventsListFragment extends Fragment {
             if (events != null && currentUser != null && 
                 (currentUser.getUserRole() == User.UserRole.ORGANIZER || 
                  currentUser.getUserRole() == User.UserRole.ADMIN)) {
+                prefetcher.reset();
                 adapter.setEvents(events);
                 adapter.notifyDataSetChanged();
             }
@@ -125,6 +129,10 @@ public class EventsListFragment extends Fragment {
         recyclerView.setLayoutManager(new LinearLayoutManager(getContext()));
         adapter = new EventAdapter(new ArrayList<>());
         recyclerView.setAdapter(adapter);
+        // Warm the poster caches for the rows about to scroll in, so posters do not pop in
+        prefetcher = new PosterPrefetcher(R.id.event_image,
+                (position, width) -> adapter.getEvent(position).getPosterUrlForWidth(width));
+        recyclerView.addOnScrollListener(prefetcher);
     }
 
     /**
@@ -140,7 +148,7 @@ public class EventsListFragment extends Fragment {
             }
 
             Bundle bundle = new Bundle();
-            bundle.putSerializable("selectedEvent", (Serializable) event);
+            EventCache.getInstance(requireContext()).putArguments(bundle, event);
 
             switch (currentUser.getUserRole()) {
                 case ENTRANT:
@@ -10,6 +10,7 @@ import androidx.lifecycle.MutableLiveData;
 import androidx.lifecycle.ViewModel;
 
 import com.example.sprite.Controllers.DatabaseService;
+import com.example.sprite.Controllers.EventCodec;
 import com.example.sprite.Models.Event;
 import com.google.firebase.firestore.DocumentSnapshot;
 
@@ -63,7 +64,7 @@ public class EventsListViewModel extends ViewModel {
             if (task.isSuccessful() && task.getResult() != null) {
                 allEvents = new ArrayList<>();
                 for (DocumentSnapshot doc : task.getResult().getDocuments()) {
-                    Event e = doc.toObject(Event.class);
+                    Event e = EventCodec.getInstance().decode(doc);
                     if (e != null) allEvents.add(e);
                 }
                 events.setValue(allEvents);
@@ -90,7 +91,7 @@ public class EventsListViewModel extends ViewModel {
             if (task.isSuccessful() && task.getResult() != null) {
                 allEvents = new ArrayList<>();
                 for (DocumentSnapshot doc : task.getResult().getDocuments()) {
-                    Event e = doc.toObject(Event.class);
+                    Event e = EventCodec.getInstance().decode(doc);
                     if (e != null) allEvents.add(e);
                 }
                 events.setValue(allEvents);
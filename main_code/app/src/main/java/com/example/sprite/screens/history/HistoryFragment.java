@@ -17,6 +17,7 @@ import androidx.recyclerview.widget.RecyclerView;
 
 import com.example.sprite.Adapters.HistoryEventAdapter;
 import com.example.sprite.Controllers.Authentication_Service;
+import com.example.sprite.Controllers.EventCache;
 import com.example.sprite.Models.Event;
 import com.example.sprite.R;
 import com.example.sprite.Models.User;
@@ -140,7 +141,7 @@ public class HistoryFragment extends Fragment {
     private void navigateToEventDetails(Event event) {
         if (event != null && event.getEventId() != null) {
             Bundle bundle = new Bundle();
-            bundle.putSerializable("selectedEvent", event);
+            EventCache.getInstance(requireContext()).putArguments(bundle, event);
             Navigation.findNavController(requireView())
                     .navigate(R.id.fragment_event_details, bundle);
         }
@@ -7,18 +7,19 @@ import androidx.lifecycle.MutableLiveData;
 import androidx.lifecycle.ViewModel;
 
 import com.example.sprite.Controllers.DatabaseService;
+import com.example.sprite.Controllers.TaskFutures;
 import com.example.sprite.Models.Event;
-import com.google.firebase.firestore.DocumentSnapshot;
-import com.google.firebase.firestore.QuerySnapshot;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
-import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
 
 /**
  * ViewModel for managing event history data.
@@ -30,7 +31,7 @@ import java.util.concurrent.atomic.AtomicInteger;
 public class HistoryViewModel extends ViewModel {
 
     private static final String TAG = "HistoryViewModel";
-    private static final int QUERY_COUNT = 4; // confirmed, selected, waiting, cancelled
+    private static final long QUERY_TIMEOUT_SECONDS = 20;
 
     private final MutableLiveData<List<EventHistoryItem>> eventHistory =
             new MutableLiveData<>(new ArrayList<>());
@@ -57,45 +58,51 @@ public class HistoryViewModel extends ViewModel {
             return;
         }
 
-        Map<String, EventHistoryItem> historyMap = new HashMap<>();
-        AtomicInteger completedQueries = new AtomicInteger(0);
-
-        fetchEventsForStatus("confirmedAttendees", "Confirmed", userId, historyMap, completedQueries);
-        fetchEventsForStatus("selectedAttendees", "Selected", userId, historyMap, completedQueries);
-        fetchEventsForStatus("waitingList", "Waiting List", userId, historyMap, completedQueries);
-        fetchEventsForStatus("cancelledAttendees", "Cancelled", userId, historyMap, completedQueries);
+        // The four status queries are independent, so issue them together and merge once all finish.
+        CompletableFuture<List<Event>> confirmed = fetchEventsForStatus("confirmedAttendees", "Confirmed", userId);
+        CompletableFuture<List<Event>> selected = fetchEventsForStatus("selectedAttendees", "Selected", userId);
+        CompletableFuture<List<Event>> waiting = fetchEventsForStatus("waitingList", "Waiting List", userId);
+        CompletableFuture<List<Event>> cancelled = fetchEventsForStatus("cancelledAttendees", "Cancelled", userId);
+
+        TaskFutures.withTimeout(TaskFutures.successfulAsList(Arrays.asList(confirmed, selected, waiting, cancelled)),
+                        QUERY_TIMEOUT_SECONDS, TimeUnit.SECONDS)
+                .whenComplete((results, error) -> {
+                    if (error != null) {
+                        Log.w(TAG, "Timed out loading event history", TaskFutures.unwrap(error));
+                        return;
+                    }
+                    Map<String, EventHistoryItem> historyMap = new HashMap<>();
+                    mergeQueryResults(results.get(0), "Confirmed", historyMap);
+                    mergeQueryResults(results.get(1), "Selected", historyMap);
+                    mergeQueryResults(results.get(2), "Waiting List", historyMap);
+                    mergeQueryResults(results.get(3), "Cancelled", historyMap);
+
+                    List<EventHistoryItem> result = new ArrayList<>(historyMap.values());
+                    // Sort by start date descending when available
+                    result.sort(historyComparator());
+                    eventHistory.postValue(result);
+                });
     }
 
-    private void fetchEventsForStatus(String fieldName,
-                                      String statusLabel,
-                                      String userId,
-                                      Map<String, EventHistoryItem> historyMap,
-                                      AtomicInteger completedQueries) {
-        dbService.db.collection("events")
-                .whereArrayContains(fieldName, userId)
-                .get()
-                .addOnCompleteListener(task -> {
-                    if (task.isSuccessful() && task.getResult() != null) {
-                        mergeQueryResults(task.getResult(), statusLabel, historyMap);
-                    } else {
+    private CompletableFuture<List<Event>> fetchEventsForStatus(String fieldName,
+                                                                String statusLabel,
+                                                                String userId) {
+        return dbService.getEventsWhereArrayContainsAsync(fieldName, userId)
+                .whenComplete((events, error) -> {
+                    if (error != null) {
                         Log.w(TAG, "Failed to load events for status " + statusLabel,
-                                task.getException());
-                    }
-
-                    if (completedQueries.incrementAndGet() == QUERY_COUNT) {
-                        List<EventHistoryItem> result = new ArrayList<>(historyMap.values());
-                        // Sort by start date descending when available
-                        result.sort(historyComparator());
-                        eventHistory.setValue(result);
+                                TaskFutures.unwrap(error));
                     }
                 });
     }
 
-    private void mergeQueryResults(QuerySnapshot snapshot,
+    private void mergeQueryResults(List<Event> events,
                                    String status,
                                    Map<String, EventHistoryItem> historyMap) {
-        for (DocumentSnapshot doc : snapshot.getDocuments()) {
-            Event event = doc.toObject(Event.class);
+        if (events == null) {
+            return;
+        }
+        for (Event event : events) {
             if (event == null || event.getEventId() == null) {
                 continue;
             }
@@ -5,6 +5,7 @@ import androidx.lifecycle.MutableLiveData;
 import androidx.lifecycle.ViewModel;
 
 import com.example.sprite.Controllers.DatabaseService;
+import com.example.sprite.Controllers.UserCodec;
 import com.example.sprite.Models.User;
 import com.google.firebase.firestore.DocumentSnapshot;
 
@@ -72,7 +73,7 @@ public class ManageUsersViewModel extends ViewModel {
                 List<User> tempAdmin = new ArrayList<>();
 
                 for (DocumentSnapshot doc : task.getResult().getDocuments()) {
-                    User user = doc.toObject(User.class);
+                    User user = UserCodec.getInstance().decode(doc);
                     if (user != null) {
                         usersList.add(user);
 
@@ -12,6 +12,7 @@ import android.view.View;
 import android.view.ViewGroup;
 import android.widget.TextView;
 
+import com.example.sprite.Controllers.EventCache;
 import com.example.sprite.Models.Event;
 import com.example.sprite.R;
 
@@ -66,9 +67,9 @@ public class EventDetailsBottomScreen extends Fragment {
     @Override
     public void onActivityCreated(@Nullable Bundle savedInstanceState) {
         super.onActivityCreated(savedInstanceState);
-        Bundle args = getArguments();
-        if (args != null) {
-            selectedEvent = (Event) args.getSerializable("selectedEvent");
+        Event event = EventCache.getInstance(requireContext()).fromArguments(getArguments());
+        if (event != null) {
+            selectedEvent = event;
             setEventText();
         }
     }
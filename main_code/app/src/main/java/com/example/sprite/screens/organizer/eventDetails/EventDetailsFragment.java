@@ -26,7 +26,11 @@ import androidx.lifecycle.ViewModelProvider;
 
 import com.example.sprite.Controllers.Authentication_Service;
 import com.example.sprite.Controllers.DatabaseService;
+import com.example.sprite.Controllers.EventCache;
+import com.example.sprite.Controllers.EventCodec;
 import com.example.sprite.Controllers.ImageService;
+import com.example.sprite.Controllers.OutboxDrainer;
+import com.example.sprite.Controllers.OutboxMutation;
 import com.example.sprite.Models.Event;
 import com.example.sprite.Models.User;
 import com.example.sprite.Models.Waitlist;
@@ -35,7 +39,7 @@ import com.example.sprite.screens.ui.QRCodePopup;
 import com.google.android.material.button.MaterialButton;
 import com.google.firebase.firestore.GeoPoint;
 
-import java.io.Serializable;
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
@@ -77,6 +81,25 @@ public class EventDetailsFragment extends Fragment {
 
     private ActivityResultLauncher<String> locationPermissionLauncher;
 
+    /** Reports queued actions that could not be applied once they reached the server. */
+    private final OutboxDrainer.Listener outboxListener = (mutation, outcome) -> {
+        if (currentEvent == null || currentUser == null
+                || !mutation.getEventId().equals(currentEvent.getEventId())
+                || !mutation.getUserId().equals(currentUser.getUserId())) {
+            return;
+        }
+        if (outcome == OutboxMutation.Outcome.CONFLICT || outcome == OutboxMutation.Outcome.REJECTED) {
+            if (getActivity() == null) return;
+            getActivity().runOnUiThread(() -> {
+                Context context = getContext();
+                if (context == null) return;
+                Toast.makeText(context, "The event changed and your action could not be applied",
+                        Toast.LENGTH_LONG).show();
+                refreshEventAndUpdateButtons();
+            });
+        }
+    };
+
     /**
      * Creates a new instance of EventDetailsFragment.
      *
@@ -128,20 +151,14 @@ public class EventDetailsFragment extends Fragment {
         eventImageView = view.findViewById(R.id.event_image_view);
 
 
-        Bundle arguments = getArguments();
-        if (arguments != null) {
-            Serializable eventSerializable = arguments.getSerializable("selectedEvent");
-            if (eventSerializable instanceof Event) {
-                currentEvent = (Event) eventSerializable;
-            }
-        }
+        currentEvent = EventCache.getInstance(requireContext()).fromArguments(getArguments());
 
 
         if (currentEvent != null
                 && eventImageView != null
                 && currentEvent.getPosterImageUrl() != null
                 && !currentEvent.getPosterImageUrl().isEmpty()) {
-            imageService.loadImage(currentEvent.getPosterImageUrl(), eventImageView);
+            imageService.loadPoster(currentEvent, eventImageView);
         }
 
 
@@ -173,7 +190,7 @@ public class EventDetailsFragment extends Fragment {
                 }
 
                 Bundle bundle = new Bundle();
-                bundle.putSerializable("selectedEvent", currentEvent);
+                EventCache.getInstance(requireContext()).putArguments(bundle, currentEvent);
 
                 QRCodePopup popup = new QRCodePopup();
                 popup.setArguments(bundle);
@@ -191,6 +208,9 @@ public class EventDetailsFragment extends Fragment {
     public void onResume() {
         super.onResume();
 
+        OutboxDrainer drainer = getOutboxDrainer();
+        if (drainer != null) drainer.addListener(outboxListener);
+
         if (currentEvent != null && currentUser != null) {
             refreshEventAndUpdateButtons();
         }
@@ -204,8 +224,17 @@ public class EventDetailsFragment extends Fragment {
     }
 
 
+    @Override
+    public void onPause() {
+        super.onPause();
+        OutboxDrainer drainer = getOutboxDrainer();
+        if (drainer != null) drainer.removeListener(outboxListener);
+    }
+
     /**
      * Refreshes the event from the database and updates button visibility.
+     * Actions still waiting in the outbox are re-applied on top of the server copy
+     * so the buttons do not flip back while they are being delivered.
      */
     private void refreshEventAndUpdateButtons() {
         if (currentEvent == null) {
@@ -214,9 +243,10 @@ public class EventDetailsFragment extends Fragment {
 
         databaseService.getEvent(currentEvent.getEventId(), task -> {
             if (task.isSuccessful() && task.getResult() != null) {
-                Event updatedEvent = task.getResult().toObject(Event.class);
+                Event updatedEvent = EventCodec.getInstance().decode(task.getResult());
                 if (updatedEvent != null) {
                     currentEvent = updatedEvent;
+                    applyPendingMutations();
                     setupButtons();
                     if (bottomScreenFragment != null) {
                         bottomScreenFragment.setSelectedEvent(currentEvent);
@@ -403,6 +433,9 @@ public class EventDetailsFragment extends Fragment {
                 locationPermissionLauncher.launch(Manifest.permission.ACCESS_FINE_LOCATION);
                 return;
             }
+        } else {
+            joinWaitlistThroughOutbox();
+            return;
         }
 
 
@@ -413,7 +446,7 @@ public class EventDetailsFragment extends Fragment {
                 return;
             }
 
-            Event updatedEvent = task.getResult().toObject(Event.class);
+            Event updatedEvent = EventCodec.getInstance().decode(task.getResult());
             if (updatedEvent == null) return;
             currentEvent = updatedEvent;
 
@@ -439,23 +472,41 @@ public class EventDetailsFragment extends Fragment {
             waitingList.add(userId);
             currentEvent.setWaitingList(waitingList);
 
-            if (currentEvent.isGeolocationRequired()) {
-                saveUserLocationWithoutPlayServices(userId);
-            } else {
-
-                databaseService.updateEvent(currentEvent, updateTask -> {
-                    if (updateTask.isSuccessful()) {
-                        Toast.makeText(getContext(), "Successfully joined waitlist!", Toast.LENGTH_SHORT).show();
-                        setupButtons();
-                    } else {
-                        Toast.makeText(getContext(), "Failed to join waitlist", Toast.LENGTH_SHORT).show();
-                        Log.e(TAG, "Error updating event: " + updateTask.getException());
-                    }
-                });
-            }
+            // Joins that need a location are written directly, since the outbox does not carry one
+            saveUserLocationWithoutPlayServices(userId);
         });
     }
 
+    /**
+     * Joins the waitlist through the offline outbox: the action is written to disk,
+     * shown immediately, and delivered (with conflict checks) in the background.
+     */
+    private void joinWaitlistThroughOutbox() {
+        String userId = currentUser.getUserId();
+        List<String> waitingList = currentEvent.getWaitingList() != null
+                ? currentEvent.getWaitingList()
+                : new ArrayList<>();
+
+        if (waitingList.contains(userId)) {
+            Toast.makeText(getContext(), "You are already on the waitlist", Toast.LENGTH_SHORT).show();
+            return;
+        }
+
+        int maxWaitingListSize = currentEvent.getMaxWaitingListSize();
+        if (maxWaitingListSize > 0 && waitingList.size() >= maxWaitingListSize) {
+            Toast.makeText(getContext(), "Waitlist is full", Toast.LENGTH_SHORT).show();
+            return;
+        }
+
+        if (!submitMutation(OutboxMutation.Type.JOIN_WAITLIST)) {
+            Toast.makeText(getContext(), "Failed to join waitlist", Toast.LENGTH_SHORT).show();
+            return;
+        }
+        applyLocally(OutboxMutation.Type.JOIN_WAITLIST);
+        Toast.makeText(getContext(), "Successfully joined waitlist!", Toast.LENGTH_SHORT).show();
+        setupButtons();
+    }
+
     /**
      * Saves user's last known location using Android's LocationManager.
      *
@@ -554,7 +605,7 @@ public class EventDetailsFragment extends Fragment {
                 return;
             }
 
-            Event updatedEvent = task.getResult().toObject(Event.class);
+            Event updatedEvent = EventCodec.getInstance().decode(task.getResult());
             if (updatedEvent == null) return;
 
             currentEvent = updatedEvent;
@@ -598,51 +649,22 @@ public class EventDetailsFragment extends Fragment {
             return;
         }
 
+        List<String> selectedList = currentEvent.getSelectedAttendees() != null
+                ? currentEvent.getSelectedAttendees()
+                : new ArrayList<>();
+        if (!selectedList.contains(currentUser.getUserId())) {
+            Toast.makeText(getContext(), "You are not selected for this event", Toast.LENGTH_SHORT).show();
+            return;
+        }
 
-        databaseService.getEvent(currentEvent.getEventId(), task -> {
-            if (task.isSuccessful() && task.getResult() != null) {
-                Event updatedEvent = task.getResult().toObject(Event.class);
-                if (updatedEvent != null) {
-                    currentEvent = updatedEvent;
-
-                    String userId = currentUser.getUserId();
-                    List<String> selectedList = currentEvent.getSelectedAttendees() != null
-                            ? currentEvent.getSelectedAttendees()
-                            : new ArrayList<>();
-                    List<String> confirmedList = currentEvent.getConfirmedAttendees() != null
-                            ? currentEvent.getConfirmedAttendees()
-                            : new ArrayList<>();
-
-                    if (!selectedList.contains(userId)) {
-                        Toast.makeText(getContext(), "You are not selected for this event", Toast.LENGTH_SHORT).show();
-                        return;
-                    }
-
-
-                    if (!confirmedList.contains(userId)) {
-                        confirmedList.add(userId);
-                        currentEvent.setConfirmedAttendees(confirmedList);
-                    }
-
-
-                    databaseService.updateEvent(currentEvent, updateTask -> {
-                        if (updateTask.isSuccessful()) {
-                            Toast.makeText(getContext(), "Invitation accepted!", Toast.LENGTH_SHORT).show();
-
-                            hideAllButtons();
-                        } else {
-                            Toast.makeText(getContext(), "Failed to accept invitation", Toast.LENGTH_SHORT).show();
-                            Log.e(TAG, "Error updating event: " + updateTask.getException());
-
-                            setupButtons();
-                        }
-                    });
-                }
-            } else {
-                Toast.makeText(getContext(), "Failed to load event", Toast.LENGTH_SHORT).show();
-                Log.e(TAG, "Error getting event: " + task.getException());
-            }
-        });
+        if (!submitMutation(OutboxMutation.Type.ACCEPT_INVITATION)) {
+            Toast.makeText(getContext(), "Failed to accept invitation", Toast.LENGTH_SHORT).show();
+            setupButtons();
+            return;
+        }
+        applyLocally(OutboxMutation.Type.ACCEPT_INVITATION);
+        Toast.makeText(getContext(), "Invitation accepted!", Toast.LENGTH_SHORT).show();
+        hideAllButtons();
     }
 
     /**
@@ -655,35 +677,90 @@ public class EventDetailsFragment extends Fragment {
             return;
         }
 
+        if (!submitMutation(OutboxMutation.Type.DECLINE_INVITATION)) {
+            Toast.makeText(getContext(), "Failed to decline invitation", Toast.LENGTH_SHORT).show();
+            return;
+        }
+        applyLocally(OutboxMutation.Type.DECLINE_INVITATION);
+        Toast.makeText(getContext(), "Invitation declined", Toast.LENGTH_SHORT).show();
+        setupButtons();
+    }
 
-        databaseService.getEvent(currentEvent.getEventId(), task -> {
-            if (task.isSuccessful() && task.getResult() != null) {
-                Event updatedEvent = task.getResult().toObject(Event.class);
-                if (updatedEvent != null) {
-                    currentEvent = updatedEvent;
-
-                    Waitlist waitlist = new Waitlist(currentEvent);
-                    String userId = currentUser.getUserId();
-
+    /**
+     * Gets the app's outbox drainer.
+     *
+     * @return The drainer, or null if the outbox could not be opened
+     */
+    @Nullable
+    private OutboxDrainer getOutboxDrainer() {
+        Context context = getContext();
+        if (context == null) return null;
+        try {
+            return OutboxDrainer.getShared(context);
+        } catch (IOException e) {
+            Log.e(TAG, "Could not open mutation outbox", e);
+            return null;
+        }
+    }
 
-                    waitlist.moveToCancelled(userId);
+    /**
+     * Durably records an action by the current user on the current event.
+     *
+     * @param type The action
+     * @return True if the action was recorded and will be delivered
+     */
+    private boolean submitMutation(OutboxMutation.Type type) {
+        OutboxDrainer drainer = getOutboxDrainer();
+        if (drainer == null) return false;
+        try {
+            drainer.submit(type, currentEvent.getEventId(), currentUser.getUserId());
+            return true;
+        } catch (IOException e) {
+            Log.e(TAG, "Could not record " + type, e);
+            return false;
+        }
+    }
 
+    /**
+     * Applies an action to the local copy of the event, mirroring what the outbox will write.
+     *
+     * @param type The action
+     */
+    private void applyLocally(OutboxMutation.Type type) {
+        String userId = currentUser.getUserId();
+        switch (type) {
+            case JOIN_WAITLIST:
+                List<String> waitingList = currentEvent.getWaitingList() != null
+                        ? currentEvent.getWaitingList()
+                        : new ArrayList<>();
+                if (!waitingList.contains(userId)) waitingList.add(userId);
+                currentEvent.setWaitingList(waitingList);
+                break;
+            case ACCEPT_INVITATION:
+                List<String> confirmedList = currentEvent.getConfirmedAttendees() != null
+                        ? currentEvent.getConfirmedAttendees()
+                        : new ArrayList<>();
+                if (!confirmedList.contains(userId)) confirmedList.add(userId);
+                currentEvent.setConfirmedAttendees(confirmedList);
+                break;
+            case DECLINE_INVITATION:
+                new Waitlist(currentEvent).moveToCancelled(userId);
+                break;
+        }
+    }
 
-                    databaseService.updateEvent(currentEvent, updateTask -> {
-                        if (updateTask.isSuccessful()) {
-                            Toast.makeText(getContext(), "Invitation declined", Toast.LENGTH_SHORT).show();
-                            setupButtons();
-                        } else {
-                            Toast.makeText(getContext(), "Failed to decline invitation", Toast.LENGTH_SHORT).show();
-                            Log.e(TAG, "Error updating event: " + updateTask.getException());
-                        }
-                    });
-                }
-            } else {
-                Toast.makeText(getContext(), "Failed to load event", Toast.LENGTH_SHORT).show();
-                Log.e(TAG, "Error getting event: " + task.getException());
+    /**
+     * Re-applies this user's undelivered actions on the current event.
+     */
+    private void applyPendingMutations() {
+        OutboxDrainer drainer = getOutboxDrainer();
+        if (drainer == null || currentUser == null) return;
+        for (OutboxMutation mutation : drainer.getPending()) {
+            if (mutation.getEventId().equals(currentEvent.getEventId())
+                    && mutation.getUserId().equals(currentUser.getUserId())) {
+                applyLocally(mutation.getType());
             }
-        });
+        }
     }
 
     /**
@@ -19,6 +19,7 @@ import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 import androidx.fragment.app.DialogFragment;
 
+import com.example.sprite.Controllers.EventCache;
 import com.example.sprite.Controllers.QRCodeService;
 import com.example.sprite.Models.Event;
 import com.example.sprite.R;
@@ -62,13 +63,7 @@ public class QRCodePopup extends DialogFragment {
         popupTitleTextView.setText("Event QR Code");
 
 
-        Bundle args = getArguments();
-        if (args != null) {
-            Object obj = args.getSerializable("selectedEvent");
-            if (obj instanceof Event) {
-                event = (Event) obj;
-            }
-        }
+        event = EventCache.getInstance(requireContext()).fromArguments(getArguments());
 
         if (event != null) {
             eventTitleTextView.setText(event.getTitle());
@@ -19,6 +19,8 @@ import androidx.navigation.NavController;
 import androidx.navigation.Navigation;
 
 import com.example.sprite.Controllers.DatabaseService;
+import com.example.sprite.Controllers.EventCache;
+import com.example.sprite.Controllers.EventCodec;
 import com.example.sprite.Models.Event;
 import com.example.sprite.R;
 import com.google.android.gms.tasks.Task;
@@ -151,7 +153,7 @@ public class QRScannerFragment extends Fragment {
                 return;
             }
 
-            Event event = task.getResult().toObject(Event.class);
+            Event event = EventCodec.getInstance().decode(task.getResult());
             if (event == null) {
                 Toast.makeText(requireContext(),
                         "Event not found", Toast.LENGTH_SHORT).show();
@@ -164,7 +166,7 @@ public class QRScannerFragment extends Fragment {
                     requireActivity(), R.id.nav_host_fragment_content_main);
 
             Bundle bundle = new Bundle();
-            bundle.putSerializable("selectedEvent", event);
+            EventCache.getInstance(requireContext()).putArguments(bundle, event);
             navController.navigate(R.id.fragment_event_details, bundle);
         });
     }
@@ -25,6 +25,7 @@ import androidx.recyclerview.widget.LinearLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
 
 import com.example.sprite.Adapters.EntrantAdapter;
+import com.example.sprite.Controllers.EventCache;
 import com.example.sprite.Controllers.NotificationService;
 import com.example.sprite.Models.Entrant;
 import com.example.sprite.Models.Event;
@@ -37,7 +38,6 @@ import java.io.FileWriter;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.UUID;
 
 /**
  * Fragment that displays the list of entrants registered for a selected event.
@@ -127,7 +127,7 @@ public class ViewEntrantsFragment extends Fragment {
         });
 
         // Load event from arguments
-        currentEvent = (Event) getArguments().getSerializable("selectedEvent");
+        currentEvent = EventCache.getInstance(requireContext()).fromArguments(getArguments());
         if (currentEvent != null) {
             // Optionally, tell ViewModel the event ID for any database ops
             mViewModel.setEventId(currentEvent.getEventId());
@@ -253,7 +253,9 @@ public class ViewEntrantsFragment extends Fragment {
                 continue;
             }
 
-            String notificationId = UUID.randomUUID().toString();
+            // Keyed by draw round and message, so sending the same message again is a no-op
+            String notificationId = NotificationService.notificationId(eventId, entrant.getUserId(),
+                    notificationType, currentEvent.getDrawRound(), message);
             Notification notification = new Notification(
                 notificationId,
                 entrant.getUserId(),
@@ -262,6 +264,7 @@ public class ViewEntrantsFragment extends Fragment {
                 message,
                 notificationType
             );
+            notification.setDrawRound(currentEvent.getDrawRound());
 
             notificationService.createNotification(notification, 
                 new NotificationService.NotificationCallback() {
@@ -6,6 +6,7 @@ import androidx.lifecycle.LiveData;
 import androidx.lifecycle.MutableLiveData;
 import androidx.lifecycle.ViewModel;
 
+import com.example.sprite.Controllers.EntrantCodec;
 import com.example.sprite.Models.Entrant;
 import com.example.sprite.Models.Event;
 import com.example.sprite.Models.Waitlist;
@@ -99,7 +100,7 @@ public class ViewEntrantsViewModel extends ViewModel {
                     .document(id)
                     .addSnapshotListener((doc, e) -> {
                         if (doc != null && doc.exists()) {
-                            Entrant entrant = doc.toObject(Entrant.class);
+                            Entrant entrant = EntrantCodec.getInstance().decode(doc);
                             if (entrant != null) {
                                 loadedEntrants.add(entrant);
                                 currentEntrantList.setValue(new ArrayList<>(loadedEntrants));
@@ -12,6 +12,8 @@ import androidx.fragment.app.Fragment;
 import androidx.lifecycle.ViewModelProvider;
 
 import com.example.sprite.Controllers.DatabaseService;
+import com.example.sprite.Controllers.EventCache;
+import com.example.sprite.Controllers.EventCodec;
 import com.example.sprite.Models.Event;
 import com.example.sprite.R;
 
@@ -66,10 +68,7 @@ public class ViewMapFragment extends Fragment {
         databaseService = new DatabaseService();
 
         // Get event from arguments
-        Bundle arguments = getArguments();
-        if (arguments != null) {
-            currentEvent = (Event) arguments.getSerializable("selectedEvent");
-        }
+        currentEvent = EventCache.getInstance(requireContext()).fromArguments(getArguments());
 
         // Fetch locations and add markers
         if (currentEvent != null) {
@@ -86,7 +85,7 @@ public class ViewMapFragment extends Fragment {
         String eventId = currentEvent.getEventId();
         databaseService.getEvent(eventId, task -> {
             if (task.isSuccessful() && task.getResult() != null) {
-                Event updatedEvent = task.getResult().toObject(Event.class);
+                Event updatedEvent = EventCodec.getInstance().decode(task.getResult());
                 if (updatedEvent != null && updatedEvent.getWaitingListLocations() != null) {
                     HashMap<String, com.google.firebase.firestore.GeoPoint> locationsMap =
                             (HashMap<String, com.google.firebase.firestore.GeoPoint>) updatedEvent.getWaitingListLocations();
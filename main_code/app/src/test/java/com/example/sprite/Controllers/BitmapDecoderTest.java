@@ -0,0 +1,38 @@
+package com.example.sprite.Controllers;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for {@link BitmapDecoder#calculateInSampleSize}.
+ */
+public class BitmapDecoderTest {
+
+    @Test
+    void testFullSizeWhenNoTargetIsGiven() {
+        assertEquals(1, BitmapDecoder.calculateInSampleSize(4000, 3000, 0, 0));
+    }
+
+    @Test
+    void testThumbnailIsHeavilySampled() {
+        // A 12 MP poster shown in a 240x180 list thumbnail
+        assertEquals(16, BitmapDecoder.calculateInSampleSize(4000, 3000, 240, 180));
+    }
+
+    @Test
+    void testNeverSamplesBelowTheTarget() {
+        assertEquals(2, BitmapDecoder.calculateInSampleSize(2000, 1500, 1000, 700));
+        assertEquals(1, BitmapDecoder.calculateInSampleSize(2000, 1500, 1001, 700));
+    }
+
+    @Test
+    void testWidthAloneLimitsWhenHeightIsUnknown() {
+        assertEquals(4, BitmapDecoder.calculateInSampleSize(4320, 7680, 1080, 0));
+    }
+
+    @Test
+    void testSmallImageIsNotSampled() {
+        assertEquals(1, BitmapDecoder.calculateInSampleSize(200, 150, 1080, 1920));
+    }
+}
@@ -0,0 +1,100 @@
+package com.example.sprite.Controllers;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import android.graphics.Bitmap;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for {@link BitmapPool}. Bitmaps are mocked so only their size and
+ * mutability matter.
+ */
+public class BitmapPoolTest {
+
+    private static Bitmap bitmap(int bytes) {
+        Bitmap bitmap = mock(Bitmap.class);
+        when(bitmap.getAllocationByteCount()).thenReturn(bytes);
+        when(bitmap.isMutable()).thenReturn(true);
+        return bitmap;
+    }
+
+    @Test
+    void testReusesTheSmallestBitmapThatFits() {
+        BitmapPool pool = new BitmapPool(10_000);
+        Bitmap small = bitmap(1000);
+        Bitmap large = bitmap(2000);
+        pool.put(large);
+        pool.put(small);
+
+        assertSame(small, pool.get(900));
+        assertSame(large, pool.get(1000));
+        assertNull(pool.get(900));
+        assertEquals(0, pool.getSizeBytes());
+    }
+
+    @Test
+    void testDoesNotHandOutBitmapsFarLargerThanNeeded() {
+        BitmapPool pool = new BitmapPool(100_000);
+        pool.put(bitmap(50_000));
+
+        assertNull(pool.get(10_000));
+        assertEquals(50_000, pool.getSizeBytes());
+    }
+
+    @Test
+    void testRejectsImmutableAndRecycledBitmaps() {
+        BitmapPool pool = new BitmapPool(10_000);
+        Bitmap immutable = bitmap(1000);
+        when(immutable.isMutable()).thenReturn(false);
+        Bitmap recycled = bitmap(1000);
+        when(recycled.isRecycled()).thenReturn(true);
+
+        assertFalse(pool.put(immutable));
+        assertFalse(pool.put(recycled));
+        assertTrue(pool.put(bitmap(1000)));
+        assertEquals(1000, pool.getSizeBytes());
+    }
+
+    @Test
+    void testDropsOldestBitmapsWhenFull() {
+        BitmapPool pool = new BitmapPool(3000);
+        Bitmap oldest = bitmap(1000);
+        pool.put(oldest);
+        pool.put(bitmap(1000));
+        pool.put(bitmap(1000));
+
+        pool.put(bitmap(1500));
+
+        assertEquals(2500, pool.getSizeBytes());
+        for (int i = 0; i < 2; i++) {
+            Bitmap reused = pool.get(1000);
+            assertTrue(reused != oldest);
+        }
+    }
+
+    @Test
+    void testSteadyStateScrollingStopsAllocating() {
+        // A list of same-size thumbnails: each bind decodes one and the cache evicts one
+        BitmapPool pool = new BitmapPool(1_000_000);
+        int thumbnail = 240 * 180 * 2;
+        for (int bind = 0; bind < 200; bind++) {
+            Bitmap target = pool.get(thumbnail);
+            pool.recordDecode(target != null);
+            Bitmap decoded = target != null ? target : bitmap(thumbnail);
+            if (bind >= 20) {
+                // Once the cache is full, every decode pushes an older thumbnail out
+                pool.put(decoded);
+            }
+        }
+
+        assertEquals(21, pool.getAllocated());
+        assertEquals(179, pool.getReused());
+    }
+}
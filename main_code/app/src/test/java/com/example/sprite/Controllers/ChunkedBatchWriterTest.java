@@ -0,0 +1,95 @@
+package com.example.sprite.Controllers;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Unit tests for {@link ChunkedBatchWriter#partition} and {@link BulkWriteResult}.
+ */
+public class ChunkedBatchWriterTest {
+
+    private static List<Integer> items(int count) {
+        List<Integer> items = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) items.add(i);
+        return items;
+    }
+
+    /**
+     * Tests that 5,000 single-write items plus a counter write per chunk fit in 11 batches.
+     */
+    @Test
+    void testPartitionLeavesRoomForChunkWrites() {
+        List<List<Integer>> chunks = ChunkedBatchWriter.partition(items(5_000), 1, 1);
+
+        assertEquals(11, chunks.size());
+        assertEquals(499, chunks.get(0).size());
+        assertEquals(5_000 - 10 * 499, chunks.get(10).size());
+        int next = 0;
+        for (List<Integer> chunk : chunks) {
+            assertTrue(chunk.size() + 1 <= ChunkedBatchWriter.MAX_BATCH_WRITES);
+            for (int item : chunk) assertEquals(next++, item);
+        }
+    }
+
+    /**
+     * Tests that items needing two writes each are chunked at half the size.
+     */
+    @Test
+    void testPartitionWithTwoWritesPerItem() {
+        List<List<Integer>> chunks = ChunkedBatchWriter.partition(items(1_000), 2, 1);
+
+        assertEquals(5, chunks.size());
+        assertEquals(249, chunks.get(0).size());
+    }
+
+    /**
+     * Tests that a counter write per entrant fits however many entrants there are, with
+     * one notification per entrant as the worst case.
+     */
+    @Test
+    void testPartitionWithAWritePerEntrant() {
+        for (int writesPerItem = 1; writesPerItem <= 2; writesPerItem++) {
+            for (int entrants : new int[] {1, 499, 500, 600, 5_000}) {
+                int writesPerChunk = ChunkedBatchWriter.writesPerChunkForKeys(writesPerItem, entrants);
+                List<List<Integer>> chunks = ChunkedBatchWriter.partition(items(entrants), writesPerItem, writesPerChunk);
+
+                for (List<Integer> chunk : chunks) {
+                    assertTrue(chunk.size() <= writesPerChunk);
+                    assertTrue(chunk.size() * (writesPerItem + 1) <= ChunkedBatchWriter.MAX_BATCH_WRITES);
+                }
+            }
+        }
+        assertEquals(3, ChunkedBatchWriter.writesPerChunkForKeys(1, 3));
+        assertEquals(250, ChunkedBatchWriter.writesPerChunkForKeys(1, 600));
+    }
+
+    /**
+     * Tests that empty input gives no chunks and an impossible layout is rejected.
+     */
+    @Test
+    void testPartitionEdgeCases() {
+        assertTrue(ChunkedBatchWriter.partition(Collections.emptyList(), 1, 0).isEmpty());
+        assertEquals(1, ChunkedBatchWriter.partition(items(500), 1, 0).size());
+        assertThrows(IllegalArgumentException.class, () -> ChunkedBatchWriter.partition(items(1), 1, 500));
+    }
+
+    /**
+     * Tests that round trips saved counts every write against the commits used.
+     */
+    @Test
+    void testResultReportsRoundTripsSaved() {
+        BulkWriteResult result = new BulkWriteResult(4_501, 499, 5_011, 11);
+
+        assertEquals(5_000, result.getRoundTripsSaved());
+        assertFalse(result.isComplete());
+        assertTrue(new BulkWriteResult(10, 0, 11, 1).isComplete());
+    }
+}
@@ -0,0 +1,93 @@
+package com.example.sprite.Controllers;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Unit tests for {@link DisplayedBitmaps}, with plain objects standing in for views
+ * and bitmaps.
+ */
+public class DisplayedBitmapsTest {
+
+    private final List<Object> recycled = new ArrayList<>();
+    private final DisplayedBitmaps<Object, Object> displayed = new DisplayedBitmaps<>(recycled::add);
+
+    /**
+     * Tests that an evicted bitmap is recycled once the last view showing it moves on.
+     */
+    @Test
+    void testEvictedBitmapRecycledWhenNoLongerShown() {
+        Object bitmap = new Object();
+        Object first = new Object();
+        Object second = new Object();
+        displayed.retain(bitmap);
+        displayed.show(first, bitmap);
+        displayed.retain(bitmap);
+        displayed.show(second, bitmap);
+
+        assertFalse(displayed.evicted(bitmap));
+        Object next = new Object();
+        displayed.retain(next);
+        displayed.show(first, next);
+        assertTrue(recycled.isEmpty());
+
+        displayed.forgetIfReplaced(second, null);
+        assertEquals(1, recycled.size());
+        assertSame(bitmap, recycled.get(0));
+        assertEquals(1, displayed.getCount(next));
+    }
+
+    /**
+     * Tests that a view still drawing its bitmap keeps it, and a bitmap no view shows
+     * can be recycled as soon as it is evicted.
+     */
+    @Test
+    void testForgetOnlyReleasesReplacedBitmaps() {
+        Object bitmap = new Object();
+        Object view = new Object();
+        displayed.retain(bitmap);
+        displayed.show(view, bitmap);
+
+        displayed.forgetIfReplaced(view, bitmap);
+        assertEquals(1, displayed.getCount(bitmap));
+
+        Object unshown = new Object();
+        displayed.retain(unshown);
+        displayed.release(unshown);
+        assertTrue(displayed.evicted(unshown));
+        assertTrue(recycled.isEmpty());
+    }
+
+    /**
+     * Tests that a bitmap whose view was dropped without being given another image,
+     * as when its fragment is destroyed, is released once the view is collected.
+     */
+    @Test
+    void testDroppedViewReleasesItsBitmap() throws InterruptedException {
+        Object bitmap = new Object();
+        showInDroppedView(bitmap);
+        assertFalse(displayed.evicted(bitmap));
+
+        for (int attempt = 0; attempt < 50 && displayed.getCount(bitmap) > 0; attempt++) {
+            System.gc();
+            Thread.sleep(20);
+        }
+
+        assertEquals(0, displayed.getCount(bitmap));
+        assertEquals(1, recycled.size());
+        assertSame(bitmap, recycled.get(0));
+    }
+
+    /** Shows a bitmap in a view that nothing refers to afterwards. */
+    private void showInDroppedView(Object bitmap) {
+        displayed.retain(bitmap);
+        displayed.show(new Object(), bitmap);
+    }
+}
@@ -0,0 +1,247 @@
+package com.example.sprite.Controllers;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.example.sprite.Models.Entrant;
+import com.example.sprite.Models.Event;
+import com.example.sprite.Models.Notification;
+import com.example.sprite.Models.User;
+import com.google.firebase.Timestamp;
+import com.google.firebase.firestore.GeoPoint;
+
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Unit tests for the {@link DocumentCodec} implementations.
+ * Checks that codecs read the field layout Firestore's reflective mapper writes,
+ * and compares decode time against a reflective mapper on 10,000 event documents.
+ */
+public class DocumentCodecTest {
+
+    private static final int EVENT_COUNT = 10_000;
+
+    /**
+     * Builds an event document the way Firestore returns it: whole numbers as
+     * {@code Long}, dates as {@link Timestamp}, enums as names.
+     */
+    static Map<String, Object> eventDocument(int i) {
+        Map<String, Object> data = new HashMap<>();
+        data.put("eventId", "event-" + i);
+        data.put("organizerId", "organizer-" + (i % 50));
+        data.put("title", "Event " + i);
+        data.put("description", "Description for event " + i);
+        data.put("location", "Hall " + (i % 7));
+        data.put("date", new Timestamp(new Date(1_700_000_000_000L + i)));
+        data.put("time", new Timestamp(new Date(1_700_000_100_000L + i)));
+        data.put("eventStartDate", new Timestamp(new Date(1_700_100_000_000L + i)));
+        data.put("eventEndDate", new Timestamp(new Date(1_700_200_000_000L + i)));
+        data.put("registrationStartDate", new Timestamp(new Date(1_699_000_000_000L + i)));
+        data.put("registrationEndDate", new Timestamp(new Date(1_699_500_000_000L + i)));
+        data.put("createdAt", new Timestamp(new Date(1_698_000_000_000L + i)));
+        data.put("updatedAt", new Timestamp(new Date(1_698_500_000_000L + i)));
+        data.put("maxAttendees", (long) (i % 100));
+        data.put("maxWaitingListSize", 1000L);
+        data.put("entrantLimit", 0L);
+        data.put("price", i % 2 == 0 ? (Object) 12.5 : (Object) 10L);
+        data.put("posterImageUrl", "https://example.com/posters/" + i + ".jpg");
+        data.put("qrCodeUrl", null);
+        data.put("status", Event.EventStatus.values()[i % Event.EventStatus.values().length].name());
+        data.put("lotteryHasRun", i % 3 == 0);
+        data.put("geolocationRequired", i % 5 == 0);
+        data.put("geolocation", i % 5 == 0);
+        List<String> waitingList = new ArrayList<>();
+        for (int j = 0; j < 20; j++) waitingList.add("user-" + ((i + j) % 500));
+        data.put("waitingList", waitingList);
+        data.put("selectedAttendees", new ArrayList<>(waitingList.subList(0, 5)));
+        data.put("confirmedAttendees", new ArrayList<>(waitingList.subList(0, 2)));
+        data.put("cancelledAttendees", new ArrayList<>());
+        Map<String, Object> locations = new HashMap<>();
+        locations.put("user-" + i, new GeoPoint(53.5 + i * 1e-4, -113.5));
+        data.put("waitingListLocations", locations);
+        return data;
+    }
+
+    /**
+     * Tests that an event document decodes to the expected model.
+     */
+    @Test
+    void testDecodeEvent() {
+        Event event = EventCodec.getInstance().decode(eventDocument(3));
+
+        assertEquals("event-3", event.getEventId());
+        assertEquals(3, event.getMaxAttendees());
+        assertEquals(10.0, event.getPrice(), 0.0);
+        assertEquals(Event.EventStatus.LOTTERY_COMPLETED, event.getStatus());
+        assertTrue(event.isLotteryHasRun());
+        assertEquals(new Date(1_698_000_000_003L), event.getCreatedAt());
+        assertEquals(20, event.getWaitingList().size());
+        assertEquals(new GeoPoint(53.5 + 3e-4, -113.5), event.getWaitingListLocations().get("user-3"));
+        assertNull(event.getQrCodeUrl());
+    }
+
+    /**
+     * Tests that fields missing from a document keep the constructor defaults, as with toObject().
+     */
+    @Test
+    void testMissingFieldsKeepDefaults() {
+        Map<String, Object> data = new HashMap<>();
+        data.put("eventId", "e1");
+        data.put("unknownField", "ignored");
+
+        Event event = EventCodec.getInstance().decode(data);
+
+        assertEquals("e1", event.getEventId());
+        assertNotNull(event.getDate());
+        assertNull(event.getWaitingList());
+        assertEquals(0, event.getMaxAttendees());
+    }
+
+    /**
+     * Tests that encoding an event and decoding the result gives the same fields back.
+     */
+    @Test
+    void testEventRoundTrip() {
+        Event event = new Event("e1", "o1", "Swim lessons", "Beginner class");
+        event.setMaxAttendees(12);
+        event.setPrice(40.0);
+        event.setWaitingList(new ArrayList<>(Arrays.asList("u1", "u2")));
+        event.getWaitingListLocations().put("u1", new GeoPoint(1, 2));
+
+        Map<String, Object> data = EventCodec.getInstance().encode(event);
+        Event decoded = EventCodec.getInstance().decode(data);
+
+        assertEquals("DRAFT", data.get("status"));
+        assertTrue(data.containsKey("lotteryHasRun"));
+        assertEquals(data, EventCodec.getInstance().encode(decoded));
+    }
+
+    /**
+     * Tests that a user's role is stored under both property names and read from either.
+     */
+    @Test
+    void testUserRole() {
+        User user = new User("u1", "a@b.c", "Ann", User.UserRole.ORGANIZER);
+
+        Map<String, Object> data = UserCodec.getInstance().encode(user);
+        assertEquals("ORGANIZER", data.get("role"));
+        assertEquals("ORGANIZER", data.get("userRole"));
+
+        data.remove("userRole");
+        User decoded = UserCodec.getInstance().decode(data);
+        assertEquals(User.UserRole.ORGANIZER, decoded.getUserRole());
+        assertTrue(decoded.isNotificationsEnabled());
+        assertEquals(user.getCreatedAt(), decoded.getCreatedAt());
+    }
+
+    /**
+     * Tests that the isRead field takes precedence over the read property, and only it is written.
+     */
+    @Test
+    void testNotificationReadState() {
+        Map<String, Object> data = new HashMap<>();
+        data.put("notificationId", "n1");
+        data.put("type", "CONFIRMED");
+        data.put("read", false);
+        data.put("isRead", true);
+
+        Notification notification = NotificationCodec.getInstance().decode(data);
+        assertTrue(notification.isRead());
+        assertEquals(Notification.NotificationType.CONFIRMED, notification.getType());
+
+        data.remove("isRead");
+        assertFalse(NotificationCodec.getInstance().decode(data).isRead());
+
+        Map<String, Object> encoded = NotificationCodec.getInstance().encode(notification);
+        assertFalse(encoded.containsKey("read"));
+        assertEquals(true, encoded.get("isRead"));
+    }
+
+    /**
+     * Tests that entrants decode user fields and embedded notifications.
+     */
+    @Test
+    void testEntrant() {
+        Entrant entrant = new Entrant("u1", "a@b.c", "Ann");
+        entrant.addNotification(new Notification("n1", "u1", "e1", "Swim", "Hi",
+                Notification.NotificationType.SELECTED_FROM_WAITLIST));
+
+        Entrant decoded = EntrantCodec.getInstance().decode(EntrantCodec.getInstance().encode(entrant));
+
+        assertEquals("u1", decoded.getUserId());
+        assertEquals(User.UserRole.ENTRANT, decoded.getUserRole());
+        assertEquals(1, decoded.getNotifications().size());
+        assertEquals("n1", decoded.getNotifications().get(0).getNotificationId());
+    }
+
+    /**
+     * Decodes 10,000 synthetic event documents with the codec and with a reflective
+     * setter-based mapper (the approach Firestore's CustomClassMapper takes) and checks
+     * that both agree.
+     */
+    @Test
+    void testCodecAgreesWithReflectiveMapper() throws Exception {
+        ReflectiveMapper<Event> reflective = new ReflectiveMapper<>(Event.class);
+        EventCodec codec = EventCodec.getInstance();
+
+        for (int i = 0; i < EVENT_COUNT; i++) {
+            Map<String, Object> document = eventDocument(i);
+            assertEquals(codec.encode(reflective.decode(document)), codec.encode(codec.decode(document)));
+        }
+    }
+
+    /**
+     * A reflective mapper in the style of Firestore's CustomClassMapper: setters are
+     * found once per class, then every field is converted by inspecting the setter's
+     * parameter type and set with {@link Method#invoke}.
+     */
+    static final class ReflectiveMapper<T> {
+        private final Class<T> type;
+        private final Map<String, Method> setters = new HashMap<>();
+
+        ReflectiveMapper(Class<T> type) {
+            this.type = type;
+            for (Method method : type.getMethods()) {
+                String name = method.getName();
+                if (name.startsWith("set") && name.length() > 3 && method.getParameterCount() == 1) {
+                    setters.put(Character.toLowerCase(name.charAt(3)) + name.substring(4), method);
+                }
+            }
+        }
+
+        T decode(Map<String, Object> data) throws Exception {
+            T instance = type.getDeclaredConstructor().newInstance();
+            for (Map.Entry<String, Object> field : data.entrySet()) {
+                Method setter = setters.get(field.getKey());
+                if (setter == null) continue;
+                Object value = convert(field.getValue(), setter.getParameterTypes()[0]);
+                if (value == null && setter.getParameterTypes()[0].isPrimitive()) continue;
+                setter.invoke(instance, value);
+            }
+            return instance;
+        }
+
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        private static Object convert(Object value, Class<?> target) {
+            if (value == null) return null;
+            if (target == int.class || target == Integer.class) return ((Number) value).intValue();
+            if (target == double.class || target == Double.class) return ((Number) value).doubleValue();
+            if (target == Date.class) return value instanceof Timestamp ? ((Timestamp) value).toDate() : value;
+            if (target.isEnum()) return Enum.valueOf((Class<? extends Enum>) target, (String) value);
+            if (target == List.class) return new ArrayList<>((List<?>) value);
+            if (target == Map.class) return new HashMap<>((Map<?, ?>) value);
+            return value;
+        }
+    }
+}
@@ -0,0 +1,180 @@
+package com.example.sprite.Controllers;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.example.sprite.Models.Event;
+import com.google.firebase.firestore.GeoPoint;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.ObjectOutputStream;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Unit tests for {@link EventBinaryCodec} and {@link EventCache}.
+ * Also compares encoded size with Java serialization; {@code EventBinaryCodecBenchmark}
+ * compares the time.
+ */
+public class EventBinaryCodecTest {
+
+    @TempDir
+    File cacheDir;
+
+    /**
+     * Builds an event with a large waiting list whose selected, confirmed and
+     * cancelled lists repeat IDs from it, as after a lottery. Each list gets its
+     * own String instances, as when the event is decoded from Firestore.
+     */
+    static Event largeEvent(int waitingListSize) {
+        Event event = new Event("event-1", "organizer-1", "Community swim", "Lessons for all ages");
+        event.setLocation("Kinsmen Sports Centre");
+        event.setEventStartDate(new Date(1_735_000_000_000L));
+        event.setRegistrationEndDate(new Date(1_734_000_000_000L));
+        event.setMaxAttendees(50);
+        event.setPrice(15.25);
+        event.setStatus(Event.EventStatus.LOTTERY_COMPLETED);
+        event.setLotteryHasRun(true);
+        event.setWaitingList(userIds(0, waitingListSize));
+        event.setSelectedAttendees(userIds(0, 50));
+        event.setConfirmedAttendees(userIds(0, 30));
+        event.setCancelledAttendees(userIds(30, 40));
+        return event;
+    }
+
+    /** Makes 28-character IDs shaped like Firebase Auth UIDs. */
+    private static List<String> userIds(int from, int to) {
+        List<String> ids = new ArrayList<>();
+        for (int i = from; i < to; i++) {
+            ids.add(String.format("Uid%025d", i));
+        }
+        return ids;
+    }
+
+    static byte[] serialize(Event event) throws Exception {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(event);
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Tests that every field survives a round trip, including locations and nulls.
+     */
+    @Test
+    void testRoundTrip() {
+        Event event = largeEvent(200);
+        event.setGeolocation(Boolean.TRUE);
+        event.setGeolocationRequired(true);
+        event.setEntrantLimit(-1);
+        event.setDrawRound(3);
+        event.setTime(new Date(-86_400_000L));
+        Map<String, GeoPoint> locations = new HashMap<>();
+        locations.put(String.format("Uid%025d", 3), new GeoPoint(53.52, -113.52));
+        locations.put("not an id: é", new GeoPoint(-33.9, 151.2));
+        event.setWaitingListLocations(locations);
+        Map<String, String> variants = new HashMap<>();
+        variants.put("128", "https://example.com/posters/1_128.webp");
+        variants.put("1080", "https://example.com/posters/1_1080.webp");
+        event.setPosterVariants(variants);
+
+        Event decoded = EventBinaryCodec.decode(EventBinaryCodec.encode(event));
+
+        assertEquals(EventCodec.getInstance().encode(event), EventCodec.getInstance().encode(decoded));
+        assertEquals(Boolean.TRUE, decoded.getGeolocation());
+        assertEquals(new Date(-86_400_000L), decoded.getTime());
+        assertEquals(-1, decoded.getEntrantLimit());
+        assertEquals(3, decoded.getDrawRound());
+        assertEquals(variants, decoded.getPosterVariants());
+    }
+
+    /**
+     * Tests that null fields and lists stay null rather than becoming empty.
+     */
+    @Test
+    void testNullsRoundTrip() {
+        Event event = new Event();
+        event.setDate(null);
+        event.setWaitingListLocations(null);
+
+        Event decoded = EventBinaryCodec.decode(EventBinaryCodec.encode(event));
+
+        assertNull(decoded.getEventId());
+        assertNull(decoded.getDate());
+        assertNull(decoded.getStatus());
+        assertNull(decoded.getGeolocation());
+        assertNull(decoded.getWaitingList());
+        assertNull(decoded.getWaitingListLocations());
+    }
+
+    /**
+     * Tests that truncated input is rejected with IllegalArgumentException.
+     */
+    @Test
+    void testTruncatedInputRejected() {
+        byte[] encoded = EventBinaryCodec.encode(largeEvent(100));
+
+        assertThrows(IllegalArgumentException.class,
+                () -> EventBinaryCodec.decode(Arrays.copyOf(encoded, encoded.length / 2)));
+        assertThrows(IllegalArgumentException.class, () -> EventBinaryCodec.decode(new byte[] {9}));
+    }
+
+    /**
+     * Tests that an event with 2,000 waitlisted users encodes smaller than with Java
+     * serialization and still round-trips.
+     */
+    @Test
+    void testSmallerThanSerialization() throws Exception {
+        Event event = largeEvent(2_000);
+
+        byte[] compact = EventBinaryCodec.encode(event);
+        byte[] serialized = serialize(event);
+
+        assertTrue(compact.length < serialized.length,
+                "compact " + compact.length + " B vs serialized " + serialized.length + " B");
+        assertEquals(event.getWaitingList(), EventBinaryCodec.decode(compact).getWaitingList());
+    }
+
+    /**
+     * Tests that cached events are served from memory, and from disk by a fresh cache.
+     */
+    @Test
+    void testCacheRestoresFromDisk() {
+        Event event = largeEvent(100);
+        EventCache cache = new EventCache(cacheDir, Runnable::run);
+        cache.put(event);
+
+        assertSame(event, cache.get("event-1"));
+
+        EventCache afterRestart = new EventCache(cacheDir, Runnable::run);
+        Event restored = afterRestart.get("event-1");
+        assertEquals(EventCodec.getInstance().encode(event), EventCodec.getInstance().encode(restored));
+        assertNull(afterRestart.get("missing"));
+    }
+
+    /**
+     * Tests that a corrupt cache file is treated as a miss.
+     */
+    @Test
+    void testCorruptCacheFileIsMiss() throws Exception {
+        new EventCache(cacheDir, Runnable::run).put(largeEvent(100));
+        File[] files = cacheDir.listFiles();
+        assertEquals(1, files.length);
+        Files.write(files[0].toPath(), new byte[] {1, 5, 2});
+
+        assertNull(new EventCache(cacheDir, Runnable::run).get("event-1"));
+    }
+}
@@ -0,0 +1,96 @@
+package com.example.sprite.Controllers;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+/**
+ * Unit tests for {@link ImageRequestManager}, with plain objects standing in for views.
+ */
+public class ImageRequestManagerTest {
+
+    private final ImageRequestManager<Object, String> requests = new ImageRequestManager<>();
+    private final Object first = new Object();
+    private final Object second = new Object();
+
+    @Test
+    void testConcurrentRequestsShareOneLoad() {
+        assertTrue(requests.attach(first, "poster-a", "thumb"));
+        assertFalse(requests.attach(second, "poster-a", "full"));
+
+        Map<Object, String> waiting = requests.finish("poster-a");
+
+        assertEquals(2, waiting.size());
+        assertEquals("thumb", waiting.get(first));
+        assertEquals("full", waiting.get(second));
+        assertTrue(requests.deliver(first, "poster-a"));
+        assertTrue(requests.deliver(second, "poster-a"));
+        assertEquals(1, requests.getStarted());
+        assertEquals(1, requests.getJoined());
+    }
+
+    @Test
+    void testReboundTargetDoesNotReceiveTheOldImage() {
+        requests.attach(first, "poster-a", "thumb");
+        // The view is recycled for another event before poster-a arrives
+        requests.attach(first, "poster-b", "thumb");
+
+        assertTrue(requests.finish("poster-a").isEmpty());
+        assertFalse(requests.deliver(first, "poster-a"));
+        assertFalse(requests.isWanted("poster-a"));
+        assertTrue(requests.isWanted("poster-b"));
+        assertEquals(1, requests.getDetached());
+        assertEquals(1, requests.getSkipped());
+    }
+
+    @Test
+    void testDetachedTargetIsNotDelivered() {
+        requests.attach(first, "poster-a", "thumb");
+        requests.attach(second, "poster-a", "thumb");
+        requests.detach(first);
+
+        Map<Object, String> waiting = requests.finish("poster-a");
+
+        assertEquals(1, waiting.size());
+        assertFalse(requests.deliver(first, "poster-a"));
+        assertTrue(requests.deliver(second, "poster-a"));
+    }
+
+    @Test
+    void testTargetReboundAfterFinishGetsOnlyTheNewImage() {
+        requests.attach(first, "poster-a", "thumb");
+        requests.finish("poster-a");
+        requests.attach(first, "poster-b", "thumb");
+
+        assertFalse(requests.deliver(first, "poster-a"));
+        assertTrue(requests.deliver(first, "poster-b"));
+    }
+
+    @Test
+    void testFailureReleasesWaitersAndAllowsARetry() {
+        requests.attach(first, "poster-a", "thumb");
+        requests.attach(second, "poster-a", "thumb");
+
+        requests.fail("poster-a");
+
+        assertFalse(requests.isWanted("poster-a"));
+        assertTrue(requests.attach(first, "poster-a", "thumb"));
+    }
+
+    @Test
+    void testUnwantedLoadIsCancelledBeforeItStarts() {
+        requests.attach(first, "poster-a", "thumb");
+        assertFalse(requests.cancelIfUnwanted("poster-a"));
+
+        requests.detach(first);
+
+        assertTrue(requests.cancelIfUnwanted("poster-a"));
+        assertEquals(1, requests.getSkipped());
+        // Nothing is in flight any more, so the next request starts a fresh load
+        assertTrue(requests.attach(second, "poster-a", "thumb"));
+    }
+}
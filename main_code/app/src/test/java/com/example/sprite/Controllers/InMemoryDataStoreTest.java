@@ -0,0 +1,213 @@
+package com.example.sprite.Controllers;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Unit tests for {@link InMemoryDataStore}.
+ * Covers document CRUD, indexed queries, batches and optimistic transactions.
+ */
+public class InMemoryDataStoreTest {
+
+    private InMemoryDataStore store;
+
+    /**
+     * Creates an empty store with the indexes the app's queries rely on.
+     */
+    @BeforeEach
+    void setUp() {
+        store = new InMemoryDataStore();
+        store.ensureIndex("events", "organizerId");
+        store.ensureIndex("events", "waitingList");
+    }
+
+    private static Map<String, Object> event(String organizerId, long createdAt, String... waitingList) {
+        Map<String, Object> data = new HashMap<>();
+        data.put("organizerId", organizerId);
+        data.put("createdAt", createdAt);
+        data.put("waitingList", new ArrayList<>(Arrays.asList(waitingList)));
+        return data;
+    }
+
+    /**
+     * Tests that stored numbers come back normalized the way Firestore returns them.
+     */
+    @Test
+    void testSetAndGetNormalizesNumbers() {
+        Map<String, Object> data = new HashMap<>();
+        data.put("maxAttendees", 5);
+        store.set("events", "e1", data).join();
+
+        StoreDocument doc = store.get("events", "e1").join();
+
+        assertTrue(doc.exists());
+        assertEquals(5L, doc.get("maxAttendees"));
+        assertFalse(store.get("events", "missing").join().exists());
+    }
+
+    /**
+     * Tests that updating a missing document fails instead of creating it.
+     */
+    @Test
+    void testUpdateMissingDocumentFails() {
+        assertTrue(store.update("events", "missing", Collections.singletonMap("title", "x"))
+                .isCompletedExceptionally());
+        assertEquals(0, store.size("events"));
+    }
+
+    /**
+     * Tests equality and array-contains queries served from the secondary indexes.
+     */
+    @Test
+    void testIndexedQueries() {
+        store.set("events", "e1", event("org1", 1, "u1", "u2")).join();
+        store.set("events", "e2", event("org1", 2, "u2")).join();
+        store.set("events", "e3", event("org2", 3, "u3")).join();
+
+        assertEquals(2, store.query(StoreQuery.collection("events").whereEqualTo("organizerId", "org1")).join().size());
+        assertEquals(2, store.query(StoreQuery.collection("events").whereArrayContains("waitingList", "u2")).join().size());
+
+        // Index follows updates
+        store.update("events", "e1", Collections.singletonMap("waitingList", StoreValues.arrayRemove("u2"))).join();
+        assertEquals(1, store.query(StoreQuery.collection("events").whereArrayContains("waitingList", "u2")).join().size());
+    }
+
+    /**
+     * Tests ordering and limits.
+     */
+    @Test
+    void testOrderByAndLimit() {
+        store.set("events", "e1", event("org1", 1)).join();
+        store.set("events", "e2", event("org1", 3)).join();
+        store.set("events", "e3", event("org1", 2)).join();
+
+        List<StoreDocument> newest = store.query(StoreQuery.collection("events")
+                .whereEqualTo("organizerId", "org1")
+                .orderBy("createdAt", StoreQuery.Direction.DESCENDING)
+                .limit(2)).join();
+
+        assertEquals(2, newest.size());
+        assertEquals("e2", newest.get(0).getId());
+        assertEquals("e3", newest.get(1).getId());
+    }
+
+    /**
+     * Tests reading a collection page by page with a document ID cursor.
+     */
+    @Test
+    void testPagesByDocumentId() {
+        for (String id : new String[] {"e4", "e1", "e3", "e2", "e5"}) {
+            store.set("events", id, event("org1", 1)).join();
+        }
+
+        List<String> ids = new ArrayList<>();
+        String cursor = null;
+        List<StoreDocument> page;
+        do {
+            page = store.query(StoreQuery.collection("events")
+                    .orderBy(StoreQuery.DOCUMENT_ID, StoreQuery.Direction.ASCENDING)
+                    .startAfter(cursor)
+                    .limit(2)).join();
+            for (StoreDocument doc : page) {
+                ids.add(doc.getId());
+            }
+            cursor = page.isEmpty() ? null : page.get(page.size() - 1).getId();
+        } while (page.size() == 2);
+
+        assertEquals(Arrays.asList("e1", "e2", "e3", "e4", "e5"), ids);
+    }
+
+    /**
+     * Tests that a batch containing a failing write applies nothing.
+     */
+    @Test
+    void testBatchIsAtomic() {
+        StoreBatch batch = store.batch()
+                .set("events", "e1", event("org1", 1))
+                .update("events", "missing", Collections.singletonMap("title", "x"));
+
+        assertTrue(batch.commit().isCompletedExceptionally());
+        assertFalse(store.get("events", "e1").join().exists());
+    }
+
+    /**
+     * Tests that a batch merge creates a missing document and keeps other fields of an existing one.
+     */
+    @Test
+    void testBatchMerge() {
+        store.set("events", "e1", event("org1", 1)).join();
+
+        store.batch()
+                .merge("events", "e1", Collections.singletonMap("count", StoreValues.increment(2)))
+                .merge("events", "e2", Collections.singletonMap("count", StoreValues.increment(1)))
+                .commit().join();
+
+        StoreDocument existing = store.get("events", "e1").join();
+        assertEquals("org1", existing.getString("organizerId"));
+        assertEquals(2L, existing.getLong("count"));
+        assertEquals(1L, store.get("events", "e2").join().getLong("count"));
+    }
+
+    /**
+     * Tests that concurrent read-modify-write transactions do not lose updates.
+     */
+    @Test
+    void testConcurrentTransactionsDoNotLoseUpdates() throws InterruptedException {
+        store.set("counters", "c1", Collections.singletonMap("value", 0)).join();
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        int perThread = 250;
+
+        for (int t = 0; t < 4; t++) {
+            pool.execute(() -> {
+                for (int i = 0; i < perThread; i++) {
+                    // Retry on the rare case a transaction exhausts its attempts under contention
+                    while (store.runTransaction(tx -> {
+                        long value = tx.get("counters", "c1").getLong("value");
+                        tx.update("counters", "c1", Collections.singletonMap("value", value + 1));
+                        return null;
+                    }).isCompletedExceptionally()) {
+                        Thread.yield();
+                    }
+                }
+            });
+        }
+        pool.shutdown();
+        assertTrue(pool.awaitTermination(30, TimeUnit.SECONDS));
+
+        assertEquals(4L * perThread, store.get("counters", "c1").join().getLong("value"));
+    }
+
+    /**
+     * Tests waitlist-scale writes and lookups to show the store handles realistic volumes.
+     */
+    @Test
+    void testWaitlistAtScale() {
+        store.set("events", "big", event("org1", 1)).join();
+        int entrants = 20_000;
+
+        for (int i = 0; i < entrants; i += StoreBatch.MAX_WRITES) {
+            List<Object> chunk = new ArrayList<>();
+            for (int j = i; j < Math.min(entrants, i + StoreBatch.MAX_WRITES); j++) chunk.add("user" + j);
+            store.update("events", "big",
+                    Collections.singletonMap("waitingList", StoreValues.arrayUnion(chunk.toArray()))).join();
+        }
+
+        assertEquals(entrants, ((List<?>) store.get("events", "big").join().get("waitingList")).size());
+        assertEquals(1, store.query(StoreQuery.collection("events")
+                .whereArrayContains("waitingList", "user19999")).join().size());
+    }
+}
@@ -94,6 +94,7 @@ public class LotteryServiceTest {
         verify(mockWaitlist, atLeastOnce()).moveToSelected(anyString());
 
         assertEquals(Event.EventStatus.LOTTERY_COMPLETED, e.getStatus());
+        assertEquals(1, e.getDrawRound());
         verify(mockDatabaseService, atLeastOnce()).updateEvent(eq(e), any());
     }
 
@@ -134,6 +135,7 @@ public class LotteryServiceTest {
         boolean replacementsDrawn = lotteryService.drawReplacements(e);
 
         assertTrue(replacementsDrawn);
+        assertEquals(1, e.getDrawRound());
         verify(mockWaitlist, atLeastOnce()).moveToSelected(anyString());
         verify(mockDatabaseService, atLeastOnce()).updateEvent(eq(e), any());
     }
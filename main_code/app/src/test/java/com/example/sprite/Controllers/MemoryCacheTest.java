@@ -0,0 +1,122 @@
+package com.example.sprite.Controllers;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import android.content.ComponentCallbacks2;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Unit tests for {@link MemoryCache}, using byte arrays sized by their length.
+ */
+public class MemoryCacheTest {
+
+    private static MemoryCache<String, byte[]> cache(long maxBytes) {
+        return new MemoryCache<>(maxBytes, value -> value.length);
+    }
+
+    @Test
+    void testEvictsLeastRecentlyUsedWhenFull() {
+        MemoryCache<String, byte[]> cache = cache(300);
+        cache.put("a", new byte[100]);
+        cache.put("b", new byte[100]);
+        cache.put("c", new byte[100]);
+        cache.get("a");
+
+        cache.put("d", new byte[150]);
+
+        assertNull(cache.get("b"));
+        assertNull(cache.get("c"));
+        assertEquals(100, cache.get("a").length);
+        assertEquals(150, cache.get("d").length);
+        assertEquals(250, cache.getSizeBytes());
+        assertEquals(2, cache.getEvictions());
+    }
+
+    @Test
+    void testCountsHitsAndMisses() {
+        MemoryCache<String, byte[]> cache = cache(1000);
+        cache.put("a", new byte[10]);
+
+        cache.get("a");
+        cache.get("a");
+        cache.get("missing");
+
+        assertEquals(2, cache.getHits());
+        assertEquals(1, cache.getMisses());
+    }
+
+    @Test
+    void testReplacingAValueUpdatesTheSize() {
+        MemoryCache<String, byte[]> cache = cache(1000);
+        cache.put("a", new byte[100]);
+        cache.put("a", new byte[40]);
+        cache.remove("missing");
+
+        assertEquals(40, cache.getSizeBytes());
+        assertEquals(1, cache.getCount());
+    }
+
+    @Test
+    void testValueLargerThanTheCacheIsNotStored() {
+        MemoryCache<String, byte[]> cache = cache(100);
+        cache.put("a", new byte[50]);
+
+        cache.put("huge", new byte[101]);
+
+        assertNull(cache.get("huge"));
+        assertEquals(50, cache.getSizeBytes());
+    }
+
+    @Test
+    void testTrimMemoryReleasesByLevel() {
+        MemoryCache<String, byte[]> cache = cache(400);
+        for (int i = 0; i < 4; i++) {
+            cache.put("poster-" + i, new byte[100]);
+        }
+
+        cache.trimMemory(ComponentCallbacks2.TRIM_MEMORY_RUNNING_MODERATE);
+        assertEquals(400, cache.getSizeBytes());
+
+        cache.trimMemory(ComponentCallbacks2.TRIM_MEMORY_UI_HIDDEN);
+        assertEquals(200, cache.getSizeBytes());
+        assertNull(cache.get("poster-0"));
+
+        cache.trimMemory(ComponentCallbacks2.TRIM_MEMORY_COMPLETE);
+        assertEquals(0, cache.getSizeBytes());
+        assertEquals(0, cache.getCount());
+    }
+
+    @Test
+    void testStaysWithinBoundUnderConcurrentDecoding() throws Exception {
+        MemoryCache<String, byte[]> cache = cache(10_000);
+        ExecutorService decoders = Executors.newFixedThreadPool(8);
+        List<Future<?>> tasks = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            int thread = t;
+            tasks.add(decoders.submit(() -> {
+                for (int i = 0; i < 2_000; i++) {
+                    String key = "poster-" + ((thread * 31 + i) % 300);
+                    if (cache.get(key) == null) {
+                        cache.put(key, new byte[100 + i % 200]);
+                    }
+                }
+            }));
+        }
+        for (Future<?> task : tasks) {
+            task.get();
+        }
+        decoders.shutdown();
+
+        assertTrue(cache.getSizeBytes() <= cache.getMaxBytes());
+        assertEquals(16_000, cache.getHits() + cache.getMisses());
+    }
+}
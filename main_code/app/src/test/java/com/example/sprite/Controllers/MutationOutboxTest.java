@@ -0,0 +1,188 @@
+package com.example.sprite.Controllers;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.example.sprite.fakes.FaultInjectingDataStore;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Unit tests for {@link MutationOutbox} and {@link OutboxDrainer}, including
+ * recovery after the process dies part-way through a drain.
+ */
+public class MutationOutboxTest {
+
+    private static final RetryPolicy FAST_RETRY = new RetryPolicy(3, 1, 2);
+
+    @TempDir
+    File dir;
+
+    private InMemoryDataStore backend;
+
+    /**
+     * Creates an event with u2 and u3 selected from its waitlist.
+     */
+    @BeforeEach
+    void setUp() {
+        backend = new InMemoryDataStore();
+        Map<String, Object> event = new HashMap<>();
+        event.put("waitingList", new ArrayList<>());
+        event.put("selectedAttendees", Arrays.asList("u2", "u3"));
+        event.put("maxWaitingListSize", 2);
+        backend.set("events", "e1", event).join();
+    }
+
+    /**
+     * Tests that pending mutations survive reopening and acknowledged ones do not come back.
+     */
+    @Test
+    void testPendingMutationsSurviveReopen() throws IOException {
+        MutationOutbox outbox = MutationOutbox.open(dir);
+        OutboxMutation join = outbox.enqueue(OutboxMutation.Type.JOIN_WAITLIST, "e1", "u1");
+        OutboxMutation accept = outbox.enqueue(OutboxMutation.Type.ACCEPT_INVITATION, "e1", "u2");
+        outbox.acknowledge(join, OutboxMutation.Outcome.APPLIED);
+        outbox.close();
+
+        MutationOutbox reopened = MutationOutbox.open(dir);
+
+        assertEquals(1, reopened.size());
+        assertEquals(accept, reopened.pending().get(0));
+    }
+
+    /**
+     * Tests that a record torn by a crash is dropped and later appends stay readable.
+     */
+    @Test
+    void testTornRecordIsDiscarded() throws IOException {
+        MutationOutbox outbox = MutationOutbox.open(dir);
+        outbox.enqueue(OutboxMutation.Type.JOIN_WAITLIST, "e1", "u1");
+        outbox.close();
+        try (FileOutputStream out = new FileOutputStream(new File(dir, MutationOutbox.FILE_NAME), true)) {
+            out.write("1a2b3c\tM\tpartial".getBytes(StandardCharsets.UTF_8));
+        }
+
+        MutationOutbox recovered = MutationOutbox.open(dir);
+        assertEquals(1, recovered.size());
+        recovered.enqueue(OutboxMutation.Type.ACCEPT_INVITATION, "e1", "u2");
+        recovered.close();
+
+        assertEquals(2, MutationOutbox.open(dir).size());
+    }
+
+    /**
+     * Tests that killing the process between applying a mutation and acknowledging it
+     * neither loses nor duplicates work once a new process drains the outbox.
+     */
+    @Test
+    void testRecoversFromCrashMidDrain() throws IOException {
+        MutationOutbox outbox = MutationOutbox.open(dir);
+        outbox.enqueue(OutboxMutation.Type.JOIN_WAITLIST, "e1", "u1");
+        outbox.enqueue(OutboxMutation.Type.ACCEPT_INVITATION, "e1", "u2");
+        outbox.enqueue(OutboxMutation.Type.DECLINE_INVITATION, "e1", "u3");
+
+        // The second transaction commits but the process dies before its result arrives
+        InMemoryDataStore dyingStore = new InMemoryDataStore() {
+            private int transactions;
+
+            @Override
+            public <T> CompletableFuture<T> runTransaction(StoreTransaction.Function<T> function) {
+                CompletableFuture<T> result = backend.runTransaction(function);
+                return ++transactions == 2 ? new CompletableFuture<>() : result;
+            }
+        };
+        new OutboxDrainer(outbox, dyingStore, FAST_RETRY).drain();
+        outbox.close();
+
+        MutationOutbox restarted = MutationOutbox.open(dir);
+        assertEquals(2, restarted.size());
+        List<OutboxMutation.Outcome> outcomes = new ArrayList<>();
+        OutboxDrainer drainer = new OutboxDrainer(restarted, backend, FAST_RETRY);
+        drainer.addListener((mutation, outcome) -> outcomes.add(outcome));
+
+        assertEquals(2, drainer.drain().join());
+
+        assertEquals(Arrays.asList(OutboxMutation.Outcome.ALREADY_APPLIED, OutboxMutation.Outcome.APPLIED), outcomes);
+        StoreDocument event = backend.get("events", "e1").join();
+        assertEquals(Arrays.asList("u1"), event.get("waitingList"));
+        assertEquals(Arrays.asList("u2"), event.get("confirmedAttendees"));
+        assertEquals(Arrays.asList("u2"), event.get("selectedAttendees"));
+        assertEquals(Arrays.asList("u3"), event.get("cancelledAttendees"));
+        assertEquals(0, MutationOutbox.open(dir).size());
+    }
+
+    /**
+     * Tests that a join that no longer fits is reported as a conflict instead of being written.
+     */
+    @Test
+    void testFullWaitlistIsAConflict() throws IOException {
+        MutationOutbox outbox = MutationOutbox.open(dir);
+        List<OutboxMutation.Outcome> outcomes = new ArrayList<>();
+        OutboxDrainer drainer = new OutboxDrainer(outbox, backend, FAST_RETRY);
+        drainer.addListener((mutation, outcome) -> outcomes.add(outcome));
+
+        for (String user : Arrays.asList("u4", "u5", "u6")) {
+            drainer.submit(OutboxMutation.Type.JOIN_WAITLIST, "e1", user);
+        }
+
+        assertEquals(Arrays.asList(OutboxMutation.Outcome.APPLIED, OutboxMutation.Outcome.APPLIED,
+                OutboxMutation.Outcome.CONFLICT), outcomes);
+        assertEquals(Arrays.asList("u4", "u5"), backend.get("events", "e1").join().get("waitingList"));
+        assertEquals(0, outbox.size());
+    }
+
+    /**
+     * Tests that an outage pauses the queue in order and a later pass delivers it.
+     */
+    @Test
+    void testOutageIsRetriedInOrder() throws Exception {
+        MutationOutbox outbox = MutationOutbox.open(dir);
+        FaultInjectingDataStore flaky = new FaultInjectingDataStore(backend).failNext(2);
+        OutboxDrainer drainer = new OutboxDrainer(outbox, flaky, FAST_RETRY);
+
+        drainer.submit(OutboxMutation.Type.JOIN_WAITLIST, "e1", "u1");
+        drainer.submit(OutboxMutation.Type.ACCEPT_INVITATION, "e1", "u2");
+
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (outbox.size() > 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+
+        assertEquals(0, outbox.size());
+        assertEquals(4, flaky.getWriteAttempts());
+        StoreDocument event = backend.get("events", "e1").join();
+        assertEquals(Arrays.asList("u1"), event.get("waitingList"));
+        assertEquals(Arrays.asList("u2"), event.get("confirmedAttendees"));
+    }
+
+    /**
+     * Tests that compaction keeps the journal small without losing pending entries.
+     */
+    @Test
+    void testCompactionKeepsPendingEntries() throws IOException {
+        MutationOutbox outbox = MutationOutbox.open(dir);
+        OutboxMutation keep = outbox.enqueue(OutboxMutation.Type.JOIN_WAITLIST, "e1", "keep");
+        for (int i = 0; i < 200; i++) {
+            outbox.acknowledge(outbox.enqueue(OutboxMutation.Type.JOIN_WAITLIST, "e1", "u" + i),
+                    OutboxMutation.Outcome.APPLIED);
+        }
+        outbox.close();
+
+        assertTrue(new File(dir, MutationOutbox.FILE_NAME).length() < 64 * 200);
+        MutationOutbox reopened = MutationOutbox.open(dir);
+        assertEquals(Arrays.asList(keep), reopened.pending());
+    }
+}
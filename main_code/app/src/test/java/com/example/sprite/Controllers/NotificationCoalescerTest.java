@@ -0,0 +1,230 @@
+package com.example.sprite.Controllers;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.example.sprite.Models.Notification;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Unit tests for {@link NotificationCoalescer}, driven by a fake clock and scheduler.
+ */
+public class NotificationCoalescerTest {
+
+    private static final long WINDOW = 5_000;
+
+    private long now;
+    private final List<Long> scheduledAt = new ArrayList<>();
+    private final List<Runnable> scheduled = new ArrayList<>();
+    private final List<Map<String, Notification>> flushes = new ArrayList<>();
+    private boolean stored = true;
+    private NotificationCoalescer coalescer;
+
+    @TempDir
+    File dir;
+
+    @BeforeEach
+    void setUp() {
+        coalescer = coalescer(null);
+    }
+
+    /** Creates a coalescer on the fake clock and scheduler whose sink records each flush. */
+    private NotificationCoalescer coalescer(HeldNotificationJournal journal) {
+        return new NotificationCoalescer(WINDOW, () -> now,
+                (task, delayMillis) -> {
+                    scheduledAt.add(now + delayMillis);
+                    scheduled.add(task);
+                },
+                notifications -> {
+                    flushes.add(notifications);
+                    return CompletableFuture.completedFuture(stored);
+                },
+                journal);
+    }
+
+    /** Advances the clock, running scheduled flushes as they come due. */
+    private void advanceTo(long time) {
+        while (!scheduled.isEmpty() && scheduledAt.get(0) <= time) {
+            now = scheduledAt.remove(0);
+            scheduled.remove(0).run();
+        }
+        now = time;
+    }
+
+    private static Notification notification(String entrantId, String eventId, String message) {
+        return new Notification(eventId + "/" + entrantId, entrantId, eventId, "Event " + eventId, message,
+                Notification.NotificationType.SELECTED_FROM_WAITLIST);
+    }
+
+    /**
+     * Tests that a lone notification is held for the window and then sent unchanged.
+     */
+    @Test
+    void testSingleNotificationSentUnchanged() {
+        Notification only = notification("alice", "e1", "Selected");
+        coalescer.submit(Collections.singletonList(only));
+
+        advanceTo(WINDOW - 1);
+        assertTrue(flushes.isEmpty());
+
+        advanceTo(WINDOW);
+        assertEquals(1, flushes.size());
+        assertSame(only, flushes.get(0).get("alice"));
+        assertEquals(0, coalescer.getPendingEntrants());
+        assertTrue(scheduled.isEmpty());
+    }
+
+    /**
+     * Tests that notifications for one entrant within a window become one digest, while
+     * other entrants in the same flush are unaffected.
+     */
+    @Test
+    void testBurstBecomesDigest() {
+        coalescer.submit(Arrays.asList(notification("alice", "e1", "Selected"), notification("bob", "e1", "Selected")));
+        advanceTo(2_000);
+        coalescer.submit(Arrays.asList(notification("alice", "e2", "Not selected"),
+                notification("alice", "e1", "Selected")));
+        advanceTo(WINDOW);
+
+        assertEquals(1, flushes.size());
+        Notification digest = flushes.get(0).get("alice");
+        assertEquals(Notification.NotificationType.DIGEST, digest.getType());
+        assertEquals("alice", digest.getEntrantId());
+        assertNull(digest.getEventId());
+        assertEquals("2 event updates", digest.getEventTitle());
+        assertEquals("• Event e1: Selected\n• Event e2: Not selected", digest.getMessage());
+        assertEquals(Notification.NotificationType.SELECTED_FROM_WAITLIST, flushes.get(0).get("bob").getType());
+
+        Notification again = NotificationCoalescer.coalesce(Arrays.asList(
+                notification("alice", "e2", "Not selected"), notification("alice", "e1", "Selected")));
+        assertEquals(digest.getNotificationId(), again.getNotificationId());
+    }
+
+    /**
+     * Tests that each entrant's window starts with their own first notification.
+     */
+    @Test
+    void testWindowsArePerEntrant() {
+        coalescer.submit(Collections.singletonList(notification("alice", "e1", "Selected")));
+        advanceTo(3_000);
+        coalescer.submit(Arrays.asList(notification("bob", "e1", "Selected"), notification("alice", "e2", "Selected")));
+
+        advanceTo(WINDOW);
+        assertEquals(1, flushes.size());
+        assertEquals(Collections.singleton("alice"), flushes.get(0).keySet());
+        assertEquals(Notification.NotificationType.DIGEST, flushes.get(0).get("alice").getType());
+
+        advanceTo(3_000 + WINDOW);
+        assertEquals(2, flushes.size());
+        assertEquals(Collections.singleton("bob"), flushes.get(1).keySet());
+    }
+
+    /**
+     * Tests that flush() sends everything held without waiting.
+     */
+    @Test
+    void testFlushSendsEverything() {
+        coalescer.submit(Arrays.asList(notification("alice", "e1", "Selected"), notification("bob", "e1", "Selected")));
+
+        coalescer.flush();
+
+        assertEquals(1, flushes.size());
+        assertEquals(2, flushes.get(0).size());
+        advanceTo(WINDOW);
+        assertEquals(1, flushes.size());
+    }
+
+    /**
+     * Tests that notifications held when the process dies are held again by the next
+     * coalescer to open the journal, keeping their window, and are sent only once.
+     */
+    @Test
+    void testHeldNotificationsSurviveRestart() throws IOException {
+        coalescer(HeldNotificationJournal.open(dir)).submit(Arrays.asList(
+                notification("alice", "e1", "Selected"), notification("alice", "e2", "Not selected"),
+                notification("bob", "e1", "Selected")));
+        scheduled.clear();
+        scheduledAt.clear();
+        advanceTo(2_000);
+
+        HeldNotificationJournal journal = HeldNotificationJournal.open(dir);
+        NotificationCoalescer restarted = coalescer(journal);
+        assertEquals(2, restarted.getPendingEntrants());
+        advanceTo(WINDOW);
+
+        assertEquals(1, flushes.size());
+        Notification digest = flushes.get(0).get("alice");
+        assertEquals(Notification.NotificationType.DIGEST, digest.getType());
+        assertEquals("• Event e1: Selected\n• Event e2: Not selected", digest.getMessage());
+        assertEquals("Event e1", flushes.get(0).get("bob").getEventTitle());
+        assertTrue(journal.pending().isEmpty());
+        assertTrue(HeldNotificationJournal.open(dir).pending().isEmpty());
+    }
+
+    /**
+     * Tests that notifications the sink could not store stay in the journal.
+     */
+    @Test
+    void testUnstoredNotificationsStayJournalled() throws IOException {
+        stored = false;
+        HeldNotificationJournal journal = HeldNotificationJournal.open(dir);
+        coalescer(journal).submit(Collections.singletonList(notification("alice", "e1", "Selected")));
+
+        advanceTo(WINDOW);
+
+        assertEquals(1, flushes.size());
+        assertEquals(1, journal.pending().size());
+        assertFalse(HeldNotificationJournal.open(dir).pending().isEmpty());
+    }
+
+    /**
+     * Tests that journal writes run on the journal executor rather than in submit(),
+     * and that notifications are held, in their original window, once recorded.
+     */
+    @Test
+    void testJournalWritesRunOnTheJournalExecutor() throws IOException {
+        List<Runnable> journalTasks = new ArrayList<>();
+        HeldNotificationJournal journal = HeldNotificationJournal.open(dir);
+        NotificationCoalescer deferred = new NotificationCoalescer(WINDOW, () -> now,
+                (task, delayMillis) -> {
+                    scheduledAt.add(now + delayMillis);
+                    scheduled.add(task);
+                },
+                notifications -> {
+                    flushes.add(notifications);
+                    return CompletableFuture.completedFuture(stored);
+                },
+                journal, journalTasks::add);
+
+        deferred.submit(Collections.singletonList(notification("alice", "e1", "Selected")));
+        assertEquals(1, journalTasks.size());
+        assertTrue(journal.pending().isEmpty());
+        assertEquals(0, deferred.getPendingEntrants());
+
+        advanceTo(1_000);
+        journalTasks.remove(0).run();
+        assertEquals(1, journal.pending().size());
+        assertEquals(1, deferred.getPendingEntrants());
+
+        advanceTo(WINDOW);
+        assertEquals(1, flushes.size());
+        assertEquals(1, journal.pending().size());
+        journalTasks.remove(0).run();
+        assertTrue(journal.pending().isEmpty());
+    }
+}
@@ -0,0 +1,253 @@
+package com.example.sprite.Controllers;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.example.sprite.Models.Notification;
+import com.example.sprite.fakes.LatencyDataStore;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Unit tests for {@link NotificationFanout}.
+ * Also compares round trips with one-at-a-time sends over a store with simulated latency;
+ * {@code NotificationFanoutBenchmark} compares the throughput.
+ */
+public class NotificationFanoutTest {
+
+    static final Function<String, Notification> NOT_SELECTED =
+            entrantId -> NotificationService.notSelectedNotification(entrantId, "event-1", "Swim", 1);
+
+    /** Creates a fan-out with its own recent-send cache, so tests do not see each other's sends. */
+    private static NotificationFanout fanout(DataStore store) {
+        return new NotificationFanout(store, new OptOutIndex(store, System::currentTimeMillis), new RecentSends(100_000),
+                NotificationFanout.DEFAULT_MAX_IN_FLIGHT);
+    }
+
+    /**
+     * Adds users to the store along with their opt-out index entries, as
+     * {@link DatabaseService} saves them, then builds the index.
+     * Every tenth user has notifications turned off.
+     */
+    static List<String> addUsers(DataStore store, int count) {
+        List<String> ids = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            String id = String.format("user-%05d", i);
+            boolean enabled = i % 10 != 9;
+            Map<String, Object> user = new HashMap<>();
+            user.put("userId", id);
+            user.put("notificationsEnabled", enabled);
+            StoreBatch batch = store.batch();
+            batch.set("users", id, user);
+            OptOutIndex.write(batch, id, enabled);
+            batch.commit().join();
+            ids.add(id);
+        }
+        new OptOutIndex(store, System::currentTimeMillis).load().join();
+        return ids;
+    }
+
+    /**
+     * Tests that opted-out users are skipped, duplicates are notified once,
+     * and each recipient's unread counter is incremented.
+     */
+    @Test
+    void testSkipsOptedOutUsers() {
+        InMemoryDataStore store = new InMemoryDataStore();
+        List<String> ids = addUsers(store, 10);
+        List<String> recipients = new ArrayList<>(ids);
+        recipients.add("user-00000");
+
+        FanoutProgress result = fanout(store).send(recipients, NOT_SELECTED, null).join();
+
+        assertTrue(result.isDone());
+        assertEquals(10, result.getRecipients());
+        assertEquals(10, result.getChecked());
+        assertEquals(9, result.getSent());
+        assertEquals(1, result.getOptedOut());
+        assertEquals(9, store.size("notifications"));
+        assertEquals(1L, store.get("notificationCounters", "user-00000").join().getLong("unread"));
+        assertFalse(store.get("notificationCounters", "user-00009").join().exists());
+
+        StoreDocument notification = store.query(StoreQuery.collection("notifications")
+                .whereEqualTo("entrantId", "user-00003")).join().get(0);
+        assertEquals("NOT_SELECTED_FROM_WAITLIST", notification.getString("type"));
+        assertEquals(Boolean.FALSE, notification.getBoolean("isRead"));
+    }
+
+    /**
+     * Tests that existing counters are added to rather than replaced.
+     */
+    @Test
+    void testCounterIsIncremented() {
+        InMemoryDataStore store = new InMemoryDataStore();
+        List<String> ids = addUsers(store, 1);
+        store.set("notificationCounters", ids.get(0), new HashMap<>(Collections.singletonMap("unread", 4L))).join();
+
+        fanout(store).send(ids, NOT_SELECTED, null).join();
+
+        assertEquals(5L, store.get("notificationCounters", ids.get(0)).join().getLong("unread"));
+    }
+
+    /**
+     * Tests that resending the same draw from this process is dropped before any write,
+     * and a resend from a process that did not send it skips the stored notifications.
+     */
+    @Test
+    void testRepeatedSendsAreDeduplicated() {
+        InMemoryDataStore store = new InMemoryDataStore();
+        List<String> ids = addUsers(store, 10);
+        NotificationFanout fanout = fanout(store);
+        StoreQuery alreadySent = StoreQuery.collection("notifications")
+                .whereEqualTo("eventId", "event-1")
+                .whereEqualTo("drawRound", 1);
+        fanout.send(ids, NOT_SELECTED, alreadySent, null).join();
+
+        FanoutProgress again = fanout.send(ids, NOT_SELECTED, alreadySent, null).join();
+        FanoutProgress elsewhere = fanout(store).send(ids, NOT_SELECTED, alreadySent, null).join();
+
+        assertEquals(0, again.getSent());
+        assertEquals(9, again.getDuplicates());
+        assertEquals(0, again.getCommits());
+        assertEquals(0, elsewhere.getSent());
+        assertEquals(9, elsewhere.getDuplicates());
+        assertEquals(2, elsewhere.getLookups());
+        assertEquals(9, store.size("notifications"));
+        assertEquals(1L, store.get("notificationCounters", "user-00001").join().getLong("unread"));
+    }
+
+    /**
+     * Tests that prepared notifications already stored are looked up by ID and left
+     * alone, so a resend from another process neither resets their read state nor
+     * counts them again.
+     */
+    @Test
+    void testPreparedNotificationsAreNotOverwritten() {
+        InMemoryDataStore store = new InMemoryDataStore();
+        List<String> ids = addUsers(store, 40);
+        Map<String, Notification> notifications = new LinkedHashMap<>();
+        for (String id : ids) {
+            notifications.put(id, NOT_SELECTED.apply(id));
+        }
+        fanout(store).send(notifications, null).join();
+        String readId = notifications.get("user-00001").getNotificationId();
+        store.update("notifications", readId, Collections.singletonMap("isRead", true)).join();
+
+        FanoutProgress elsewhere = fanout(store).send(notifications, null).join();
+
+        assertEquals(0, elsewhere.getSent());
+        assertEquals(36, elsewhere.getDuplicates());
+        assertEquals(0, elsewhere.getCommits());
+        assertEquals(1 + 2, elsewhere.getLookups());
+        assertEquals(36, store.size("notifications"));
+        assertEquals(Boolean.TRUE, store.get("notifications", readId).join().getBoolean("isRead"));
+        assertEquals(1L, store.get("notificationCounters", "user-00001").join().getLong("unread"));
+    }
+
+    /**
+     * Tests that looking up thousands of prepared notifications keeps no more queries
+     * outstanding than the commit limit, besides the opt-out index load.
+     */
+    @Test
+    void testPreparedLookupsAreBounded() throws Exception {
+        InMemoryDataStore backend = new InMemoryDataStore();
+        List<String> ids = addUsers(backend, 3_000);
+        Map<String, Notification> notifications = new LinkedHashMap<>();
+        for (String id : ids) {
+            notifications.put(id, NOT_SELECTED.apply(id));
+        }
+        LatencyDataStore store = new LatencyDataStore(backend, 500);
+
+        FanoutProgress result = fanout(store).send(notifications, null).get(60, TimeUnit.SECONDS);
+
+        assertEquals(2_700, result.getSent());
+        assertEquals(1 + 100, result.getLookups());
+        assertTrue(store.getMaxInFlight() <= NotificationFanout.DEFAULT_MAX_IN_FLIGHT + 1,
+                "max in flight " + store.getMaxInFlight());
+    }
+
+    /**
+     * Tests that preferences cost one index query however many entrants there are,
+     * and writes fill whole batches.
+     */
+    @Test
+    void testChunkingAndProgress() {
+        InMemoryDataStore store = new InMemoryDataStore();
+        List<String> ids = addUsers(store, 1_000);
+        List<FanoutProgress> reports = new ArrayList<>();
+
+        long roundTripsBefore = store.getRoundTrips();
+
+        FanoutProgress result = fanout(store).send(ids, NOT_SELECTED, reports::add).join();
+
+        assertEquals(900, result.getSent());
+        assertEquals(4, result.getCommits());
+        assertEquals(5, result.getRoundTrips());
+        assertEquals(5, store.getRoundTrips() - roundTripsBefore);
+        assertEquals(result.getRoundTrips(), reports.get(reports.size() - 1).getRoundTrips());
+        assertTrue(reports.get(reports.size() - 1).isDone());
+        for (int i = 1; i < reports.size(); i++) {
+            assertTrue(reports.get(i).getChecked() >= reports.get(i - 1).getChecked());
+        }
+    }
+
+    /**
+     * Fans out to 20,000 entrants over a store with 2 ms of latency per call, checks
+     * that no more calls were outstanding than the limits allow, and compares round
+     * trips per entrant with notifying 2,000 entrants one at a time.
+     */
+    @Test
+    void testRoundTripsAgainstPerEntrantSends() throws Exception {
+        InMemoryDataStore backend = new InMemoryDataStore();
+        List<String> ids = addUsers(backend, 20_000);
+        int maxInFlight = NotificationFanout.DEFAULT_MAX_IN_FLIGHT;
+
+        LatencyDataStore pipelined = new LatencyDataStore(backend, 2_000);
+        FanoutProgress result = new NotificationFanout(pipelined,
+                new OptOutIndex(pipelined, System::currentTimeMillis), new RecentSends(100_000), maxInFlight)
+                .send(ids, NOT_SELECTED, null).get(60, TimeUnit.SECONDS);
+
+        assertEquals(18_000, result.getSent());
+        assertEquals(0, result.getFailed());
+        assertEquals(1 + 72, result.getRoundTrips());
+        assertEquals(result.getRoundTrips(), pipelined.getCalls());
+        assertTrue(pipelined.getMaxInFlight() <= maxInFlight, "max in flight " + pipelined.getMaxInFlight());
+
+        // One user read then one notification write per entrant, maxInFlight entrants at a time
+        InMemoryDataStore baselineBackend = new InMemoryDataStore();
+        List<String> baselineIds = addUsers(baselineBackend, 2_000);
+        LatencyDataStore individual = new LatencyDataStore(baselineBackend, 2_000);
+        Semaphore permits = new Semaphore(maxInFlight);
+        List<CompletableFuture<Void>> sends = new ArrayList<>();
+        for (String id : baselineIds) {
+            permits.acquire();
+            sends.add(individual.get("users", id).thenCompose(user -> {
+                if (Boolean.FALSE.equals(user.getBoolean("notificationsEnabled"))) {
+                    return CompletableFuture.<Void>completedFuture(null);
+                }
+                Notification notification = NOT_SELECTED.apply(id);
+                return individual.set("notifications", notification.getNotificationId(),
+                        NotificationCodec.getInstance().encode(notification));
+            }).whenComplete((ignored, error) -> permits.release()));
+        }
+        CompletableFuture.allOf(sends.toArray(new CompletableFuture[0])).get(60, TimeUnit.SECONDS);
+
+        assertEquals(2 * baselineIds.size() - 200, individual.getCalls());
+        // Ten times the entrants in a small fraction of the round trips
+        assertTrue(pipelined.getCalls() * baselineIds.size() * 20L < individual.getCalls() * (long) ids.size(),
+                pipelined.getCalls() + " round trips for " + ids.size() + " vs "
+                        + individual.getCalls() + " for " + baselineIds.size());
+    }
+}
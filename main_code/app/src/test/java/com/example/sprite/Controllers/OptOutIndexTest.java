@@ -0,0 +1,121 @@
+package com.example.sprite.Controllers;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Unit tests for {@link OptOutIndex}.
+ */
+public class OptOutIndexTest {
+
+    /** Saves a user and their index entry in one batch, as {@link DatabaseService} does. */
+    private static void saveUser(DataStore store, String id, boolean enabled) {
+        Map<String, Object> user = new HashMap<>();
+        user.put("userId", id);
+        user.put("notificationsEnabled", enabled);
+        StoreBatch batch = store.batch();
+        batch.set("users", id, user);
+        OptOutIndex.write(batch, id, enabled);
+        batch.commit().join();
+    }
+
+    /**
+     * Tests that the first load builds the index from the users collection, including
+     * users saved before the index existed, and later loads are a single query.
+     */
+    @Test
+    void testBuildsOnFirstLoad() {
+        InMemoryDataStore store = new InMemoryDataStore();
+        Map<String, Object> legacy = new HashMap<>();
+        legacy.put("notificationsEnabled", false);
+        store.set("users", "legacy", legacy).join();
+        saveUser(store, "alice", true);
+        saveUser(store, "bob", false);
+        OptOutIndex index = new OptOutIndex(store, System::currentTimeMillis);
+
+        assertEquals(new HashSet<>(Arrays.asList("legacy", "bob")), index.load().join());
+
+        long before = store.getRoundTrips();
+        assertEquals(new HashSet<>(Arrays.asList("legacy", "bob")), index.load().join());
+        assertEquals(1, store.getRoundTrips() - before);
+    }
+
+    /**
+     * Tests that building adds to the shards rather than replacing them, so an entry
+     * written while the users were being read is kept, and a second build changes nothing.
+     */
+    @Test
+    void testBuildKeepsConcurrentEntries() {
+        InMemoryDataStore store = new InMemoryDataStore();
+        saveUser(store, "alice", false);
+        StoreBatch concurrent = store.batch();
+        OptOutIndex.write(concurrent, "carol", false);
+        concurrent.commit().join();
+
+        assertEquals(new HashSet<>(Arrays.asList("alice", "carol")),
+                new OptOutIndex(store, System::currentTimeMillis).load().join());
+
+        store.delete(OptOutIndex.COLLECTION, "meta").join();
+        new OptOutIndex(store, System::currentTimeMillis).load().join();
+        assertEquals(Arrays.asList("carol"),
+                store.get(OptOutIndex.COLLECTION, OptOutIndex.shardFor("carol")).join().get(OptOutIndex.FIELD));
+        assertEquals(new HashSet<>(Arrays.asList("alice", "carol")),
+                new OptOutIndex(store, System::currentTimeMillis).load().join());
+    }
+
+    /**
+     * Tests that saving a user adds them to or removes them from the built index.
+     */
+    @Test
+    void testSavesKeepIndexCurrent() {
+        InMemoryDataStore store = new InMemoryDataStore();
+        saveUser(store, "alice", false);
+        OptOutIndex index = new OptOutIndex(store, System::currentTimeMillis);
+        index.load().join();
+
+        saveUser(store, "alice", true);
+        saveUser(store, "bob", false);
+        saveUser(store, "bob", false);
+
+        assertEquals(new HashSet<>(Arrays.asList("bob")), index.load().join());
+    }
+
+    /**
+     * Tests that the cached copy is reused for five minutes, and local changes apply to it.
+     */
+    @Test
+    void testGetCachesForFiveMinutes() {
+        InMemoryDataStore store = new InMemoryDataStore();
+        saveUser(store, "alice", false);
+        AtomicLong now = new AtomicLong();
+        OptOutIndex index = new OptOutIndex(store, now::get);
+
+        CompletableFuture<Set<String>> first = index.get();
+        saveUser(store, "bob", false);
+        now.addAndGet(TimeUnit.MINUTES.toMillis(4));
+        assertSame(first, index.get());
+        assertFalse(index.get().join().contains("bob"));
+
+        index.record("alice", true);
+        assertFalse(index.get().join().contains("alice"));
+
+        now.addAndGet(TimeUnit.MINUTES.toMillis(1));
+        CompletableFuture<Set<String>> reloaded = index.get();
+        assertNotSame(first, reloaded);
+        assertTrue(reloaded.join().contains("bob"));
+    }
+}
@@ -0,0 +1,111 @@
+package com.example.sprite.Controllers;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Unit tests for {@link PosterDiskCache}, reopening the cache to simulate restarts.
+ */
+public class PosterDiskCacheTest {
+
+    @TempDir
+    File dir;
+
+    private static byte[] poster(int size, int seed) {
+        byte[] bytes = new byte[size];
+        Arrays.fill(bytes, (byte) seed);
+        return bytes;
+    }
+
+    @Test
+    void testEntriesSurviveReopening() throws IOException {
+        String key = PosterDiskCache.keyFor("https://example.com/poster.jpg");
+        PosterDiskCache cache = new PosterDiskCache(dir, 10_000);
+        cache.put(key, poster(1000, 7));
+        cache.close();
+
+        PosterDiskCache reopened = new PosterDiskCache(dir, 10_000);
+
+        assertArrayEquals(poster(1000, 7), reopened.get(key));
+        assertNull(reopened.get(PosterDiskCache.keyFor("https://example.com/other.jpg")));
+        assertEquals(1, reopened.getHits());
+        assertEquals(1, reopened.getMisses());
+        assertEquals(1000, reopened.getSizeBytes());
+    }
+
+    @Test
+    void testEvictsLeastRecentlyUsedAcrossRestarts() throws IOException {
+        PosterDiskCache cache = new PosterDiskCache(dir, 3000);
+        cache.put("a", poster(1000, 1));
+        cache.put("b", poster(1000, 2));
+        cache.put("c", poster(1000, 3));
+        cache.get("a");
+        cache.close();
+
+        PosterDiskCache reopened = new PosterDiskCache(dir, 3000);
+        reopened.put("d", poster(1000, 4));
+
+        assertNull(reopened.get("b"));
+        assertFalse(new File(dir, "b.bin").exists());
+        assertArrayEquals(poster(1000, 1), reopened.get("a"));
+        assertEquals(3000, reopened.getSizeBytes());
+    }
+
+    @Test
+    void testRecoversFromACrashMidWrite() throws IOException {
+        PosterDiskCache cache = new PosterDiskCache(dir, 10_000);
+        cache.put("a", poster(500, 1));
+        cache.close();
+        // A half-written entry and a torn journal line, as if the process died during put()
+        try (FileOutputStream out = new FileOutputStream(new File(dir, "b.tmp"))) {
+            out.write(poster(200, 2));
+        }
+        try (FileOutputStream out = new FileOutputStream(new File(dir, PosterDiskCache.JOURNAL), true)) {
+            out.write("PUT b 9".getBytes(StandardCharsets.UTF_8));
+        }
+
+        PosterDiskCache reopened = new PosterDiskCache(dir, 10_000);
+
+        assertEquals(1, reopened.getCount());
+        assertArrayEquals(poster(500, 1), reopened.get("a"));
+        assertFalse(new File(dir, "b.tmp").exists());
+    }
+
+    @Test
+    void testDamagedEntryIsDropped() throws IOException {
+        PosterDiskCache cache = new PosterDiskCache(dir, 10_000);
+        cache.put("a", poster(500, 1));
+        try (FileOutputStream out = new FileOutputStream(new File(dir, "a.bin"))) {
+            out.write(poster(10, 1));
+        }
+
+        assertNull(cache.get("a"));
+        assertEquals(0, cache.getCount());
+        assertEquals(0, cache.getSizeBytes());
+    }
+
+    @Test
+    void testJournalIsCompacted() throws IOException {
+        PosterDiskCache cache = new PosterDiskCache(dir, 10_000);
+        cache.put("a", poster(100, 1));
+        for (int i = 0; i < 5000; i++) {
+            cache.get("a");
+        }
+        cache.close();
+
+        assertTrue(new File(dir, PosterDiskCache.JOURNAL).length() < 2500 * "READ a\n".length());
+        assertArrayEquals(poster(100, 1), new PosterDiskCache(dir, 10_000).get("a"));
+    }
+}
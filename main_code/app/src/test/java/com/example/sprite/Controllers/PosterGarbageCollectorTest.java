@@ -0,0 +1,192 @@
+package com.example.sprite.Controllers;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.example.sprite.fakes.InMemoryBlobStore;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Unit tests for {@link PosterGarbageCollector} over an {@link InMemoryDataStore} and an
+ * in-memory blob store.
+ */
+public class PosterGarbageCollectorTest {
+
+    private static final long NOW = TimeUnit.DAYS.toMillis(100);
+    private static final long OLD = NOW - TimeUnit.DAYS.toMillis(7);
+    private static final long GRACE = TimeUnit.DAYS.toMillis(1);
+
+    private final InMemoryDataStore store = new InMemoryDataStore();
+    private final InMemoryBlobStore blobs = new InMemoryBlobStore();
+
+    private PosterGarbageCollector collector(int batchSize) {
+        return new PosterGarbageCollector(store, blobs, GRACE, batchSize, 0, () -> NOW);
+    }
+
+    private static String url(String path) {
+        return "https://firebasestorage.googleapis.com/v0/b/sprite.appspot.com/o/"
+                + path.replace("/", "%2F") + "?alt=media&token=abc";
+    }
+
+    private void event(String id, String posterPath, String... variantPaths) {
+        Map<String, Object> data = new HashMap<>();
+        data.put("posterImageUrl", posterPath == null ? null : url(posterPath));
+        if (variantPaths.length > 0) {
+            Map<String, Object> variants = new HashMap<>();
+            for (int i = 0; i < variantPaths.length; i++) {
+                variants.put(String.valueOf(128 << (2 * i)), url(variantPaths[i]));
+            }
+            data.put("posterVariants", variants);
+        }
+        store.set("events", id, data).join();
+    }
+
+    private void registryEntry(String key, long refCount) {
+        Map<String, Object> data = new HashMap<>();
+        data.put("refCount", refCount);
+        data.put("url", url("event_posters/" + key + ".jpg"));
+        store.set(PosterRegistry.COLLECTION, key, data).join();
+    }
+
+    @Test
+    void testDeletesOnlyOldUnreferencedFiles() {
+        event("e1", "event_posters/kept.jpg", "event_posters/kept_128.webp");
+        event("e2", null);
+        blobs.put("event_posters/kept.jpg", OLD)
+                .put("event_posters/kept_128.webp", OLD)
+                .put("event_posters/orphan.jpg", OLD)
+                .put("event_posters/orphan_128.webp", OLD)
+                .put("event_posters/uploading.jpg", NOW - TimeUnit.MINUTES.toMillis(5))
+                .put("profile_pictures/someone.jpg", OLD);
+
+        PosterGarbageCollector.Report report = collector(20).run().join();
+
+        assertTrue(blobs.contains("event_posters/kept.jpg"));
+        assertTrue(blobs.contains("event_posters/kept_128.webp"));
+        assertFalse(blobs.contains("event_posters/orphan.jpg"));
+        assertFalse(blobs.contains("event_posters/orphan_128.webp"));
+        assertTrue(blobs.contains("event_posters/uploading.jpg"));
+        assertTrue(blobs.contains("profile_pictures/someone.jpg"));
+        assertEquals(2, report.getEventsScanned());
+        assertEquals(5, report.getFilesScanned());
+        assertEquals(2, report.getReferenced());
+        assertEquals(1, report.getTooRecent());
+        assertEquals(2, report.getDeleted());
+    }
+
+    @Test
+    void testRemovesUnusedRegistryEntriesWithTheirFiles() {
+        event("e1", "event_posters/shared.jpg");
+        registryEntry("shared", 1);
+        registryEntry("abandoned", 1);
+        blobs.put("event_posters/shared.jpg", OLD)
+                .put("event_posters/shared_512.webp", OLD)
+                .put("event_posters/abandoned.jpg", OLD)
+                .put("event_posters/abandoned_128.webp", OLD);
+
+        PosterGarbageCollector.Report report = collector(20).run().join();
+
+        // The event lost its variant URLs, but the registry says the poster is in use
+        assertTrue(blobs.contains("event_posters/shared_512.webp"));
+        assertFalse(blobs.contains("event_posters/abandoned.jpg"));
+        assertFalse(blobs.contains("event_posters/abandoned_128.webp"));
+        assertFalse(store.get(PosterRegistry.COLLECTION, "abandoned").join().exists());
+        assertTrue(store.get(PosterRegistry.COLLECTION, "shared").join().exists());
+        assertEquals(1, report.getInUse());
+    }
+
+    @Test
+    void testKeepsAPosterReusedDuringTheSweep() {
+        registryEntry("reused", 1);
+        blobs.put("event_posters/reused.jpg", OLD);
+        PosterRegistry registry = new PosterRegistry(store);
+        // An organizer picks the same poster for a new event after the mark
+        blobs.setBeforeCreatedAt(() -> registry.acquire("reused").join());
+
+        PosterGarbageCollector.Report report = collector(20).run().join();
+
+        assertTrue(blobs.contains("event_posters/reused.jpg"));
+        assertEquals(2L, store.get(PosterRegistry.COLLECTION, "reused").join().getLong("refCount"));
+        assertEquals(0, report.getDeleted());
+        assertEquals(1, report.getInUse());
+    }
+
+    @Test
+    void testKeepsAPosterUploadedAgainAfterItsEntryWasRemoved() {
+        registryEntry("again", 1);
+        blobs.put("event_posters/again.jpg", OLD);
+        PosterRegistry registry = new PosterRegistry(store);
+        AtomicInteger lookups = new AtomicInteger();
+        // The second lookup comes after the entry was removed: the acquire missed, so the
+        // same poster was uploaded to the same path and registered
+        blobs.setBeforeCreatedAt(() -> {
+            if (lookups.incrementAndGet() == 2) {
+                blobs.put("event_posters/again.jpg", NOW);
+                registry.register("again", url("event_posters/again.jpg"), null).join();
+            }
+        });
+
+        PosterGarbageCollector.Report report = collector(20).run().join();
+
+        assertTrue(blobs.contains("event_posters/again.jpg"));
+        assertEquals(1L, store.get(PosterRegistry.COLLECTION, "again").join().getLong("refCount"));
+        assertEquals(0, report.getDeleted());
+        assertEquals(1, report.getInUse());
+    }
+
+    @Test
+    void testPagesThroughLargeCollectionsInSmallBatches() {
+        int events = PosterGarbageCollector.EVENT_PAGE_SIZE * 2 + 7;
+        for (int i = 0; i < events; i++) {
+            event(String.format("e%04d", i), String.format("event_posters/p%04d.jpg", i));
+            blobs.put(String.format("event_posters/p%04d.jpg", i), OLD);
+        }
+        for (int i = 0; i < 25; i++) {
+            blobs.put(String.format("event_posters/z%04d.jpg", i), OLD);
+        }
+
+        PosterGarbageCollector.Report report = collector(4).run().join();
+
+        assertEquals(events, report.getEventsScanned());
+        assertEquals(events + 25, report.getFilesScanned());
+        assertEquals(events, report.getReferenced());
+        assertEquals(25, report.getDeleted());
+        assertEquals(2, blobs.getListCalls());
+        assertTrue(blobs.contains("event_posters/p0606.jpg"));
+    }
+
+    @Test
+    void testFingerprintsGrowAndFindEveryPath() {
+        PosterGarbageCollector.Fingerprints set = new PosterGarbageCollector.Fingerprints();
+        for (int i = 0; i < 10_000; i++) {
+            set.add("event_posters/" + i + ".jpg");
+        }
+        set.add("event_posters/0.jpg");
+        set.add(null);
+
+        assertEquals(10_000, set.size());
+        for (int i = 0; i < 10_000; i++) {
+            assertTrue(set.contains("event_posters/" + i + ".jpg"));
+        }
+        assertFalse(set.contains("event_posters/10000.jpg"));
+    }
+
+    @Test
+    void testReadsPathsFromStorageUrls() {
+        assertEquals("event_posters/a b.jpg", PosterGarbageCollector.pathOf(url("event_posters/a%20b.jpg")));
+        assertEquals("event_posters/x.jpg", PosterGarbageCollector.pathOf("gs://sprite.appspot.com/event_posters/x.jpg"));
+        assertEquals("event_posters/x.jpg", PosterGarbageCollector.pathOf(
+                "http://10.0.2.2:9199/v0/b/sprite.appspot.com/o/event_posters%2Fx.jpg?alt=media"));
+        assertNull(PosterGarbageCollector.pathOf("POSTER"));
+        assertEquals("abc", PosterGarbageCollector.contentKey("event_posters/abc_1080.webp"));
+        assertEquals("abc", PosterGarbageCollector.contentKey("event_posters/abc.jpg"));
+    }
+}
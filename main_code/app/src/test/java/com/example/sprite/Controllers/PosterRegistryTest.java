@@ -0,0 +1,75 @@
+package com.example.sprite.Controllers;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * Unit tests for {@link PosterRegistry} over an {@link InMemoryDataStore}.
+ */
+public class PosterRegistryTest {
+
+    private final InMemoryDataStore store = new InMemoryDataStore();
+    private final PosterRegistry registry = new PosterRegistry(store);
+
+    private long refCount(String key) {
+        return store.get(PosterRegistry.COLLECTION, key).join().getLong("refCount");
+    }
+
+    @Test
+    void testContentKeyDependsOnlyOnTheBytes() {
+        byte[] poster = "poster".getBytes(StandardCharsets.UTF_8);
+
+        assertEquals(PosterRegistry.contentKey(poster), PosterRegistry.contentKey(poster.clone()));
+        assertNotEquals(PosterRegistry.contentKey(poster),
+                PosterRegistry.contentKey("other".getBytes(StandardCharsets.UTF_8)));
+        assertEquals(64, PosterRegistry.contentKey(poster).length());
+    }
+
+    @Test
+    void testSecondUploadReusesTheStoredPoster() {
+        Map<String, String> variants = Collections.singletonMap("128", "https://posters/abc_128.webp");
+        assertNull(registry.acquire("abc").join());
+        registry.register("abc", "https://posters/abc.jpg", variants).join();
+
+        PosterRegistry.Poster reused = registry.acquire("abc").join();
+
+        assertEquals("https://posters/abc.jpg", reused.getUrl());
+        assertEquals(variants, reused.getVariants());
+        assertEquals(2, refCount("abc"));
+    }
+
+    @Test
+    void testFilesAreOnlyUnreferencedAfterTheLastRelease() {
+        registry.register("abc", "https://posters/abc.jpg", null).join();
+        registry.acquire("abc").join();
+
+        assertFalse(registry.release("abc").join());
+        assertEquals(1, refCount("abc"));
+        assertTrue(registry.release("abc").join());
+        assertFalse(store.get(PosterRegistry.COLLECTION, "abc").join().exists());
+    }
+
+    @Test
+    void testConcurrentRegistrationKeepsTheFirstUpload() {
+        registry.register("abc", "https://posters/first.jpg", null).join();
+
+        PosterRegistry.Poster poster = registry.register("abc", "https://posters/second.jpg", null).join();
+
+        assertEquals("https://posters/first.jpg", poster.getUrl());
+        assertEquals(2, refCount("abc"));
+    }
+
+    @Test
+    void testPostersUploadedBeforeTheRegistryAreUnshared() {
+        assertTrue(registry.release("2f1c-legacy-uuid").join());
+    }
+}
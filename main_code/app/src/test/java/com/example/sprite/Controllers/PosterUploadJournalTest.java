@@ -0,0 +1,130 @@
+package com.example.sprite.Controllers;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collections;
+
+/**
+ * Unit tests for {@link PosterUploadJournal}, including recovery from files left behind
+ * by a process killed part-way through a write.
+ */
+public class PosterUploadJournalTest {
+
+    private static final byte[] POSTER = "jpeg bytes".getBytes(StandardCharsets.UTF_8);
+
+    @TempDir
+    File dir;
+
+    /**
+     * Tests that an upload's poster, session and events survive reopening.
+     */
+    @Test
+    void testUploadsSurviveReopen() throws IOException {
+        PosterUploadJournal journal = PosterUploadJournal.open(dir);
+        journal.add("abc", POSTER, "e1");
+        journal.setSession("abc", "https://storage.example/upload?session=1&x=a:b");
+
+        PosterUploadJournal reopened = PosterUploadJournal.open(dir);
+
+        assertEquals(1, reopened.getPending().size());
+        PosterUploadJournal.Pending pending = reopened.get("abc");
+        assertEquals("https://storage.example/upload?session=1&x=a:b", pending.getSessionUri());
+        assertEquals(Collections.singletonList("e1"), pending.getEventIds());
+        assertArrayEquals(POSTER, Files.readAllBytes(pending.getData().toPath()));
+    }
+
+    /**
+     * Tests that later events join an upload without rewriting its poster.
+     */
+    @Test
+    void testEventsJoinAnExistingUpload() throws IOException {
+        PosterUploadJournal journal = PosterUploadJournal.open(dir);
+        journal.add("abc", POSTER, null);
+        journal.add("abc", null, "e1");
+        journal.add("abc", null, "e2");
+        journal.add("abc", null, "e1");
+
+        PosterUploadJournal.Pending pending = PosterUploadJournal.open(dir).get("abc");
+
+        assertEquals(Arrays.asList("e1", "e2"), pending.getEventIds());
+        assertArrayEquals(POSTER, Files.readAllBytes(pending.getData().toPath()));
+    }
+
+    /**
+     * Tests that removing patched events keeps the upload for the events still waiting.
+     */
+    @Test
+    void testRemoveEventsKeepsTheRest() throws IOException {
+        PosterUploadJournal journal = PosterUploadJournal.open(dir);
+        journal.add("abc", POSTER, "e1");
+        journal.add("abc", null, "e2");
+        journal.removeEvents("abc", Arrays.asList("e1", "e3"));
+
+        PosterUploadJournal.Pending pending = PosterUploadJournal.open(dir).get("abc");
+
+        assertEquals(Collections.singletonList("e2"), pending.getEventIds());
+        assertArrayEquals(POSTER, Files.readAllBytes(pending.getData().toPath()));
+    }
+
+    /**
+     * Tests that clearing a session makes the upload start over, and removing an upload
+     * deletes its files.
+     */
+    @Test
+    void testClearAndRemove() throws IOException {
+        PosterUploadJournal journal = PosterUploadJournal.open(dir);
+        journal.add("abc", POSTER, "e1");
+        journal.add("def", POSTER, "e2");
+        journal.setSession("abc", "session");
+        journal.clearSession("abc");
+        journal.remove("def");
+
+        PosterUploadJournal reopened = PosterUploadJournal.open(dir);
+
+        assertNull(reopened.get("abc").getSessionUri());
+        assertNull(reopened.get("def"));
+        assertFalse(new File(dir, "def.jpg").exists());
+        assertFalse(new File(dir, "def.upload").exists());
+    }
+
+    /**
+     * Tests that uploads missing their poster or properties, and half-written temporary
+     * files, are dropped on open.
+     */
+    @Test
+    void testDropsIncompleteUploads() throws IOException {
+        PosterUploadJournal journal = PosterUploadJournal.open(dir);
+        journal.add("kept", POSTER, "e1");
+        journal.add("noposter", POSTER, "e2");
+        assertTrue(new File(dir, "noposter.jpg").delete());
+        write(new File(dir, "noproperties.jpg"), POSTER);
+        write(new File(dir, "kept.upload.tmp"), "session=half".getBytes(StandardCharsets.UTF_8));
+
+        PosterUploadJournal reopened = PosterUploadJournal.open(dir);
+
+        assertEquals(1, reopened.getPending().size());
+        assertEquals("kept", reopened.getPending().get(0).getKey());
+        assertFalse(new File(dir, "noposter.upload").exists());
+        assertFalse(new File(dir, "noproperties.jpg").exists());
+        assertFalse(new File(dir, "kept.upload.tmp").exists());
+    }
+
+    private static void write(File file, byte[] bytes) throws IOException {
+        try (FileOutputStream out = new FileOutputStream(file)) {
+            out.write(bytes);
+        }
+    }
+}
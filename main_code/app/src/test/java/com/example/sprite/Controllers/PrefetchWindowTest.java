@@ -0,0 +1,74 @@
+package com.example.sprite.Controllers;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Unit tests for {@link PrefetchWindow}, scrolling a list of 100 items 200px tall.
+ */
+public class PrefetchWindowTest {
+
+    private static final int ITEMS = 100;
+    private static final int HEIGHT = 200;
+    private static final long FRAME = 16_000_000L;
+
+    private final PrefetchWindow window = new PrefetchWindow(2, 8);
+
+    @Test
+    void testPrefetchesAheadOfTheScrollDirection() {
+        PrefetchWindow.Plan down = window.onScroll(0, 4, ITEMS, 10, HEIGHT, FRAME);
+
+        assertEquals(Arrays.asList(5, 6), down.getStart());
+
+        PrefetchWindow.Plan up = new PrefetchWindow(2, 8).onScroll(20, 24, ITEMS, -10, HEIGHT, FRAME);
+        assertEquals(Arrays.asList(19, 18), up.getStart());
+    }
+
+    @Test
+    void testFasterScrollsPrefetchFurther() {
+        window.onScroll(0, 4, ITEMS, 10, HEIGHT, FRAME);
+        // 10px a frame is about 600px/s, so half a second covers two items
+        assertEquals(Collections.emptyList(), window.onScroll(0, 4, ITEMS, 10, HEIGHT, 2 * FRAME).getStart());
+
+        // 100px a frame is about 6000px/s: fifteen items, capped at eight
+        List<Integer> fling = window.onScroll(0, 4, ITEMS, 100, HEIGHT, 3 * FRAME).getStart();
+
+        assertEquals(Arrays.asList(7, 8, 9, 10, 11, 12), fling);
+    }
+
+    @Test
+    void testReversingCancelsOutstandingPrefetches() {
+        window.onScroll(10, 14, ITEMS, 10, HEIGHT, FRAME);
+
+        PrefetchWindow.Plan reversed = window.onScroll(10, 14, ITEMS, -10, HEIGHT, 2 * FRAME);
+
+        assertEquals(Arrays.asList(15, 16), reversed.getCancel());
+        assertEquals(Arrays.asList(9, 8), reversed.getStart());
+        assertEquals(2, window.getCancelled());
+    }
+
+    @Test
+    void testVisiblePositionsAreNoLongerOutstanding() {
+        window.onScroll(0, 4, ITEMS, 10, HEIGHT, FRAME);
+        window.onScroll(2, 6, ITEMS, 300, HEIGHT, 2 * FRAME);
+
+        // 5 and 6 are on screen now, so reversing only cancels what is still ahead
+        PrefetchWindow.Plan reversed = window.onScroll(2, 6, ITEMS, -10, HEIGHT, 3 * FRAME);
+
+        assertTrue(reversed.getCancel().stream().allMatch(position -> position > 6));
+        assertEquals(Arrays.asList(1, 0), reversed.getStart());
+    }
+
+    @Test
+    void testStopsAtTheEndsOfTheList() {
+        assertEquals(Collections.singletonList(99), window.onScroll(94, 98, ITEMS, 10, HEIGHT, FRAME).getStart());
+        assertEquals(Collections.singletonList(99), window.reset());
+        assertEquals(Collections.emptyList(), window.onScroll(0, 4, ITEMS, -10, HEIGHT, 2 * FRAME).getStart());
+    }
+}
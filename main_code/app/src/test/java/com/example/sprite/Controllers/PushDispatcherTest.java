@@ -0,0 +1,155 @@
+package com.example.sprite.Controllers;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+
+/**
+ * Tests for {@link PushDispatcher} against a local HTTP/2 mock endpoint.
+ */
+public class PushDispatcherTest {
+
+    private static final String AUTH = "key=test";
+    private static final Pattern TOKEN = Pattern.compile("\"token-\\d+\"");
+
+    private MockWebServer server;
+    private OkHttpClient client;
+    private final AtomicInteger requests = new AtomicInteger();
+    private final AtomicInteger tokens = new AtomicInteger();
+    private final AtomicInteger unauthorized = new AtomicInteger();
+    private final AtomicInteger throttleNext = new AtomicInteger();
+
+    @BeforeEach
+    void setUp() throws Exception {
+        server = new MockWebServer();
+        server.setProtocols(Collections.singletonList(Protocol.H2_PRIOR_KNOWLEDGE));
+        server.setDispatcher(new Dispatcher() {
+            @Override
+            public MockResponse dispatch(RecordedRequest request) {
+                requests.incrementAndGet();
+                if (!AUTH.equals(request.getHeader("Authorization"))) {
+                    unauthorized.incrementAndGet();
+                    return new MockResponse().setResponseCode(401);
+                }
+                if (throttleNext.getAndDecrement() > 0) {
+                    return new MockResponse().setResponseCode(429).setHeader("Retry-After", "0");
+                }
+                Matcher matcher = TOKEN.matcher(request.getBody().readUtf8());
+                int count = 0;
+                while (matcher.find()) count++;
+                tokens.addAndGet(count);
+                return new MockResponse().setBody("{\"success\":" + count + ",\"failure\":0}");
+            }
+        });
+        server.start();
+        client = new OkHttpClient.Builder()
+                .protocols(Collections.singletonList(Protocol.H2_PRIOR_KNOWLEDGE))
+                .build();
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        server.shutdown();
+    }
+
+    private PushDispatcher dispatcher(double requestsPerSecond) {
+        return new PushDispatcher(client, server.url("/fcm/send").toString(), AUTH,
+                requestsPerSecond, new RetryPolicy(3, 1, 10));
+    }
+
+    private static List<PushDispatcher.Message> messages(int count, String title) {
+        List<PushDispatcher.Message> messages = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            messages.add(new PushDispatcher.Message("token-" + i, title, "You were selected", null));
+        }
+        return messages;
+    }
+
+    @Test
+    void testSameContentIsBatchedUpToTheTokenLimit() throws Exception {
+        PushResult result = dispatcher(1000).send(messages(1200, "Swim Lessons"))
+                .get(10, TimeUnit.SECONDS);
+
+        assertEquals(1200, result.getDelivered());
+        assertEquals(0, result.getFailed());
+        assertEquals(3, result.getRequests());
+        assertEquals(3, requests.get());
+        assertEquals(1200, tokens.get());
+        assertEquals(0, unauthorized.get());
+    }
+
+    @Test
+    void testDifferentContentGoesInSeparateRequests() throws Exception {
+        List<PushDispatcher.Message> messages = messages(10, "Swim Lessons");
+        messages.addAll(messages(10, "Piano Lessons"));
+        messages.add(new PushDispatcher.Message(null, "Swim Lessons", "You were selected", null));
+
+        PushResult result = dispatcher(1000).send(messages).get(10, TimeUnit.SECONDS);
+
+        assertEquals(21, result.getMessages());
+        assertEquals(20, result.getDelivered());
+        assertEquals(1, result.getFailed());
+        assertEquals(2, requests.get());
+    }
+
+    @Test
+    void testThrottledRequestsAreRetried() throws Exception {
+        throttleNext.set(2);
+
+        PushResult result = dispatcher(1000).send(messages(100, "Swim Lessons"))
+                .get(10, TimeUnit.SECONDS);
+
+        assertEquals(100, result.getDelivered());
+        assertEquals(2, result.getRetries());
+        assertEquals(3, requests.get());
+    }
+
+    @Test
+    void testRequestsAreRateLimited() throws Exception {
+        // Six distinct payloads at 20 requests/s need at least 250 ms between the first and last start
+        List<PushDispatcher.Message> messages = new ArrayList<>();
+        for (int i = 0; i < 6; i++) {
+            messages.addAll(messages(5, "Event " + i));
+        }
+
+        PushResult result = dispatcher(20).send(messages).get(10, TimeUnit.SECONDS);
+
+        assertEquals(30, result.getDelivered());
+        assertEquals(6, result.getRequests());
+        assertTrue(result.getElapsedNanos() >= TimeUnit.MILLISECONDS.toNanos(250),
+                "Finished in " + result.getElapsedNanos() / 1_000_000 + " ms");
+    }
+
+    @Test
+    void testManyMessagesShareOneConnection() throws Exception {
+        // 50 events' results to 1,000 entrants each
+        List<PushDispatcher.Message> messages = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            messages.addAll(messages(1000, "Event " + i));
+        }
+
+        PushResult result = dispatcher(10_000).send(messages).get(30, TimeUnit.SECONDS);
+
+        assertEquals(50_000, result.getDelivered());
+        assertEquals(100, result.getRequests());
+        assertEquals(1, client.connectionPool().connectionCount());
+    }
+}
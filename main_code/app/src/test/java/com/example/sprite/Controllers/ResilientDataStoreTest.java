@@ -0,0 +1,157 @@
+package com.example.sprite.Controllers;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.example.sprite.fakes.FaultInjectingDataStore;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Collections;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Unit tests for {@link ResilientDataStore}, {@link ResilientWriter},
+ * {@link RetryPolicy} and {@link CircuitBreaker}, driven by a fault-injecting store.
+ */
+public class ResilientDataStoreTest {
+
+    private final AtomicLong now = new AtomicLong();
+    private InMemoryDataStore backend;
+    private FaultInjectingDataStore faults;
+    private ResilientWriter writer;
+    private DataStore store;
+
+    /**
+     * Creates a store with fast retries (4 attempts) and a breaker that opens after 3 failures.
+     */
+    @BeforeEach
+    void setUp() {
+        backend = new InMemoryDataStore();
+        faults = new FaultInjectingDataStore(backend);
+        writer = new ResilientWriter(new RetryPolicy(4, 1, 5), 3, 1_000, now::get);
+        store = new ResilientDataStore(faults, writer);
+    }
+
+    /**
+     * Tests that backoff ceilings double from the base delay and stop at the cap.
+     */
+    @Test
+    void testBackoffIsCappedExponential() {
+        RetryPolicy policy = new RetryPolicy(10, 100, 1_000);
+
+        assertEquals(100, policy.getBackoffCeilingMillis(1));
+        assertEquals(400, policy.getBackoffCeilingMillis(3));
+        assertEquals(1_000, policy.getBackoffCeilingMillis(9));
+        for (int i = 0; i < 100; i++) {
+            long delay = policy.nextDelayMillis(3);
+            assertTrue(delay >= 0 && delay <= 400);
+        }
+    }
+
+    /**
+     * Tests that a write succeeds after transient failures.
+     */
+    @Test
+    void testTransientFailuresAreRetried() {
+        faults.failNext(2);
+
+        store.set("notifications", "n1", Collections.singletonMap("title", "Hi")).join();
+
+        assertEquals(3, faults.getWriteAttempts());
+        assertTrue(backend.get("notifications", "n1").join().exists());
+        assertEquals(2, writer.getRetryCount());
+    }
+
+    /**
+     * Tests that retrying after a lost acknowledgement leaves the same result as one write.
+     */
+    @Test
+    void testLostAckRetryIsIdempotent() {
+        store.set("events", "e1", Collections.singletonMap("waitingList", Collections.emptyList())).join();
+        faults.loseAcks(1);
+
+        store.update("events", "e1", Collections.singletonMap("waitingList", StoreValues.arrayUnion("u1"))).join();
+
+        assertEquals(Collections.singletonList("u1"), backend.get("events", "e1").join().get("waitingList"));
+    }
+
+    /**
+     * Tests that increments are never retried, since a lost acknowledgement would double-count.
+     */
+    @Test
+    void testIncrementsAreNotRetried() {
+        store.set("counters", "c1", Collections.singletonMap("unread", 0)).join();
+        faults.loseAcks(1);
+
+        CompletionException thrown = assertThrows(CompletionException.class, () ->
+                store.update("counters", "c1", Collections.singletonMap("unread", StoreValues.increment(1))).join());
+
+        assertFalse(thrown.getCause() instanceof CircuitBreaker.OpenException);
+        assertEquals(1L, backend.get("counters", "c1").join().getLong("unread"));
+    }
+
+    /**
+     * Tests that permanent failures are not retried and do not trip the breaker.
+     */
+    @Test
+    void testPermanentFailuresFailFast() {
+        store.update("events", "missing", Collections.singletonMap("title", "x"))
+                .handle((ignored, error) -> null).join();
+
+        assertEquals(1, faults.getWriteAttempts());
+        assertEquals(CircuitBreaker.State.CLOSED, writer.breaker("events").getState());
+    }
+
+    /**
+     * Tests that the breaker opens during an outage, rejects writes without reaching
+     * the store, and closes again after a successful trial.
+     */
+    @Test
+    void testBreakerOpensAndRecovers() {
+        faults.failNext(100);
+
+        CompletionException outage = assertThrows(CompletionException.class, () ->
+                store.set("events", "e1", Collections.singletonMap("title", "x")).join());
+        // The third failure opens the breaker, which stops the fourth attempt
+        assertInstanceOf(CircuitBreaker.OpenException.class, outage.getCause());
+        assertEquals(CircuitBreaker.State.OPEN, writer.breaker("events").getState());
+        int attemptsDuringOutage = faults.getWriteAttempts();
+        assertEquals(3, attemptsDuringOutage);
+
+        CompletionException rejected = assertThrows(CompletionException.class, () ->
+                store.set("events", "e2", Collections.singletonMap("title", "y")).join());
+        assertInstanceOf(CircuitBreaker.OpenException.class, rejected.getCause());
+        assertEquals(attemptsDuringOutage, faults.getWriteAttempts());
+
+        // Other collections are unaffected
+        faults.failNext(0);
+        store.set("users", "u1", Collections.singletonMap("name", "A")).join();
+
+        now.addAndGet(1_000);
+        assertEquals(CircuitBreaker.State.HALF_OPEN, writer.breaker("events").getState());
+        store.set("events", "e3", Collections.singletonMap("title", "z")).join();
+        assertEquals(CircuitBreaker.State.CLOSED, writer.breaker("events").getState());
+    }
+
+    /**
+     * Tests that failed batches are replayed in full on retry.
+     */
+    @Test
+    void testBatchIsReplayedOnRetry() {
+        faults.failNext(1);
+
+        store.batch()
+                .set("events", "e1", Collections.singletonMap("title", "a"))
+                .set("events", "e2", Collections.singletonMap("title", "b"))
+                .commit().join();
+
+        assertEquals(2, backend.size("events"));
+        assertEquals(2, faults.getWriteAttempts());
+    }
+}
@@ -0,0 +1,127 @@
+package com.example.sprite.Controllers;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Unit tests for {@link StoreMetrics}, {@link LatencyHistogram},
+ * {@link InstrumentedDataStore} and {@link MetricsFileExporter}.
+ */
+public class StoreMetricsTest {
+
+    @TempDir
+    File tempDir;
+
+    /**
+     * Tests that every value falls inside the bounds of its bucket.
+     */
+    @Test
+    void testBucketBoundsContainValue() {
+        for (long value = 0; value < 1_000_000; value = value * 3 / 2 + 1) {
+            int index = LatencyHistogram.bucketIndex(value);
+            assertTrue(LatencyHistogram.bucketUpperBound(index) >= value);
+            assertTrue(index == 0 || LatencyHistogram.bucketUpperBound(index - 1) < value);
+        }
+    }
+
+    /**
+     * Tests percentile estimates against a uniform distribution.
+     */
+    @Test
+    void testPercentilesAreWithinBucketPrecision() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int micros = 1; micros <= 10_000; micros++) {
+            histogram.recordMicros(micros);
+        }
+
+        assertEquals(10_000, histogram.getCount());
+        assertEquals(10_000, histogram.getMaxMicros());
+        assertEquals(5_000, histogram.getPercentileMicros(50), 5_000 * 0.07);
+        assertEquals(9_900, histogram.getPercentileMicros(99), 9_900 * 0.07);
+        assertEquals(5_000.5, histogram.getMeanMicros(), 0.01);
+    }
+
+    /**
+     * Tests that concurrent recording does not lose counts.
+     */
+    @Test
+    void testConcurrentRecording() throws InterruptedException {
+        OperationStats stats = new OperationStats("op");
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        for (int t = 0; t < 4; t++) {
+            pool.execute(() -> {
+                for (int i = 0; i < 10_000; i++) {
+                    stats.record(TimeUnit.MILLISECONDS.toNanos(i % 50), i % 10 != 0, 1, 10, 0);
+                }
+            });
+        }
+        pool.shutdown();
+        assertTrue(pool.awaitTermination(10, TimeUnit.SECONDS));
+
+        OperationStats.Snapshot snapshot = stats.snapshot();
+        assertEquals(40_000, snapshot.calls);
+        assertEquals(4_000, snapshot.errors);
+        assertEquals(40_000, snapshot.documents);
+        assertEquals(400_000, snapshot.bytesIn);
+    }
+
+    /**
+     * Tests that the decorator records calls, documents and payload sizes per collection.
+     */
+    @Test
+    void testInstrumentedDataStoreRecordsOperations() {
+        StoreMetrics metrics = new StoreMetrics(Runnable::run);
+        metrics.setPayloadSampleRate(1);
+        DataStore store = new InstrumentedDataStore(new InMemoryDataStore(), metrics);
+
+        store.set("events", "e1", Collections.singletonMap("title", "Swim")).join();
+        store.set("events", "e2", Collections.singletonMap("title", "Run")).join();
+        store.query(StoreQuery.collection("events")).join();
+        store.update("events", "missing", Collections.singletonMap("title", "x"));
+
+        OperationStats.Snapshot sets = metrics.stats("DataStore.set:events").snapshot();
+        assertEquals(2, sets.calls);
+        // "title" (5 + 1) + "Swim" (4 + 1) and "title" (5 + 1) + "Run" (3 + 1)
+        assertEquals(21, sets.bytesOut);
+
+        OperationStats.Snapshot queries = metrics.stats("DataStore.query:events").snapshot();
+        assertEquals(2, queries.documents);
+        assertTrue(queries.bytesIn > 0);
+
+        assertEquals(1, metrics.stats("DataStore.update:events").snapshot().errors);
+        assertTrue(metrics.dump().contains("DataStore.query:events"));
+    }
+
+    /**
+     * Tests that the exporter writes JSON lines and rolls files over at the size limit.
+     */
+    @Test
+    void testFileExporterRollsOver() throws IOException {
+        StoreMetrics metrics = new StoreMetrics();
+        metrics.record("DatabaseService.getEvent", TimeUnit.MILLISECONDS.toNanos(12), true, null, null);
+        MetricsFileExporter exporter = new MetricsFileExporter(tempDir, metrics, 1, 3);
+
+        for (int i = 0; i < 5; i++) {
+            exporter.export();
+        }
+
+        List<String> lines = Files.readAllLines(exporter.getCurrentFile().toPath(), StandardCharsets.UTF_8);
+        assertEquals(1, lines.size());
+        assertTrue(lines.get(0).contains("\"op\":\"DatabaseService.getEvent\""));
+        assertTrue(new File(tempDir, MetricsFileExporter.FILE_NAME + ".2.log").exists());
+        assertEquals(3, tempDir.listFiles().length);
+    }
+}
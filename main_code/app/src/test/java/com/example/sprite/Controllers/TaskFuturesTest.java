@@ -0,0 +1,139 @@
+package com.example.sprite.Controllers;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.google.android.gms.tasks.OnCompleteListener;
+import com.google.android.gms.tasks.Task;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Unit tests for {@link TaskFutures}.
+ * Tasks are mocked so the adapters can be exercised without Play Services.
+ */
+public class TaskFuturesTest {
+
+    @SuppressWarnings("unchecked")
+    private static <T> Task<T> successfulTask(T result) {
+        Task<T> task = mock(Task.class);
+        when(task.isSuccessful()).thenReturn(true);
+        when(task.getResult()).thenReturn(result);
+        return task;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> Task<T> failedTask(Exception error) {
+        Task<T> task = mock(Task.class);
+        when(task.isSuccessful()).thenReturn(false);
+        when(task.getException()).thenReturn(error);
+        return task;
+    }
+
+    /**
+     * Tests that a listener-style call completes the future with the task result.
+     */
+    @Test
+    void testCallCompletesWithResult() {
+        CompletableFuture<String> future = TaskFutures.call(listener -> listener.onComplete(successfulTask("event1")));
+
+        assertEquals("event1", future.join());
+    }
+
+    /**
+     * Tests that a failed task fails the future with the task's exception.
+     */
+    @Test
+    void testCallPropagatesFailure() {
+        IllegalStateException error = new IllegalStateException("offline");
+        CompletableFuture<String> future = TaskFutures.call(listener -> listener.onComplete(failedTask(error)));
+
+        ExecutionException thrown = assertThrows(ExecutionException.class, future::get);
+        assertEquals(error, thrown.getCause());
+    }
+
+    /**
+     * Tests that allAsList keeps results in input order.
+     */
+    @Test
+    void testAllAsListPreservesOrder() {
+        CompletableFuture<String> first = new CompletableFuture<>();
+        CompletableFuture<String> second = new CompletableFuture<>();
+        CompletableFuture<List<String>> all = TaskFutures.allAsList(Arrays.asList(first, second));
+
+        second.complete("b");
+        assertFalse(all.isDone());
+        first.complete("a");
+
+        assertEquals(Arrays.asList("a", "b"), all.join());
+    }
+
+    /**
+     * Tests that allAsList fails fast without waiting for the remaining futures.
+     */
+    @Test
+    void testAllAsListFailsFast() {
+        CompletableFuture<String> first = new CompletableFuture<>();
+        CompletableFuture<String> second = new CompletableFuture<>();
+        CompletableFuture<List<String>> all = TaskFutures.allAsList(Arrays.asList(first, second));
+
+        second.completeExceptionally(new IllegalStateException("boom"));
+
+        assertTrue(all.isCompletedExceptionally());
+    }
+
+    /**
+     * Tests that successfulAsList substitutes null for failures.
+     */
+    @Test
+    void testSuccessfulAsListToleratesFailures() {
+        CompletableFuture<String> ok = CompletableFuture.completedFuture("ok");
+        CompletableFuture<String> failed = new CompletableFuture<>();
+        failed.completeExceptionally(new IllegalStateException("boom"));
+
+        List<String> results = TaskFutures.successfulAsList(Arrays.asList(ok, failed)).join();
+
+        assertEquals("ok", results.get(0));
+        assertNull(results.get(1));
+    }
+
+    /**
+     * Tests that a future which never completes is failed by the timeout.
+     */
+    @Test
+    void testWithTimeoutFailsSlowFuture() {
+        CompletableFuture<String> never = new CompletableFuture<>();
+        TaskFutures.withTimeout(never, 20, TimeUnit.MILLISECONDS);
+
+        ExecutionException thrown = assertThrows(ExecutionException.class, never::get);
+        assertInstanceOf(TimeoutException.class, thrown.getCause());
+    }
+
+    /**
+     * Tests that cancelling the future detaches it from a task that completes later.
+     */
+    @Test
+    @SuppressWarnings("unchecked")
+    void testCancelDetachesFromTask() {
+        OnCompleteListener<String>[] captured = new OnCompleteListener[1];
+        CompletableFuture<String> future = TaskFutures.call(listener -> captured[0] = listener);
+
+        future.cancel(false);
+        captured[0].onComplete(successfulTask("late"));
+
+        assertTrue(future.isCancelled());
+    }
+}
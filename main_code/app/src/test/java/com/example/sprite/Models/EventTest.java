@@ -308,6 +308,30 @@ public class EventTest {
         assertNull(nullEvent.getWaitingList());
     }
 
+    @Test
+    void testPosterUrlForWidthPicksSmallestVariantThatFits() {
+        event.setPosterImageUrl("original.jpg");
+        Map<String, String> variants = new HashMap<>();
+        variants.put("128", "thumb.webp");
+        variants.put("512", "medium.webp");
+        variants.put("1080", "large.webp");
+        event.setPosterVariants(variants);
+
+        assertEquals("thumb.webp", event.getPosterUrlForWidth(96));
+        assertEquals("medium.webp", event.getPosterUrlForWidth(300));
+        assertEquals("large.webp", event.getPosterUrlForWidth(1080));
+        assertEquals("original.jpg", event.getPosterUrlForWidth(1440));
+    }
+
+    @Test
+    void testPosterUrlForWidthFallsBackToOriginal() {
+        event.setPosterImageUrl("original.jpg");
+        assertEquals("original.jpg", event.getPosterUrlForWidth(128));
+
+        event.setPosterVariants(new HashMap<>());
+        assertEquals("original.jpg", event.getPosterUrlForWidth(128));
+    }
+
     @Test
     void testEventLifecycle() {
         // Start as draft
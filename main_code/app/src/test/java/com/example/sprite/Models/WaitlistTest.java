@@ -76,7 +76,7 @@ public class WaitlistTest {
 
         // verify that NotificationService.notifySelectedFromWaitlist was called exactly once
         verify(mockNotificationService, times(1))
-                .notifySelectedFromWaitlist(eq("entrant1"), eq("event1"), eq("Test Event"), any());
+                .notifySelectedFromWaitlist(eq("entrant1"), eq("event1"), eq("Test Event"), eq(0), any());
     }
 
     /**
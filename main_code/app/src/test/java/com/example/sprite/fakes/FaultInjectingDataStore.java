@@ -0,0 +1,86 @@
+package com.example.sprite.fakes;
+
+import com.example.sprite.Controllers.DataStore;
+import com.example.sprite.Controllers.StoreBatch;
+import com.example.sprite.Controllers.StoreDocument;
+import com.example.sprite.Controllers.StoreQuery;
+import com.example.sprite.Controllers.StoreTransaction;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Wraps a {@link DataStore} and fails writes on demand.
+ * {@link #failNext(int)} rejects writes before they apply (an outage);
+ * {@link #loseAcks(int)} applies writes but reports failure (a lost acknowledgement).
+ * Reads are never faulted.
+ */
+public class FaultInjectingDataStore implements DataStore {
+    private final DataStore delegate;
+    private final AtomicInteger failuresLeft = new AtomicInteger();
+    private final AtomicInteger lostAcksLeft = new AtomicInteger();
+    private final AtomicInteger writeAttempts = new AtomicInteger();
+    private volatile Supplier<Throwable> error = () -> new IOException("Injected fault");
+
+    public FaultInjectingDataStore(DataStore delegate) { this.delegate = delegate; }
+
+    public FaultInjectingDataStore failNext(int writes) { failuresLeft.set(writes); return this; }
+    public FaultInjectingDataStore loseAcks(int writes) { lostAcksLeft.set(writes); return this; }
+    public FaultInjectingDataStore failWith(Supplier<Throwable> error) { this.error = error; return this; }
+    public int getWriteAttempts() { return writeAttempts.get(); }
+
+    private <T> CompletableFuture<T> write(Supplier<CompletableFuture<T>> write) {
+        writeAttempts.incrementAndGet();
+        if (failuresLeft.getAndUpdate(n -> Math.max(0, n - 1)) > 0) return failed();
+        CompletableFuture<T> result = write.get();
+        if (lostAcksLeft.getAndUpdate(n -> Math.max(0, n - 1)) > 0) return result.thenCompose(ignored -> failed());
+        return result;
+    }
+
+    private <T> CompletableFuture<T> failed() {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        future.completeExceptionally(error.get());
+        return future;
+    }
+
+    @Override public String newDocumentId(String collection) { return delegate.newDocumentId(collection); }
+    @Override public CompletableFuture<StoreDocument> get(String collection, String id) { return delegate.get(collection, id); }
+    @Override public CompletableFuture<List<StoreDocument>> query(StoreQuery query) { return delegate.query(query); }
+
+    @Override
+    public CompletableFuture<Void> set(String collection, String id, Map<String, Object> data) {
+        return write(() -> delegate.set(collection, id, data));
+    }
+
+    @Override
+    public CompletableFuture<Void> update(String collection, String id, Map<String, Object> updates) {
+        return write(() -> delegate.update(collection, id, updates));
+    }
+
+    @Override
+    public CompletableFuture<Void> delete(String collection, String id) {
+        return write(() -> delegate.delete(collection, id));
+    }
+
+    @Override
+    public StoreBatch batch() {
+        StoreBatch batch = delegate.batch();
+        return new StoreBatch() {
+            @Override public StoreBatch set(String c, String id, Map<String, Object> d) { batch.set(c, id, d); return this; }
+            @Override public StoreBatch merge(String c, String id, Map<String, Object> d) { batch.merge(c, id, d); return this; }
+            @Override public StoreBatch update(String c, String id, Map<String, Object> u) { batch.update(c, id, u); return this; }
+            @Override public StoreBatch delete(String c, String id) { batch.delete(c, id); return this; }
+            @Override public int size() { return batch.size(); }
+            @Override public CompletableFuture<Void> commit() { return write(batch::commit); }
+        };
+    }
+
+    @Override
+    public <T> CompletableFuture<T> runTransaction(StoreTransaction.Function<T> function) {
+        return write(() -> delegate.runTransaction(function));
+    }
+}
@@ -0,0 +1,71 @@
+package com.example.sprite.fakes;
+
+import com.example.sprite.Controllers.BlobStore;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A {@link BlobStore} holding files in memory, listed in name order like Firebase Storage.
+ * Records each file's creation time and how many listings were made.
+ */
+public class InMemoryBlobStore implements BlobStore {
+    private final TreeMap<String, Long> files = new TreeMap<>();
+    private final AtomicInteger listCalls = new AtomicInteger();
+    private Runnable beforeCreatedAt = () -> { };
+
+    public synchronized InMemoryBlobStore put(String path, long createdAt) {
+        files.put(path, createdAt);
+        return this;
+    }
+
+    public synchronized boolean contains(String path) { return files.containsKey(path); }
+
+    public int getListCalls() { return listCalls.get(); }
+
+    /** Runs an action before each creation time lookup, to change things in the middle of a sweep. */
+    public void setBeforeCreatedAt(Runnable action) { beforeCreatedAt = action; }
+
+    @Override
+    public synchronized CompletableFuture<Page> list(String folder, int maxResults, String pageToken) {
+        listCalls.incrementAndGet();
+        String prefix = folder + "/";
+        List<String> paths = new ArrayList<>();
+        String next = null;
+        for (Map.Entry<String, Long> entry : files.tailMap(pageToken == null ? prefix : pageToken, true).entrySet()) {
+            String path = entry.getKey();
+            if (!path.startsWith(prefix)) break;
+            if (path.indexOf('/', prefix.length()) >= 0) continue;
+            if (paths.size() == maxResults) {
+                next = path;
+                break;
+            }
+            paths.add(path);
+        }
+        return CompletableFuture.completedFuture(new Page(paths, next));
+    }
+
+    @Override
+    public CompletableFuture<Long> createdAt(String path) {
+        beforeCreatedAt.run();
+        synchronized (this) {
+            Long createdAt = files.get(path);
+            if (createdAt == null) {
+                CompletableFuture<Long> missing = new CompletableFuture<>();
+                missing.completeExceptionally(new IllegalStateException("No such file: " + path));
+                return missing;
+            }
+            return CompletableFuture.completedFuture(createdAt);
+        }
+    }
+
+    @Override
+    public synchronized CompletableFuture<Void> delete(String path) {
+        files.remove(path);
+        return CompletableFuture.completedFuture(null);
+    }
+}
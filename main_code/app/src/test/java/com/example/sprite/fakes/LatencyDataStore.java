@@ -0,0 +1,80 @@
+package com.example.sprite.fakes;
+
+import com.example.sprite.Controllers.DataStore;
+import com.example.sprite.Controllers.StoreBatch;
+import com.example.sprite.Controllers.StoreDocument;
+import com.example.sprite.Controllers.StoreQuery;
+import com.example.sprite.Controllers.StoreTransaction;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Wraps a {@link DataStore} and delays every result by a fixed network latency,
+ * completing it on a timer thread like a real backend would.
+ * Tracks how many calls were made and the most that were outstanding at once.
+ */
+public class LatencyDataStore implements DataStore {
+    private final DataStore delegate;
+    private final long latencyMicros;
+    private final ScheduledExecutorService timer = Executors.newScheduledThreadPool(4, runnable -> {
+        Thread thread = new Thread(runnable, "LatencyDataStore");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger maxInFlight = new AtomicInteger();
+    private final AtomicInteger calls = new AtomicInteger();
+
+    public LatencyDataStore(DataStore delegate, long latencyMicros) {
+        this.delegate = delegate;
+        this.latencyMicros = latencyMicros;
+    }
+
+    public int getMaxInFlight() { return maxInFlight.get(); }
+
+    public int getCalls() { return calls.get(); }
+
+    private <T> CompletableFuture<T> delayed(Supplier<CompletableFuture<T>> call) {
+        calls.incrementAndGet();
+        maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+        CompletableFuture<T> result = new CompletableFuture<>();
+        call.get().whenComplete((value, error) -> timer.schedule(() -> {
+            inFlight.decrementAndGet();
+            if (error != null) result.completeExceptionally(error);
+            else result.complete(value);
+        }, latencyMicros, TimeUnit.MICROSECONDS));
+        return result;
+    }
+
+    @Override public String newDocumentId(String collection) { return delegate.newDocumentId(collection); }
+    @Override public CompletableFuture<StoreDocument> get(String c, String id) { return delayed(() -> delegate.get(c, id)); }
+    @Override public CompletableFuture<Void> set(String c, String id, Map<String, Object> d) { return delayed(() -> delegate.set(c, id, d)); }
+    @Override public CompletableFuture<Void> update(String c, String id, Map<String, Object> u) { return delayed(() -> delegate.update(c, id, u)); }
+    @Override public CompletableFuture<Void> delete(String c, String id) { return delayed(() -> delegate.delete(c, id)); }
+    @Override public CompletableFuture<List<StoreDocument>> query(StoreQuery query) { return delayed(() -> delegate.query(query)); }
+
+    @Override
+    public StoreBatch batch() {
+        StoreBatch batch = delegate.batch();
+        return new StoreBatch() {
+            @Override public StoreBatch set(String c, String id, Map<String, Object> d) { batch.set(c, id, d); return this; }
+            @Override public StoreBatch merge(String c, String id, Map<String, Object> d) { batch.merge(c, id, d); return this; }
+            @Override public StoreBatch update(String c, String id, Map<String, Object> u) { batch.update(c, id, u); return this; }
+            @Override public StoreBatch delete(String c, String id) { batch.delete(c, id); return this; }
+            @Override public int size() { return batch.size(); }
+            @Override public CompletableFuture<Void> commit() { return delayed(batch::commit); }
+        };
+    }
+
+    @Override
+    public <T> CompletableFuture<T> runTransaction(StoreTransaction.Function<T> function) {
+        return delayed(() -> delegate.runTransaction(function));
+    }
+}